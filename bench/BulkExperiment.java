@@ -0,0 +1,79 @@
+import java.time.LocalDate;
+import java.util.function.IntSupplier;
+
+// 500k tasks: completing a quarter of them one toggle at a time vs completeWhere
+// (time and undo history), then reprioritizeWhere / archiveWhere and undoing each
+public class BulkExperiment {
+    private static final int BULK_TASKS = 500_000;
+
+    public static void main(String[] args) {
+        bulk();
+    }
+
+    private static void bulk() {
+        LocalDate cutoff = LocalDate.of(2025, 4, 1);
+        System.out.printf("tasks: %d, completing the ones due before %s%n%n", BULK_TASKS, cutoff);
+        System.out.printf("%-18s %10s %10s %14s%n", "", "changed", "ms", "undo bytes");
+
+        // Warmed up by completing and reopening them twice first
+        TaskManager single = Experiments.filledManager(BULK_TASKS);
+        single.getMetrics().setEnabled(false);
+        for (int round = 0; round < 2; round++) {
+            toggleDueBefore(single, cutoff);
+            toggleDueBefore(single, cutoff);
+        }
+        single.clearHistory();
+        long start = System.nanoTime();
+        int changed = toggleDueBefore(single, cutoff);
+        System.out.printf("%-18s %10d %10d %14d   (%d undo steps kept)%n", "one at a time", changed,
+                (System.nanoTime() - start) / 1_000_000, single.getHistoryBytes(), single.getUndoCount());
+        single = null;
+
+        TaskManager tm = Experiments.filledManager(BULK_TASKS);
+        tm.getMetrics().setEnabled(false);
+        IntSupplier complete = () -> tm.completeWhere(task -> task.getDueDate().isBefore(cutoff));
+        IntSupplier reprioritize = () -> tm.reprioritizeWhere(
+                task -> !task.isCompleted() && task.getDueDate().isBefore(cutoff.plusMonths(2)), Tasks.Priority.HIGH);
+        IntSupplier archive = () -> tm.archiveWhere(task -> task.getPriority() == Tasks.Priority.LOW);
+        for (int round = 0; round < 3; round++) {
+            complete.getAsInt();
+            reprioritize.getAsInt();
+            archive.getAsInt();
+            tm.undo();
+            tm.undo();
+            tm.undo();
+        }
+        tm.clearHistory();
+        bulkRow("completeWhere", tm, complete);
+        bulkRow("reprioritizeWhere", tm, reprioritize);
+        bulkRow("archiveWhere", tm, archive);
+
+        System.out.println();
+        for (String name : new String[]{"archiveWhere", "reprioritizeWhere", "completeWhere"}) {
+            start = System.nanoTime();
+            tm.undo();
+            System.out.printf("undo %-18s %6d ms%n", name, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Toggles every task due before the cutoff, one call each
+    private static int toggleDueBefore(TaskManager tm, LocalDate cutoff) {
+        int changed = 0;
+        for (int id = 1; id <= BULK_TASKS; id++) {
+            if (tm.getTask(id).getDueDate().isBefore(cutoff)) {
+                tm.toggleTaskStatus(id);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // One bulk change: how many tasks it changed, how long it took, and what its undo entry holds
+    private static void bulkRow(String name, TaskManager tm, IntSupplier change) {
+        long bytes = tm.getHistoryBytes();
+        long start = System.nanoTime();
+        int changed = change.getAsInt();
+        System.out.printf("%-18s %10d %10d %14d%n", name, changed, (System.nanoTime() - start) / 1_000_000,
+                tm.getHistoryBytes() - bytes);
+    }
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// The change feed on 100k tasks: update cost with no subscribers, with a fast one and with one
+// that never reads (and gets told to resync instead of holding writers up), and catching up
+// from a version vs reloading the whole list
+public class ChangeFeedExperiment {
+    private static final int CHANGE_TASKS = 100_000;
+    private static final int CHANGE_OPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        changes();
+    }
+
+    private static void changes() throws IOException, InterruptedException {
+        TaskManager tm = Experiments.filledManager(CHANGE_TASKS);
+        tm.getMetrics().setEnabled(false);
+        Random random = new Random(11);
+        changeOps(tm, random);   // warm up
+        System.out.printf("%-24s %10s%n", "subscribers", "update ns");
+        System.out.printf("%-24s %10d%n", "none", changeOps(tm, random));
+
+        // One subscriber nobody ever reads, then also one thread reading as fast as it can
+        ChangeFeed.Subscription stalled = tm.subscribe(tm.getVersion());
+        System.out.printf("%-24s %10d%n", "1 stalled", changeOps(tm, random));
+        ChangeFeed.Subscription fast = tm.subscribe(tm.getVersion());
+        LongAdder delivered = new LongAdder();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    delivered.add(fast.poll(100, TimeUnit.MILLISECONDS).size());
+                }
+            } catch (InterruptedException e) {
+                // done
+            }
+        });
+        reader.start();
+        long nanos = changeOps(tm, random);
+        reader.interrupt();
+        reader.join();
+        delivered.add(fast.poll().size());
+        System.out.printf("%-24s %10d%n", "1 fast + 1 stalled", nanos);
+        System.out.printf("%nfast:    %d delivered, %d coalesced%n", delivered.sum(), fast.getCoalescedCount());
+        System.out.printf("stalled: resync = %b, %d waiting%n", stalled.takeResync(), stalled.poll().size());
+        fast.close();
+        stalled.close();
+
+        // A client 1,000 changes behind: catch up from its version, or fetch everything again
+        long behind = tm.getVersion() - 1_000;
+        System.out.printf("%n%-22s %12s %14s%n", "", "us/run", "bytes/run");
+        Experiments.printBest("catch up 1000", () -> tm.changesSince(behind).size());
+        Experiments.printBest("reload all", () -> new ArrayList<>(tm.getTasks()).size());
+        tm.close();
+    }
+
+    // Average ns per update, on random tasks (so subscribers see a mix of new and repeated IDs)
+    private static long changeOps(TaskManager tm, Random random) {
+        long start = System.nanoTime();
+        for (int i = 0; i < CHANGE_OPS; i++) {
+            tm.updateTask(1 + random.nextInt(CHANGE_TASKS)).priority(Tasks.Priority.values()[i % 3]).apply();
+        }
+        long nanos = (System.nanoTime() - start) / CHANGE_OPS;
+        tm.clearHistory();
+        return nanos;
+    }
+}
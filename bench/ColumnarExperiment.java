@@ -0,0 +1,97 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Two million tasks as an ArrayList<Tasks> vs a ColumnarTaskStore: heap per task, full GC pause
+// with them alive, young GC time while garbage is churned, and a scan.
+// Give it a fixed heap (e.g. java -Xms3g -Xmx3g ColumnarExperiment).
+public class ColumnarExperiment {
+    private static final int COLUMNAR_TASKS = 2_000_000;
+
+    public static void main(String[] args) {
+        columnar();
+    }
+
+    // The same tasks kept both ways. Every task gets its own strings and dates, the way
+    // loading them from disk would; descriptions repeat (1,000 different ones), titles don't.
+    private static void columnar() {
+        System.out.printf("tasks: %d%n%n", COLUMNAR_TASKS);
+        System.out.printf("%-16s %12s %14s %16s %12s %12s%n",
+                "", "bytes/task", "full GC ms", "young GC ms (n)", "scan ms", "get ns");
+        long before = Experiments.usedHeap();
+        ArrayList<Tasks> list = new ArrayList<>();
+        fillColumnar(list);
+        columnarRow("ArrayList<Tasks>", list, Experiments.usedHeap() - before);
+        list = null;
+
+        before = Experiments.usedHeap();
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        fillColumnar(store);
+        columnarRow("ColumnarTaskStore", store, Experiments.usedHeap() - before);
+
+        // Reading one column only (nothing gets built)
+        long start = System.nanoTime();
+        int high = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (store.getPriority(i) == Tasks.Priority.HIGH) high++;
+        }
+        System.out.printf("%ncolumn scan ms:  %.1f (%d high)%n", (System.nanoTime() - start) / 1e6, high);
+        System.out.printf("estimated bytes/task: %.1f, distinct strings: %d%n",
+                (double) store.estimatedBytes() / store.size(), store.getDistinctStrings());
+    }
+
+    private static void fillColumnar(List<Tasks> tasks) {
+        Random random = new Random(11);
+        Tasks.Priority[] priorities = Tasks.Priority.values();
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < COLUMNAR_TASKS; i++) {
+            tasks.add(Tasks.restore(i + 1, "Task " + i, "Description number " + random.nextInt(1_000),
+                    LocalDate.ofEpochDay(20_000 + random.nextInt(1_000)), priorities[i % 3],
+                    created.plusNanos(i * 1_000_123L), (i & 3) == 0, false));
+        }
+    }
+
+    // Heap per task, then with the tasks alive: a full GC, young GCs while 6 GB of short-lived
+    // garbage is made, and walking all of them (building each Tasks for the columnar one)
+    private static void columnarRow(String name, List<Tasks> tasks, long bytes) {
+        long fullGc = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fullGc = Math.min(fullGc, System.nanoTime() - start);
+        }
+
+        long gcBefore = Experiments.gcMillis();
+        long countBefore = Experiments.gcCount();
+        long sink = 0;
+        byte[][] recent = new byte[1024][];   // so the garbage really gets allocated
+        for (int i = 0; i < 100_000_000; i++) {
+            recent[i & 1023] = new byte[48];
+        }
+        long youngGc = Experiments.gcMillis() - gcBefore;
+        long youngCount = Experiments.gcCount() - countBefore;
+
+        long scan = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (Tasks task : tasks) {
+                sink += task.getDueDate().getDayOfMonth();
+            }
+            scan = Math.min(scan, System.nanoTime() - start);
+        }
+
+        Random random = new Random(5);
+        int gets = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < gets; i++) {
+            sink += tasks.get(random.nextInt(tasks.size())).getId();
+        }
+        long get = (System.nanoTime() - start) / gets;
+        if (sink == 42) System.out.println();   // keep the loops from being optimised away
+
+        System.out.printf("%-16s %12.1f %14.1f %16s %12.1f %12d%n", name, (double) bytes / tasks.size(),
+                fullGc / 1e6, youngGc + " (" + youngCount + ")", scan / 1e6, get);
+    }
+}
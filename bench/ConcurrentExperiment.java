@@ -0,0 +1,76 @@
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ConcurrentTaskManager: the heap cost of 50k sessions, then throughput of a mixed
+// read/write load with 1 .. 2x cores threads
+public class ConcurrentExperiment {
+    private static final int CONCURRENT_TASKS = 10_000;
+    private static final int CONCURRENT_MILLIS = 1_000;
+    private static final int SESSIONS = 50_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        concurrent();
+    }
+
+    private static void concurrent() throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        sessions();
+
+        System.out.printf("%-10s %15s%n", "threads", "ops/s");
+        for (int threads = 1; threads <= cores * 2; threads *= 2) {
+            System.out.printf("%-10d %15.0f%n", threads, throughput(threads));
+        }
+    }
+
+    // Heap per session when each of SESSIONS sessions has done one edit
+    private static void sessions() {
+        ConcurrentTaskManager tm = new ConcurrentTaskManager();
+        for (int i = 0; i < 1_000; i++) {
+            tm.addTask("Task " + i, "Description for task " + i, LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        }
+        long before = Experiments.usedHeap();
+        for (int i = 0; i < SESSIONS; i++) {
+            tm.session("user-" + i).toggleTaskStatus(1 + i % 1_000);
+        }
+        long after = Experiments.usedHeap();
+        System.out.printf("sessions:   %d, about %d bytes each (tasks edited included)%n", tm.getSessionCount(), (after - before) / SESSIONS);
+    }
+
+    // 70% reads of the default list, 30% edits/toggles of random tasks, for a fixed time
+    private static double throughput(int threads) throws InterruptedException {
+        ConcurrentTaskManager tm = new ConcurrentTaskManager();
+        for (int i = 0; i < CONCURRENT_TASKS; i++) {
+            tm.addTask("Task " + i, "Description for task " + i, LocalDate.of(2025, 1 + i % 12, 1 + i % 28), Tasks.Priority.values()[i % 3]);
+        }
+        long[] counts = new long[threads];
+        long deadline = System.nanoTime() + CONCURRENT_MILLIS * 1_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    int id = 1 + random.nextInt(CONCURRENT_TASKS);
+                    int dice = random.nextInt(10);
+                    if (dice < 7) {
+                        tm.getTasks().size();
+                    } else if (dice < 9) {
+                        tm.toggleTaskStatus(id);
+                    } else {
+                        tm.updateTask(id).title("Edited " + done).apply();
+                    }
+                    done++;
+                }
+                counts[slot] = done;
+            });
+            workers[t].start();
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += counts[t];
+        }
+        return total / (CONCURRENT_MILLIS / 1000.0);
+    }
+}
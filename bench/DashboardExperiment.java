@@ -0,0 +1,87 @@
+import java.time.LocalDate;
+import java.util.Random;
+
+// One million tasks: completed / overdue / per-priority counts worked out from the list
+// vs read from TaskAggregates, and what keeping the aggregates costs each change
+public class DashboardExperiment {
+    private static final int DASHBOARD_TASKS = 1_000_000;
+    private static final int OPS = 20_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        dashboard();
+    }
+
+    private static void dashboard() {
+        TaskManager tm = Experiments.filledManager(DASHBOARD_TASKS);
+        tm.getMetrics().setEnabled(false);
+        TaskAggregates totals = tm.getAggregates();
+        LocalDate today = LocalDate.of(2025, 7, 1);
+        for (int id = 1; id <= DASHBOARD_TASKS; id += 3) {
+            tm.toggleTaskStatus(id);
+        }
+        tm.clearHistory();
+        totals.advanceTo(today);
+        System.out.printf("tasks: %d, %d completed, %d overdue on %s%n%n", DASHBOARD_TASKS,
+                totals.getCompletedCount(), totals.getOverdueCount(today), today);
+
+        System.out.printf("%-22s %12s %14s%n", "", "us/run", "bytes/run");
+        Experiments.printBest("getCompletedTasks", () -> Experiments.consume(tm.getCompletedTasks().size()));
+        Experiments.printBest("aggregates completed", () -> Experiments.consume(totals.getCompletedCount()));
+        Experiments.printBest("count overdue", () -> {
+            int overdue = 0;
+            for (Tasks task : tm.getTasks()) {
+                if (!task.isCompleted() && task.getDueDate().isBefore(today)) overdue++;
+            }
+            Experiments.consume(overdue);
+        });
+        Experiments.printBest("aggregates overdue", () -> Experiments.consume(totals.getOverdueCount(today)));
+        Experiments.printBest("count per priority", () -> {
+            int[] counts = new int[Tasks.Priority.values().length];
+            for (Tasks task : tm.getTasks()) {
+                counts[task.getPriority().ordinal()]++;
+            }
+            Experiments.consume(counts[0]);
+        });
+        Experiments.printBest("aggregates priority", () -> {
+            for (Tasks.Priority priority : Tasks.Priority.values()) {
+                Experiments.consume(totals.getCount(priority, false, false) + totals.getCount(priority, true, false));
+            }
+        });
+
+        // What a toggle costs, and the aggregates' share of that (timed on a separate copy)
+        Random random = new Random(3);
+        TaskAggregates copy = new TaskAggregates(new TaskStore());
+        Tasks[] before = new Tasks[OPS];
+        Tasks[] after = new Tasks[OPS];
+        for (int i = 0; i < OPS; i++) {
+            before[i] = tm.getTask(1 + random.nextInt(DASHBOARD_TASKS));
+            after[i] = before[i].withCompleted(!before[i].isCompleted());
+            copy.taskInserted(before[i]);
+        }
+        long toggle = 0;
+        long share = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPS; i++) {
+                tm.toggleTaskStatus(before[i].getId());
+            }
+            long toggleNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < OPS; i++) {
+                copy.taskReplaced(before[i], after[i]);
+                copy.taskReplaced(after[i], before[i]);
+            }
+            long shareNanos = (System.nanoTime() - start) / 2;
+            tm.clearHistory();
+            if (round >= WARMUP_ROUNDS) {
+                toggle += toggleNanos;
+                share += shareNanos;
+            }
+        }
+        System.out.printf("%ntoggle: %d ns, of which aggregates: %d ns%n",
+                toggle / ((long) MEASURED_ROUNDS * OPS), share / ((long) MEASURED_ROUNDS * OPS));
+        System.out.printf("aggregates heap: %d bytes%n", totals.estimatedBytes());
+    }
+}
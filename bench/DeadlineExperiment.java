@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+// DeadlineScheduler over one million unfinished tasks: build time, heap per deadline,
+// the extra cost it adds to add/reschedule/complete/delete, and events/s as its clock moves
+public class DeadlineExperiment {
+    private static final int DEADLINE_TASKS = 1_000_000;
+    private static final int DEADLINE_OPS = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        deadlines();
+    }
+
+    // The scheduler is driven by a clock we move by hand (its thread only wakes when told to,
+    // so fireDue() on this thread does the work). Every due date is in 2025, and it starts in December 2024.
+    private static void deadlines() throws IOException {
+        TaskManager tm = Experiments.filledManager(DEADLINE_TASKS);
+        tm.getMetrics().setEnabled(false);
+        long[] without = deadlineOps(tm, DEADLINE_TASKS + 1, new Random(7));
+
+        ManualClock clock = new ManualClock(LocalDate.of(2024, 12, 1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        LongAdder soon = new LongAdder();
+        LongAdder overdue = new LongAdder();
+        DeadlineListener counter = new DeadlineListener() {
+            @Override
+            public void dueSoon(Tasks task) {soon.increment();}
+
+            @Override
+            public void overdue(Tasks task) {overdue.increment();}
+        };
+        long start = System.nanoTime();
+        DeadlineScheduler scheduler = tm.startDeadlines(clock, Duration.ofDays(1), counter);
+        System.out.printf("pending:        %d%n", scheduler.getPendingCount());
+        System.out.printf("build ms:       %d%n", (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("bytes/deadline: %.1f%n", (double) scheduler.estimatedBytes() / scheduler.getPendingCount());
+
+        long[] with = deadlineOps(tm, DEADLINE_TASKS + DEADLINE_OPS + 1, new Random(7));
+        String[] names = {"add", "reschedule", "complete", "delete"};
+        System.out.printf("%n%-12s %14s %14s%n", "ns/op", "no scheduler", "scheduler");
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("%-12s %14d %14d%n", names[i], without[i], with[i]);
+        }
+
+        // A day at a time through 2025 and into 2026: every pending task goes due soon, then overdue
+        int days = 0;
+        start = System.nanoTime();
+        while (scheduler.getPendingCount() > 0) {
+            clock.advance(Duration.ofDays(1));
+            scheduler.fireDue();
+            days++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long events = soon.sum() + overdue.sum();
+        System.out.printf("%ndays:           %d%n", days);
+        System.out.printf("due soon:       %d%n", soon.sum());
+        System.out.printf("overdue:        %d%n", overdue.sum());
+        System.out.printf("events/s:       %.0f%n", events / (elapsed / 1e9));
+        tm.close();
+    }
+
+    // Average ns for adds, due date changes, completions and deletes (in that order).
+    // The adds get IDs firstNew, firstNew + 1, ... and are the ones completed and deleted.
+    private static long[] deadlineOps(TaskManager tm, int firstNew, Random random) {
+        int ops = DEADLINE_OPS;
+        long[] result = new long[4];
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.addTask("Extra " + i, "Added by the benchmark", "15/06/2025", Tasks.Priority.LOW);
+        }
+        result[0] = (System.nanoTime() - start) / ops;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.updateTask(1 + random.nextInt(DEADLINE_TASKS)).dueDate(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365))).apply();
+        }
+        result[1] = (System.nanoTime() - start) / ops;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.toggleTaskStatus(firstNew + i);
+        }
+        result[2] = (System.nanoTime() - start) / ops;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.deleteTask(firstNew + i);
+        }
+        result[3] = (System.nanoTime() - start) / ops;
+        tm.clearHistory();
+        return result;
+    }
+}
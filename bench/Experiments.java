@@ -0,0 +1,77 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// What the experiments in bench/ share: a filled TaskManager, heap and GC readings, and timing
+// a piece of work best-of-20 with the bytes it allocated. Each experiment is its own class with
+// a main() - run one with: java -cp target/classes:target/test-classes LatencyExperiment
+//
+// They're the whole-system runs that are too big or too odd for JMH; the per-operation baseline
+// is the JMH suite in bench/jmh (mvn test -P jmh).
+public class Experiments {
+    // Sink so the JIT can't throw away work whose result nobody looks at
+    private static long blackhole;
+
+    static void consume(Iterable<Tasks> tasks) {
+        for (Tasks task : tasks) {
+            blackhole += task.getId();
+        }
+    }
+
+    static void consume(long value) {
+        blackhole += value;
+    }
+
+    // Heap in use after a few full GCs
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // size tasks with IDs 1..size, due dates spread over 2025 and the priorities taking turns
+    static TaskManager filledManager(int size) {
+        TaskManager tm = new TaskManager();
+        Tasks.Priority[] priorities = Tasks.Priority.values();
+        for (int i = 0; i < size; i++) {
+            String dueDate = String.format("%02d/%02d/2025", 1 + i % 28, 1 + i % 12);
+            tm.addTask("Task " + i, "Description for task " + i, dueDate, priorities[i % priorities.length]);
+        }
+        return tm;
+    }
+
+    static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Best of 20 runs, in microseconds, with the bytes that run allocated
+    static void printBest(String name, Runnable run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int round = 0; round < 20; round++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            run.run();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+                bytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+            }
+        }
+        System.out.printf("%-22s %12.1f %14d%n", name, best / 1e3, bytes);
+    }
+}
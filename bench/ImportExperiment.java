@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Bulk CSV import of one million tasks (one undo step), then export them again
+public class ImportExperiment {
+    private static final int IMPORT_TASKS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        bulkImport();
+    }
+
+    private static void bulkImport() throws IOException {
+        PrintStream console = System.out;
+        Path file = Files.createTempFile("task-bench", ".csv");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            try (Writer out = Files.newBufferedWriter(file)) {
+                out.write("title,description,dueDate,priority\n");
+                for (int i = 0; i < IMPORT_TASKS; i++) {
+                    out.write("Task " + i + ",\"Imported, task " + i + "\"," + String.format("%02d/%02d/2025", 1 + i % 28, 1 + i % 12) + ",Medium\n");
+                }
+            }
+
+            TaskManager tm = new TaskManager();
+            long start = System.nanoTime();
+            try (Reader in = Files.newBufferedReader(file)) {
+                tm.importTasks(in, TaskTransfer.Format.CSV);
+            }
+            long importNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            tm.exportTasks(Writer.nullWriter(), TaskTransfer.Format.CSV, false);
+            long exportNanos = System.nanoTime() - start;
+
+            console.printf("tasks:       %d (undo entries: %d)%n", tm.getTasks().size(), tm.getUndoCount());
+            console.printf("import ms:   %d%n", importNanos / 1_000_000);
+            console.printf("export ms:   %d%n", exportNanos / 1_000_000);
+        } finally {
+            System.setOut(console);
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+// How long one delete / update / toggle takes as the number of tasks grows.
+// If TaskManager lookups are O(1), the numbers should stay roughly flat from 1k to 1M.
+public class LatencyExperiment {
+    private static final int OPS = 20_000;
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        latency();
+    }
+
+    private static void latency() {
+        PrintStream console = System.out;
+        console.printf("%-10s %15s %15s %15s%n", "tasks", "delete ns/op", "update ns/op", "toggle ns/op");
+
+        for (int size : SIZES) {
+            // mute anything printed while we measure
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            long[] results;
+            try {
+                results = measure(size);
+            } finally {
+                System.setOut(console);
+            }
+            console.printf("%-10d %15d %15d %15d%n", size, results[0], results[1], results[2]);
+        }
+    }
+
+    private static long[] measure(int size) {
+        TaskManager tm = Experiments.filledManager(size);
+        Random random = new Random(42);
+
+        // warm up so the JIT has compiled everything before we time it
+        for (int i = 0; i < OPS; i++) {
+            tm.updateTask(1 + random.nextInt(size)).title("warm " + i).apply();
+            tm.toggleTaskStatus(1 + random.nextInt(size));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPS; i++) {
+            tm.updateTask(1 + random.nextInt(size)).title("title " + i).apply();
+        }
+        long update = (System.nanoTime() - start) / OPS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPS; i++) {
+            tm.toggleTaskStatus(1 + random.nextInt(size));
+        }
+        long toggle = (System.nanoTime() - start) / OPS;
+
+        // delete distinct IDs spread over the whole list
+        int deletes = Math.min(OPS, size);
+        int stride = size / deletes;
+        start = System.nanoTime();
+        for (int i = 0; i < deletes; i++) {
+            tm.deleteTask(1 + i * stride);
+        }
+        long delete = (System.nanoTime() - start) / deletes;
+
+        return new long[]{delete, update, toggle};
+    }
+}
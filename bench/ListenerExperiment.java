@@ -0,0 +1,47 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Toggles/s with no listener, a console listener (to a discarded stream)
+// and a buffered console listener behind AsyncTaskListener
+public class ListenerExperiment {
+    public static void main(String[] args) throws IOException {
+        listener();
+    }
+
+    // The console stand-in is an unbuffered file stream like System.out, so every line is a write() call
+    private static void listener() throws IOException {
+        Path sink = Files.createTempFile("task-bench", ".out");
+        FileOutputStream file = new FileOutputStream(sink.toFile());
+        PrintStream discard = new PrintStream(file, false);
+        System.out.printf("%-10s %15s%n", "listener", "toggles/s");
+        for (int round = 0; round < 2; round++) {   // first round is warm-up
+            boolean print = round == 1;
+            double none = toggles(TaskManagerListener.NONE);
+            double console = toggles(new ConsoleTaskListener(discard));
+            AsyncTaskListener async = new AsyncTaskListener(ConsoleTaskListener.buffered(file));
+            double background = toggles(async);
+            async.close();
+            if (print) {
+                System.out.printf("%-10s %15.0f%n", "none", none);
+                System.out.printf("%-10s %15.0f%n", "console", console);
+                System.out.printf("%-10s %15.0f  (%d dropped)%n", "async", background, async.getDroppedCount());
+            }
+        }
+        discard.close();
+        Files.deleteIfExists(sink);
+    }
+
+    private static double toggles(TaskManagerListener listener) {
+        TaskManager tm = Experiments.filledManager(10_000);
+        tm.setListener(listener);
+        long start = System.nanoTime();
+        for (int i = 0; i < 200_000; i++) {
+            tm.toggleTaskStatus(1 + i % 10_000);
+        }
+        listener.flush();
+        return 200_000 / ((System.nanoTime() - start) / 1e9);
+    }
+}
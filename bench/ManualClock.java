@@ -0,0 +1,35 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A clock that only moves when told to
+public class ManualClock extends Clock {
+    // Shared with the copies withZone() makes, so advance() moves them all
+    private final AtomicReference<Instant> now;
+    private final ZoneId zone;
+
+    ManualClock(Instant now) {
+        this(new AtomicReference<>(now), ZoneOffset.UTC);
+    }
+
+    private ManualClock(AtomicReference<Instant> now, ZoneId zone) {
+        this.now = now;
+        this.zone = zone;
+    }
+
+    void advance(Duration duration) {
+        now.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {return zone;}
+
+    @Override
+    public Clock withZone(ZoneId zone) {return new ManualClock(now, zone);}
+
+    @Override
+    public Instant instant() {return now.get();}
+}
@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+// One million archived tasks with TaskManager's archive on the heap vs memory-mapped:
+// heap used, time to archive them, walk them and reopen
+public class MappedExperiment {
+    private static final int MAPPED_TASKS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        mapped();
+    }
+
+    private static void mapped() throws IOException {
+        System.out.printf("archived tasks: %d%n%n", MAPPED_TASKS);
+        System.out.printf("%-8s %12s %12s %12s %12s %12s %14s%n",
+                "archive", "heap MB", "archive ms", "walk ms", "get ns", "reopen ms", "reopen heap MB");
+        for (TaskManager.ArchiveStorage storage : TaskManager.ArchiveStorage.values()) {
+            mappedRow(storage);
+        }
+    }
+
+    private static void mappedRow(TaskManager.ArchiveStorage storage) throws IOException {
+        Path dir = Files.createTempDirectory("task-bench");
+        Path file = dir.resolve("tasks.log");
+        try {
+            long empty = Experiments.usedHeap();
+            TaskManager tm = TaskManager.open(file, TaskLog.FsyncPolicy.never(), storage);
+            tm.getMetrics().setEnabled(false);
+            for (int i = 0; i < MAPPED_TASKS; i++) {
+                tm.addTask("Task " + i, "Description for task " + i, "15/06/2025", Tasks.Priority.LOW);
+                tm.toggleTaskStatus(i + 1);
+            }
+            long start = System.nanoTime();
+            tm.archiveCompletedTasks();
+            long archive = System.nanoTime() - start;
+            tm.clearHistory();   // only the archive itself is measured, not the undo entry
+            tm.checkpoint();
+            long heap = Experiments.usedHeap() - empty;
+
+            List<Tasks> archived = tm.getArchivedTasks();
+            long walk = Long.MAX_VALUE;
+            long sink = 0;
+            for (int round = 0; round < 3; round++) {
+                start = System.nanoTime();
+                for (Tasks task : archived) {
+                    sink += task.getTitle().length();
+                }
+                walk = Math.min(walk, System.nanoTime() - start);
+            }
+            Random random = new Random(5);
+            int gets = 1_000_000;
+            start = System.nanoTime();
+            for (int i = 0; i < gets; i++) {
+                sink += archived.get(random.nextInt(archived.size())).getId();
+            }
+            long get = (System.nanoTime() - start) / gets;
+            tm.close();
+            tm = null;
+            archived = null;
+
+            empty = Experiments.usedHeap();
+            start = System.nanoTime();
+            TaskManager reopened = TaskManager.open(file, TaskLog.FsyncPolicy.never(), storage);
+            long reopen = System.nanoTime() - start;
+            long reopenHeap = Experiments.usedHeap() - empty;
+            if (reopened.getArchivedCount() != MAPPED_TASKS || sink == 42) throw new IllegalStateException("Lost archived tasks");
+            reopened.close();
+
+            System.out.printf("%-8s %12.1f %12d %12d %12d %12d %14.1f%n", storage, heap / 1e6, archive / 1_000_000,
+                    walk / 1_000_000, get, reopen / 1_000_000, reopenHeap / 1e6);
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path left : files.toList()) {
+                    Files.delete(left);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+}
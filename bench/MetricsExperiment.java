@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+// Toggle/update cost with metrics on vs off, then the numbers as JMX shows them
+public class MetricsExperiment {
+    public static void main(String[] args) throws IOException {
+        metrics();
+    }
+
+    // What the always-on metrics cost: the same toggle/update loop with metrics off, on (the
+    // default 1-in-8 timing sample) and on timing every call. Rounds take turns, best of 4 each.
+    // Then everything is read back through the platform MBeanServer, like jconsole would.
+    private static void metrics() throws IOException {
+        String[] configs = {"off", "sampled", "every call"};
+        long[][] best = new long[configs.length][2];
+        for (long[] times : best) {
+            java.util.Arrays.fill(times, Long.MAX_VALUE);
+        }
+        for (int round = 0; round < 4 * configs.length; round++) {
+            int config = round % configs.length;
+            TaskManager tm = Experiments.filledManager(10_000);
+            tm.getMetrics().setEnabled(config != 0);
+            tm.getMetrics().setSampleInterval(config == 2 ? 1 : TaskMetrics.DEFAULT_SAMPLE_INTERVAL);
+            long[] times = metricsRound(tm);
+            for (int i = 0; i < times.length; i++) {
+                best[config][i] = Math.min(best[config][i], times[i]);
+            }
+        }
+        System.out.printf("%-12s %12s %12s%n", "metrics", "toggle ns/op", "update ns/op");
+        for (int config = 0; config < configs.length; config++) {
+            System.out.printf("%-12s %12d %12d%n", configs[config], best[config][0], best[config][1]);
+        }
+
+        TaskManager tm = Experiments.filledManager(10_000);
+        metricsRound(tm);
+        for (int i = 0; i < 1_000; i++) {
+            tm.undo();
+            tm.redo();
+        }
+        try {
+            javax.management.ObjectName name = TaskManagerJmx.register(tm, "benchmark");
+            javax.management.MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            System.out.println();
+            for (String attribute : new String[] {"TaskCount", "UndoDepth", "RedoDepth", "EstimatedHeapBytes"}) {
+                System.out.printf("%-19s %s%n", attribute, server.getAttribute(name, attribute));
+            }
+            // Map attributes arrive as open-type tables of {key, value} rows
+            String[] columns = {"OperationCounts", "MedianLatencyNanos", "P99LatencyNanos", "MaxLatencyNanos"};
+            System.out.printf("%n%-8s %12s %12s %12s %12s%n", "op", "count", "p50 ns", "p99 ns", "max ns");
+            for (TaskMetrics.Operation operation : TaskMetrics.Operation.values()) {
+                System.out.printf("%-8s", operation);
+                for (String column : columns) {
+                    javax.management.openmbean.TabularData table =
+                            (javax.management.openmbean.TabularData) server.getAttribute(name, column);
+                    Object value = table.get(new Object[] {operation.name()}).get("value");
+                    System.out.printf(" %12s", value);
+                }
+                System.out.println();
+            }
+            TaskManagerJmx.unregister(name);
+        } catch (javax.management.JMException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static long[] metricsRound(TaskManager tm) {
+        int ops = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.toggleTaskStatus(1 + i % 10_000);
+        }
+        long toggle = (System.nanoTime() - start) / ops;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.updateTask(1 + i % 10_000).priority(Tasks.Priority.values()[i % 3]).apply();
+        }
+        long update = (System.nanoTime() - start) / ops;
+        return new long[] {toggle, update};
+    }
+}
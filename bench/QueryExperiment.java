@@ -0,0 +1,42 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+// TaskQuery cursors vs filtering into a new list and sorting it, on one million tasks
+public class QueryExperiment {
+    private static final int QUERY_TASKS = 1_000_000;
+
+    public static void main(String[] args) {
+        query();
+    }
+
+    // The example query from TaskQuery, answered by hand the old way (filter into a list, sort, cut)
+    // and by the query engine; then "View Completed" as a copied list vs a cursor.
+    // Best of 20 runs each (the first ones warm up the JIT), with the bytes that run allocated.
+    private static void query() {
+        TaskManager tm = Experiments.filledManager(QUERY_TASKS);
+        tm.getMetrics().setEnabled(false);
+        for (int id = 1; id <= QUERY_TASKS; id += 5) {   // every 5th done (not in step with the 3 priorities)
+            tm.toggleTaskStatus(id);
+        }
+        LocalDate before = LocalDate.of(2025, 7, 1);
+        String text = "priority=High AND !completed AND dueDate < 01/07/2025 ORDER BY dueDate LIMIT 50";
+        TaskCursor plan = tm.query(text);
+        System.out.println("query: " + text);
+        System.out.println("plan:  " + plan.getPlan());
+        System.out.printf("%n%-22s %12s %14s%n", "", "us/run", "bytes/run");
+
+        Experiments.printBest("filter + sort", () -> {
+            ArrayList<Tasks> found = new ArrayList<>();
+            for (Tasks task : tm.getTasks()) {
+                if (task.getPriority() == Tasks.Priority.HIGH && !task.isCompleted() && task.getDueDate().isBefore(before)) {
+                    found.add(task);
+                }
+            }
+            found.sort(TaskIndexes.BY_DUE_DATE);
+            Experiments.consume(found.subList(0, Math.min(50, found.size())));
+        });
+        Experiments.printBest("query cursor", () -> Experiments.consume(tm.query(text)));
+        Experiments.printBest("getCompletedTasks", () -> Experiments.consume(tm.getCompletedTasks()));
+        Experiments.printBest("completed cursor", () -> Experiments.consume(tm.query(new TaskQuery().completed(true))));
+    }
+}
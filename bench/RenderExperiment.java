@@ -0,0 +1,30 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Time to print the task table for 500k tasks (to a discarded stream)
+public class RenderExperiment {
+    private static final int RENDER_TASKS = 500_000;
+
+    public static void main(String[] args) {
+        render();
+    }
+
+    // Main.viewTasks(1) with the output thrown away, best of a few runs
+    private static void render() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Main.tm = Experiments.filledManager(RENDER_TASKS);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                Main.viewTasks(1);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            console.printf("rows:       %d%n", RENDER_TASKS);
+            console.printf("render ms:  %d%n", best / 1_000_000);
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Random;
+
+// Full-text index over one million tasks: build time, memory per term, query latency
+// (rare/common words, AND, prefix) and the cost of keeping it updated
+public class SearchExperiment {
+    private static final int SEARCH_TASKS = 1_000_000;
+    private static final int SEARCH_WORDS = 20_000;
+
+    public static void main(String[] args) {
+        search();
+    }
+
+    // Titles/descriptions drawn from a made-up vocabulary where a few words are very common
+    // and most are rare (roughly like real text), so posting lists have realistic lengths
+    private static void search() {
+        String[] vocabulary = new String[SEARCH_WORDS];
+        String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "pe", "da", "go", "hu", "ri", "ze", "ba", "fo"};
+        for (int i = 0; i < SEARCH_WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i + 1; n > 0; n /= syllables.length) {
+                word.append(syllables[n % syllables.length]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        Random random = new Random(42);
+        TaskManager tm = new TaskManager();
+        tm.getMetrics().setEnabled(false);
+        for (int i = 0; i < SEARCH_TASKS; i++) {
+            tm.addTask(words(vocabulary, random, 3), words(vocabulary, random, 8), "01/01/2025", Tasks.Priority.LOW);
+        }
+
+        long start = System.nanoTime();
+        TextIndex index = tm.getTextIndex();
+        System.out.printf("tasks:          %d%n", SEARCH_TASKS);
+        System.out.printf("build ms:       %d%n", (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("terms:          %d%n", index.getTermCount());
+        System.out.printf("postings:       %d%n", index.getPostingCount());
+        System.out.printf("index MB:       %.1f%n", index.estimatedBytes() / 1e6);
+        System.out.printf("bytes/term:     %d%n", index.estimatedBytes() / index.getTermCount());
+        System.out.printf("bytes/posting:  %.1f%n", (double) index.estimatedBytes() / index.getPostingCount());
+
+        String common = vocabulary[0];
+        String rare = vocabulary[SEARCH_WORDS - 1];
+        String[][] queries = {
+                {"rare word", rare},
+                {"common word", common},
+                {"two words", common + " " + vocabulary[1]},
+                {"prefix", vocabulary[300].substring(0, 4) + "*"},
+                {"prefix + word", vocabulary[40].substring(0, 4) + "* " + vocabulary[2]},
+        };
+        System.out.printf("%n%-14s %10s %10s %10s%n", "query (top 20)", "matches", "p50 us", "p99 us");
+        for (String[] query : queries) {
+            int matches = tm.search(query[1], Integer.MAX_VALUE).length;
+            LatencyHistogram latency = new LatencyHistogram();
+            for (int run = 0; run < 300; run++) {
+                long t = System.nanoTime();
+                tm.search(query[1], 20);
+                latency.record(System.nanoTime() - t);
+            }
+            System.out.printf("%-14s %10d %10.1f %10.1f%n", query[0], matches,
+                    latency.getPercentileNanos(50) / 1e3, latency.getPercentileNanos(99) / 1e3);
+        }
+
+        // Keeping the index in step: title edits, deletes (and their undos)
+        int ops = 100_000;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.updateTask(1 + random.nextInt(SEARCH_TASKS)).title(words(vocabulary, random, 3)).apply();
+        }
+        long update = (System.nanoTime() - start) / ops;
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            tm.deleteTask(1 + i * (SEARCH_TASKS / ops));
+        }
+        long delete = (System.nanoTime() - start) / ops;
+        System.out.printf("%nupdate ns/op:   %d%n", update);
+        System.out.printf("delete ns/op:   %d%n", delete);
+    }
+
+    private static String words(String[] vocabulary, Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double r = random.nextDouble();
+            if (i > 0) text.append(' ');
+            text.append(vocabulary[(int) (vocabulary.length * r * r * r)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for TaskServer: starts "java Main serve" in a child process and drives it over
+// loopback from 10k connections (or as many as given, e.g. java ServerExperiment 2000), each
+// pipelining a mix of GET/TOGGLE/UPDATE/ADD; reports connect time, requests/s and p50/p99 latency
+public class ServerExperiment {
+    private static final int SERVER_CONNECTIONS = 10_000;
+    private static final int SERVER_SECONDS = 10;
+    private static final int SERVER_PIPELINE = 4;
+    private static final int SERVER_TASKS = 10_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        server(args.length > 0 ? Integer.parseInt(args[0]) : SERVER_CONNECTIONS);
+    }
+
+    // The server runs in its own JVM (like a real one would, and so the two ends of 10k
+    // loopback connections don't share one process's file limit). Every connection first
+    // connects, then all of them start together and run for SERVER_SECONDS.
+    private static void server(int connections) throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "Main", "serve", "0")
+                .redirectErrorStream(true).start();
+        try {
+            BufferedReader childOut = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+            String started = childOut.readLine();
+            if (started == null || !started.startsWith("Listening on port ")) {
+                throw new IOException("Server did not start: " + started);
+            }
+            int port = Integer.parseInt(started.substring("Listening on port ".length()).trim());
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+
+            // Some tasks to work on, added over one pipelined connection
+            try (Socket socket = new Socket(loopback, port)) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                for (int i = 0; i < SERVER_TASKS; i++) {
+                    out.write("ADD\tTask " + i + "\tDescription for task " + i + "\t15/06/2025\tLow\n");
+                }
+                out.flush();
+                for (int i = 0; i < SERVER_TASKS; i++) {
+                    in.readLine();
+                }
+            }
+
+            LatencyHistogram[] latencies = new LatencyHistogram[64];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+            LongAdder errors = new LongAdder();
+            LongAdder failedConnections = new LongAdder();
+            CountDownLatch connected = new CountDownLatch(connections);
+            CountDownLatch go = new CountDownLatch(1);
+            long[] deadline = new long[1];
+
+            long connectStart = System.nanoTime();
+            ArrayList<Thread> clients = new ArrayList<>(connections);
+            for (int c = 0; c < connections; c++) {
+                LatencyHistogram histogram = latencies[c % latencies.length];
+                clients.add(Thread.ofVirtual().start(() -> {
+                    Socket socket;
+                    try {
+                        socket = new Socket(loopback, port);
+                    } catch (IOException e) {
+                        failedConnections.increment();
+                        connected.countDown();
+                        return;
+                    }
+                    try (socket) {
+                        socket.setTcpNoDelay(true);
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 512);
+                        OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 512);
+                        connected.countDown();
+                        go.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        long[] sent = new long[SERVER_PIPELINE];
+                        while (System.nanoTime() < deadline[0]) {
+                            for (int k = 0; k < SERVER_PIPELINE; k++) {
+                                out.write(serverRequest(random).getBytes(StandardCharsets.UTF_8));
+                                sent[k] = System.nanoTime();
+                            }
+                            out.flush();
+                            for (int k = 0; k < SERVER_PIPELINE; k++) {
+                                String reply = in.readLine();
+                                long took = System.nanoTime() - sent[k];
+                                if (reply == null) throw new IOException("Server hung up");
+                                if (reply.startsWith("ERR")) errors.increment();
+                                synchronized (histogram) {
+                                    histogram.record(took);
+                                }
+                            }
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors.increment();
+                    }
+                }));
+            }
+            connected.await();
+            long connectMillis = (System.nanoTime() - connectStart) / 1_000_000;
+
+            deadline[0] = System.nanoTime() + SERVER_SECONDS * 1_000_000_000L;
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread client : clients) {
+                client.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            LatencyHistogram all = new LatencyHistogram();
+            for (LatencyHistogram histogram : latencies) {
+                all.add(histogram);
+            }
+            System.out.printf("connections:    %d (%d failed), all connected in %d ms%n",
+                    connections, failedConnections.sum(), connectMillis);
+            System.out.printf("pipeline depth: %d, run %d s%n", SERVER_PIPELINE, SERVER_SECONDS);
+            System.out.printf("requests:       %d (%d errors)%n", all.getCount(), errors.sum());
+            System.out.printf("requests/s:     %.0f%n", all.getCount() / (elapsed / 1e9));
+            System.out.printf("p50 ms:         %.2f%n", all.getPercentileNanos(50) / 1e6);
+            System.out.printf("p99 ms:         %.2f%n", all.getPercentileNanos(99) / 1e6);
+            System.out.printf("max ms:         %.2f%n", all.getMaxNanos() / 1e6);
+        } finally {
+            child.destroy();
+            child.waitFor();
+        }
+    }
+
+    // 60% GET, 20% TOGGLE, 10% UPDATE, 10% ADD
+    private static String serverRequest(ThreadLocalRandom random) {
+        int id = 1 + random.nextInt(SERVER_TASKS);
+        int pick = random.nextInt(10);
+        if (pick < 6) return "GET\t" + id + "\n";
+        if (pick < 8) return "TOGGLE\t" + id + "\n";
+        if (pick < 9) return "UPDATE\t" + id + "\ttitle=Edited " + random.nextInt(1000) + "\n";
+        return "ADD\tNew task\tAdded by the load generator\t01/03/2025\tMedium\n";
+    }
+}
@@ -0,0 +1,86 @@
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ShardedTaskManager with 1 .. 16 shards: writes/s from several threads spread over 2,000 tenants,
+// and the time for an "overdue HIGH priority" query and count over all of them
+public class ShardedExperiment {
+    private static final int SHARD_TASKS = 400_000;
+    private static final int SHARD_TENANTS = 2_000;
+    private static final int CONCURRENT_MILLIS = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        sharded();
+    }
+
+    private static void sharded() throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(4, cores * 2);
+        System.out.printf("tasks: %d over %d tenants, %d writer threads, %d cores%n%n", SHARD_TASKS, SHARD_TENANTS, threads, cores);
+        System.out.printf("%-8s %14s %18s %14s%n", "shards", "writes/s", "overdue HIGH us", "count us");
+        for (int shards = 1; shards <= 16; shards *= 2) {
+            shardedRow(shards, threads);
+        }
+    }
+
+    private static void shardedRow(int shardCount, int threads) throws InterruptedException {
+        ShardedTaskManager tm = new ShardedTaskManager(shardCount);
+        ShardedTaskManager.Tenant[] tenants = new ShardedTaskManager.Tenant[SHARD_TENANTS];
+        int[][] ids = new int[SHARD_TENANTS][SHARD_TASKS / SHARD_TENANTS];
+        for (int t = 0; t < SHARD_TENANTS; t++) {
+            tenants[t] = tm.tenant("team-" + t);
+        }
+        for (int i = 0; i < SHARD_TASKS; i++) {
+            int t = i % SHARD_TENANTS;
+            Tasks task = tenants[t].addTask("Task " + i, "Description for task " + i,
+                    LocalDate.of(2025, 1 + i % 12, 1 + i % 28), Tasks.Priority.values()[i % 3]);
+            ids[t][i / SHARD_TENANTS] = task.getId();
+        }
+
+        // Writers: toggles and priority changes on random tasks of random tenants
+        long[] counts = new long[threads];
+        long deadline = System.nanoTime() + CONCURRENT_MILLIS * 1_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int slot = w;
+            workers[w] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    int t = random.nextInt(SHARD_TENANTS);
+                    int id = ids[t][random.nextInt(ids[t].length)];
+                    if (random.nextInt(5) < 4) {
+                        tenants[t].toggleTaskStatus(id);
+                    } else {
+                        tenants[t].updateTask(id).priority(Tasks.Priority.values()[random.nextInt(3)]).apply();
+                    }
+                    done++;
+                }
+                counts[slot] = done;
+            });
+            workers[w].start();
+        }
+        long writes = 0;
+        for (int w = 0; w < threads; w++) {
+            workers[w].join();
+            writes += counts[w];
+        }
+
+        // Readers: the 100 most overdue unfinished HIGH tasks, and how many there are
+        LocalDate today = LocalDate.of(2025, 7, 1);
+        TaskQuery overdue = new TaskQuery().priority(Tasks.Priority.HIGH).completed(false).dueBefore(today)
+                .orderBy(TaskQuery.Order.DUE_DATE).limit(100);
+        TaskQuery all = new TaskQuery().priority(Tasks.Priority.HIGH).completed(false).dueBefore(today);
+        long bestQuery = Long.MAX_VALUE;
+        long bestCount = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            long start = System.nanoTime();
+            if (tm.query(overdue).size() != 100) throw new IllegalStateException("Expected 100 overdue tasks");
+            bestQuery = Math.min(bestQuery, System.nanoTime() - start);
+            start = System.nanoTime();
+            tm.count(all);
+            bestCount = Math.min(bestCount, System.nanoTime() - start);
+        }
+        System.out.printf("%-8d %14.0f %18.1f %14.1f%n", shardCount, writes / (CONCURRENT_MILLIS / 1000.0),
+                bestQuery / 1e3, bestCount / 1e3);
+    }
+}
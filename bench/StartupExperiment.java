@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Cold start time with one million tasks on disk (snapshot + log tail).
+// Give it a fixed heap (e.g. java -Xms1g StartupExperiment) so it isn't timing heap growth.
+public class StartupExperiment {
+    private static final int STARTUP_TASKS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        startup();
+    }
+
+    // Save a million tasks (snapshots are taken automatically along the way),
+    // add a short tail of changes after the last snapshot, then time opening it all again
+    private static void startup() throws IOException {
+        PrintStream console = System.out;
+        Path file = Files.createTempFile("task-bench", ".log");
+        Files.delete(file);
+        Path snapshot = TaskSnapshot.pathFor(file);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            TaskManager tm = TaskManager.open(file, TaskLog.FsyncPolicy.never());
+            for (int i = 0; i < STARTUP_TASKS; i++) {
+                tm.addTask("Task " + i, "Description for task " + i, "15/06/2025", Tasks.Priority.LOW);
+            }
+            tm.checkpoint();
+            for (int i = 1; i <= 10_000; i++) {
+                tm.toggleTaskStatus(i);
+            }
+            tm.close();
+            tm = null;
+            Experiments.usedHeap(); // start from a clean heap, like a fresh process would
+
+            long start = System.nanoTime();
+            TaskManager reopened = TaskManager.open(file, TaskLog.FsyncPolicy.never());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            console.printf("snapshot bytes: %d%n", Files.size(snapshot));
+            console.printf("log tail bytes: %d%n", Files.size(file));
+            console.printf("cold start ms:  %d (%d tasks)%n", millis, reopened.getTasks().size());
+            reopened.close();
+        } finally {
+            System.setOut(console);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+}
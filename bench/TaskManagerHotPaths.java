@@ -0,0 +1,65 @@
+import jmh.HotPaths;
+
+// The TaskManager calls the JMH benchmarks in bench/jmh make (see HotPaths for why they go through here)
+public class TaskManagerHotPaths implements HotPaths {
+    private TaskManager tm;
+
+    @Override
+    public void fill(int size) {
+        tm = new TaskManager();
+        Tasks.Priority[] priorities = Tasks.Priority.values();
+        for (int i = 0; i < size; i++) {
+            String dueDate = String.format("%02d/%02d/2025", 1 + i % 28, 1 + i % 12);
+            tm.addTask("Task " + i, "Description for task " + i, dueDate, priorities[i % priorities.length]);
+        }
+    }
+
+    @Override
+    public void completeEveryOther() {
+        for (int id = 1; id < tm.getNextId(); id += 2) {
+            tm.toggleTaskStatus(id);
+        }
+    }
+
+    @Override
+    public void add(int i) {
+        tm.addTask("New task " + i, "Added by the benchmark", "15/06/2025", Tasks.Priority.MEDIUM);
+    }
+
+    @Override
+    public boolean delete(int id) {return tm.deleteTask(id);}
+
+    @Override
+    public boolean toggle(int id) {return tm.toggleTaskStatus(id);}
+
+    @Override
+    public void update(int id, String title) {
+        tm.updateTask(id).title(title).apply();
+    }
+
+    @Override
+    public void undo() {tm.undo();}
+
+    @Override
+    public void redo() {tm.redo();}
+
+    @Override
+    public int archiveCompleted() {return tm.archiveWhere(Tasks::isCompleted);}
+
+    @Override
+    public long walkByPriority() {return walk(tm.sortByPriority());}
+
+    @Override
+    public long walkByDueDate() {return walk(tm.sortByDueDate());}
+
+    @Override
+    public long walkByCreationTime() {return walk(tm.sortByCreationTime());}
+
+    private static long walk(Iterable<Tasks> tasks) {
+        long sum = 0;
+        for (Tasks task : tasks) {
+            sum += task.getId();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Changes per second written through the task log (group commit) to a temp file,
+// then how long replaying that log takes
+public class WalExperiment {
+    private static final int WAL_OPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        wal();
+    }
+
+    private static void wal() throws IOException {
+        PrintStream console = System.out;
+        Path file = Files.createTempFile("task-bench", ".log");
+        Files.delete(file);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            TaskManager tm = TaskManager.open(file, TaskLog.FsyncPolicy.batched(1_000, 10));
+            Random random = new Random(11);
+            long start = System.nanoTime();
+            for (int i = 0; i < WAL_OPS; i++) {
+                switch (i % 3) {
+                    case 0 -> tm.addTask("Task " + i, "Logged task " + i, "15/06/2025", Tasks.Priority.MEDIUM);
+                    case 1 -> tm.updateTask(1 + random.nextInt(i / 3 + 1)).title("Edited " + i).apply();
+                    default -> tm.toggleTaskStatus(1 + random.nextInt(i / 3 + 1));
+                }
+            }
+            tm.close();
+            long nanos = System.nanoTime() - start;
+
+            console.printf("ops:        %d%n", WAL_OPS);
+            console.printf("ops/s:      %.0f%n", WAL_OPS / (nanos / 1e9));
+            console.printf("log bytes:  %d%n", Files.size(file));
+
+            start = System.nanoTime();
+            TaskManager replayed = TaskManager.open(file, TaskLog.FsyncPolicy.never());
+            console.printf("replay ms:  %d (%d tasks)%n", (System.nanoTime() - start) / 1_000_000, replayed.getTasks().size());
+            replayed.close();
+        } finally {
+            System.setOut(console);
+            Files.deleteIfExists(file);
+        }
+    }
+}
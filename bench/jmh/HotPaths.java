@@ -0,0 +1,32 @@
+package jmh;
+
+// What the benchmarks do to a TaskManager.
+//
+// The project's classes live in the default package. JMH won't generate code for a benchmark
+// there, and a class in a named package can't refer to one there, so the benchmarks go through
+// this interface instead. TaskManagerHotPaths (default package) implements it and is loaded by
+// name; with only one implementation loaded the JIT inlines the calls like direct ones.
+public interface HotPaths {
+    static HotPaths load() throws ReflectiveOperationException {
+        return (HotPaths) Class.forName("TaskManagerHotPaths").getDeclaredConstructor().newInstance();
+    }
+
+    // Start again with a new manager holding `size` tasks
+    void fill(int size);
+
+    // Mark every other task completed (so there's something to archive)
+    void completeEveryOther();
+
+    void add(int i);
+    boolean delete(int id);
+    boolean toggle(int id);
+    void update(int id, String title);
+    void undo();
+    void redo();
+    int archiveCompleted();
+
+    // Walk a sorted view from start to end (the sum of the IDs, so the walk can't be skipped)
+    long walkByPriority();
+    long walkByDueDate();
+    long walkByCreationTime();
+}
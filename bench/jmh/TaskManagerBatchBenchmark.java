@@ -0,0 +1,57 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The hot paths that use their tasks up (deleting, archiving): each measured call gets a freshly
+// filled manager and is timed once, like a single run of the operation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class TaskManagerBatchBenchmark {
+    private static final int DELETES = 1_000;
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private HotPaths tm;
+
+    @Setup(Level.Iteration)
+    public void fill() throws ReflectiveOperationException {
+        tm = HotPaths.load();
+        tm.fill(size);
+        tm.completeEveryOther();
+    }
+
+    // DELETES tasks spread evenly over the list (every one of them, at the smallest size)
+    @Benchmark
+    @OperationsPerInvocation(DELETES)
+    public void deleteTask() {
+        int stride = size / DELETES;
+        for (int i = 0; i < DELETES; i++) {
+            tm.delete(1 + i * stride);
+        }
+    }
+
+    // Half the tasks are completed, so this archives size / 2 of them as one undo step
+    @Benchmark
+    public int archiveCompletedTasks() {
+        return tm.archiveCompleted();
+    }
+}
@@ -0,0 +1,87 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every TaskManager hot path at several dataset sizes, one call per op.
+// Run with mvn test -P jmh (which adds -prof gc, so gc.alloc.rate.norm gives the bytes per op).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private HotPaths tm;
+    private int next;
+
+    // A fresh manager every iteration, so addTask doesn't keep growing the same one
+    // (and the sorted views get built once, in the first call, before anything is measured)
+    @Setup(Level.Iteration)
+    public void fill() throws ReflectiveOperationException {
+        tm = HotPaths.load();
+        tm.fill(size);
+        tm.toggle(1);
+        tm.walkByPriority();
+        tm.walkByDueDate();
+        tm.walkByCreationTime();
+        next = 0;
+    }
+
+    // IDs spread over the whole list
+    private int scattered(int i) {
+        return 1 + (int) ((i * 2654435761L) % size);
+    }
+
+    @Benchmark
+    public void addTask() {
+        tm.add(next++);
+    }
+
+    @Benchmark
+    public boolean toggleTaskStatus() {
+        return tm.toggle(scattered(next++));
+    }
+
+    @Benchmark
+    public void updateTask() {
+        tm.update(scattered(next), "Edited " + next++);
+    }
+
+    // Undo the newest change and redo it again, so the history stays the same size
+    @Benchmark
+    public void undoRedo() {
+        tm.undo();
+        tm.redo();
+    }
+
+    @Benchmark
+    public long sortByPriority() {
+        return tm.walkByPriority();
+    }
+
+    @Benchmark
+    public long sortByDueDate() {
+        return tm.walkByDueDate();
+    }
+
+    @Benchmark
+    public long sortByCreationTime() {
+        return tm.walkByCreationTime();
+    }
+}
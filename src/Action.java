@@ -1,32 +1,124 @@
 public class Action {
-    enum ActionType { ADD, DELETE, UPDATE }
+    enum ActionType { ADD, DELETE, UPDATE, ARCHIVE, BULK_UPDATE }
 
     private ActionType type;
     private Tasks task;
     private Tasks oldTask;
-    private int index;
+    private int anchorId; // ID of the task that was listed just before this one (0 = it was first)
+
+    // Batch actions (ARCHIVE, or an ADD from a bulk import) touch many tasks at once but are undone as one step
+    private Tasks[] batchTasks;
+    private int[] batchAnchorIds;
+
+    // BULK_UPDATE: the same change made to many tasks (TaskManager.completeWhere / reprioritizeWhere).
+    // Just their IDs and the change are kept - plus each one's old priority (one byte) when the
+    // priority is what changed - not two versions of every task.
+    private int[] batchIds;
+    private Tasks.Priority bulkPriority;   // null = they were all marked completed
+    private byte[] oldPriorities;
+
+    private long estimatedBytes = -1; // worked out once, the first time someone asks
 
     public Action(ActionType type, Tasks task) {
         this.type = type;
         this.task = task;
-        this.index = -1;
+        this.anchorId = -1;
     }
 
-    public Action(ActionType type, Tasks task, int index) {
+    public Action(ActionType type, Tasks task, int anchorId) {
         this.type = type;
         this.task = task;
-        this.index = index;
+        this.anchorId = anchorId;
     }
 
+    // UPDATE: the version before and after the change.
+    // Tasks never change, so these are just two references - the old version shares
+    // every field that wasn't edited with the new one.
     public Action(ActionType type, Tasks oldTask, Tasks newTask) {
         this.type = type;
         this.oldTask = oldTask;
         this.task = newTask;
-        this.index = -1;
+        this.anchorId = -1;
+    }
+
+    public Action(ActionType type, Tasks[] batchTasks, int[] batchAnchorIds) {
+        this.type = type;
+        this.batchTasks = batchTasks;
+        this.batchAnchorIds = batchAnchorIds;
+        this.anchorId = -1;
+    }
+
+    // ARCHIVE by TaskManager: just the IDs and anchors. Its archive keeps tasks as plain columns
+    // (or in a file), so holding the Tasks objects here would keep a second, much bigger copy
+    // of every archived task alive - undo reads them back from the archive instead.
+    public Action(int[] archivedIds, int[] anchorIds) {
+        this.type = ActionType.ARCHIVE;
+        this.batchIds = archivedIds;
+        this.batchAnchorIds = anchorIds;
+        this.anchorId = -1;
     }
 
-    public int getIndex() {return index;}
+    // BULK_UPDATE that marked these tasks completed (none of them were before)
+    public Action(int[] completedIds) {
+        this.type = ActionType.BULK_UPDATE;
+        this.batchIds = completedIds;
+        this.anchorId = -1;
+    }
+
+    // BULK_UPDATE that gave these tasks a new priority (oldPriorities[i] = ordinal of ids[i]'s old one)
+    public Action(int[] ids, Tasks.Priority priority, byte[] oldPriorities) {
+        this.type = ActionType.BULK_UPDATE;
+        this.batchIds = ids;
+        this.bulkPriority = priority;
+        this.oldPriorities = oldPriorities;
+        this.anchorId = -1;
+    }
+
+    public int getAnchorId() {return anchorId;}
     public ActionType getType() {return type;}
     public Tasks getTask() {return task;}
     public Tasks getOldTask() {return oldTask;}
+    public Tasks[] getBatchTasks() {return batchTasks;}
+    public int[] getBatchAnchorIds() {return batchAnchorIds;}
+    public int[] getBatchIds() {return batchIds;}
+    public Tasks.Priority getBulkPriority() {return bulkPriority;}
+    // How many tasks a batch action covers
+    public int getBatchSize() {return batchTasks != null ? batchTasks.length : batchIds.length;}
+    public byte[] getOldPriorities() {return oldPriorities;}
+
+    // Rough memory this action holds on to, so the history can stay under its byte limit.
+    // ADD and ConcurrentTaskManager's ARCHIVE point at tasks that are still alive elsewhere,
+    // so only the references count; a DELETE is the only thing keeping its task alive.
+    // TaskManager's ARCHIVE holds no tasks at all, just IDs and anchors.
+    public long estimatedBytes() {
+        if (estimatedBytes < 0) {
+            estimatedBytes = computeEstimatedBytes();
+        }
+        return estimatedBytes;
+    }
+
+    private long computeEstimatedBytes() {
+        long bytes = 40;
+        switch (type) {
+            case DELETE:
+                bytes += task.estimatedBytes();
+                break;
+            case UPDATE:
+                // only the old version's own fields cost extra - the rest is shared with the new one
+                bytes += oldTask.estimatedBytesBeyond(task);
+                break;
+            case ADD:
+            case ARCHIVE:
+                if (batchTasks != null) bytes += 32 + 8L * batchTasks.length;
+                if (batchIds != null) bytes += 32 + 8L * batchIds.length;   // IDs + anchors
+                break;
+            case BULK_UPDATE:
+                bytes += 16 + 4L * batchIds.length;
+                if (oldPriorities != null) bytes += 16 + oldPriorities.length;
+                break;
+            default:
+                break;
+        }
+        return bytes;
+    }
 }
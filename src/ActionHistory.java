@@ -0,0 +1,99 @@
+// A bounded undo (or redo) pile.
+// Works like a stack - push puts an action on top, pop takes the newest one off -
+// but it lives in a plain array used as a ring, and it has two limits:
+//   - maxEntries: how many actions we keep at most
+//   - maxBytes: roughly how much memory those actions may hold on to
+// When either limit is passed, the OLDEST actions fall off the bottom,
+// so a long-running program can't grow its history forever.
+public class ActionHistory {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private Action[] ring = new Action[0];
+    private int oldest;      // index of the oldest action in the ring
+    private int size;
+    private long bytes;      // estimated bytes held by the actions in here
+    private long dropped;    // how many old actions we had to forget
+
+    public ActionHistory(int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("History limits must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public void push(Action action) {
+        if (maxEntries == 0) {
+            dropped++;
+            return;
+        }
+        if (size == maxEntries) {
+            dropOldest();            // full: make room by forgetting the oldest action
+        } else if (size == ring.length) {
+            grow();
+        }
+        ring[(oldest + size) % ring.length] = action;
+        size++;
+        bytes += action.estimatedBytes();
+
+        // Forget the oldest actions until we're back under both limits
+        // (we always keep the newest one, so the last step can still be undone)
+        while (size > 1 && (size > maxEntries || bytes > maxBytes)) {
+            dropOldest();
+        }
+    }
+
+    // Take the newest action off the top (null if empty)
+    public Action pop() {
+        if (size == 0) return null;
+        int index = (oldest + size - 1) % ring.length;
+        Action action = ring[index];
+        ring[index] = null;
+        size--;
+        bytes -= action.estimatedBytes();
+        return action;
+    }
+
+    // Look at the newest action without removing it (null if empty)
+    public Action peek() {
+        return size == 0 ? null : ring[(oldest + size - 1) % ring.length];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            ring[(oldest + i) % ring.length] = null;
+        }
+        oldest = 0;
+        size = 0;
+        bytes = 0;
+    }
+
+    public boolean isEmpty() {return size == 0;}
+    public int size() {return size;}
+    public long getEstimatedBytes() {return bytes;}
+    public long getDroppedCount() {return dropped;}
+    public int getMaxEntries() {return maxEntries;}
+    public long getMaxBytes() {return maxBytes;}
+
+    private void dropOldest() {
+        bytes -= ring[oldest].estimatedBytes();
+        ring[oldest] = null;
+        oldest = (oldest + 1) % ring.length;
+        size--;
+        dropped++;
+    }
+
+    // Double the ring (but never past maxEntries), unrolling it so the oldest action is at 0
+    private void grow() {
+        int capacity = (int) Math.min(maxEntries, Math.max(INITIAL_CAPACITY, ring.length * 2L));
+        Action[] bigger = new Action[capacity];
+        for (int i = 0; i < size; i++) {
+            bigger[i] = ring[(oldest + i) % ring.length];
+        }
+        ring = bigger;
+        oldest = 0;
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Wraps another listener and calls it from a background thread, so TaskManager never waits
+// on (or formats text for) slow output like the console.
+//
+// Events go into a bounded queue; the background thread takes them out in batches,
+// hands each one to the real listener, and calls its flush() once per batch.
+// If the queue is full the event is dropped (and counted) rather than slowing the caller down.
+// If the real listener throws, the exception is counted and passed to the error handler
+// (nothing by default), and the thread carries on with the next event.
+public class AsyncTaskListener implements TaskManagerListener, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+    private static final int MAX_BATCH = 1024;
+
+    private final TaskManagerListener target;
+    private final ArrayBlockingQueue<Runnable> queue;
+    private final Thread worker;
+    private final Consumer<? super RuntimeException> onError;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean closed;
+
+    public AsyncTaskListener(TaskManagerListener target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public AsyncTaskListener(TaskManagerListener target, int capacity) {
+        this(target, capacity, e -> {});
+    }
+
+    // onError is called on the background thread with whatever the real listener threw
+    public AsyncTaskListener(TaskManagerListener target, int capacity, Consumer<? super RuntimeException> onError) {
+        this.target = target;
+        this.onError = onError;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "task-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // How many events were thrown away because the queue was full
+    public long getDroppedCount() {return dropped.get();}
+
+    // How many times the real listener threw
+    public long getFailedCount() {return failed.get();}
+
+    @Override public void taskAdded(Tasks task) {submit(() -> target.taskAdded(task));}
+    @Override public void tasksImported(int count) {submit(() -> target.tasksImported(count));}
+    @Override public void taskDeleted(Tasks task) {submit(() -> target.taskDeleted(task));}
+    @Override public void taskToggled(Tasks task) {submit(() -> target.taskToggled(task));}
+    @Override public void taskUpdated(Tasks task) {submit(() -> target.taskUpdated(task));}
+    @Override public void taskArchived(Tasks task) {submit(() -> target.taskArchived(task));}
+    @Override public void archiveFinished(int count) {submit(() -> target.archiveFinished(count));}
+    @Override public void bulkUpdated(int count) {submit(() -> target.bulkUpdated(count));}
+    @Override public void undone(Action action) {submit(() -> target.undone(action));}
+    @Override public void redone(Action action) {submit(() -> target.redone(action));}
+    @Override public void nothingToUndo() {submit(target::nothingToUndo);}
+    @Override public void nothingToRedo() {submit(target::nothingToRedo);}
+
+    // Wait until every event queued so far has been handed to the real listener and flushed
+    @Override
+    public void flush() {
+        if (closed || Thread.currentThread() == worker) return;
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            queue.put(() -> {
+                try {
+                    target.flush();
+                } finally {
+                    done.countDown();   // even if flush() threw, or the caller would wait forever
+                }
+            });
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Deliver what's still queued, then stop the background thread
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Runnable event) {
+        if (closed || !queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        ArrayList<Runnable> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            Runnable first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                first = null;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) return;
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            for (Runnable event : batch) {
+                deliver(event);
+            }
+            batch.clear();
+            deliver(target::flush);
+        }
+    }
+
+    private void deliver(Runnable event) {
+        try {
+            event.run();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            try {
+                onError.accept(e);
+            } catch (RuntimeException ignored) {
+                // a broken error handler mustn't stop the thread either
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Every change TaskManager makes to its task list, numbered, so a client that keeps a copy of
+// the list can follow along instead of fetching the whole thing again.
+//
+// Each change gets the next version number (1, 2, 3, ...; 0 = nothing has happened yet) and says
+// what happened to one task: ADD (it's in the list now), UPDATE (new version), DELETE or ARCHIVE
+// (it's gone from the list). Undo/redo show up as the changes they make, e.g. undoing a delete is
+// an ADD. A change always carries the whole task, so applying it twice does no harm.
+//
+// Two ways to read it:
+// - changesSince(version): the changes after a version you've already seen, from a window of the
+//   most recent ones (a VersionEvictedException if yours is older than that window - reload the list instead)
+// - subscribe(version, capacity): a Subscription another thread can poll or wait on (from a version
+//   still in the window, like changesSince).
+//   Writers never wait for subscribers: each one has a buffer of at most `capacity` tasks, and
+//   several changes to one task are coalesced into one (e.g. ADD then UPDATE = ADD of the newest
+//   version, ADD then DELETE = nothing). If a subscriber falls so far behind that more tasks
+//   changed than its buffer holds, the buffer is dropped and it's told to resync.
+//
+// Versions start again from 0 when the TaskManager is created (they aren't saved in the log).
+public class ChangeFeed {
+    public static final int DEFAULT_HISTORY = 16_384;
+    public static final int DEFAULT_SUBSCRIBER_CAPACITY = 4_096;
+
+    public enum Type { ADD, UPDATE, DELETE, ARCHIVE }
+
+    // Thrown when asked to resume from a version whose changes have already dropped out of the
+    // history window: the only way to catch up is to reload the whole list (and resume from its version)
+    public static final class VersionEvictedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        VersionEvictedException(long since, long oldest) {
+            super("Changes after version " + since + " are no longer kept (the oldest kept starts after "
+                    + oldest + "), reload the list instead");
+        }
+    }
+
+    // One change to one task
+    public static final class Change {
+        private final long version;
+        private final Type type;
+        private final Tasks task;
+
+        Change(long version, Type type, Tasks task) {
+            this.version = version;
+            this.type = type;
+            this.task = task;
+        }
+
+        public long getVersion() {return version;}
+        public Type getType() {return type;}
+        // The task as it is after the change (for DELETE/ARCHIVE: as it was when it left the list)
+        public Tasks getTask() {return task;}
+        public int getId() {return task.getId();}
+
+        // true if the task is in the list after this change
+        public boolean isPresent() {return type == Type.ADD || type == Type.UPDATE;}
+
+        @Override
+        public String toString() {
+            return version + " " + type + " " + task.getId();
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Change[] history;
+    private long version;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeFeed() {
+        this(DEFAULT_HISTORY);
+    }
+
+    // Keeps the last `history` changes for changesSince() and for subscribers starting in the past
+    public ChangeFeed(int history) {
+        if (history < 1) throw new IllegalArgumentException("History must hold at least one change");
+        this.history = new Change[history];
+    }
+
+    // Version of the newest change (0 if there hasn't been one)
+    public long getVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Record a change (TaskManager calls this for every change it makes to the list)
+    void publish(Type type, Tasks task) {
+        Change change;
+        lock.lock();
+        try {
+            change = new Change(++version, type, task);
+            history[(int) (change.version % history.length)] = change;
+        } finally {
+            lock.unlock();
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    // The changes after `since`, oldest first (not coalesced).
+    // Throws VersionEvictedException if some of them have already dropped out of the history window.
+    public List<Change> changesSince(long since) {
+        lock.lock();
+        try {
+            checkVersion(since);
+            ArrayList<Change> changes = new ArrayList<>((int) (version - since));
+            for (long v = since + 1; v <= version; v++) {
+                changes.add(history[(int) (v % history.length)]);
+            }
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Follow the changes after `since` (use getVersion() to start from now).
+    // Throws VersionEvictedException if `since` is older than the history window.
+    public Subscription subscribe(long since, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        Subscription subscription = new Subscription(capacity);
+        lock.lock();
+        try {
+            checkVersion(since);
+            // Joining the list under the lock means no change can fall between the catch-up and the live ones
+            subscriptions.add(subscription);
+            for (long v = since + 1; v <= version; v++) {
+                subscription.offer(history[(int) (v % history.length)]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return subscription;
+    }
+
+    public int getSubscriberCount() {return subscriptions.size();}
+
+    // Caller holds the lock
+    private void checkVersion(long since) {
+        if (since < 0 || since > version) {
+            throw new IllegalArgumentException("No such version: " + since + " (newest is " + version + ")");
+        }
+        if (version - since > history.length) throw new VersionEvictedException(since, version - history.length);
+    }
+
+    // One consumer's view of the feed. Safe to read from a different thread than the writer's.
+    public final class Subscription implements AutoCloseable {
+        private final int capacity;
+        private final ReentrantLock pendingLock = new ReentrantLock();
+        private final Condition changed = pendingLock.newCondition();
+
+        // Task ID -> what's waiting for it. Insertion order is roughly change order;
+        // poll() sorts by version anyway.
+        private LinkedHashMap<Integer, Pending> pending = new LinkedHashMap<>();
+        private boolean resync;
+        private int waiters;   // threads in poll(timeout) - only they need waking
+        private long coalesced;
+        private boolean closed;
+
+        private Subscription(int capacity) {
+            this.capacity = capacity;
+        }
+
+        // Takes whatever is waiting right now (maybe nothing), oldest first, one change per task
+        public List<Change> poll() {
+            pendingLock.lock();
+            try {
+                return drain();
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        // Same, but waits up to `timeout` for something to arrive (or a resync, or close())
+        public List<Change> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            pendingLock.lock();
+            try {
+                waiters++;
+                try {
+                    while (pending.isEmpty() && !resync && !closed && nanos > 0) {
+                        nanos = changed.awaitNanos(nanos);
+                    }
+                } finally {
+                    waiters--;
+                }
+                return drain();
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        // True (once) if this subscriber fell too far behind and changes were thrown away.
+        // Then reload the whole list, and ignore changes polled later whose version is
+        // not above the version the reload was taken at (they're already in it).
+        public boolean takeResync() {
+            pendingLock.lock();
+            try {
+                boolean needed = resync;
+                resync = false;
+                return needed;
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        // How many changes were folded into others instead of being delivered separately
+        public long getCoalescedCount() {
+            pendingLock.lock();
+            try {
+                return coalesced;
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        // Stop following the feed (a thread waiting in poll() returns straight away)
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            pendingLock.lock();
+            try {
+                closed = true;
+                pending.clear();
+                changed.signalAll();
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        private void offer(Change change) {
+            pendingLock.lock();
+            try {
+                if (closed) return;
+                Pending waiting = pending.get(change.getId());
+                if (waiting != null) {
+                    coalesced++;
+                    waiting.latest = change;
+                    if (!waiting.wasPresent && !change.isPresent()) {
+                        pending.remove(change.getId());   // came and went before anyone saw it
+                    }
+                } else if (pending.size() == capacity) {
+                    overflow();
+                    return;
+                } else {
+                    // a task that's new to the subscriber was absent before an ADD, present before anything else
+                    pending.put(change.getId(), new Pending(change.type != Type.ADD, change));
+                }
+                if (waiters > 0) changed.signalAll();
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        private void overflow() {
+            pendingLock.lock();
+            try {
+                coalesced += pending.size();
+                pending = new LinkedHashMap<>();
+                resync = true;
+                changed.signalAll();
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        // Caller holds pendingLock
+        private List<Change> drain() {
+            if (pending.isEmpty()) return List.of();
+            Change[] changes = new Change[pending.size()];
+            int count = 0;
+            for (Pending waiting : pending.values()) {
+                Change latest = waiting.latest;
+                // What the subscriber needs to do, given what it had before: add, replace or drop the task
+                Type type = latest.isPresent() ? (waiting.wasPresent ? Type.UPDATE : Type.ADD) : latest.type;
+                changes[count++] = type == latest.type ? latest : new Change(latest.version, type, latest.task);
+            }
+            pending.clear();
+            Arrays.sort(changes, 0, count, (a, b) -> Long.compare(a.version, b.version));
+            return Arrays.asList(changes);
+        }
+    }
+
+    // What's waiting for one task: whether the subscriber had it before, and its newest change
+    private static final class Pending {
+        final boolean wasPresent;
+        Change latest;
+
+        Pending(boolean wasPresent, Change latest) {
+            this.wasPresent = wasPresent;
+            this.latest = latest;
+        }
+    }
+}
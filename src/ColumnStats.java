@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+// Keeps track of the longest title and description among the active tasks,
+// so the task table can size its columns without looking at every task first.
+//
+// For each column it counts how many tasks have each length. Adding or removing a task
+// is then O(1), and when the longest one goes away we only step down to the next length in use.
+public class ColumnStats implements TaskStore.Listener {
+    private final LengthCounts titles = new LengthCounts();
+    private final LengthCounts descriptions = new LengthCounts();
+
+    // Starts from whatever is in the store already.
+    // (Register it with store.addListener afterwards to keep it up to date.)
+    public ColumnStats(TaskStore store) {
+        for (Tasks task : store) {
+            titles.add(task.getTitle().length());
+            descriptions.add(task.getDescription().length());
+        }
+    }
+
+    public int longestTitle() {return titles.longest;}
+    public int longestDescription() {return descriptions.longest;}
+
+    @Override
+    public void taskInserted(Tasks task) {
+        titles.add(task.getTitle().length());
+        descriptions.add(task.getDescription().length());
+    }
+
+    @Override
+    public void taskRemoved(Tasks task) {
+        titles.remove(task.getTitle().length());
+        descriptions.remove(task.getDescription().length());
+    }
+
+    @Override
+    public void taskReplaced(Tasks before, Tasks after) {
+        if (before.getTitle() != after.getTitle()) {
+            titles.remove(before.getTitle().length());
+            titles.add(after.getTitle().length());
+        }
+        if (before.getDescription() != after.getDescription()) {
+            descriptions.remove(before.getDescription().length());
+            descriptions.add(after.getDescription().length());
+        }
+    }
+
+    // counts[n] = how many tasks have a text of length n
+    private static final class LengthCounts {
+        private int[] counts = new int[64];
+        private int longest;
+
+        void add(int length) {
+            if (length >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(length + 1, counts.length * 2));
+            }
+            counts[length]++;
+            if (length > longest) longest = length;
+        }
+
+        void remove(int length) {
+            counts[length]--;
+            while (longest > 0 && counts[longest] == 0) {
+                longest--;
+            }
+        }
+    }
+}
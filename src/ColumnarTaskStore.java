@@ -0,0 +1,220 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// A list of tasks kept as columns of plain numbers instead of one Tasks object per task.
+//
+// A Tasks object is a small tree of objects: the task itself, a LocalDate, and a LocalDateTime
+// (which holds another LocalDate and a LocalTime) - about 150 bytes before the strings,
+// and five objects the garbage collector has to walk for every task. Here each task is one row
+// across a few arrays:
+//
+//   int  id              int  due date (days since 1970-01-01)
+//   long creation time   (nanoseconds since 1970-01-01, UTC - exact, like the snapshot keeps it)
+//   byte priority        byte flags (1 = completed, 2 = archived)
+//   int  title, int description   (codes in a StringDictionary, so repeated strings are stored once)
+//
+// That's 30 bytes a row, and the whole list is a handful of arrays however many tasks it holds.
+// get() builds a Tasks for that row when someone asks for it (it's short-lived, so cheap to collect);
+// the getXxx(index) methods read a single column without building anything.
+//
+// Good for big lists that are mostly read by walking them, like the archive.
+public class ColumnarTaskStore extends AbstractList<Tasks> implements TaskList, RandomAccess {
+    private static final byte COMPLETED = 1;
+    private static final byte ARCHIVED = 2;
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private int[] ids;
+    private int[] dueDays;
+    private long[] created;
+    private byte[] priorities;
+    private byte[] flags;
+    private int[] titles;
+    private int[] descriptions;
+    private int size;
+
+    private final StringDictionary strings = new StringDictionary();
+
+    public ColumnarTaskStore() {
+        this(16);
+    }
+
+    public ColumnarTaskStore(int expectedSize) {
+        allocate(Math.max(16, expectedSize));
+    }
+
+    // ---- Reading ----
+
+    // Builds a Tasks for this row
+    @Override
+    public Tasks get(int index) {
+        checkIndex(index);
+        long nanos = created[index];
+        LocalDateTime creationTime = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+        return Tasks.restore(ids[index], strings.get(titles[index]), strings.get(descriptions[index]),
+                LocalDate.ofEpochDay(dueDays[index]), PRIORITIES[priorities[index]], creationTime,
+                (flags[index] & COMPLETED) != 0, (flags[index] & ARCHIVED) != 0);
+    }
+
+    @Override
+    public int size() {return size;}
+
+    @Override
+    public int getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public long getDueEpochDay(int index) {
+        checkIndex(index);
+        return dueDays[index];
+    }
+
+    public Tasks.Priority getPriority(int index) {
+        checkIndex(index);
+        return PRIORITIES[priorities[index]];
+    }
+
+    public boolean isCompleted(int index) {
+        checkIndex(index);
+        return (flags[index] & COMPLETED) != 0;
+    }
+
+    public String getTitle(int index) {
+        checkIndex(index);
+        return strings.get(titles[index]);
+    }
+
+    // How many different titles/descriptions there are between all the rows
+    public int getDistinctStrings() {return strings.size();}
+
+    // Rough heap used: the columns (at their current capacity) plus the dictionary
+    @Override
+    public long estimatedBytes() {
+        return 7 * 16 + (long) ids.length * (4 + 4 + 8 + 1 + 1 + 4 + 4) + strings.estimatedBytes();
+    }
+
+    // ---- Changes ----
+
+    @Override
+    public boolean add(Tasks task) {
+        if (size == ids.length) grow(size + 1);
+        write(size++, task);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Tasks task) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (size == ids.length) grow(size + 1);
+        shift(index, index + 1, size - index);
+        size++;
+        write(index, task);
+        modCount++;
+    }
+
+    @Override
+    public Tasks set(int index, Tasks task) {
+        Tasks old = get(index);
+        int title = titles[index];
+        int description = descriptions[index];
+        write(index, task);   // add the new strings before dropping the old ones, in case they're the same
+        strings.release(title);
+        strings.release(description);
+        return old;
+    }
+
+    @Override
+    public Tasks remove(int index) {
+        Tasks old = get(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+
+    // subList(from, to).clear() ends up here: drop the rows and close the gap
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range: " + fromIndex + ".." + toIndex + ", Size: " + size);
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            strings.release(titles[i]);
+            strings.release(descriptions[i]);
+        }
+        shift(toIndex, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, size);
+    }
+
+    // TaskList's way of adding and dropping (only ever at the end)
+    @Override
+    public void append(Tasks task) {add(task);}
+
+    @Override
+    public void truncate(int newSize) {removeRange(newSize, size);}
+
+    // Grow the columns up front when we know a lot of tasks are coming
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > ids.length) grow(expectedSize);
+    }
+
+    // ---- Internals ----
+
+    private void write(int index, Tasks task) {
+        LocalDateTime creationTime = task.getCreationTime();
+        ids[index] = task.getId();
+        dueDays[index] = (int) task.getDueDate().toEpochDay();
+        created[index] = creationTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + creationTime.getNano();
+        priorities[index] = (byte) task.getPriority().ordinal();
+        flags[index] = (byte) ((task.isCompleted() ? COMPLETED : 0) | (task.isArchived() ? ARCHIVED : 0));
+        titles[index] = strings.add(task.getTitle());
+        descriptions[index] = strings.add(task.getDescription());
+    }
+
+    private void shift(int from, int to, int count) {
+        System.arraycopy(ids, from, ids, to, count);
+        System.arraycopy(dueDays, from, dueDays, to, count);
+        System.arraycopy(created, from, created, to, count);
+        System.arraycopy(priorities, from, priorities, to, count);
+        System.arraycopy(flags, from, flags, to, count);
+        System.arraycopy(titles, from, titles, to, count);
+        System.arraycopy(descriptions, from, descriptions, to, count);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        dueDays = new int[capacity];
+        created = new long[capacity];
+        priorities = new byte[capacity];
+        flags = new byte[capacity];
+        titles = new int[capacity];
+        descriptions = new int[capacity];
+    }
+
+    private void grow(int needed) {
+        int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        dueDays = Arrays.copyOf(dueDays, capacity);
+        created = Arrays.copyOf(created, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+}
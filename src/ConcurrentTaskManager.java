@@ -0,0 +1,618 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+// A TaskManager that many threads can use at the same time.
+//
+// - IDs come from an atomic counter, so two threads never get the same one.
+// - Reads (getTasks, getCompletedTasks, the sorted views) return an immutable snapshot list,
+//   rebuilt only when something changed since the last one. A snapshot is always the state at
+//   one version: it's copied without a lock and thrown away if a write overlapped the copy,
+//   and only a reader that keeps losing that race briefly holds the writers off (see consistent()).
+// - Writes lock only the task they touch. Tasks are spread over a set of "stripe" locks by ID,
+//   so edits to different tasks almost never wait on each other.
+//
+// Tasks are listed in ID order (which is also the order they were added in).
+// Nothing is printed and nothing is written to disk - this is meant for library/server use.
+//
+// Undo/redo is per session (see session(name)): a session only ever undoes its own actions,
+// and an undo whose tasks were changed by someone else in the meantime is refused as a conflict.
+public class ConcurrentTaskManager {
+    // Smaller than TaskManager's limits, because there can be thousands of sessions
+    public static final int DEFAULT_SESSION_HISTORY_ENTRIES = 100;
+    public static final long DEFAULT_SESSION_HISTORY_BYTES = 256L * 1024;
+
+    private final ConcurrentSkipListMap<Integer, Tasks> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Tasks> archivedTask = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // Sorted indexes, kept up to date under the same stripe lock as the task itself
+    private final EnumMap<Tasks.Priority, ConcurrentSkipListSet<Tasks>> byPriority = new EnumMap<>(Tasks.Priority.class);
+    private final ConcurrentSkipListSet<Tasks> byDueDate = new ConcurrentSkipListSet<>(TaskIndexes.BY_DUE_DATE);
+    private final ConcurrentSkipListSet<Tasks> byCreationTime = new ConcurrentSkipListSet<>(TaskIndexes.BY_CREATION_TIME);
+
+    private final ReentrantLock[] stripes;
+
+    // Every change to the maps and indexes above runs under this lock's read side, which writers
+    // share with each other (the stripes keep them apart). A snapshot copy checks nobody held it
+    // while copying, so a half-made change - e.g. a task taken out of byDueDate and not yet put
+    // back with its new date - can never end up in a snapshot.
+    private final StampedLock changing = new StampedLock();
+    private static final int OPTIMISTIC_COPIES = 8;
+
+    // Goes up after every change; snapshots remember which version they were built at
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot tasksSnapshot = Snapshot.EMPTY;
+    private volatile Snapshot archivedSnapshot = Snapshot.EMPTY;
+    private volatile Snapshot prioritySnapshot = Snapshot.EMPTY;
+    private volatile Snapshot dueDateSnapshot = Snapshot.EMPTY;
+    private volatile Snapshot creationTimeSnapshot = Snapshot.EMPTY;
+
+    // Every session keeps its own undo/redo history, with these limits
+    private final int maxHistoryEntries;
+    private final long maxHistoryBytes;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Session defaultSession = new Session("");
+
+    public enum UndoResult { DONE, NOTHING_TO_DO, CONFLICT }
+
+    // An immutable list plus the version it was taken at
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(-1, List.of());
+
+        final long version;
+        final List<Tasks> tasks;
+
+        Snapshot(long version, List<Tasks> tasks) {
+            this.version = version;
+            this.tasks = tasks;
+        }
+    }
+
+    public ConcurrentTaskManager() {
+        this(DEFAULT_SESSION_HISTORY_ENTRIES, DEFAULT_SESSION_HISTORY_BYTES);
+    }
+
+    public ConcurrentTaskManager(int maxHistoryEntries, long maxHistoryBytes) {
+        if (maxHistoryEntries < 0 || maxHistoryBytes < 0) {
+            throw new IllegalArgumentException("History limits must not be negative");
+        }
+        this.maxHistoryEntries = maxHistoryEntries;
+        this.maxHistoryBytes = maxHistoryBytes;
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            byPriority.put(priority, new ConcurrentSkipListSet<>(TaskIndexes.BY_ID));
+        }
+        // a few locks per core keeps the chance of two busy tasks sharing one low
+        int wanted = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+        stripes = new ReentrantLock[Integer.highestOneBit(wanted - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // ---- Sessions ----
+
+    // The history for one user/client, created on first use.
+    // Each session can only undo its own actions.
+    public Session session(String name) {
+        return sessions.computeIfAbsent(name, Session::new);
+    }
+
+    // Forget a session and its history (e.g. when the client disconnects)
+    public void closeSession(String name) {
+        sessions.remove(name);
+    }
+
+    public int getSessionCount() {return sessions.size();}
+
+    // Shortcuts for callers that don't care about sessions: they all share one default session
+
+    public Tasks addTask(String title, String description, LocalDate dueDate, Tasks.Priority priority) {
+        return defaultSession.addTask(title, description, dueDate, priority);
+    }
+
+    public boolean deleteTask(int id) {return defaultSession.deleteTask(id);}
+    public boolean toggleTaskStatus(int id) {return defaultSession.toggleTaskStatus(id);}
+    public TaskUpdater updateTask(int id) {return defaultSession.updateTask(id);}
+    public int archiveCompletedTasks() {return defaultSession.archiveCompletedTasks();}
+    public UndoResult undo() {return defaultSession.undo();}
+    public UndoResult redo() {return defaultSession.redo();}
+
+    // One user's view of the manager: the same tasks as everybody else, but its own undo/redo.
+    // The two histories are only allocated once the session actually changes something,
+    // so an idle session costs a few dozen bytes.
+    public class Session {
+        private final String name;
+        private ActionHistory undoStack;
+        private ActionHistory redoStack;
+
+        private Session(String name) {
+            this.name = name;
+        }
+
+        public String getName() {return name;}
+
+        public Tasks addTask(String title, String description, LocalDate dueDate, Tasks.Priority priority) {
+            Tasks task = new Tasks(nextId.getAndIncrement(), title, description, dueDate, priority);
+            ReentrantLock lock = lockFor(task.getId());
+            lock.lock();
+            try {
+                insert(task);
+            } finally {
+                lock.unlock();
+            }
+            record(new Action(Action.ActionType.ADD, task));
+            return task;
+        }
+
+        public boolean deleteTask(int id) {
+            ReentrantLock lock = lockFor(id);
+            Tasks removed;
+            lock.lock();
+            try {
+                removed = remove(id);
+            } finally {
+                lock.unlock();
+            }
+            if (removed == null) return false;
+            record(new Action(Action.ActionType.DELETE, removed, 0));
+            return true;
+        }
+
+        public boolean toggleTaskStatus(int id) {
+            ReentrantLock lock = lockFor(id);
+            Tasks before;
+            Tasks after;
+            lock.lock();
+            try {
+                before = tasks.get(id);
+                if (before == null) return false;
+                after = before.withCompleted(!before.isCompleted());
+                replace(before, after);
+            } finally {
+                lock.unlock();
+            }
+            record(new Action(Action.ActionType.UPDATE, before, after));
+            return true;
+        }
+
+        public TaskUpdater updateTask(int id) {
+            return new TaskUpdater(this, id);
+        }
+
+        // Moves every completed task to the archive and returns how many moved.
+        // Each task is checked again under its own lock, so one toggled back meanwhile stays put.
+        // The whole run is one undo step.
+        public int archiveCompletedTasks() {
+            ArrayList<Tasks> archived = new ArrayList<>();
+            for (Tasks candidate : tasks.values()) {
+                if (!candidate.isCompleted()) continue;
+                ReentrantLock lock = lockFor(candidate.getId());
+                lock.lock();
+                try {
+                    Tasks current = tasks.get(candidate.getId());
+                    if (current != null && current.isCompleted()) {
+                        moveToArchive(current);
+                        archived.add(current);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (!archived.isEmpty()) {
+                record(new Action(Action.ActionType.ARCHIVE, archived.toArray(new Tasks[0]), new int[archived.size()]));
+            }
+            return archived.size();
+        }
+
+        // Undo this session's newest action.
+        // If someone else has changed the tasks it touched since, nothing is changed,
+        // the action is dropped (it can never apply cleanly again) and CONFLICT is returned.
+        public UndoResult undo() {
+            Action action;
+            synchronized (this) {
+                action = undoStack == null ? null : undoStack.pop();
+            }
+            if (action == null) return UndoResult.NOTHING_TO_DO;
+            if (!applyIfUnchanged(action, true)) return UndoResult.CONFLICT;
+            synchronized (this) {
+                redoStack.push(action);
+            }
+            return UndoResult.DONE;
+        }
+
+        public UndoResult redo() {
+            Action action;
+            synchronized (this) {
+                action = redoStack == null ? null : redoStack.pop();
+            }
+            if (action == null) return UndoResult.NOTHING_TO_DO;
+            if (!applyIfUnchanged(action, false)) return UndoResult.CONFLICT;
+            synchronized (this) {
+                undoStack.push(action);
+            }
+            return UndoResult.DONE;
+        }
+
+        public synchronized int getUndoCount() {return undoStack == null ? 0 : undoStack.size();}
+        public synchronized int getRedoCount() {return redoStack == null ? 0 : redoStack.size();}
+
+        private synchronized void record(Action action) {
+            if (undoStack == null) {
+                undoStack = new ActionHistory(maxHistoryEntries, maxHistoryBytes);
+                redoStack = new ActionHistory(maxHistoryEntries, maxHistoryBytes);
+            }
+            redoStack.clear();
+            undoStack.push(action);
+        }
+    }
+
+    // ---- Reads (immutable snapshots, see consistent()) ----
+
+    public List<Tasks> getTasks() {
+        Snapshot snapshot = tasksSnapshot;
+        if (snapshot.version != version.get()) {
+            snapshot = takeSnapshot(tasks.values());
+            tasksSnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    public List<Tasks> getArchivedTasks() {
+        Snapshot snapshot = archivedSnapshot;
+        if (snapshot.version != version.get()) {
+            snapshot = takeSnapshot(archivedTask.values());
+            archivedSnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    public List<Tasks> getCompletedTasks() {
+        ArrayList<Tasks> completed = new ArrayList<>();
+        for (Tasks task : getTasks()) {
+            if (task.isCompleted()) completed.add(task);
+        }
+        return Collections.unmodifiableList(completed);
+    }
+
+    public List<Tasks> sortByPriority() {
+        Snapshot snapshot = prioritySnapshot;
+        if (snapshot.version != version.get()) {
+            snapshot = consistent(() -> {
+                ArrayList<Tasks> list = new ArrayList<>();
+                for (ConcurrentSkipListSet<Tasks> bucket : byPriority.values()) {
+                    list.addAll(bucket);
+                }
+                return list;
+            });
+            prioritySnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    public List<Tasks> sortByDueDate() {
+        Snapshot snapshot = dueDateSnapshot;
+        if (snapshot.version != version.get()) {
+            snapshot = takeSnapshot(byDueDate);
+            dueDateSnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    public List<Tasks> sortByCreationTime() {
+        Snapshot snapshot = creationTimeSnapshot;
+        if (snapshot.version != version.get()) {
+            snapshot = takeSnapshot(byCreationTime);
+            creationTimeSnapshot = snapshot;
+        }
+        return snapshot.tasks;
+    }
+
+    // The first `limit` tasks of each list above, for callers that only show a page of it
+    // (like TaskServer's LIST). If that list's snapshot is still current they're just its front;
+    // otherwise only that many are copied (consistently, like a snapshot) instead of the whole list.
+    public List<Tasks> getTasks(int limit) {return first(tasksSnapshot, List.of(tasks.values()), false, limit);}
+    public List<Tasks> getArchivedTasks(int limit) {return first(archivedSnapshot, List.of(archivedTask.values()), false, limit);}
+    public List<Tasks> getCompletedTasks(int limit) {return first(null, List.of(tasks.values()), true, limit);}
+    public List<Tasks> sortByPriority(int limit) {return first(prioritySnapshot, byPriority.values(), false, limit);}
+    public List<Tasks> sortByDueDate(int limit) {return first(dueDateSnapshot, List.of(byDueDate), false, limit);}
+    public List<Tasks> sortByCreationTime(int limit) {return first(creationTimeSnapshot, List.of(byCreationTime), false, limit);}
+
+    public Tasks getTask(int id) {return tasks.get(id);}
+    public int size() {return tasks.size();}
+
+    // `sources` are read one after the other (the priority view is one set per priority)
+    private List<Tasks> first(Snapshot cached, Collection<? extends Collection<Tasks>> sources, boolean completedOnly, int limit) {
+        if (limit <= 0) return List.of();
+        if (cached != null && cached.version == version.get()) {
+            return cached.tasks.subList(0, Math.min(limit, cached.tasks.size()));
+        }
+        return consistent(() -> {
+            ArrayList<Tasks> list = new ArrayList<>(Math.min(limit, 1024));
+            for (Collection<Tasks> source : sources) {
+                for (Tasks task : source) {
+                    if (list.size() == limit) return list;
+                    if (!completedOnly || task.isCompleted()) list.add(task);
+                }
+            }
+            return list;
+        }).tasks;
+    }
+
+    private Snapshot takeSnapshot(Collection<Tasks> source) {
+        return consistent(() -> new ArrayList<>(source));
+    }
+
+    // Runs `copy` and tags the result with the version it shows. The copy is kept only if no
+    // change was in progress when it started or when it ended and the version didn't move in
+    // between - then it saw exactly the state at that version. After a few failed tries (a very
+    // busy writer side) it copies under the write lock instead, which waits for the changes in
+    // progress to finish and holds new ones off until the copy is done.
+    private Snapshot consistent(Supplier<ArrayList<Tasks>> copy) {
+        for (int attempt = 0; attempt < OPTIMISTIC_COPIES; attempt++) {
+            if (!changing.isReadLocked()) {
+                long before = version.get();
+                ArrayList<Tasks> list = copy.get();
+                if (!changing.isReadLocked() && version.get() == before) {
+                    return new Snapshot(before, Collections.unmodifiableList(list));
+                }
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = changing.writeLock();
+        try {
+            return new Snapshot(version.get(), Collections.unmodifiableList(copy.get()));
+        } finally {
+            changing.unlockWrite(stamp);
+        }
+    }
+
+    // ---- Updater, like TaskManager.TaskUpdater ----
+
+    public class TaskUpdater {
+        private final Session session;
+        private final int taskId;
+        private String newTitle;
+        private String newDescription;
+        private LocalDate newDueDate;
+        private Tasks.Priority newPriority;
+
+        TaskUpdater(Session session, int id) {
+            this.session = session;
+            this.taskId = id;
+        }
+
+        public TaskUpdater title(String title) {
+            this.newTitle = title;
+            return this;
+        }
+
+        public TaskUpdater description(String description) {
+            this.newDescription = description;
+            return this;
+        }
+
+        public TaskUpdater dueDate(LocalDate dueDate) {
+            this.newDueDate = dueDate;
+            return this;
+        }
+
+        public TaskUpdater priority(Tasks.Priority priority) {
+            this.newPriority = priority;
+            return this;
+        }
+
+        public boolean apply() {
+            ReentrantLock lock = lockFor(taskId);
+            Tasks before;
+            Tasks after;
+            lock.lock();
+            try {
+                before = tasks.get(taskId);
+                if (before == null) return false;
+                after = before;
+                if (newTitle != null) after = after.withTitle(newTitle);
+                if (newDescription != null) after = after.withDescription(newDescription);
+                if (newDueDate != null) after = after.withDueDate(newDueDate);
+                if (newPriority != null) after = after.withPriority(newPriority);
+                replace(before, after);
+            } finally {
+                lock.unlock();
+            }
+            session.record(new Action(Action.ActionType.UPDATE, before, after));
+            return true;
+        }
+    }
+
+    // ---- Internals (callers hold the task's stripe lock) ----
+
+    private ReentrantLock lockFor(int id) {
+        return stripes[stripeOf(id)];
+    }
+
+    private int stripeOf(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    // Each of these is one change: done under the read side of `changing`, and the version goes
+    // up before it's released (so a snapshot taken once it's released sees a newer version)
+
+    private void insert(Tasks task) {
+        long stamp = changing.readLock();
+        try {
+            addToIndexes(task);
+            version.incrementAndGet();
+        } finally {
+            changing.unlockRead(stamp);
+        }
+    }
+
+    private Tasks remove(int id) {
+        long stamp = changing.readLock();
+        try {
+            Tasks removed = tasks.get(id);
+            if (removed != null) {
+                removeFromIndexes(removed);
+                version.incrementAndGet();
+            }
+            return removed;
+        } finally {
+            changing.unlockRead(stamp);
+        }
+    }
+
+    private void replace(Tasks before, Tasks after) {
+        if (before == after) return;
+        long stamp = changing.readLock();
+        try {
+            tasks.put(after.getId(), after);
+            // the indexes hold the current version (readers copy them directly), so always swap
+            byPriority.get(before.getPriority()).remove(before);
+            byPriority.get(after.getPriority()).add(after);
+            byDueDate.remove(before);
+            byDueDate.add(after);
+            byCreationTime.remove(before);
+            byCreationTime.add(after);
+            version.incrementAndGet();
+        } finally {
+            changing.unlockRead(stamp);
+        }
+    }
+
+    private void moveToArchive(Tasks task) {
+        long stamp = changing.readLock();
+        try {
+            removeFromIndexes(task);
+            archivedTask.put(task.getId(), task);
+            version.incrementAndGet();
+        } finally {
+            changing.unlockRead(stamp);
+        }
+    }
+
+    private void moveFromArchive(Tasks task) {
+        long stamp = changing.readLock();
+        try {
+            archivedTask.remove(task.getId());
+            addToIndexes(task);
+            version.incrementAndGet();
+        } finally {
+            changing.unlockRead(stamp);
+        }
+    }
+
+    private void addToIndexes(Tasks task) {
+        tasks.put(task.getId(), task);
+        byPriority.get(task.getPriority()).add(task);
+        byDueDate.add(task);
+        byCreationTime.add(task);
+    }
+
+    private void removeFromIndexes(Tasks task) {
+        tasks.remove(task.getId());
+        byPriority.get(task.getPriority()).remove(task);
+        byDueDate.remove(task);
+        byCreationTime.remove(task);
+    }
+
+    // Undo (reverse = true) or redo an action, but only if every task it touches is still exactly
+    // the version the action left behind (undo) or started from (redo). Tasks never change in
+    // place, so "exactly" is a plain reference check. All the stripes involved are locked first
+    // (always in stripe order, so two callers can't deadlock), then checked, then changed.
+    private boolean applyIfUnchanged(Action action, boolean reverse) {
+        ReentrantLock[] held = lockStripes(action);
+        try {
+            if (!unchanged(action, reverse)) return false;
+            apply(action, reverse);
+            return true;
+        } finally {
+            for (ReentrantLock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock[] lockStripes(Action action) {
+        boolean[] needed = new boolean[stripes.length];
+        int count = 0;
+        Tasks[] touched = action.getType() == Action.ActionType.ARCHIVE ? action.getBatchTasks() : new Tasks[]{action.getTask()};
+        for (Tasks task : touched) {
+            int stripe = stripeOf(task.getId());
+            if (!needed[stripe]) {
+                needed[stripe] = true;
+                count++;
+            }
+        }
+        ReentrantLock[] held = new ReentrantLock[count];
+        int n = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (needed[i]) {
+                stripes[i].lock();
+                held[n++] = stripes[i];
+            }
+        }
+        return held;
+    }
+
+    private boolean unchanged(Action action, boolean reverse) {
+        Tasks task = action.getTask();
+        switch (action.getType()) {
+            case ADD:
+                return reverse ? tasks.get(task.getId()) == task : absent(task.getId());
+            case DELETE:
+                return reverse ? absent(task.getId()) : tasks.get(task.getId()) == task;
+            case UPDATE:
+                return tasks.get(task.getId()) == (reverse ? task : action.getOldTask());
+            case ARCHIVE:
+                for (Tasks archived : action.getBatchTasks()) {
+                    Tasks current = reverse ? archivedTask.get(archived.getId()) : tasks.get(archived.getId());
+                    if (current != archived) return false;
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean absent(int id) {
+        return !tasks.containsKey(id) && !archivedTask.containsKey(id);
+    }
+
+    // Callers hold the stripe locks of every task the action touches
+    private void apply(Action action, boolean reverse) {
+        switch (action.getType()) {
+            case ADD -> {
+                if (reverse) remove(action.getTask().getId()); else insert(action.getTask());
+            }
+            case DELETE -> {
+                if (reverse) insert(action.getTask()); else remove(action.getTask().getId());
+            }
+            case UPDATE -> {
+                Tasks from = reverse ? action.getTask() : action.getOldTask();
+                Tasks to = reverse ? action.getOldTask() : action.getTask();
+                replace(from, to);
+            }
+            case ARCHIVE -> {
+                for (Tasks task : action.getBatchTasks()) {
+                    if (reverse) {
+                        moveFromArchive(task);
+                    } else {
+                        moveToArchive(task);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Prints TaskManager's messages, the same ones it used to print itself.
+// It can print DeadlineScheduler's reminders too (those come from the scheduler's thread).
+public class ConsoleTaskListener implements TaskManagerListener, DeadlineListener {
+    private final PrintStream out;
+
+    public ConsoleTaskListener(PrintStream out) {
+        this.out = out;
+    }
+
+    // Collects the messages in a buffer and only writes them out on flush() (or when it's full).
+    // Meant to sit behind an AsyncTaskListener, which flushes after every batch.
+    public static ConsoleTaskListener buffered(OutputStream out) {
+        return new ConsoleTaskListener(new PrintStream(new BufferedOutputStream(out, 64 * 1024), false));
+    }
+
+    @Override
+    public void taskAdded(Tasks task) {
+        out.println("Adding Task ID " + task.getId() + " : " + task.getTitle());
+    }
+
+    @Override
+    public void tasksImported(int count) {
+        out.println(count == 0 ? "No tasks to import" : "Imported " + count + " task(s)");
+    }
+
+    @Override
+    public void taskToggled(Tasks task) {
+        out.println("Toggled completion status for task ID " + task.getId());
+    }
+
+    @Override
+    public void taskUpdated(Tasks task) {
+        out.println("Updated task ID " + task.getId());
+    }
+
+    @Override
+    public void taskArchived(Tasks task) {
+        out.println("Archived task ID " + task.getId() + ": " + task.getTitle());
+    }
+
+    @Override
+    public void archiveFinished(int count) {
+        out.println(count == 0 ? "No completed tasks to archive" : "Archived " + count + " completed task(s)");
+    }
+
+    @Override
+    public void bulkUpdated(int count) {
+        out.println(count == 0 ? "No tasks matched" : "Updated " + count + " task(s)");
+    }
+
+    @Override
+    public void undone(Action action) {
+        out.println("Undoing action: " + action.getType());
+        out.println("Undo " + describe(action));
+    }
+
+    @Override
+    public void redone(Action action) {
+        out.println("Redoing action: " + action.getType());
+        out.println("Redo " + describe(action));
+    }
+
+    @Override
+    public void nothingToUndo() {
+        out.println("No tasks to undo");
+    }
+
+    @Override
+    public void nothingToRedo() {
+        out.println("No tasks to redo");
+    }
+
+    @Override
+    public void dueSoon(Tasks task) {
+        out.println("Reminder: task ID " + task.getId() + " (" + task.getTitle() + ") is due on "
+                + DateFormats.format(task.getDueDate()));
+        out.flush();
+    }
+
+    @Override
+    public void overdue(Tasks task) {
+        out.println("Overdue: task ID " + task.getId() + " (" + task.getTitle() + ") was due on "
+                + DateFormats.format(task.getDueDate()));
+        out.flush();
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    private static String describe(Action action) {
+        Tasks[] batch = action.getBatchTasks();
+        return switch (action.getType()) {
+            case ADD -> batch != null ? "ADD: " + batch.length + " imported task(s)" : "ADD: Task ID " + action.getTask().getId();
+            case DELETE -> "DELETE: Task ID " + action.getTask().getId();
+            case UPDATE -> "UPDATE: Task ID " + action.getTask().getId();
+            case ARCHIVE -> "ARCHIVE: " + action.getBatchSize() + " task(s)";
+            case BULK_UPDATE -> (action.getBulkPriority() == null ? "COMPLETE: " : "PRIORITY " + action.getBulkPriority() + ": ")
+                    + action.getBatchSize() + " task(s)";
+        };
+    }
+}
@@ -0,0 +1,112 @@
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// Everything to do with the dd/MM/yyyy dates shown to (and typed in by) the user.
+//
+// - One shared DateTimeFormatter (they're immutable and thread-safe, no need to build one per call)
+// - format(): remembers the text for recently used dates. Due dates bunch up on a few days,
+//   so most calls just hand back a String that was already made.
+// - parse(): reads the fixed dd/MM/yyyy layout by hand and returns null for bad input,
+//   so checking user input doesn't have to throw and catch an exception every time.
+public final class DateFormats {
+    public static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ENGLISH);
+
+    private static final int CACHE_SLOTS = 4096;   // power of two
+    private static final Entry[] cache = new Entry[CACHE_SLOTS];
+
+    // One remembered date. It's immutable, so threads can share the cache without locking:
+    // at worst two threads both format the same date and one result wins.
+    private static final class Entry {
+        final long epochDay;
+        final String text;
+
+        Entry(long epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+
+    private DateFormats() {}
+
+    // The date as dd/MM/yyyy
+    public static String format(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int slot = (int) epochDay & (CACHE_SLOTS - 1);
+        Entry entry = cache[slot];
+        if (entry != null && entry.epochDay == epochDay) return entry.text;
+
+        String text = build(date);
+        cache[slot] = new Entry(epochDay, text);
+        return text;
+    }
+
+    // Reads dd/MM/yyyy (exactly two, two and four digits, or a +year past 9999). Returns null if it isn't a real date.
+    // Like the DateTimeFormatter, a day past the end of the month (31/04) is moved back to the last day.
+    public static LocalDate parse(String text) {
+        if (text == null || text.length() < 10 || text.charAt(2) != '/' || text.charAt(5) != '/') return null;
+        if (text.length() > 10) return parseLongYear(text);
+        int day = digits(text, 0, 2);
+        int month = digits(text, 3, 5);
+        int year = digits(text, 6, 10);
+        if (day < 1 || day > 31 || month < 1 || month > 12 || year < 1) return null;
+
+        int lastDay = switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+        return LocalDate.of(year, month, Math.min(day, lastDay));
+    }
+
+    public static boolean isValid(String text) {
+        return parse(text) != null;
+    }
+
+    // Like parse, but throws (the same DateTimeParseException as before) for anything it can't read
+    public static LocalDate parseOrThrow(String text) {
+        LocalDate date = parse(text);
+        return date != null ? date : LocalDate.parse(text, DMY);
+    }
+
+    // Years past 9999 come with a sign (+10000), which is how format() writes them.
+    // They're rare enough to leave to the formatter.
+    private static LocalDate parseLongYear(String text) {
+        if (text.charAt(6) != '+') return null;
+        try {
+            return LocalDate.parse(text, DMY);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // The number in text[from, to), or -1 if something there isn't a digit
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String build(LocalDate date) {
+        int year = date.getYear();
+        if (year < 1 || year > 9999) return date.format(DMY);
+        char[] chars = new char[10];
+        chars[0] = (char) ('0' + date.getDayOfMonth() / 10);
+        chars[1] = (char) ('0' + date.getDayOfMonth() % 10);
+        chars[2] = '/';
+        chars[3] = (char) ('0' + date.getMonthValue() / 10);
+        chars[4] = (char) ('0' + date.getMonthValue() % 10);
+        chars[5] = '/';
+        for (int i = 9; i >= 6; i--) {
+            chars[i] = (char) ('0' + year % 10);
+            year /= 10;
+        }
+        return new String(chars);
+    }
+}
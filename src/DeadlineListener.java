@@ -0,0 +1,12 @@
+// Hears from DeadlineScheduler when an unfinished task's due date comes up.
+//
+// Called on the scheduler's own thread, so keep it quick (or hand the work off,
+// e.g. to another thread). The task is the version that was current when it was scheduled
+// or last edited - Tasks never change, so it's safe to keep.
+public interface DeadlineListener {
+    // The task is due within the scheduler's "due soon" lead time
+    default void dueSoon(Tasks task) {}
+
+    // The task's due date has passed and it still isn't completed
+    default void overdue(Tasks task) {}
+}
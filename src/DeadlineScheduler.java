@@ -0,0 +1,395 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Watches the due dates of the unfinished active tasks and tells subscribers (DeadlineListener)
+// when a task becomes due soon and when it becomes overdue.
+//
+// Every unfinished task has one entry in an indexed min-heap, keyed by the next moment something
+// happens to it: first "due soon" (midnight at the start of the due date, minus the lead time),
+// then "overdue" (midnight at the end of the due date). positions[id - firstId] remembers where each task
+// sits in the heap, so adding, rescheduling, completing or deleting a task is O(log n),
+// and the heap itself is a few flat arrays - 17 bytes per heap slot (the time, ID, stage and task
+// reference) plus 4 bytes per ID in the position table.
+//
+// It's a TaskStore listener, so it follows every change the manager makes (undo/redo, archive,
+// import...). Those calls come from the manager's thread; one scheduler thread sleeps until the
+// earliest deadline (or until an earlier one is added) and fires the events. A lock guards the heap,
+// and listeners are called outside it.
+//
+// Tasks that are already overdue when they're scheduled (at start-up, or added/edited/undone back
+// with a past due date) aren't watched and get no event: the owner already knows about them
+// (Main counts them once before the menu). Only tasks that go overdue while it's running are reported.
+public class DeadlineScheduler implements TaskStore.Listener, AutoCloseable {
+    private static final byte DUE_SOON = 0;
+    private static final byte OVERDUE = 1;
+
+    private final Clock clock;
+    private final ZoneId zone;
+    private final long leadMillis;
+    private final CopyOnWriteArrayList<DeadlineListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // The heap: entry i is (when[i], ids[i]) with stage[i] and the task itself
+    private long[] when;
+    private int[] ids;
+    private byte[] stage;
+    private Tasks[] tasks;
+    private int size;
+    private int[] positions = new int[16];   // task ID - firstId -> heap index + 1 (0 = not scheduled)
+    // The lowest ID the store hands out (a shard's IDs start far above 1, see ShardedTaskManager)
+    private final int firstId;
+
+    private long lastDay = Long.MIN_VALUE;
+    private long lastDayStart;
+    private long lastDayEnd;
+
+    private Thread thread;
+    private volatile boolean closed;
+    private long fired;
+
+    // Schedules every unfinished task in the store (build the heap in one go - O(n)).
+    // (Register it with store.addListener afterwards, and start() it to get events on its own thread.)
+    public DeadlineScheduler(TaskStore store, Clock clock, Duration dueSoonLead) {
+        this(store, clock, dueSoonLead, 1);
+    }
+
+    // Same, for a store whose IDs start at firstId (every ID in it must be firstId or more)
+    public DeadlineScheduler(TaskStore store, Clock clock, Duration dueSoonLead, int firstId) {
+        this.firstId = firstId;
+        this.clock = clock;
+        this.zone = clock.getZone();
+        this.leadMillis = dueSoonLead.toMillis();
+        int capacity = Math.max(16, store.size());
+        when = new long[capacity];
+        ids = new int[capacity];
+        stage = new byte[capacity];
+        tasks = new Tasks[capacity];
+
+        long now = clock.millis();
+        for (Tasks task : store) {
+            if (task.isCompleted() || overdueAt(task.getDueDate()) <= now) continue;
+            place(size, task);
+            track(task.getId(), size);
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public void addListener(DeadlineListener listener) {listeners.add(listener);}
+    public void removeListener(DeadlineListener listener) {listeners.remove(listener);}
+
+    // Starts the scheduler thread (a daemon, so it never keeps the program alive)
+    public void start() {
+        lock.lock();
+        try {
+            if (thread != null || closed) return;
+            thread = new Thread(this::run, "task-deadlines");
+            thread.setDaemon(true);
+            thread.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread running;
+        lock.lock();
+        try {
+            closed = true;
+            running = thread;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (running != null && running != Thread.currentThread()) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // How many tasks are waiting for a deadline
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // How many events have been sent so far
+    public long getFiredCount() {
+        lock.lock();
+        try {
+            return fired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rough heap used: the four heap arrays plus the ID -> position table
+    public long estimatedBytes() {
+        lock.lock();
+        try {
+            return 4 * 16 + (long) when.length * (8 + 4 + 1 + 4) + 16 + 4L * positions.length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sends every event that's due by now (by the scheduler's clock) on the calling thread.
+    // The scheduler thread does this by itself; it's here for tests and benchmarks that use
+    // their own clock without start(). Returns how many events were sent.
+    public int fireDue() {
+        ArrayList<Tasks> soon = new ArrayList<>();
+        ArrayList<Tasks> overdue = new ArrayList<>();
+        lock.lock();
+        try {
+            collectDue(clock.millis(), soon, overdue);
+        } finally {
+            lock.unlock();
+        }
+        deliver(soon, overdue);
+        return soon.size() + overdue.size();
+    }
+
+    private void run() {
+        ArrayList<Tasks> soon = new ArrayList<>();
+        ArrayList<Tasks> overdue = new ArrayList<>();
+        while (true) {
+            lock.lock();
+            try {
+                while (!closed) {
+                    long wait = size == 0 ? Long.MAX_VALUE : when[0] - clock.millis();
+                    if (wait <= 0) break;
+                    // wake up at least once a minute, in case the system clock jumps
+                    changed.await(Math.min(wait, 60_000), TimeUnit.MILLISECONDS);
+                }
+                if (closed) return;
+                collectDue(clock.millis(), soon, overdue);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            deliver(soon, overdue);
+            soon.clear();
+            overdue.clear();
+        }
+    }
+
+    // Takes everything due by `now` off the heap (or moves it on to its overdue time).
+    // Caller holds the lock.
+    private void collectDue(long now, ArrayList<Tasks> soon, ArrayList<Tasks> overdue) {
+        while (size > 0 && when[0] <= now) {
+            Tasks task = tasks[0];
+            long overdueAt = overdueAt(task.getDueDate());
+            if (stage[0] == DUE_SOON && overdueAt > now) {
+                soon.add(task);
+                when[0] = overdueAt;
+                stage[0] = OVERDUE;
+                siftDown(0);
+            } else {
+                overdue.add(task);
+                removeAt(0);
+            }
+        }
+        fired += soon.size() + overdue.size();
+    }
+
+    private void deliver(ArrayList<Tasks> soon, ArrayList<Tasks> overdue) {
+        for (DeadlineListener listener : listeners) {
+            for (Tasks task : soon) {
+                listener.dueSoon(task);
+            }
+            for (Tasks task : overdue) {
+                listener.overdue(task);
+            }
+        }
+    }
+
+    // ---- Keeping in step with the store ----
+
+    @Override
+    public void taskInserted(Tasks task) {
+        if (task.isCompleted()) return;
+        lock.lock();
+        try {
+            schedule(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taskRemoved(Tasks task) {
+        lock.lock();
+        try {
+            unschedule(task.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taskReplaced(Tasks before, Tasks after) {
+        lock.lock();
+        try {
+            if (after.isCompleted()) {
+                unschedule(after.getId());
+            } else if (before.isCompleted() || !before.getDueDate().equals(after.getDueDate())) {
+                unschedule(before.getId());
+                schedule(after);
+            } else {
+                int at = positions[after.getId() - firstId] - 1;
+                if (at >= 0) tasks[at] = after;   // same deadline, just keep the newest version
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void schedule(Tasks task) {
+        if (overdueAt(task.getDueDate()) <= clock.millis()) return;   // already overdue: nothing to wait for
+        if (size == when.length) grow();
+        place(size, task);
+        track(task.getId(), size);
+        size++;
+        siftUp(size - 1);
+        if (positions[task.getId() - firstId] == 1) changed.signalAll();   // new earliest deadline: wake the thread
+    }
+
+    private void unschedule(int id) {
+        int slot = id - firstId;
+        int at = slot >= 0 && slot < positions.length ? positions[slot] - 1 : -1;
+        if (at >= 0) removeAt(at);
+    }
+
+    // (The task isn't overdue yet, so it always starts at "due soon" - which may already have passed)
+    private void place(int at, Tasks task) {
+        when[at] = startOf(task.getDueDate()) - leadMillis;
+        stage[at] = DUE_SOON;
+        ids[at] = task.getId();
+        tasks[at] = task;
+    }
+
+    // Midnight at the start and at the end of the due date. Due dates bunch up on the same days,
+    // so the last answer is kept (working it out through the time zone rules is the slow part).
+    private long startOf(LocalDate dueDate) {
+        remember(dueDate);
+        return lastDayStart;
+    }
+
+    private long overdueAt(LocalDate dueDate) {
+        remember(dueDate);
+        return lastDayEnd;
+    }
+
+    private void remember(LocalDate dueDate) {
+        long day = dueDate.toEpochDay();
+        if (day != lastDay) {
+            lastDayStart = dueDate.atStartOfDay(zone).toInstant().toEpochMilli();
+            lastDayEnd = dueDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            lastDay = day;
+        }
+    }
+
+    // ---- The heap ----
+
+    private void removeAt(int at) {
+        positions[ids[at] - firstId] = 0;
+        size--;
+        if (at != size) {
+            move(size, at);
+            tasks[size] = null;
+            siftDown(at);
+            siftUp(at);
+        } else {
+            tasks[size] = null;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return when[a] < when[b] || (when[a] == when[b] && ids[a] < ids[b]);
+    }
+
+    private void siftUp(int at) {
+        while (at > 0) {
+            int parent = (at - 1) / 2;
+            if (!before(at, parent)) return;
+            swap(at, parent);
+            at = parent;
+        }
+    }
+
+    private void siftDown(int at) {
+        while (true) {
+            int first = at;
+            int left = 2 * at + 1;
+            int right = left + 1;
+            if (left < size && before(left, first)) first = left;
+            if (right < size && before(right, first)) first = right;
+            if (first == at) return;
+            swap(at, first);
+            at = first;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long w = when[a];
+        when[a] = when[b];
+        when[b] = w;
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        byte s = stage[a];
+        stage[a] = stage[b];
+        stage[b] = s;
+        Tasks t = tasks[a];
+        tasks[a] = tasks[b];
+        tasks[b] = t;
+        positions[ids[a] - firstId] = a + 1;
+        positions[ids[b] - firstId] = b + 1;
+    }
+
+    private void move(int from, int to) {
+        when[to] = when[from];
+        ids[to] = ids[from];
+        stage[to] = stage[from];
+        tasks[to] = tasks[from];
+        positions[ids[to] - firstId] = to + 1;
+    }
+
+    private void track(int id, int at) {
+        int slot = id - firstId;
+        if (slot >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(slot + 1, positions.length * 2));
+        }
+        positions[slot] = at + 1;
+    }
+
+    private void grow() {
+        int capacity = when.length * 2;
+        when = Arrays.copyOf(when, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        stage = Arrays.copyOf(stage, capacity);
+        tasks = Arrays.copyOf(tasks, capacity);
+    }
+}
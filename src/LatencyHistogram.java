@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+// Counts how long something took, in nanoseconds, so we can ask for percentiles later
+// (median, 99th, ...) without keeping every single measurement.
+//
+// Works like HdrHistogram: values below 64 ns each get their own bucket, and above that
+// every power of two is split into 32 equal buckets. So any value lands in a bucket at most
+// ~3% wide, whether it's 100 ns or 10 seconds, and the whole thing is one fixed array.
+//
+// Recording is a few plain array writes - meant for the single thread that owns a TaskManager.
+// Another thread (like JMX) can read at the same time; it may just see a slightly stale picture.
+public class LatencyHistogram {
+    private static final int LINEAR = 64;        // values below this get a bucket each
+    private static final int SUB_BUCKETS = 32;   // buckets per power of two above that
+    private static final int LINEAR_BITS = 6;    // log2(LINEAR)
+    private static final int SUB_BITS = 5;       // log2(SUB_BUCKETS)
+    private static final int BUCKETS = LINEAR + (63 - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public long getCount() {return count;}
+    public long getTotalNanos() {return total;}
+    public long getMaxNanos() {return max;}
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    // The value that `percentile` percent of the recordings were at or below (e.g. 99.0).
+    // Reported as the top of its bucket, so it's never an underestimate.
+    public long getPercentileNanos(double percentile) {
+        long seen = 0;
+        long wanted = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        if (wanted == 0) wanted = 1;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= wanted) return Math.min(highestValueIn(bucket), max);
+        }
+        return max;
+    }
+
+    // Adds everything another histogram recorded into this one
+    // (e.g. to combine per-thread histograms at the end of a run)
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+        total += other.total;
+        if (other.max > max) max = other.max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);   // >= LINEAR_BITS
+        int shift = magnitude - SUB_BITS;
+        int top = (int) (value >>> shift);                      // SUB_BUCKETS .. 2*SUB_BUCKETS-1
+        return LINEAR + (magnitude - LINEAR_BITS) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int k = bucket - LINEAR;
+        int magnitude = k / SUB_BUCKETS + LINEAR_BITS;
+        long top = k % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = magnitude - SUB_BITS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -1,102 +1,93 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Scanner;
 
 public class Main {
     static TaskManager tm = new TaskManager();
-    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ENGLISH);
 
-    public static void viewTasks(int sorting) {
+    // How many rows to show before asking whether to carry on
+    private static final int PAGE_ROWS = 100;
 
-        int titleLength = tm.getTasks().stream()
-                .mapToInt(t -> t.getTitle().length())
-                .max()
-                .orElse(0);
-        int titleColWidth = Math.max(titleLength, 20);
-
-        int descLength = tm.getTasks().stream()
-                .mapToInt(t -> t.getDescription().length())
-                .max()
-                .orElse(0);
-        int descColWidth = Math.max(descLength, 35);
-
-        String format = String.format("%%-5s %%-%ds %%-%ds %%-%ds %%-%ds %%-%ds%n",
-                titleColWidth,
-                descColWidth,
-                12,
-                10,
-                10);
-
-        System.out.println("-".repeat(45 + titleColWidth + descColWidth));
-        System.out.printf(format, "ID", "Title", "Description", "Due Date", "Priority", "Completed");
-        System.out.println("-".repeat(45 + titleColWidth + descColWidth));
-
-        String rowFormat = String.format("%%-5d %%-%ds %%-%ds %%-%ds %%-%ds %%-%ds%n",
-                titleColWidth,
-                descColWidth,
-                12,
-                10,
-                10);
+    // Most search results to show (best matches first)
+    private static final int SEARCH_RESULTS = 50;
 
+    public static void viewTasks(int sorting) {
+        viewTasks(sorting, null);
+    }
+
+    // Shows the chosen list as a table. With a Scanner, long lists are shown a page at a time.
+    public static void viewTasks(int sorting, Scanner sc) {
+        Iterable<Tasks> list;
         switch (sorting) {
-            case 1: // Default Sorting
-                for (Tasks t : tm.getTasks()) {
-                    System.out.printf(rowFormat,
-                            t.getId(),
-                            t.getTitle(),
-                            t.getDescription(),
-                            t.getDueDate().format(DMY),
-                            t.getPriority().status,
-                            t.isCompleted() ? "Yes" : "No");
-                }
-                break;
-            case 2: // Priority Sorting
-                for (Tasks t : tm.sortByPriority(tm.getTasks())) {
-                    System.out.printf(rowFormat,
-                            t.getId(),
-                            t.getTitle(),
-                            t.getDescription(),
-                            t.getDueDate().format(DMY),
-                            t.getPriority().status,
-                            t.isCompleted() ? "Yes" : "No");
-                }
-                break;
-            case 3: // View Archived Tasks
-                for (Tasks t : tm.getArchivedTasks()) {
-                    System.out.printf(rowFormat,
-                            t.getId(),
-                            t.getTitle(),
-                            t.getDescription(),
-                            t.getDueDate().format(DMY),
-                            t.getPriority().status,
-                            t.isCompleted() ? "Yes" : "No");
-                }
-                break;
-            case 4: // View Completed Tasks
-                for (Tasks t : tm.getCompletedTasks()) {
-                    System.out.printf(rowFormat,
-                            t.getId(),
-                            t.getTitle(),
-                            t.getDescription(),
-                            t.getDueDate().format(DMY),
-                            t.getPriority().status,
-                            t.isCompleted() ? "Yes" : "No");
-                }
-                break;
-            default:
+            case 1 -> list = tm.getTasks();             // Default Sorting
+            case 2 -> list = tm.sortByPriority();       // Priority Sorting
+            case 3 -> list = tm.getArchivedTasks();     // View Archived Tasks
+            case 4 -> list = tm.query(new TaskQuery().completed(true));  // View Completed Tasks
+            default -> {
                 System.out.println("Enter valid sorting method.");
-                break;
+                return;
+            }
         }
 
-        System.out.println("-".repeat(45 + titleColWidth + descColWidth));
+        printTable(list, sc);
+    }
+
+    // Prints the tasks as a table. With a Scanner, long lists are shown a page at a time.
+    private static void printTable(Iterable<Tasks> list, Scanner sc) {
+        // Column widths come from the active tasks (kept up to date by the manager), no extra pass needed
+        ColumnStats stats = tm.getColumnStats();
+        TableRenderer table = new TableRenderer(System.out);
+        table.setColumnWidths(stats.longestTitle(), stats.longestDescription());
+
+        table.rule();
+        table.header();
+        table.rule();
+
+        Iterator<Tasks> rows = list.iterator();
+        while (table.rows(rows, sc == null ? Integer.MAX_VALUE : PAGE_ROWS) > 0 && rows.hasNext()) {
+            table.flush();
+            System.out.print("-- Press Enter for more, or q to stop: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) break;
+        }
+
+        table.rule();
+        table.flush();
     }
 
     public static void main(String[] args) {
+        // "java Main serve [port]" runs without the menu: clients connect over TCP instead (see TaskServer)
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : TaskServer.DEFAULT_PORT);
+            return;
+        }
+
         Scanner sc = new Scanner(System.in);
         int choice;
 
+        // Load saved tasks (and keep saving every change) from tasks.log
+        try {
+            tm = TaskManager.open(Path.of("tasks.log"), TaskLog.FsyncPolicy.always());
+        } catch (IOException e) {
+            System.out.println("Could not open tasks.log (" + e.getMessage() + "). Changes will not be saved.");
+        }
+        ConsoleTaskListener console = new ConsoleTaskListener(System.out);
+        tm.setListener(console); // show what the manager does as it happens
+        tm.startDeadlines(Duration.ofDays(1), console); // and remind us a day before a task is due
+
+        // Tasks that were already overdue don't get a reminder each, just one line here
+        int overdue = 0;
+        for (Tasks task : tm.query(new TaskQuery().completed(false).dueBefore(LocalDate.now()))) {
+            overdue++;
+        }
+        if (overdue > 0) {
+            System.out.println("You have " + overdue + " overdue task(s).");
+        }
+
         do {
             System.out.println("\n----- Task Management System ------");
             System.out.println("1. Add Task");
@@ -121,9 +112,29 @@ public class Main {
             }
         } while (choice != 7);
 
+        try {
+            tm.close();
+        } catch (IOException e) {
+            System.out.println("Could not save tasks: " + e.getMessage());
+        }
         sc.close();
     }
 
+    // Headless mode: serve a ConcurrentTaskManager until the process is stopped.
+    // (Nothing is saved in this mode - the tasks live as long as the server does.)
+    private static void serve(int port) {
+        try (TaskServer server = new TaskServer(new ConcurrentTaskManager(), port)) {
+            server.start();
+            System.out.println("Listening on port " + server.getPort());
+            System.out.flush();
+            server.join();
+        } catch (IOException e) {
+            System.out.println("Could not start the server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // ---- Flows ----
 
     private static void addTaskFlow(Scanner sc) {
@@ -161,10 +172,68 @@ public class Main {
             2. Sort by Priority
             3. View Archived
             4. View Completed
+            5. Search
+            6. Filter
+            7. Summary
             """);
         System.out.print("Choose: ");
         int opt = readInt(sc);
-        viewTasks(opt);
+        switch (opt) {
+            case 5 -> searchFlow(sc);
+            case 6 -> filterFlow(sc);
+            case 7 -> summaryFlow();
+            default -> viewTasks(opt, sc);
+        }
+    }
+
+    // Counts straight from the running totals (no walking through the tasks)
+    private static void summaryFlow() {
+        TaskAggregates totals = tm.getAggregates();
+        LocalDate today = LocalDate.now();
+        totals.advanceTo(today); // so the overdue count is kept for today (it's only a day's bucket to add)
+        System.out.println("\n----- Summary -----");
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            System.out.printf("%-7s %d open, %d done%n", priority,
+                    totals.getCount(priority, false, false), totals.getCount(priority, true, false));
+        }
+        System.out.println("Archived: " + totals.getArchivedCount());
+        System.out.println("Overdue: " + totals.getOverdueCount(today));
+        System.out.println("Due today: " + totals.getDueOn(today));
+        System.out.printf("Completion rate: %.1f%%%n", totals.getCompletionRate() * 100);
+    }
+
+    private static void searchFlow(Scanner sc) {
+        System.out.print("Search for (end a word with * to match its start): ");
+        String query = sc.nextLine().trim();
+
+        ArrayList<Tasks> found = new ArrayList<>();
+        for (int id : tm.search(query, SEARCH_RESULTS)) {
+            found.add(tm.getTask(id));
+        }
+        if (found.isEmpty()) {
+            System.out.println("No matching tasks.");
+            return;
+        }
+        printTable(found, sc);
+    }
+
+    private static void filterFlow(Scanner sc) {
+        System.out.println("Example: priority=High AND !completed AND dueDate < 01/07/2025 ORDER BY dueDate LIMIT 50");
+        System.out.print("Filter: ");
+        String query = sc.nextLine().trim();
+
+        TaskCursor results;
+        try {
+            results = tm.query(query);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (!results.hasNext()) {
+            System.out.println("No matching tasks.");
+            return;
+        }
+        printTable(results, sc);
     }
 
     private static void editTaskFlow(Scanner sc) {
@@ -186,10 +255,8 @@ public class Main {
             System.out.print("New due date (DD/MM/YYYY): ");
             String dateStr = sc.nextLine().trim();
             if (dateStr.isEmpty()) break;
-            if (isValidDate(dateStr)) {
-                newDate = LocalDate.parse(dateStr, DMY);
-                break;
-            }
+            newDate = DateFormats.parse(dateStr);
+            if (newDate != null) break;
             System.out.println("Invalid date. Try again or leave blank.");
         }
 
@@ -208,12 +275,7 @@ public class Main {
     // ---- Helpers ----
 
     private static boolean isValidDate(String s) {
-        try {
-            LocalDate.parse(s, DMY);
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
-        }
+        return DateFormats.isValid(s);
     }
 
     private static int readInt(Scanner sc) {
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// A list of tasks kept in memory-mapped files instead of the Java heap, for an archive that
+// has outgrown it. The operating system pages records in when they're read and writes them
+// back when it needs the memory; the heap only holds a few buffer objects, however many tasks.
+//
+// Two files:
+//   records - one fixed-size record per task (40 bytes), so task i is at i * 40:
+//     int  id                      int  due date (days since 1970-01-01)
+//     long creation time (nanoseconds since 1970-01-01, UTC)
+//     long where the strings start in the strings file
+//     int  title length (UTF-8 bytes)   int  description length
+//     byte priority                byte flags (1 = completed, 2 = archived)   (6 bytes unused)
+//   strings - the titles and descriptions, one after the other (UTF-8)
+//
+// Both are mapped in fixed-size chunks as they grow. The files stay between runs: a snapshot
+// doesn't copy the archive, it just notes how many records (and how many string bytes) are in
+// it (see TaskSnapshot), and restore() picks them up from there on startup without reading them.
+//
+// Those records are "pinned" - the last saved snapshot needs them just as they are, so new tasks
+// can't be written over them. If undo takes the archive below the pinned count, TaskManager
+// saves a new snapshot straight away, which moves the pin down again.
+//
+// Tasks can only be added at the end and removed from the end, which is all the archive does.
+public class MappedTaskStore implements TaskList {
+    static final int RECORD_BYTES = 40;
+    private static final int RECORDS_PER_CHUNK = 1 << 20;
+    private static final int STRING_CHUNK_BYTES = 64 << 20;
+
+    private static final int ID = 0;
+    private static final int DUE = 4;
+    private static final int CREATED = 8;
+    private static final int STRINGS = 16;
+    private static final int TITLE_LENGTH = 24;
+    private static final int DESCRIPTION_LENGTH = 28;
+    private static final int PRIORITY = 32;
+    private static final int FLAGS = 33;
+
+    private static final byte COMPLETED = 1;
+    private static final byte ARCHIVED = 2;
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Path recordsFile;
+    private final MappedFile records;
+    private final MappedFile strings;
+    private int size;
+    private long stringsEnd;
+    private int pinned;
+    private byte[] scratch = new byte[256];
+
+    // Opens (creating them if needed) the two files: recordsFile and recordsFile + ".strings".
+    // Whatever is in them is left alone; the list starts out empty until restore() is called.
+    public MappedTaskStore(Path recordsFile) throws IOException {
+        this.recordsFile = recordsFile;
+        this.records = new MappedFile(recordsFile, (long) RECORDS_PER_CHUNK * RECORD_BYTES);
+        MappedFile opened;
+        try {
+            opened = new MappedFile(recordsFile.resolveSibling(recordsFile.getFileName() + ".strings"), STRING_CHUNK_BYTES);
+        } catch (IOException e) {
+            records.close();
+            throw e;
+        }
+        this.strings = opened;
+    }
+
+    // ---- Saving and restoring (see TaskSnapshot) ----
+
+    // Take the first `count` records, with strings up to stringsEnd, as they are in the files.
+    // They're pinned, because the snapshot that said so still needs them.
+    public void restore(int count, long stringsEnd) throws IOException {
+        if (count < 0 || stringsEnd < 0
+                || records.fileBytes() < (long) count * RECORD_BYTES || strings.fileBytes() < stringsEnd) {
+            throw new IOException("Archive files in " + recordsFile.getParent() + " are shorter than the snapshot says");
+        }
+        this.size = count;
+        this.stringsEnd = stringsEnd;
+        this.pinned = count;
+    }
+
+    // Everything written so far, onto the disk (before a snapshot may refer to it)
+    public void force() {
+        records.force();
+        strings.force();
+    }
+
+    // Where the next task's strings go - what a snapshot notes next to the record count
+    public long getStringsEnd() {return stringsEnd;}
+
+    // How many records the last saved snapshot refers to (they mustn't be written over)
+    public int getPinned() {return pinned;}
+
+    // A snapshot referring to the first `count` records is safely saved (and any older one is gone)
+    public void pin(int count) {
+        if (count < 0 || count > size) throw new IllegalArgumentException("Can't pin " + count + " of " + size + " tasks");
+        pinned = count;
+    }
+
+    // ---- Reading ----
+
+    // Builds a Tasks from this record (reading it from the file if it isn't in memory yet)
+    @Override
+    public Tasks get(int index) {
+        checkIndex(index);
+        ByteBuffer chunk = records.chunkFor(recordPosition(index));
+        int at = recordOffset(index);
+        long nanos = chunk.getLong(at + CREATED);
+        long stringsAt = chunk.getLong(at + STRINGS);
+        int titleLength = chunk.getInt(at + TITLE_LENGTH);
+        String title = readString(stringsAt, titleLength);
+        String description = readString(stringsAt + titleLength, chunk.getInt(at + DESCRIPTION_LENGTH));
+        byte flags = chunk.get(at + FLAGS);
+        LocalDateTime creationTime = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+        return Tasks.restore(chunk.getInt(at + ID), title, description, LocalDate.ofEpochDay(chunk.getInt(at + DUE)),
+                PRIORITIES[chunk.get(at + PRIORITY)], creationTime, (flags & COMPLETED) != 0, (flags & ARCHIVED) != 0);
+    }
+
+    @Override
+    public int size() {return size;}
+
+    @Override
+    public int getId(int index) {
+        checkIndex(index);
+        return records.chunkFor(recordPosition(index)).getInt(recordOffset(index) + ID);
+    }
+
+    // Only a few buffer objects live on the heap; the tasks themselves are in the files
+    @Override
+    public long estimatedBytes() {
+        return 2 * 64 + 64L * (records.chunkCount() + strings.chunkCount()) + scratch.length;
+    }
+
+    // How big the two files are right now
+    public long getFileBytes() {
+        return records.mappedBytes() + strings.mappedBytes();
+    }
+
+    // ---- Changes ----
+
+    @Override
+    public void append(Tasks task) {
+        if (size < pinned) {
+            throw new IllegalStateException("The saved snapshot still needs archive record " + size + " - save a new one first");
+        }
+        write(size, task);
+        size++;
+    }
+
+    // The strings file is wound back to where the dropped tasks' strings started
+    @Override
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) throw new IndexOutOfBoundsException("New size: " + newSize + ", Size: " + size);
+        if (newSize == size) return;
+        long firstStrings = Long.MAX_VALUE;
+        for (int i = newSize; i < size; i++) {
+            firstStrings = Math.min(firstStrings, records.chunkFor(recordPosition(i)).getLong(recordOffset(i) + STRINGS));
+        }
+        stringsEnd = Math.min(stringsEnd, firstStrings);
+        size = newSize;
+    }
+
+    // Grow the records file up front to fit this many (the chunks in between get mapped when used)
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > 0) records.chunkFor(recordPosition(expectedSize - 1));
+    }
+
+    // Unmaps (as far as Java lets us - the buffers go when they're collected) and closes the files.
+    // The files stay: the next start picks the archive up from them.
+    @Override
+    public void close() {
+        try {
+            records.close();
+            strings.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close " + recordsFile, e);
+        }
+    }
+
+    // ---- Internals ----
+
+    private void write(int index, Tasks task) {
+        byte[] title = task.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        long stringsAt = stringsEnd;
+        strings.put(stringsAt, title);
+        strings.put(stringsAt + title.length, description);
+        stringsEnd += title.length + description.length;
+
+        LocalDateTime creationTime = task.getCreationTime();
+        ByteBuffer chunk = records.chunkFor(recordPosition(index));
+        int at = recordOffset(index);
+        chunk.putInt(at + ID, task.getId());
+        chunk.putInt(at + DUE, (int) task.getDueDate().toEpochDay());
+        chunk.putLong(at + CREATED, creationTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + creationTime.getNano());
+        chunk.putLong(at + STRINGS, stringsAt);
+        chunk.putInt(at + TITLE_LENGTH, title.length);
+        chunk.putInt(at + DESCRIPTION_LENGTH, description.length);
+        chunk.put(at + PRIORITY, (byte) task.getPriority().ordinal());
+        chunk.put(at + FLAGS, (byte) ((task.isCompleted() ? COMPLETED : 0) | (task.isArchived() ? ARCHIVED : 0)));
+    }
+
+    private String readString(long position, int length) {
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        strings.get(position, scratch, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static long recordPosition(int index) {
+        return (long) index * RECORD_BYTES;
+    }
+
+    private static int recordOffset(int index) {
+        return (index % RECORDS_PER_CHUNK) * RECORD_BYTES;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    // A file mapped chunk by chunk as it's used (a single MappedByteBuffer can't go past 2 GB)
+    private static final class MappedFile {
+        private final FileChannel channel;
+        private final long chunkBytes;
+        private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+        MappedFile(Path file, long chunkBytes) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.chunkBytes = chunkBytes;
+        }
+
+        // The chunk holding this position, mapping it (which grows the file) the first time
+        MappedByteBuffer chunkFor(long position) {
+            int chunk = (int) (position / chunkBytes);
+            if (chunk >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+            }
+            if (chunks[chunk] == null) {
+                try {
+                    chunks[chunk] = channel.map(FileChannel.MapMode.READ_WRITE, chunk * chunkBytes, chunkBytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not map task file", e);
+                }
+            }
+            return chunks[chunk];
+        }
+
+        // Bytes may run across the end of one chunk into the next
+        void put(long position, byte[] bytes) {
+            int done = 0;
+            while (done < bytes.length) {
+                int offset = (int) ((position + done) % chunkBytes);
+                int count = (int) Math.min(bytes.length - done, chunkBytes - offset);
+                chunkFor(position + done).put(offset, bytes, done, count);
+                done += count;
+            }
+        }
+
+        void get(long position, byte[] into, int length) {
+            int done = 0;
+            while (done < length) {
+                int offset = (int) ((position + done) % chunkBytes);
+                int count = (int) Math.min(length - done, chunkBytes - offset);
+                chunkFor(position + done).get(offset, into, done, count);
+                done += count;
+            }
+        }
+
+        int chunkCount() {return chunks.length;}
+
+        long fileBytes() {
+            try {
+                return channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read task file size", e);
+            }
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                if (chunk != null) chunk.force();
+            }
+        }
+
+        long mappedBytes() {
+            long bytes = 0;
+            for (MappedByteBuffer chunk : chunks) {
+                if (chunk != null) bytes += chunkBytes;
+            }
+            return bytes;
+        }
+
+        void close() throws IOException {
+            chunks = new MappedByteBuffer[0];
+            channel.close();
+        }
+    }
+}
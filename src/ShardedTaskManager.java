@@ -0,0 +1,314 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+// Lots of teams' task lists ("tenants") on one node.
+//
+// One TaskManager per team would cost a couple of hundred KB each before a single task
+// (undo stacks, metrics, change feed), and one TaskManager for everyone would make every team
+// wait on the same lock. So the tasks are spread over a fixed number of shards instead:
+//
+// - each shard is an ordinary TaskManager with its own lock, and a team always lives on the
+//   shard its name hashes to - teams on different shards never wait for each other
+// - IDs are unique across all shards: shard k hands out IDs from its own block
+//   (k * idsPerShard + 1 upwards), so the shard a task is on can be worked out from its ID
+// - a Tenant only sees and changes its own tasks, in the order it added them
+// - queries over everybody ("all overdue HIGH priority tasks", counts) run on every shard at
+//   once in the fork/join pool, and the per-shard answers are merged (scatter/gather).
+//   Each shard is read under its lock, but the shards aren't all frozen at the same moment.
+//
+// Like ConcurrentTaskManager, nothing is printed or saved. There's no undo either:
+// a shard's undo stack is shared by every team on it, so the shards don't keep one.
+public class ShardedTaskManager {
+    public static final int MAX_SHARDS = 1024;
+
+    private final Shard[] shards;
+    private final int idsPerShard;
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    // One shard per core
+    public ShardedTaskManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTaskManager(int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+        idsPerShard = Integer.MAX_VALUE / shardCount;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int firstId = i * idsPerShard + 1;
+            shards[i] = new Shard(new TaskManager(0, 0, firstId), firstId + idsPerShard - 1);
+        }
+    }
+
+    // The team with this name (created the first time it's asked for)
+    public Tenant tenant(String name) {
+        return tenants.computeIfAbsent(name, n -> new Tenant(n, shards[Math.floorMod(n.hashCode(), shards.length)]));
+    }
+
+    public int getTenantCount() {return tenants.size();}
+    public int getShardCount() {return shards.length;}
+
+    // Which shard a task ID belongs to
+    public int shardOf(int id) {
+        return Math.min((id - 1) / idsPerShard, shards.length - 1);
+    }
+
+    // ---- Over all tenants ----
+
+    public Tasks getTask(int id) {
+        if (id < 1) return null;
+        Shard shard = shards[shardOf(id)];
+        shard.lock.lock();
+        try {
+            return shard.tasks.getTask(id);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Active tasks on all shards
+    public int size() {
+        return scatter(TaskManager::getTaskCount, Integer::sum);
+    }
+
+    // The query's results from every shard, in the query's order and cut to its limit.
+    // (Each shard plans it against its own indexes; the sorted answers are merged two at a time.)
+    public List<Tasks> query(TaskQuery query) {
+        int limit = query.getLimit();
+        Comparator<Tasks> order = query.comparator();
+        return scatter(manager -> {
+            ArrayList<Tasks> found = new ArrayList<>();
+            for (Tasks task : manager.query(query)) {
+                found.add(task);
+            }
+            return found;
+        }, (a, b) -> merge(a, b, order, limit));
+    }
+
+    // How many tasks match on all shards (the query's order doesn't matter; its limit still caps the count)
+    public int count(TaskQuery query) {
+        int limit = query.getLimit();
+        return scatter(manager -> {
+            int count = 0;
+            for (TaskCursor cursor = manager.query(query); cursor.hasNext(); cursor.next()) {
+                count++;
+            }
+            return count;
+        }, (a, b) -> (int) Math.min((long) a + b, limit));
+    }
+
+    // Runs `work` on every shard (under that shard's lock) in the fork/join pool and folds the answers
+    private <T> T scatter(Function<TaskManager, T> work, BinaryOperator<T> combine) {
+        return ForkJoinPool.commonPool().invoke(new Scatter<>(work, combine, 0, shards.length));
+    }
+
+    // Splits the shards in half until each piece is one shard, like the textbook fork/join sum
+    private final class Scatter<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+        private final transient Function<TaskManager, T> work;
+        private final transient BinaryOperator<T> combine;
+        private final int from, to;
+
+        Scatter(Function<TaskManager, T> work, BinaryOperator<T> combine, int from, int to) {
+            this.work = work;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1) {
+                Shard shard = shards[from];
+                shard.lock.lock();
+                try {
+                    return work.apply(shard.tasks);
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            int middle = (from + to) >>> 1;
+            Scatter<T> left = new Scatter<>(work, combine, from, middle);
+            left.fork();
+            T right = new Scatter<>(work, combine, middle, to).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+
+    // Two lists already in `order`, merged into one and cut to `limit`
+    private static ArrayList<Tasks> merge(ArrayList<Tasks> a, ArrayList<Tasks> b, Comparator<Tasks> order, int limit) {
+        if (b.isEmpty() && a.size() <= limit) return a;
+        if (a.isEmpty() && b.size() <= limit) return b;
+        int size = (int) Math.min((long) a.size() + b.size(), limit);
+        ArrayList<Tasks> merged = new ArrayList<>(size);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < size) {
+            if (j == b.size() || (i < a.size() && order.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    // One team's tasks. Everything it does locks only its own shard.
+    public final class Tenant {
+        private final String name;
+        private final Shard shard;
+        // This team's tasks (the same objects the shard holds), in the order they were added.
+        // Guarded by the shard's lock.
+        private final TaskStore own = new TaskStore();
+
+        private Tenant(String name, Shard shard) {
+            this.name = name;
+            this.shard = shard;
+        }
+
+        public String getName() {return name;}
+
+        public Tasks addTask(String title, String description, LocalDate dueDate, Tasks.Priority priority) {
+            shard.lock.lock();
+            try {
+                int id = shard.tasks.getNextId();
+                if (id > shard.lastId) throw new IllegalStateException("Shard for " + name + " has used up its IDs");
+                shard.tasks.addTask(title, description, dueDate, priority);
+                Tasks task = shard.tasks.getTask(id);
+                own.append(task);
+                return task;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        // false if there's no such task, or it belongs to another team
+        public boolean deleteTask(int id) {
+            shard.lock.lock();
+            try {
+                if (!own.containsId(id)) return false;
+                shard.tasks.deleteTask(id);
+                own.removeById(id);
+                return true;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        public boolean toggleTaskStatus(int id) {
+            shard.lock.lock();
+            try {
+                if (!own.containsId(id)) return false;
+                shard.tasks.toggleTaskStatus(id);
+                own.replace(shard.tasks.getTask(id));
+                return true;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        public TaskUpdater updateTask(int id) {
+            return new TaskUpdater(this, id);
+        }
+
+        public Tasks getTask(int id) {
+            shard.lock.lock();
+            try {
+                return own.get(id);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        public int size() {
+            shard.lock.lock();
+            try {
+                return own.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        // A copy of this team's tasks, in the order they were added
+        public List<Tasks> getTasks() {
+            shard.lock.lock();
+            try {
+                return List.copyOf(own);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    // ---- Updater, like TaskManager.TaskUpdater ----
+
+    public static final class TaskUpdater {
+        private final Tenant tenant;
+        private final int taskId;
+        private String newTitle;
+        private String newDescription;
+        private LocalDate newDueDate;
+        private Tasks.Priority newPriority;
+
+        TaskUpdater(Tenant tenant, int id) {
+            this.tenant = tenant;
+            this.taskId = id;
+        }
+
+        public TaskUpdater title(String title) {
+            this.newTitle = title;
+            return this;
+        }
+
+        public TaskUpdater description(String description) {
+            this.newDescription = description;
+            return this;
+        }
+
+        public TaskUpdater dueDate(LocalDate dueDate) {
+            this.newDueDate = dueDate;
+            return this;
+        }
+
+        public TaskUpdater priority(Tasks.Priority priority) {
+            this.newPriority = priority;
+            return this;
+        }
+
+        public boolean apply() {
+            Shard shard = tenant.shard;
+            shard.lock.lock();
+            try {
+                if (!tenant.own.containsId(taskId)) return false;
+                shard.tasks.updateTask(taskId).title(newTitle).description(newDescription)
+                        .dueDate(newDueDate).priority(newPriority).apply();
+                tenant.own.replace(shard.tasks.getTask(taskId));
+                return true;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    // A TaskManager, its lock, and the last ID in its block
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final TaskManager tasks;
+        final int lastId;
+
+        Shard(TaskManager tasks, int lastId) {
+            this.tasks = tasks;
+            this.lastId = lastId;
+        }
+    }
+}
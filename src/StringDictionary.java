@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+// Keeps one copy of each distinct string and hands out small int codes for them
+// (dictionary encoding), so a column of repeated titles/descriptions is just an int[].
+//
+// Every add() of a string counts as one use; release() gives a use back, and when a string
+// has no uses left its code is freed and reused. Lookups go through an open-addressing
+// table of codes (like TaskStore's, no boxing).
+public final class StringDictionary {
+    private static final int FREE = 0;   // table slots hold code + 1, so 0 means empty
+
+    private String[] strings = new String[16];
+    private int[] uses = new int[16];
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+    private int codeCount;   // codes handed out so far (including freed ones)
+    private int size;        // distinct strings held right now
+    private long chars;      // their total length
+
+    private int[] table = new int[32];
+    private int mask = 31;
+
+    // Code for this string, adding it if it's new. Counts one more use.
+    public int add(String s) {
+        int hash = hash(s);
+        int slot = hash & mask;
+        while (table[slot] != FREE) {
+            int code = table[slot] - 1;
+            if (strings[code].equals(s)) {
+                uses[code]++;
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int code;
+        if (freeCount > 0) {
+            code = freeCodes[--freeCount];
+        } else {
+            if (codeCount == strings.length) {
+                strings = Arrays.copyOf(strings, codeCount * 2);
+                uses = Arrays.copyOf(uses, codeCount * 2);
+            }
+            code = codeCount++;
+        }
+        strings[code] = s;
+        uses[code] = 1;
+        table[slot] = code + 1;
+        size++;
+        chars += s.length();
+        if (size * 4L > table.length * 3L) rehash(table.length * 2);
+        return code;
+    }
+
+    public String get(int code) {
+        return strings[code];
+    }
+
+    // One less use of this code; the string is dropped when nothing uses it any more
+    public void release(int code) {
+        if (--uses[code] > 0) return;
+        String s = strings[code];
+        int slot = hash(s) & mask;
+        while (table[slot] != code + 1) {
+            slot = (slot + 1) & mask;
+        }
+        deleteSlot(slot);
+        strings[code] = null;
+        if (freeCount == freeCodes.length) freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        freeCodes[freeCount++] = code;
+        size--;
+        chars -= s.length();
+    }
+
+    // How many distinct strings are held
+    public int size() {return size;}
+
+    // Rough heap used: the arrays plus one String (with its byte[]) per distinct string
+    public long estimatedBytes() {
+        return 5 * 16 + 8L * strings.length + 4L * uses.length + 4L * freeCodes.length + 4L * table.length
+                + size * (24L + 16) + chars;
+    }
+
+    private static int hash(String s) {
+        int h = s.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Same backward-shift delete as TaskStore, so there are no "deleted" markers
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = table[slot];
+            if (entry == FREE) break;
+            int home = hash(strings[entry - 1]) & mask;
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                table[hole] = entry;
+                hole = slot;
+            }
+        }
+        table[hole] = FREE;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int entry : old) {
+            if (entry == FREE) continue;
+            int slot = hash(strings[entry - 1]) & mask;
+            while (table[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+// Prints the task table:
+//   ID    Title                Description                         Due Date     Priority   Completed
+//
+// Rows are built by hand into one reusable buffer and written through a big BufferedWriter,
+// instead of a printf per row (which parses the format string and formats the date every time).
+// Padding comes from a ready-made run of spaces, and dates come from DateFormats' cache.
+// The column widths are set up front (see setColumnWidths), so rows can be streamed one by one
+// and a long table can be shown a page at a time with rows(iterator, max).
+public class TableRenderer {
+    public static final int MIN_TITLE_WIDTH = 20;
+    public static final int MIN_DESCRIPTION_WIDTH = 35;
+    private static final int ID_WIDTH = 5;
+    private static final int DATE_WIDTH = 12;
+    private static final int PRIORITY_WIDTH = 10;
+    private static final int COMPLETED_WIDTH = 10;
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] lineChars = new char[256];
+    private char[] spaces = new char[0];
+    private char[] dashes = new char[0];
+
+    private int titleWidth = MIN_TITLE_WIDTH;
+    private int descriptionWidth = MIN_DESCRIPTION_WIDTH;
+
+    // Writes to the given stream (usually System.out) in its own character set.
+    // Nothing reaches the stream until flush() (or until the buffer fills up).
+    public TableRenderer(PrintStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, stream.charset()), BUFFER_CHARS);
+        fitPadding();
+    }
+
+    // Make the title/description columns wide enough for texts this long
+    // (but never narrower than the minimum widths)
+    public void setColumnWidths(int longestTitle, int longestDescription) {
+        titleWidth = Math.max(longestTitle, MIN_TITLE_WIDTH);
+        descriptionWidth = Math.max(longestDescription, MIN_DESCRIPTION_WIDTH);
+        fitPadding();
+    }
+
+    // The dashed line that goes above and below the table
+    public void rule() {
+        line.setLength(0);
+        line.append(dashes, 0, tableWidth());
+        line.append(NEWLINE);
+        writeLine();
+    }
+
+    public void header() {
+        line.setLength(0);
+        cell("ID", ID_WIDTH);
+        cell("Title", titleWidth);
+        cell("Description", descriptionWidth);
+        cell("Due Date", DATE_WIDTH);
+        cell("Priority", PRIORITY_WIDTH);
+        lastCell("Completed", COMPLETED_WIDTH);
+        writeLine();
+    }
+
+    public void row(Tasks task) {
+        line.setLength(0);
+        line.append(task.getId());
+        pad(line.length(), ID_WIDTH);
+        line.append(' ');
+        cell(task.getTitle(), titleWidth);
+        cell(task.getDescription(), descriptionWidth);
+        cell(DateFormats.format(task.getDueDate()), DATE_WIDTH);
+        cell(task.getPriority().status, PRIORITY_WIDTH);
+        lastCell(task.isCompleted() ? "Yes" : "No", COMPLETED_WIDTH);
+        writeLine();
+    }
+
+    // Write up to max rows from the iterator and return how many were written
+    // (so a caller can show one page, ask, then carry on from the same iterator)
+    public int rows(Iterator<Tasks> tasks, int max) {
+        int written = 0;
+        while (written < max && tasks.hasNext()) {
+            row(tasks.next());
+            written++;
+        }
+        return written;
+    }
+
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ---- Building one line ----
+
+    // text, padded to width, then the space between columns
+    private void cell(String text, int width) {
+        line.append(text);
+        pad(text.length(), width);
+        line.append(' ');
+    }
+
+    private void lastCell(String text, int width) {
+        line.append(text);
+        pad(text.length(), width);
+        line.append(NEWLINE);
+    }
+
+    // Like printf's %-Ns: fill up to width, but never cut a longer text
+    private void pad(int used, int width) {
+        if (used < width) line.append(spaces, 0, width - used);
+    }
+
+    // (the dashed line has always been 3 characters longer than the columns, so keep it that way)
+    private int tableWidth() {
+        return ID_WIDTH + titleWidth + descriptionWidth + DATE_WIDTH + PRIORITY_WIDTH + COMPLETED_WIDTH + 8;
+    }
+
+    // Make sure the ready-made spaces/dashes are as long as the whole table
+    private void fitPadding() {
+        int width = tableWidth();
+        if (spaces.length < width) {
+            spaces = " ".repeat(width).toCharArray();
+            dashes = "-".repeat(width).toCharArray();
+        }
+    }
+
+    private void writeLine() {
+        int length = line.length();
+        if (lineChars.length < length) lineChars = new char[Math.max(length, lineChars.length * 2)];
+        line.getChars(0, length, lineChars, 0);
+        try {
+            out.write(lineChars, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
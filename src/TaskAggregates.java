@@ -0,0 +1,211 @@
+import java.time.LocalDate;
+
+// Running totals for a dashboard, kept up to date as tasks change so reading them never
+// means walking the list (or copying it, like getCompletedTasks() does):
+//
+// - how many tasks there are for every priority x completed x archived
+// - how many unfinished active tasks are due on each day (a histogram by due date)
+// - how many of those are overdue, and the completion rate
+//
+// TaskManager feeds it every change: the active list through TaskStore.Listener, the archive
+// through archived()/restored(). Each change is a couple of array updates, so O(1)
+// (the histogram occasionally grows, like an ArrayList).
+//
+// The overdue count is kept for one "today". Reading it for another day doesn't change anything:
+// it adds (or takes away) the histogram's days in between. The owner moves the kept day along with
+// advanceTo(), on the same thread that makes the changes - normally one day's bucket, once a day.
+// So readers asking about different days (or the same day from different threads) can't
+// disturb each other.
+public class TaskAggregates implements TaskStore.Listener {
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    // counts[priority * 4 + (completed ? 2 : 0) + (archived ? 1 : 0)]
+    private final int[] counts = new int[PRIORITIES.length * 4];
+
+    // dueCounts[day - firstDay] = unfinished active tasks due that day (day = LocalDate.toEpochDay()).
+    // Covers every due date seen so far, so it grows but never shrinks.
+    private int[] dueCounts = new int[0];
+    private long firstDay;
+
+    // Unfinished active tasks due before overdueBefore
+    private long overdueBefore = LocalDate.now().toEpochDay();
+    private int overdue;
+
+    // Starts from whatever is in the store already.
+    // (Register it with store.addListener afterwards to keep it up to date.)
+    public TaskAggregates(TaskStore store) {
+        for (Tasks task : store) {
+            addActive(task);
+        }
+    }
+
+    // ---- Reading (all O(1) except where it says otherwise) ----
+
+    public int getCount(Tasks.Priority priority, boolean completed, boolean archived) {
+        return counts[index(priority, completed, archived)];
+    }
+
+    // Same, over all priorities
+    public int getCount(boolean completed, boolean archived) {
+        int count = 0;
+        for (Tasks.Priority priority : PRIORITIES) {
+            count += counts[index(priority, completed, archived)];
+        }
+        return count;
+    }
+
+    public int getActiveCount() {return getCount(false, false) + getCount(true, false);}
+    public int getArchivedCount() {return getCount(false, true) + getCount(true, true);}
+
+    // Completed tasks, active or archived
+    public int getCompletedCount() {return getCount(true, false) + getCount(true, true);}
+
+    // Completed share of every task, active or archived (0 when there are none)
+    public double getCompletionRate() {
+        int total = getActiveCount() + getArchivedCount();
+        return total == 0 ? 0 : (double) getCompletedCount() / total;
+    }
+
+    // Unfinished active tasks due on this day
+    public int getDueOn(LocalDate day) {
+        return dueOn(day.toEpochDay());
+    }
+
+    // Unfinished active tasks due on each day from `from` to `to` (both included) - O(days)
+    public int[] getDueHistogram(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay();
+        int[] histogram = new int[(int) Math.max(0, to.toEpochDay() - start + 1)];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = dueOn(start + i);
+        }
+        return histogram;
+    }
+
+    // Unfinished active tasks due before today
+    public int getOverdueCount() {
+        return getOverdueCount(LocalDate.now());
+    }
+
+    // Unfinished active tasks due before `today`. O(1) for the day advanceTo() last moved to;
+    // otherwise O(days in between).
+    public int getOverdueCount(LocalDate today) {
+        long day = today.toEpochDay();
+        if (day > overdueBefore) return overdue + sumDue(overdueBefore, day);
+        if (day < overdueBefore) return overdue - sumDue(day, overdueBefore);
+        return overdue;
+    }
+
+    // Keep the overdue count for this day from now on (the owner calls it when the date changes,
+    // e.g. before showing a summary). Moving back works too.
+    public void advanceTo(LocalDate today) {
+        overdue = getOverdueCount(today);
+        overdueBefore = today.toEpochDay();
+    }
+
+    // Rough heap used (the histogram is the only part that grows)
+    public long estimatedBytes() {
+        return 64 + 16 + 4L * counts.length + 16 + 4L * dueCounts.length;
+    }
+
+    // ---- Changes ----
+
+    @Override
+    public void taskInserted(Tasks task) {addActive(task);}
+
+    @Override
+    public void taskRemoved(Tasks task) {removeActive(task);}
+
+    @Override
+    public void taskReplaced(Tasks before, Tasks after) {
+        removeActive(before);
+        addActive(after);
+    }
+
+    // A task went into the archive (it has already left the active list)
+    void archived(Tasks task) {
+        counts[index(task.getPriority(), task.isCompleted(), true)]++;
+    }
+
+    // A task came out of the archive (it's about to go back in the active list)
+    void restored(Tasks task) {
+        counts[index(task.getPriority(), task.isCompleted(), true)]--;
+    }
+
+    // The archived counts for every priority x completed, [priority * 2 + (completed ? 1 : 0)].
+    // A snapshot saves these when it leaves the archive in its own file (see TaskSnapshot),
+    // so startup doesn't have to read every archived task just to count them.
+    int[] getArchivedCounts() {
+        int[] archived = new int[PRIORITIES.length * 2];
+        for (int i = 0; i < archived.length; i++) {
+            archived[i] = counts[i * 2 + 1];
+        }
+        return archived;
+    }
+
+    // Count these archived tasks in (the other way round from getArchivedCounts())
+    void addArchived(int[] archived) {
+        if (archived.length != PRIORITIES.length * 2) throw new IllegalArgumentException("Expected " + PRIORITIES.length * 2 + " counts");
+        for (int i = 0; i < archived.length; i++) {
+            counts[i * 2 + 1] += archived[i];
+        }
+    }
+
+    private void addActive(Tasks task) {
+        counts[index(task.getPriority(), task.isCompleted(), false)]++;
+        if (!task.isCompleted()) changeDue(task.getDueDate().toEpochDay(), 1);
+    }
+
+    private void removeActive(Tasks task) {
+        counts[index(task.getPriority(), task.isCompleted(), false)]--;
+        if (!task.isCompleted()) changeDue(task.getDueDate().toEpochDay(), -1);
+    }
+
+    // ---- Internals ----
+
+    private static int index(Tasks.Priority priority, boolean completed, boolean archived) {
+        return priority.ordinal() * 4 + (completed ? 2 : 0) + (archived ? 1 : 0);
+    }
+
+    private void changeDue(long day, int delta) {
+        cover(day);
+        dueCounts[(int) (day - firstDay)] += delta;
+        if (day < overdueBefore) overdue += delta;
+    }
+
+    private int dueOn(long day) {
+        long at = day - firstDay;
+        return at < 0 || at >= dueCounts.length ? 0 : dueCounts[(int) at];
+    }
+
+    // Sum of the buckets for days in [from, to), only looking at days the histogram covers
+    private int sumDue(long from, long to) {
+        long start = Math.max(from, firstDay);
+        long end = Math.min(to, firstDay + dueCounts.length);
+        int sum = 0;
+        for (long day = start; day < end; day++) {
+            sum += dueCounts[(int) (day - firstDay)];
+        }
+        return sum;
+    }
+
+    // Grow the histogram (at either end, doubling) until it covers this day
+    private void cover(long day) {
+        if (dueCounts.length == 0) {
+            dueCounts = new int[64];
+            firstDay = day - 32;
+            return;
+        }
+        long lastDay = firstDay + dueCounts.length - 1;
+        if (day >= firstDay && day <= lastDay) return;
+        long needed = Math.max(lastDay, day) - Math.min(firstDay, day) + 1;
+        long size = dueCounts.length;
+        while (size < needed) size *= 2;
+        if (size > Integer.MAX_VALUE - 8) throw new IllegalStateException("Due dates are too far apart");
+        int[] grown = new int[(int) size];
+        // spare room goes on the side that grew
+        long newFirstDay = day < firstDay ? lastDay - size + 1 : firstDay;
+        System.arraycopy(dueCounts, 0, grown, (int) (firstDay - newFirstDay), dueCounts.length);
+        dueCounts = grown;
+        firstDay = newFirstDay;
+    }
+}
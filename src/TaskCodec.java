@@ -0,0 +1,121 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+// Turns a task into bytes and back, for saving to disk.
+// Layout: the fixed-size fields first, then the two strings with their length in front.
+//
+//   int   id
+//   int   due date (days since 1970-01-01)
+//   long  creation time (seconds since 1970-01-01, UTC)
+//   int   creation time nanoseconds
+//   byte  priority (enum position)
+//   byte  flags (1 = completed, 2 = archived)
+//   int   title length, then title bytes (UTF-8)
+//   int   description length, then description bytes (UTF-8)
+public final class TaskCodec {
+    public static final int FIXED_BYTES = 4 + 4 + 8 + 4 + 1 + 1;
+
+    private static final byte COMPLETED = 1;
+    private static final byte ARCHIVED = 2;
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    private TaskCodec() {}
+
+    // Most bytes write() can need for this task (UTF-8 is at most 3 bytes per Java char)
+    public static int maxEncodedBytes(Tasks task) {
+        return FIXED_BYTES + 4 + 3 * task.getTitle().length() + 4 + 3 * task.getDescription().length();
+    }
+
+    public static void write(ByteBuffer out, Tasks task) {
+        out.putInt(task.getId());
+        out.putInt((int) task.getDueDate().toEpochDay());
+        LocalDateTime created = task.getCreationTime();
+        out.putLong(created.toEpochSecond(ZoneOffset.UTC));
+        out.putInt(created.getNano());
+        out.put((byte) task.getPriority().ordinal());
+        out.put((byte) ((task.isCompleted() ? COMPLETED : 0) | (task.isArchived() ? ARCHIVED : 0)));
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+    }
+
+    // How many bytes the task starting at in.position() takes up, or -1 if `in` ends before
+    // that can be told (it doesn't move the position)
+    static long encodedLength(ByteBuffer in) {
+        int at = in.position();
+        if (in.limit() - at < FIXED_BYTES + 4) return -1;
+        long titleLength = in.getInt(at + FIXED_BYTES);
+        if (titleLength < 0) throw new IllegalArgumentException("Bad string length " + titleLength);
+        long descriptionAt = at + FIXED_BYTES + 4 + titleLength;
+        if (in.limit() - descriptionAt < 4) return -1;
+        long descriptionLength = in.getInt((int) descriptionAt);
+        if (descriptionLength < 0) throw new IllegalArgumentException("Bad string length " + descriptionLength);
+        return descriptionAt + 4 + descriptionLength - at;
+    }
+
+    public static Tasks read(ByteBuffer in) {
+        return new Decoder().read(in);
+    }
+
+    static void writeString(ByteBuffer out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    // Reads many tasks in a row (loading a snapshot or replaying a log) with less garbage:
+    // tasks due on the same day share one LocalDate, and strings are copied out of the
+    // buffer through one reusable byte array
+    public static final class Decoder {
+        private static final int DATE_SLOTS = 4096;
+
+        private final LocalDate[] dates = new LocalDate[DATE_SLOTS];
+        private byte[] scratch = new byte[256];
+
+        public Tasks read(ByteBuffer in) {
+            int id = in.getInt();
+            LocalDate dueDate = date(in.getInt());
+            long seconds = in.getLong();
+            int nanos = in.getInt();
+            LocalDateTime created = LocalDateTime.of(
+                    date(Math.floorDiv(seconds, 86_400)),
+                    LocalTime.ofNanoOfDay(Math.floorMod(seconds, 86_400) * 1_000_000_000L + nanos));
+            Tasks.Priority priority = PRIORITIES[in.get()];
+            byte flags = in.get();
+            String title = readString(in);
+            String description = readString(in);
+            return Tasks.restore(id, title, description, dueDate, priority, created,
+                    (flags & COMPLETED) != 0, (flags & ARCHIVED) != 0);
+        }
+
+        private LocalDate date(long epochDay) {
+            int slot = (int) (epochDay & (DATE_SLOTS - 1));
+            LocalDate date = dates[slot];
+            if (date == null || date.toEpochDay() != epochDay) {
+                date = LocalDate.ofEpochDay(epochDay);
+                dates[slot] = date;
+            }
+            return date;
+        }
+
+        private String readString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new IllegalArgumentException("Bad string length " + length);
+            }
+            if (in.hasArray()) {
+                String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                return s;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
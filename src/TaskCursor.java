@@ -0,0 +1,53 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+// The results of a TaskQuery, found one at a time as you read them.
+// Nothing is copied up front: the cursor pulls tasks from the index the planner picked,
+// skips the ones that don't match, and stops as soon as it has handed out `limit` tasks.
+//
+// Like the sorted views it reads the live indexes, so don't change tasks while reading one.
+// It can be used in a for-each loop (once).
+public class TaskCursor implements Iterator<Tasks>, Iterable<Tasks> {
+    private final Iterator<Tasks> source;
+    private final Predicate<Tasks> filter;
+    private final String plan;
+    private int remaining;
+    private int scanned;
+    private Tasks next;
+
+    TaskCursor(Iterator<Tasks> source, Predicate<Tasks> filter, int limit, String plan) {
+        this.source = source;
+        this.filter = filter;
+        this.remaining = limit;
+        this.plan = plan;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && remaining > 0 && source.hasNext()) {
+            Tasks task = source.next();
+            scanned++;
+            if (filter.test(task)) next = task;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Tasks next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Tasks task = next;
+        next = null;
+        remaining--;
+        return task;
+    }
+
+    @Override
+    public Iterator<Tasks> iterator() {return this;}
+
+    // How the query is being answered, e.g. "due date range (dueDate < 01/07/2025), filter, limit 50"
+    public String getPlan() {return plan;}
+
+    // How many tasks the cursor has looked at so far (matching or not)
+    public int getScanned() {return scanned;}
+}
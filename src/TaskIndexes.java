@@ -0,0 +1,320 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+// Sorted "side lists" of the active tasks, kept up to date on every change
+// so the sorted views never have to copy and re-sort the whole list.
+//   - one bucket per priority (HIGH, MEDIUM, LOW), each in ID order
+//   - all tasks ordered by (due date, ID)
+//   - all tasks ordered by (creation time, ID)
+// Ties are broken by ID, which is the same as the default listing order,
+// so the results match what a stable sort of the list would give.
+//
+// Tasks never change, so it's safe to keep them in sorted sets.
+// The sets may hold an OLDER version of a task, as long as its sort key is still right:
+// the views look up the current version in the store as they go.
+// That way an edit only costs index work when it changes a sort key
+// (priority or due date) - then it's "remove old, add new", O(log n) each.
+public class TaskIndexes implements TaskStore.Listener {
+    static final Comparator<Tasks> BY_ID = (a, b) -> Integer.compare(a.getId(), b.getId());
+    static final Comparator<Tasks> BY_DUE_DATE = (a, b) -> {
+        int c = a.getDueDate().compareTo(b.getDueDate());
+        return c != 0 ? c : Integer.compare(a.getId(), b.getId());
+    };
+    static final Comparator<Tasks> BY_CREATION_TIME = (a, b) -> {
+        int c = a.getCreationTime().compareTo(b.getCreationTime());
+        return c != 0 ? c : Integer.compare(a.getId(), b.getId());
+    };
+
+    private final TaskStore store;
+
+    private final EnumMap<Tasks.Priority, TreeSet<Tasks>> byPriority = new EnumMap<>(Tasks.Priority.class);
+    private final TreeSet<Tasks> byDueDate;
+    private final TreeSet<Tasks> byCreationTime;
+
+    private final Collection<Tasks> byPriorityView = new PriorityView();
+    private final Collection<Tasks> byDueDateView;
+    private final Collection<Tasks> byCreationTimeView;
+
+    // Builds the indexes from whatever is in the store already.
+    // Each index is sorted once as a plain array and then turned into a tree in one linear pass,
+    // which is much quicker than adding tasks one at a time.
+    // (Register it with store.addListener afterwards to keep it up to date.)
+    public TaskIndexes(TaskStore store) {
+        this.store = store;
+        Tasks[] all = store.toArray(new Tasks[0]);
+
+        // the store is in ID order, so the priority buckets come out sorted already
+        EnumMap<Tasks.Priority, Integer> counts = new EnumMap<>(Tasks.Priority.class);
+        for (Tasks task : all) {
+            counts.merge(task.getPriority(), 1, Integer::sum);
+        }
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            Tasks[] bucket = new Tasks[counts.getOrDefault(priority, 0)];
+            int i = 0;
+            for (Tasks task : all) {
+                if (task.getPriority() == priority) bucket[i++] = task;
+            }
+            byPriority.put(priority, buildSorted(bucket, BY_ID));
+        }
+
+        byDueDate = buildSorted(all.clone(), BY_DUE_DATE);
+        byCreationTime = buildSorted(all, BY_CREATION_TIME);
+        byDueDateView = new CurrentView(byDueDate);
+        byCreationTimeView = new CurrentView(byCreationTime);
+    }
+
+    private static TreeSet<Tasks> buildSorted(Tasks[] tasks, Comparator<Tasks> order) {
+        Arrays.sort(tasks, order);   // close to linear when the input is nearly in order already
+        return new TreeSet<>(new SortedArraySet(tasks, order));
+    }
+
+    // ---- Live, read-only views (no copying, no sorting) ----
+
+    // HIGH first, then MEDIUM, then LOW
+    public Collection<Tasks> byPriority() {return byPriorityView;}
+
+    // Just one priority bucket
+    public Collection<Tasks> withPriority(Tasks.Priority priority) {
+        return new CurrentView(byPriority.get(priority));
+    }
+
+    // Earliest due date first
+    public Collection<Tasks> byDueDate() {return byDueDateView;}
+
+    // Oldest first
+    public Collection<Tasks> byCreationTime() {return byCreationTimeView;}
+
+    // ---- Ranges and reverse order (for TaskQuery) ----
+
+    public int countWithPriority(Tasks.Priority priority) {
+        return byPriority.get(priority).size();
+    }
+
+    // One priority bucket in ID order, or highest ID first
+    public Collection<Tasks> withPriority(Tasks.Priority priority, boolean descending) {
+        TreeSet<Tasks> bucket = byPriority.get(priority);
+        return new CurrentView(descending ? bucket.descendingSet() : bucket);
+    }
+
+    public Collection<Tasks> byCreationTime(boolean descending) {
+        return descending ? new CurrentView(byCreationTime.descendingSet()) : byCreationTimeView;
+    }
+
+    // Tasks due from `from` to `to` (null = no limit on that side), earliest first or latest first.
+    // Still a live view: finding the start is O(log n) and nothing is copied.
+    public Collection<Tasks> dueBetween(LocalDate from, boolean fromInclusive,
+                                        LocalDate to, boolean toInclusive, boolean descending) {
+        // No task has ID 0 or Integer.MAX_VALUE, so a probe with one of those
+        // sits just before or just after every task due that day
+        Tasks low = from == null ? null : probe(from, fromInclusive ? 0 : Integer.MAX_VALUE);
+        Tasks high = to == null ? null : probe(to, toInclusive ? Integer.MAX_VALUE : 0);
+        NavigableSet<Tasks> range;
+        if (low != null && high != null) {
+            if (BY_DUE_DATE.compare(low, high) > 0) return Collections.emptyList();
+            range = byDueDate.subSet(low, true, high, true);
+        } else if (low != null) {
+            range = byDueDate.tailSet(low, true);
+        } else if (high != null) {
+            range = byDueDate.headSet(high, true);
+        } else {
+            range = byDueDate;
+        }
+        return new CurrentView(descending ? range.descendingSet() : range);
+    }
+
+    private static Tasks probe(LocalDate dueDate, int id) {
+        return Tasks.restore(id, "", "", dueDate, Tasks.Priority.LOW, LocalDateTime.MIN, false, false);
+    }
+
+    // ---- Keeping in step with the store ----
+
+    @Override
+    public void taskInserted(Tasks task) {
+        byPriority.get(task.getPriority()).add(task);
+        byDueDate.add(task);
+        byCreationTime.add(task);
+    }
+
+    @Override
+    public void taskRemoved(Tasks task) {
+        byPriority.get(task.getPriority()).remove(task);
+        byDueDate.remove(task);
+        byCreationTime.remove(task);
+    }
+
+    @Override
+    public void taskReplaced(Tasks before, Tasks after) {
+        // Only move the task in the indexes whose sort key changed.
+        // (removing by `before` works because the indexed version has the same key as it)
+        if (before.getPriority() != after.getPriority()) {
+            byPriority.get(before.getPriority()).remove(before);
+            byPriority.get(after.getPriority()).add(after);
+        }
+        if (!before.getDueDate().equals(after.getDueDate())) {
+            byDueDate.remove(before);
+            byDueDate.add(after);
+        }
+        // creation time never changes
+    }
+
+    // A sorted set (or a range of one), but handing out the CURRENT version of each task
+    private class CurrentView extends AbstractCollection<Tasks> {
+        private final NavigableSet<Tasks> index;
+
+        CurrentView(NavigableSet<Tasks> index) {
+            this.index = index;
+        }
+
+        @Override
+        public int size() {return index.size();}
+
+        @Override
+        public Iterator<Tasks> iterator() {
+            Iterator<Tasks> sorted = index.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {return sorted.hasNext();}
+
+                @Override
+                public Tasks next() {return store.get(sorted.next().getId());}
+            };
+        }
+    }
+
+    // Walks the priority buckets one after another
+    private class PriorityView extends AbstractCollection<Tasks> {
+        @Override
+        public int size() {
+            int size = 0;
+            for (TreeSet<Tasks> bucket : byPriority.values()) {
+                size += bucket.size();
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<Tasks> iterator() {
+            return new Iterator<>() {
+                private final Iterator<TreeSet<Tasks>> buckets = byPriority.values().iterator();
+                private Iterator<Tasks> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && buckets.hasNext()) {
+                        current = new CurrentView(buckets.next()).iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Tasks next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return current.next();
+                }
+            };
+        }
+    }
+
+    // A read-only SortedSet over an already-sorted array, so new TreeSet<>(...) can build its
+    // tree straight from it in linear time. It's a complete SortedSet (ranges are binary searches
+    // over the array, and keep their bounds like TreeSet's do); it just can't be changed.
+    static final class SortedArraySet extends AbstractSet<Tasks> implements SortedSet<Tasks> {
+        private final Tasks[] tasks;
+        private final Comparator<Tasks> order;
+        private final int from, to;          // this set is tasks[from..to)
+        private final Tasks low, high;       // bounds of a range, or null: low <= task < high
+
+        SortedArraySet(Tasks[] tasks, Comparator<Tasks> order) {
+            this(tasks, order, 0, tasks.length, null, null);
+        }
+
+        private SortedArraySet(Tasks[] tasks, Comparator<Tasks> order, int from, int to, Tasks low, Tasks high) {
+            this.tasks = tasks;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public Iterator<Tasks> iterator() {return Arrays.asList(tasks).subList(from, to).iterator();}
+        @Override
+        public int size() {return to - from;}
+        @Override
+        public Comparator<? super Tasks> comparator() {return order;}
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Tasks task)) return false;
+            int at = Arrays.binarySearch(tasks, from, to, task, order);
+            return at >= 0;
+        }
+
+        @Override
+        public Tasks first() {
+            if (from == to) throw new NoSuchElementException();
+            return tasks[from];
+        }
+
+        @Override
+        public Tasks last() {
+            if (from == to) throw new NoSuchElementException();
+            return tasks[to - 1];
+        }
+
+        @Override
+        public SortedSet<Tasks> subSet(Tasks fromTask, Tasks toTask) {
+            if (order.compare(fromTask, toTask) > 0) throw new IllegalArgumentException("fromTask > toTask");
+            checkInRange(fromTask);
+            checkInRange(toTask);
+            return new SortedArraySet(tasks, order, lowerBound(fromTask), lowerBound(toTask), fromTask, toTask);
+        }
+
+        @Override
+        public SortedSet<Tasks> headSet(Tasks toTask) {
+            checkInRange(toTask);
+            return new SortedArraySet(tasks, order, from, lowerBound(toTask), low, toTask);
+        }
+
+        @Override
+        public SortedSet<Tasks> tailSet(Tasks fromTask) {
+            checkInRange(fromTask);
+            return new SortedArraySet(tasks, order, lowerBound(fromTask), to, fromTask, high);
+        }
+
+        // Index of the first task in this set that isn't before `task`
+        private int lowerBound(Tasks task) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int middle = (lo + hi) >>> 1;
+                if (order.compare(tasks[middle], task) < 0) {
+                    lo = middle + 1;
+                } else {
+                    hi = middle;
+                }
+            }
+            return lo;
+        }
+
+        // A range of a range has to stay inside it (its end may be the outer range's end)
+        private void checkInRange(Tasks task) {
+            if ((low != null && order.compare(task, low) < 0) || (high != null && order.compare(task, high) > 0)) {
+                throw new IllegalArgumentException("Task is outside this range");
+            }
+        }
+    }
+}
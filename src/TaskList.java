@@ -0,0 +1,51 @@
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A list of tasks that doesn't keep Tasks objects around, it builds them when they're read
+// (ColumnarTaskStore on the heap, MappedTaskStore in a file). TaskManager keeps its archive in one.
+//
+// The archive only ever grows at the end and shrinks from the end (undo takes back the newest
+// run), so that's all this asks for: append() and truncate(), plus reading by position.
+public interface TaskList extends Iterable<Tasks>, Closeable {
+    int size();
+
+    // Builds the task at this position
+    Tasks get(int index);
+
+    // ID of the task at this position, without building the task
+    int getId(int index);
+
+    // Add a task at the end
+    void append(Tasks task);
+
+    // Drop the newest tasks, keeping the first newSize
+    void truncate(int newSize);
+
+    // Make room up front when we know a lot of tasks are coming
+    void ensureCapacity(int expectedSize);
+
+    // Rough Java heap this list takes up
+    long estimatedBytes();
+
+    // Oldest first
+    @Override
+    default Iterator<Tasks> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {return next < size();}
+
+            @Override
+            public Tasks next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    // Give back anything the list holds outside the heap (nothing, for the in-memory one)
+    @Override
+    default void close() {}
+}
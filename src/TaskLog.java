@@ -0,0 +1,474 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// An append-only "diary" of every change TaskManager makes, so tasks survive a restart.
+// On startup we read the diary from the top and redo every change in order.
+//
+// File layout: a header (magic, version, generation), then one record per change:
+//   int   length of (type + payload)
+//   int   CRC32 of (type + payload)  - lets us spot a half-written last record after a crash
+//   byte  type (ADD, DELETE, UPDATE, ARCHIVE - same as Action.ActionType)
+//   ...   payload
+//
+// Records are collected in a memory buffer and written out in groups ("group commit");
+// the FsyncPolicy decides how often we force them all the way onto the disk.
+//
+// The generation goes up by one every time a snapshot is taken and the log is emptied
+// (see TaskSnapshot), so on startup we can tell whether a log belongs after the snapshot
+// or is an old one the snapshot already covers.
+public class TaskLog implements AutoCloseable {
+    private static final int MAGIC = 0x544C4F47;   // "TLOG"
+    private static final int VERSION = 2;
+    private static final int OLD_VERSION = 1;       // version 1 had no generation (= generation 0)
+    private static final int HEADER_BYTES = 16;
+    private static final int OLD_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 20;
+    // Biggest record (header included) we write or read - a little under the biggest array Java allows
+    private static final int MAX_RECORD_BYTES = Integer.MAX_VALUE - 16;
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final byte UPDATE = 3;
+    private static final byte ARCHIVE = 4;
+
+    // How hard we try to get records onto the disk
+    public static final class FsyncPolicy {
+        enum Mode { ALWAYS, BATCH, NEVER }
+
+        private final Mode mode;
+        private final int batchRecords;
+        private final long batchMillis;
+
+        private FsyncPolicy(Mode mode, int batchRecords, long batchMillis) {
+            this.mode = mode;
+            this.batchRecords = batchRecords;
+            this.batchMillis = batchMillis;
+        }
+
+        // fsync after every single change - safest, slowest
+        public static FsyncPolicy always() {
+            return new FsyncPolicy(Mode.ALWAYS, 1, 0);
+        }
+
+        // fsync once every `records` changes, or at least every `millis` milliseconds
+        // (a crash can lose at most that much)
+        public static FsyncPolicy batched(int records, long millis) {
+            if (records < 1 || millis < 1) throw new IllegalArgumentException("Batch limits must be positive");
+            return new FsyncPolicy(Mode.BATCH, records, millis);
+        }
+
+        // never fsync ourselves - leave it to the operating system (only flushed on close)
+        public static FsyncPolicy never() {
+            return new FsyncPolicy(Mode.NEVER, Integer.MAX_VALUE, 0);
+        }
+    }
+
+    // Gets called once for every record while the log is being read back
+    public interface Replayer {
+        void add(int anchorId, Tasks task);
+        void delete(int id);
+        void update(Tasks task);
+        // restore = false: move these tasks from the list to the archive
+        // restore = true:  move the newest ids.length archived tasks back after their anchors
+        void archive(boolean restore, int[] ids, int[] anchorIds);
+    }
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private int unsyncedRecords;
+    private boolean dirty;         // written to the OS but not fsynced yet
+    private long appendedRecords;   // records in this generation of the log
+    private long generation;
+    private ScheduledExecutorService flusher;
+    // Set if the background flusher failed. Records it wrote may not be on disk, so from then on
+    // every append/flush/rotate/close throws it (wrapped) instead of carrying on as if they were.
+    private IOException flushFailure;
+    private long recordsStart = HEADER_BYTES;
+
+    private TaskLog(FileChannel channel, FsyncPolicy policy) {
+        this.channel = channel;
+        this.policy = policy;
+    }
+
+    // Open (or create) a log file, replaying everything already in it
+    public static TaskLog open(Path file, FsyncPolicy policy, Replayer replayer) throws IOException {
+        return open(file, policy, 0, replayer);
+    }
+
+    // Same, but the caller has already loaded a snapshot of `generation`:
+    // an older log is already covered by that snapshot, so it's emptied instead of replayed
+    public static TaskLog open(Path file, FsyncPolicy policy, long generation, Replayer replayer) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            TaskLog log = new TaskLog(channel, policy);
+            long logGeneration = channel.size() == 0 ? -1 : log.readHeader();
+            if (logGeneration > generation) {
+                throw new IOException("Task log generation " + logGeneration
+                        + " is newer than its snapshot (" + generation + ") - is the snapshot missing?");
+            }
+            if (logGeneration < generation) {
+                log.reset(generation);
+            } else {
+                long end = log.replay(replayer);
+                // drop a half-written record left by a crash, so new records follow good ones
+                if (end < channel.size()) {
+                    channel.truncate(end);
+                }
+                channel.position(end);
+            }
+            log.startFlusher();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // ---- Writing ----
+
+    public synchronized void appendAdd(int anchorId, Tasks task) throws IOException {
+        ByteBuffer out = begin(4 + TaskCodec.maxEncodedBytes(task));
+        out.put(ADD);
+        out.putInt(anchorId);
+        TaskCodec.write(out, task);
+        end();
+    }
+
+    // Many ADD records in a row (a bulk import): the first goes after anchorId, each next one
+    // after the one before it. The fsync policy is only checked once, at the end.
+    public synchronized void appendAdds(int anchorId, Tasks[] tasks) throws IOException {
+        for (Tasks task : tasks) {
+            ByteBuffer out = begin(4 + TaskCodec.maxEncodedBytes(task));
+            out.put(ADD);
+            out.putInt(anchorId);
+            TaskCodec.write(out, task);
+            seal();
+            anchorId = task.getId();
+        }
+        if (unsyncedRecords >= policy.batchRecords) {
+            flush();
+        }
+    }
+
+    public synchronized void appendDelete(int id) throws IOException {
+        ByteBuffer out = begin(4);
+        out.put(DELETE);
+        out.putInt(id);
+        end();
+    }
+
+    public synchronized void appendUpdate(Tasks task) throws IOException {
+        ByteBuffer out = begin(TaskCodec.maxEncodedBytes(task));
+        out.put(UPDATE);
+        TaskCodec.write(out, task);
+        end();
+    }
+
+    // Many UPDATE records in a row (a bulk change), checking the fsync policy once at the end
+    public synchronized void appendUpdates(Tasks[] tasks) throws IOException {
+        for (Tasks task : tasks) {
+            ByteBuffer out = begin(TaskCodec.maxEncodedBytes(task));
+            out.put(UPDATE);
+            TaskCodec.write(out, task);
+            seal();
+        }
+        if (unsyncedRecords >= policy.batchRecords) {
+            flush();
+        }
+    }
+
+    public synchronized void appendArchive(boolean restore, int[] ids, int[] anchorIds) throws IOException {
+        ByteBuffer out = begin(1 + 4 + 8L * ids.length);
+        out.put(ARCHIVE);
+        out.put((byte) (restore ? 1 : 0));
+        out.putInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            out.putInt(ids[i]);
+            out.putInt(anchorIds[i]);
+        }
+        end();
+    }
+
+    // Push everything buffered to the OS, and fsync unless the policy is NEVER
+    public synchronized void flush() throws IOException {
+        checkFlusher();
+        writeBuffer();
+        if (dirty && policy.mode != FsyncPolicy.Mode.NEVER) {
+            channel.force(false);
+            dirty = false;
+        }
+        unsyncedRecords = 0;
+    }
+
+    public synchronized long getAppendedRecords() {return appendedRecords;}
+    public synchronized long getGeneration() {return generation;}
+
+    // Throw away every record and start the next generation
+    // (only safe once a snapshot of that generation is safely on disk)
+    public synchronized void rotate(long newGeneration) throws IOException {
+        if (newGeneration <= generation) {
+            throw new IllegalArgumentException("Log generation must go up");
+        }
+        checkFlusher();
+        buffer.clear();
+        reset(newGeneration);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (this) {
+            try {
+                checkFlusher();
+                writeBuffer();
+                if (dirty) {
+                    channel.force(false);
+                    dirty = false;
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Throws if the background flusher has failed (see flushFailure)
+    private void checkFlusher() throws IOException {
+        if (flushFailure != null) {
+            throw new IOException("Task log flush failed in the background", flushFailure);
+        }
+    }
+
+    // Make room for one record and skip past its length/CRC (filled in by end())
+    private ByteBuffer begin(long payloadBytes) throws IOException {
+        checkFlusher();
+        long needed = RECORD_HEADER_BYTES + 1 + payloadBytes;
+        if (needed > MAX_RECORD_BYTES) throw new IOException("Log record too large");
+        if (buffer.remaining() < needed) {
+            writeBuffer();
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocateDirect((int) needed);
+            }
+        }
+        buffer.mark();
+        buffer.position(buffer.position() + RECORD_HEADER_BYTES);
+        return buffer;
+    }
+
+    private void end() throws IOException {
+        seal();
+        if (unsyncedRecords >= policy.batchRecords) {
+            flush();
+        }
+    }
+
+    // Fill in the length/CRC of the record just written
+    private void seal() {
+        int recordEnd = buffer.position();
+        buffer.reset();
+        int recordStart = buffer.position();
+        int bodyStart = recordStart + RECORD_HEADER_BYTES;
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(bodyStart).limit(recordEnd);
+        crc.reset();
+        crc.update(body);
+
+        buffer.putInt(recordStart, recordEnd - bodyStart);
+        buffer.putInt(recordStart + 4, (int) crc.getValue());
+        buffer.position(recordEnd);
+
+        appendedRecords++;
+        unsyncedRecords++;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+            dirty = true;
+        }
+        buffer.clear();
+    }
+
+    // Empty the file and write a fresh header for `newGeneration`
+    private void reset(long newGeneration) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(newGeneration).flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        channel.position(position);
+        channel.force(true);
+        generation = newGeneration;
+        appendedRecords = 0;
+        unsyncedRecords = 0;
+        dirty = false;
+    }
+
+    // Check the header and return the generation it holds
+    private long readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.remaining() < OLD_HEADER_BYTES || header.getInt() != MAGIC) {
+            throw new IOException("Not a task log file");
+        }
+        int version = header.getInt();
+        if (version == OLD_VERSION) {
+            generation = 0;
+            recordsStart = OLD_HEADER_BYTES;
+        } else if (version == VERSION && header.remaining() >= 8) {
+            generation = header.getLong();
+            recordsStart = HEADER_BYTES;
+        } else {
+            throw new IOException("Unsupported task log version " + version);
+        }
+        return generation;
+    }
+
+    // With BATCH, make sure a quiet period doesn't leave records sitting in memory
+    private void startFlusher() {
+        if (policy.mode != FsyncPolicy.Mode.BATCH) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            synchronized (this) {
+                if (flushFailure != null || !channel.isOpen()) return;
+                try {
+                    if (buffer.position() > 0 || dirty) {
+                        flush();
+                    }
+                } catch (IOException e) {
+                    flushFailure = e;   // the next call from the writer's side throws it
+                }
+            }
+        }, policy.batchMillis, policy.batchMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ---- Reading back ----
+
+    // Reads every good record and returns the file position right after the last one
+    private long replay(Replayer replayer) throws IOException {
+        RecordReader reader = new RecordReader(channel, recordsStart);
+        long goodEnd = recordsStart;
+        long records = 0;
+        ByteBuffer body;
+        while ((body = reader.next(crc)) != null) {
+            try {
+                apply(body, replayer);
+            } catch (RuntimeException e) {
+                throw new IOException("Bad task log record at byte " + goodEnd, e);
+            }
+            goodEnd = reader.position();
+            records++;
+        }
+        appendedRecords = records;
+        return goodEnd;
+    }
+
+    private final TaskCodec.Decoder decoder = new TaskCodec.Decoder();
+
+    private void apply(ByteBuffer body, Replayer replayer) {
+        byte type = body.get();
+        switch (type) {
+            case ADD -> {
+                int anchorId = body.getInt();
+                replayer.add(anchorId, decoder.read(body));
+            }
+            case DELETE -> replayer.delete(body.getInt());
+            case UPDATE -> replayer.update(decoder.read(body));
+            case ARCHIVE -> {
+                boolean restore = body.get() == 1;
+                int count = body.getInt();
+                int[] ids = new int[count];
+                int[] anchorIds = new int[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = body.getInt();
+                    anchorIds[i] = body.getInt();
+                }
+                replayer.archive(restore, ids, anchorIds);
+            }
+            default -> throw new IllegalArgumentException("Unknown record type " + type);
+        }
+    }
+
+    // Fill the buffer from the file starting at `position` (stops early at end of file)
+    static void readFully(FileChannel channel, ByteBuffer into, long position) throws IOException {
+        while (into.hasRemaining()) {
+            int read = channel.read(into, position);
+            if (read < 0) break;
+            position += read;
+        }
+    }
+
+    // Walks the records of a log file through a read buffer
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private final long fileSize;
+        private ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES).flip();
+        private long readPosition;   // next file byte that isn't in the buffer yet
+
+        RecordReader(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            this.readPosition = start;
+        }
+
+        // File position of the first byte we haven't handed out yet
+        long position() {
+            return readPosition - in.remaining();
+        }
+
+        // The next record's type + payload, or null at the end of the good records
+        ByteBuffer next(CRC32 crc) throws IOException {
+            if (!ensure(RECORD_HEADER_BYTES)) return null;
+            // A torn or corrupt length can be anything, so it has to fit in the rest of the file
+            // (and in one record) before we try to read that much
+            int length = in.getInt(in.position());
+            long left = fileSize - position();
+            if (length < 1 || length > MAX_RECORD_BYTES - RECORD_HEADER_BYTES || RECORD_HEADER_BYTES + length > left) return null;
+            if (!ensure(RECORD_HEADER_BYTES + length)) return null;
+
+            int checksum = in.getInt(in.position() + 4);
+            ByteBuffer body = in.slice(in.position() + RECORD_HEADER_BYTES, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) return null;   // torn or corrupt record: stop here
+
+            in.position(in.position() + RECORD_HEADER_BYTES + length);
+            return body;
+        }
+
+        // Make sure at least `bytes` unread bytes are in the buffer (false if the file ends first)
+        private boolean ensure(int bytes) throws IOException {
+            if (in.remaining() >= bytes) return true;
+            if (in.capacity() < bytes) {
+                in = ByteBuffer.allocate(bytes).put(in).flip();
+            }
+            in.compact();
+            int before = in.position();
+            readFully(channel, in, readPosition);
+            readPosition += in.position() - before;
+            in.flip();
+            return in.remaining() >= bytes;
+        }
+    }
+}
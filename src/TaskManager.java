@@ -1,267 +1,981 @@
-import java.util.Stack;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class TaskManager {
     // This is where we keep all our tasks - like a big list!
-    private ArrayList<Tasks> tasks;
+    // (TaskStore finds a task by ID instantly, and still keeps the order we added them in)
+    private TaskStore tasks;
+
+    // Sorted side-lists (by priority, due date, creation time) that follow every change to tasks.
+    // Built the first time someone asks for a sorted view (see indexes()), so startup stays quick.
+    private TaskIndexes indexes;
+
+    // Longest title/description among the active tasks, for sizing the table columns (built lazily too)
+    private ColumnStats columnStats;
+
+    // Word index over titles and descriptions for search() (also built on first use)
+    private TextIndex textIndex;
+
+    // Running counts for a dashboard (per priority / completed / archived, due dates, overdue).
+    // Unlike the ones above it's kept from the start, so reading it never means walking the list.
+    private final TaskAggregates aggregates;
+
+    // Sends due-soon/overdue events for unfinished tasks (only once startDeadlines() is called)
+    private DeadlineScheduler deadlines;
 
     // These stacks are for undo/redo - think of them like a pile of papers
     // undoStack = pile of actions we can undo (most recent on top)
     // redoStack = pile of actions we can redo (most recent on top)
-    private Stack<Action> undoStack = new Stack<>();
-    private Stack<Action> redoStack = new Stack<>();
-    private ArrayList<Tasks> archivedTask = new ArrayList<>();
+    // Both piles have a size limit: once they're full, the oldest papers get thrown away
+    public static final int DEFAULT_MAX_HISTORY_ENTRIES = 10_000;
+    public static final long DEFAULT_MAX_HISTORY_BYTES = 64L * 1024 * 1024;
+
+    private ActionHistory undoStack;
+    private ActionHistory redoStack;
+    // The archive only grows and gets walked, so it's kept as columns of plain numbers
+    // rather than one Tasks object per task (see ColumnarTaskStore), or in a memory-mapped
+    // file outside the heap altogether (see ArchiveStorage and MappedTaskStore)
+    private TaskList archivedTask = new ColumnarTaskStore();
+    // The same list when it's the mapped kind (null otherwise), and where its files go
+    private MappedTaskStore mappedArchive;
+    private Path archiveFile;
+    private final List<Tasks> archiveView = new ArchiveView();
+
+    // Who hears about what we do (nobody by default - see TaskManagerListener)
+    private TaskManagerListener listener = TaskManagerListener.NONE;
+
+    // Counts and (sampled) latencies of every operation (on by default, see TaskMetrics),
+    // plus a running estimate of how much heap the tasks take up
+    private final TaskMetrics metrics = new TaskMetrics();
+    private long activeBytes;
+
+    // Every change to the list, numbered, for anyone keeping a copy of it (see ChangeFeed).
+    // Published from the same helpers that apply actions, undo and redo below.
+    private final ChangeFeed changes = new ChangeFeed();
 
     // This keeps track of what ID number to give the next task we create
     // Starts at 1, then 2, then 3, etc. so every task has a unique ID
     private int nextId;
+    // The first of those (only above 1 on a ShardedTaskManager shard) - the tables the text index
+    // and the deadline scheduler keep per ID start from here
+    private final int firstId;
+
+    // Where every change gets written down so it survives a restart (null = nothing is saved)
+    private TaskLog journal;
+
+    // Every so often we save a snapshot of everything and empty the log,
+    // so startup only has to load the snapshot plus a short log
+    public static final long DEFAULT_CHECKPOINT_RECORDS = 100_000;
+    private Path snapshotFile;
+    private long checkpointRecords = DEFAULT_CHECKPOINT_RECORDS;
 
     // Constructor - this runs when we create a new TaskManager
     public TaskManager() {
-        tasks = new ArrayList<>();  // Start with empty task list
-        nextId = 1;                // First task will have ID = 1
+        this(DEFAULT_MAX_HISTORY_ENTRIES, DEFAULT_MAX_HISTORY_BYTES);
+    }
+
+    // Same as above, but you choose how much undo history to keep
+    // (by number of actions and by rough memory use)
+    public TaskManager(int maxHistoryEntries, long maxHistoryBytes) {
+        this(maxHistoryEntries, maxHistoryBytes, 1);
+    }
+
+    // Same, with IDs starting somewhere other than 1
+    // (ShardedTaskManager gives each shard its own block of IDs this way)
+    public TaskManager(int maxHistoryEntries, long maxHistoryBytes, int firstId) {
+        if (firstId < 1) throw new IllegalArgumentException("IDs start at 1 or more");
+        this.firstId = firstId;
+        tasks = new TaskStore();    // Start with empty task list
+        nextId = firstId;          // First task will have ID = firstId
+        undoStack = new ActionHistory(maxHistoryEntries, maxHistoryBytes);
+        redoStack = new ActionHistory(maxHistoryEntries, maxHistoryBytes);
+        tasks.addListener(new FootprintCounter());
+        aggregates = new TaskAggregates(tasks);
+        tasks.addListener(aggregates);
     }
 
+    // Where the archive is kept
+    public enum ArchiveStorage {
+        HEAP,     // in memory, as compact columns
+        MAPPED    // in memory-mapped files next to the log (logFile + ".archive"), paged in as it's read.
+                  // They're kept between runs, so a snapshot refers to them instead of copying them.
+    }
+
+    // Open a TaskManager that saves every change to a log file.
+    // The latest snapshot (if any) is loaded first, then the changes logged after it are replayed,
+    // so you get back exactly the tasks (and archive, and next ID) you had before.
+    // (The undo/redo history itself isn't saved - it starts empty.)
+    public static TaskManager open(Path logFile, TaskLog.FsyncPolicy policy) throws IOException {
+        return open(logFile, policy, ArchiveStorage.HEAP);
+    }
+
+    // Same, choosing where the archive is kept. Everything else works the same either way.
+    public static TaskManager open(Path logFile, TaskLog.FsyncPolicy policy, ArchiveStorage storage) throws IOException {
+        TaskManager tm = new TaskManager();
+        tm.archiveFile = logFile.resolveSibling(logFile.getFileName() + ".archive");
+        if (storage == ArchiveStorage.MAPPED) {
+            tm.mappedArchive = new MappedTaskStore(tm.archiveFile);
+            tm.archivedTask = tm.mappedArchive;
+        }
+        tm.snapshotFile = TaskSnapshot.pathFor(logFile);
+        try {
+            long generation = Math.max(0, TaskSnapshot.read(tm.snapshotFile, tm.new SnapshotLoader()));
+            tm.journal = TaskLog.open(logFile, policy, generation, tm.new LogReplayer());
+            // the log undid archive runs the snapshot still refers to - save one that doesn't
+            if (tm.archiveBelowSnapshot()) tm.checkpoint();
+        } catch (IOException | RuntimeException e) {
+            if (tm.journal != null) tm.journal.close();
+            tm.archivedTask.close();
+            throw e;
+        }
+        return tm;
+    }
+
+    // Save a snapshot of everything right now and start an empty log after it
+    public void checkpoint() throws IOException {
+        if (journal == null) return;
+        long generation = journal.getGeneration() + 1;
+        TaskSnapshot.write(snapshotFile, generation, nextId, tasks, archivedTask, aggregates.getArchivedCounts());
+        journal.rotate(generation); // only after the snapshot is safely on disk
+        // the mapped archive's files now have to keep what this snapshot refers to
+        if (mappedArchive != null) mappedArchive.pin(mappedArchive.size());
+    }
+
+    // Undo took the mapped archive below what the saved snapshot refers to. Nothing new can go in
+    // the archive until a snapshot is saved that doesn't need those records any more.
+    private boolean archiveBelowSnapshot() {
+        return mappedArchive != null && mappedArchive.size() < mappedArchive.getPinned();
+    }
+
+    // How many logged changes trigger an automatic checkpoint (0 = only when you call checkpoint())
+    public void setCheckpointRecords(long records) {
+        if (records < 0) throw new IllegalArgumentException("Checkpoint interval must not be negative");
+        checkpointRecords = records;
+    }
+
+    // Called after each operation finishes, so a snapshot never catches one half-done
+    private void maybeCheckpoint() {
+        if (journal != null && (checkpointRecords > 0 && journal.getAppendedRecords() >= checkpointRecords
+                || archiveBelowSnapshot())) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write task snapshot", e);
+            }
+        }
+    }
+
+    // Write out anything still buffered and close the log file (if there is one),
+    // stop the deadline thread, and let go of a mapped archive file
+    public void close() throws IOException {
+        if (deadlines != null) {
+            deadlines.close();
+            deadlines = null;
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            archivedTask.close();
+        }
+    }
+
+    // Send our messages to this listener from now on (null = nobody)
+    public void setListener(TaskManagerListener listener) {
+        this.listener = listener == null ? TaskManagerListener.NONE : listener;
+    }
+
+    public TaskManagerListener getListener() {return listener;}
+
     // This method is called every time we do something that can be undone
     // It saves the action to our undo pile and clears the redo pile
     public void performAction(Action action) {
         redoStack.clear();          // Clear redo stack (important!)
         undoStack.push(action);     // Add this action to undo stack
+        maybeCheckpoint();
     }
 
     // UNDO METHOD - reverses the last thing we did
     public void undo() {
-        // First check: do we have anything to undo?
-        if (undoStack.isEmpty()) {
-            System.out.println("No tasks to undo");
-            return; // Exit method if nothing to undo
-        }
-
-        // Get the most recent action from undo stack
-        Action action = undoStack.pop();    // Remove from undo stack
-        redoStack.push(action);             // Put it in redo stack
-
-        System.out.println("Undoing action: " + action.getType()); // Debug message
-
-        // Now do the OPPOSITE of what the original action did
-        switch (action.getType()) {
-            case ADD:
-                // Original: added a task → Undo: remove that task
-                tasks.remove(action.getTask());
-                System.out.println("Undo ADD: Task ID" + action.getTask().getId());
-                break;
-
-            case DELETE:
-                // Original: deleted a task → Undo: put task back where it was
-                int originalIndex = action.getIndex(); // Where it used to be
-                if (originalIndex >= 0 && originalIndex <= tasks.size()) {
-                    tasks.add(originalIndex, action.getTask()); // Put it back in same spot
-                } else {
-                    // Safety check: if index is weird, just add to end
-                    tasks.add(action.getTask());
-                }
-                System.out.println("Undo DELETE: Task ID " + action.getTask().getId());
-                break;
-
-            case UPDATE:
-                // Original: changed a task → Undo: change it back to old version
-                Tasks currentTask = action.getTask();  // This is the NEW version
-                Tasks oldTask = action.getOldTask();   // This is the OLD version
-
-                // Find the task in our list and replace it with old version
-                for (int i = 0; i < tasks.size(); i++) {
-                    if (tasks.get(i).getId() == currentTask.getId()) {
-                        tasks.set(i, oldTask); // Put back the old version
-                        System.out.println("Undo UPDATE: Task ID " + oldTask.getId());
-                        break; // Found it, no need to keep looking
+        long start = metrics.start(TaskMetrics.Operation.UNDO);
+        try {
+            // First check: do we have anything to undo?
+            if (undoStack.isEmpty()) {
+                listener.nothingToUndo();
+                return; // Exit method if nothing to undo
+            }
+
+            // Get the most recent action from undo stack
+            Action action = undoStack.pop();    // Remove from undo stack
+            redoStack.push(action);             // Put it in redo stack
+
+            // Now do the OPPOSITE of what the original action did
+            switch (action.getType()) {
+                case ADD:
+                    if (action.getBatchTasks() != null) {
+                        // Original: imported a batch → Undo: remove all of them (newest first)
+                        Tasks[] batch = action.getBatchTasks();
+                        for (int i = batch.length - 1; i >= 0; i--) {
+                            removeTask(batch[i].getId());
+                        }
+                        break;
                     }
-                }
-                break;
+                    // Original: added a task → Undo: remove that task
+                    removeTask(action.getTask().getId());
+                    break;
+
+                case DELETE:
+                    // Original: deleted a task → Undo: put task back where it was
+                    // (right after the task that used to be in front of it;
+                    // if that one is gone the store just adds it to the end)
+                    insertTask(action.getAnchorId(), action.getTask());
+                    break;
+
+                case UPDATE:
+                    // Original: changed a task → Undo: change it back to old version
+                    Tasks oldTask = action.getOldTask();   // This is the OLD version
+
+                    // Tasks never change, so this is just swapping which version sits in the list
+                    replaceTask(oldTask);
+                    break;
+
+                case ARCHIVE:
+                    // Original: archived a batch → Undo: bring them all back where they were
+                    restoreArchived(action);
+                    break;
+
+                case BULK_UPDATE:
+                    // Original: one change to many tasks → Undo: change each of them back
+                    // (they're exactly as the bulk change left them - anything later was undone first)
+                    replaceBatch(bulkVersions(action, true));
+                    break;
+            }
+            listener.undone(action);
+            maybeCheckpoint();
+        } finally {
+            metrics.stop(TaskMetrics.Operation.UNDO, start);
         }
     }
 
     // REDO METHOD - does the last thing we undid, again
     public void redo() {
-        // First check: do we have anything to redo?
-        if (redoStack.isEmpty()) {
-            System.out.println("No tasks to redo");
-            return; // Exit if nothing to redo
-        }
-
-        // Get the most recent undone action
-        Action action = redoStack.pop();    // Remove from redo stack
-        undoStack.push(action);             // Put back in undo stack
-
-        System.out.println("Redoing action: " + action.getType());
-
-        // Do the SAME thing the original action did
-        switch (action.getType()) {
-            case ADD:
-                // Re-do the add: put the task back in the list
-                tasks.add(action.getTask());
-                System.out.println("Redo ADD: Task ID " + action.getTask().getId());
-                break;
-
-            case DELETE:
-                // Re-do the delete: remove the task again
-                tasks.remove(action.getTask());
-                System.out.println("Redo DELETE: Task ID " + action.getTask().getId());
-                break;
-
-            case UPDATE:
-                // Re-do the update: change task back to the NEW version
-                Tasks oldTask = action.getOldTask();   // This was the OLD version
-                Tasks newTask = action.getTask();      // This was the NEW version
-
-                // Find the task and replace it with the NEW version
-                for (int i = 0; i < tasks.size(); i++) {
-                    if (tasks.get(i).getId() == oldTask.getId()) {
-                        tasks.set(i, newTask); // Put back the NEW version
-                        System.out.println("Redo UPDATE: Task ID " + newTask.getId());
-                        break; // Found it, stop looking
+        long start = metrics.start(TaskMetrics.Operation.REDO);
+        try {
+            // First check: do we have anything to redo?
+            if (redoStack.isEmpty()) {
+                listener.nothingToRedo();
+                return; // Exit if nothing to redo
+            }
+
+            // Get the most recent undone action
+            Action action = redoStack.pop();    // Remove from redo stack
+            undoStack.push(action);             // Put back in undo stack
+
+            // Do the SAME thing the original action did
+            switch (action.getType()) {
+                case ADD:
+                    if (action.getBatchTasks() != null) {
+                        // Re-do the import: put the whole batch back at the end
+                        appendBatch(action.getBatchTasks());
+                        break;
                     }
-                }
-                break;
+                    // Re-do the add: put the task back in the list
+                    insertTask(tasks.lastId(), action.getTask());
+                    break;
+
+                case DELETE:
+                    // Re-do the delete: remove the task again
+                    removeTask(action.getTask().getId());
+                    break;
+
+                case UPDATE:
+                    // Re-do the update: change task back to the NEW version
+                    // (exactly as it was right after the edit - nothing can have changed it since)
+                    replaceTask(action.getTask());
+                    break;
+
+                case ARCHIVE:
+                    // Re-do the archive: move the same batch out of the list again
+                    reapplyArchive(action);
+                    break;
+
+                case BULK_UPDATE:
+                    // Re-do the bulk change on the same tasks
+                    replaceBatch(bulkVersions(action, false));
+                    break;
+            }
+            listener.redone(action);
+            maybeCheckpoint();
+        } finally {
+            metrics.stop(TaskMetrics.Operation.REDO, start);
         }
     }
 
     // ADD TASK METHOD - creates a new task and adds it to our list
     public void addTask(String title, String description, String dueDate, Tasks.Priority priority) {
-        // Create the new task with current nextId
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        addTask(title, description, DateFormats.parseOrThrow(dueDate), priority);
+    }
 
-        Tasks task = new Tasks(nextId, title, description, LocalDate.parse(dueDate, formatter), priority);
+    // Same, with the due date already parsed
+    public void addTask(String title, String description, LocalDate dueDate, Tasks.Priority priority) {
+        long start = metrics.start(TaskMetrics.Operation.ADD);
+        try {
+            // Create the new task with current nextId
+            Tasks task = new Tasks(nextId, title, description, dueDate, priority);
 
-        // Add it to our task list
-        tasks.add(task);
+            // Add it to our task list
+            insertTask(tasks.lastId(), task);
 
-        System.out.println("Adding Task ID " + task.getId() + " : " + task.getTitle());
+            listener.taskAdded(task);
 
-        nextId++; // Increment for next task (so next one gets ID = nextId + 1)
+            nextId++; // Increment for next task (so next one gets ID = nextId + 1)
 
-        // Make this action undoable by recording it
-        Action addAction = new Action(Action.ActionType.ADD, task);
-        performAction(addAction); // This puts it in the undo stack
+            // Make this action undoable by recording it
+            Action addAction = new Action(Action.ActionType.ADD, task);
+            performAction(addAction); // This puts it in the undo stack
+        } finally {
+            metrics.stop(TaskMetrics.Operation.ADD, start);
+        }
+    }
+
+    // IMPORT - adds every task from a CSV or JSON-lines text (see TaskTransfer for the layout).
+    // The new tasks get the next block of IDs in one go and are undone/redone as ONE step.
+    // If any record is bad, nothing is added and the IOException says which line.
+    public int importTasks(Reader in, TaskTransfer.Format format) throws IOException {
+        long start = metrics.start(TaskMetrics.Operation.IMPORT);
+        try {
+            ArrayList<Tasks> imported = new ArrayList<>();
+            TaskTransfer.read(in, format, nextId, imported::add);
+            if (imported.isEmpty()) {
+                listener.tasksImported(0);
+                return 0;
+            }
+
+            Tasks[] batch = imported.toArray(new Tasks[0]);
+            appendBatch(batch);
+            nextId += batch.length;
+
+            performAction(new Action(Action.ActionType.ADD, batch, null));
+            listener.tasksImported(batch.length);
+            return batch.length;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.IMPORT, start);
+        }
+    }
+
+    // EXPORT - writes the active (or archived) tasks as CSV or JSON lines, one at a time
+    public void exportTasks(Writer out, TaskTransfer.Format format, boolean archived) throws IOException {
+        TaskTransfer.write(out, format, archived ? archivedTask : tasks);
     }
 
     // DELETE TASK METHOD - removes a task with the given ID
     public boolean deleteTask(int id) {
-        // Loop through all tasks to find the one with matching ID
-        for (int i = 0; i < tasks.size(); i++) {
-            Tasks task = tasks.get(i);
-            if (task.getId() == id) {
-                // Found it! Remove from list
-                tasks.remove(i);
-
-                // Make this action undoable by recording it
-                // We need to remember the index (i) so we can put it back in same spot
-                Action deleteAction = new Action(Action.ActionType.DELETE, task, i);
-                performAction(deleteAction);
-
-                return true; // Success!
+        long start = metrics.start(TaskMetrics.Operation.DELETE);
+        try {
+            // Remember which task comes before it, so undo can put it back in the same spot
+            int anchorId = tasks.previousId(id);
+
+            // Look it up by ID and remove it from the list
+            Tasks task = removeTask(id);
+            if (task == null) {
+                return false; // Task with that ID not found
             }
+
+            // Make this action undoable by recording it
+            Action deleteAction = new Action(Action.ActionType.DELETE, task, anchorId);
+            performAction(deleteAction);
+
+            listener.taskDeleted(task);
+            return true; // Success!
+        } finally {
+            metrics.stop(TaskMetrics.Operation.DELETE, start);
         }
-        return false; // Task with that ID not found
     }
 
     // TOGGLE STATUS METHOD - flips a task's completion status (done ↔ not done)
     public boolean toggleTaskStatus(int id) {
-        // Loop through tasks to find the one with matching ID
-        for (Tasks task : tasks) {
-            if (task.getId() == id) {
-                // IMPORTANT: Save the current state BEFORE we change it
-                Tasks oldTask = new Tasks(task); // Make a copy of current state
+        long start = metrics.start(TaskMetrics.Operation.TOGGLE);
+        try {
+            // Look up the task with matching ID
+            Tasks task = tasks.get(id);
+            if (task == null) {
+                return false; // Task with that ID not found
+            }
 
-                // Now flip the completion status
-                task.setCompleted(!task.isCompleted()); // ! means "opposite of"
+            // Make a new version with the completion status flipped
+            // (the old version stays exactly as it was, so no copy is needed for undo)
+            Tasks toggled = task.withCompleted(!task.isCompleted()); // ! means "opposite of"
+            replaceTask(toggled);
 
-                // Make this action undoable by recording both old and new states
-                Action updateAction = new Action(Action.ActionType.UPDATE, oldTask, task);
-                performAction(updateAction);
+            // Make this action undoable by recording both old and new versions
+            Action updateAction = new Action(Action.ActionType.UPDATE, task, toggled);
+            performAction(updateAction);
 
-                System.out.println("Toggled completion status for task ID " + id);
-                return true; // Success!
-            }
+            listener.taskToggled(toggled);
+            return true; // Success!
+        } finally {
+            metrics.stop(TaskMetrics.Operation.TOGGLE, start);
         }
-        return false; // Task with that ID not found
     }
 
     // ARCHIVE TASK METHOD - archives all tasks with isCompleted = true
     public void archiveCompletedTasks() {
-        // Create a list to store tasks that need to be archived
-        ArrayList<Tasks> tasksToArchive = new ArrayList<>();
+        archiveWhere(Tasks::isCompleted);
+    }
 
-        // First pass: identify completed tasks
-        for (Tasks task : tasks) {
-            if (task.isCompleted()) {
-                tasksToArchive.add(task);
+    // Archives every active task `filter` picks (checked in parallel, like the bulk changes below)
+    // as ONE undo step. Returns how many were archived.
+    public int archiveWhere(Predicate<? super Tasks> filter) {
+        long start = metrics.start(TaskMetrics.Operation.ARCHIVE);
+        try {
+            // The tasks to archive, in listing order
+            int[] ids = tasks.findIdsInListingOrder(filter);
+            if (ids.length == 0) {
+                listener.archiveFinished(0);
+                return 0;
+            }
+
+            // The anchor is the task that was in front of each one BEFORE anything was removed,
+            // so putting them back in the same order rebuilds the original list exactly
+            Tasks[] tasksToArchive = new Tasks[ids.length];
+            int[] anchors = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                tasksToArchive[i] = tasks.get(ids[i]);
+                anchors[i] = tasks.previousId(ids[i]);
+            }
+
+            // Now unhook them all and move them to the archive in one go
+            for (Tasks task : tasksToArchive) {
+                tasks.removeById(task.getId());
+                aggregates.archived(task);
+                changes.publish(ChangeFeed.Type.ARCHIVE, task);
+                listener.taskArchived(task);
             }
+            archivedTask.ensureCapacity(archivedTask.size() + tasksToArchive.length);
+            for (Tasks task : tasksToArchive) {
+                archivedTask.append(task);
+            }
+
+            // Record the whole run as ONE action, so a single undo brings them all back
+            // (it keeps only the IDs and anchors - undo reads the tasks back from the archive)
+            Action archiveAction = new Action(ids, anchors);
+            logArchive(false, archiveAction);
+            performAction(archiveAction);
+
+            listener.archiveFinished(ids.length);
+            return ids.length;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.ARCHIVE, start);
         }
+    }
 
-        // Second pass: archive each completed task
-        for (Tasks task : tasksToArchive) {
-            // Find the current index of this task in the main list
-            int taskIndex = -1;
-            for (int i = 0; i < tasks.size(); i++) {
-                if (tasks.get(i).getId() == task.getId()) {
-                    taskIndex = i;
-                    break;
+    // BULK CHANGES - one change to every active task `filter` picks, for example
+    //     tm.completeWhere(task -> task.getDueDate().isBefore(cutoff));
+    //     tm.reprioritizeWhere(task -> task.getPriority() == Tasks.Priority.LOW
+    //             && task.getDueDate().isBefore(nextWeek), Tasks.Priority.HIGH);
+    // The filter is checked on all the tasks in parallel (so it mustn't change anything, or care
+    // what order it's called in), then every change is made in one go and recorded as ONE undo
+    // step that keeps just the IDs and the change. Tasks that already have the value are left
+    // alone. Returns how many tasks changed.
+    public int completeWhere(Predicate<? super Tasks> filter) {
+        return bulkUpdate(task -> !task.isCompleted() && filter.test(task), null);
+    }
+
+    public int reprioritizeWhere(Predicate<? super Tasks> filter, Tasks.Priority priority) {
+        if (priority == null) throw new IllegalArgumentException("Priority must not be null");
+        return bulkUpdate(task -> task.getPriority() != priority && filter.test(task), priority);
+    }
+
+    // priority == null means "mark completed"
+    private int bulkUpdate(Predicate<Tasks> filter, Tasks.Priority priority) {
+        long start = metrics.start(TaskMetrics.Operation.BULK_UPDATE);
+        try {
+            int[] ids = tasks.findIds(filter);
+            if (ids.length == 0) {
+                listener.bulkUpdated(0);
+                return 0;
+            }
+
+            Tasks[] updated = new Tasks[ids.length];
+            byte[] oldPriorities = priority == null ? null : new byte[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                Tasks task = tasks.get(ids[i]);
+                if (priority == null) {
+                    updated[i] = task.withCompleted(true);
+                } else {
+                    oldPriorities[i] = (byte) task.getPriority().ordinal();
+                    updated[i] = task.withPriority(priority);
                 }
             }
+            replaceBatch(updated);
+
+            performAction(priority == null ? new Action(ids) : new Action(ids, priority, oldPriorities));
+            for (Tasks task : updated) {
+                listener.taskUpdated(task);
+            }
+            listener.bulkUpdated(ids.length);
+            return ids.length;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.BULK_UPDATE, start);
+        }
+    }
+
+    // The versions a BULK_UPDATE action leads to, worked out from the tasks as they are now:
+    // undoing goes back to not completed / the old priority, redoing applies the change again
+    private Tasks[] bulkVersions(Action action, boolean undo) {
+        int[] ids = action.getBatchIds();
+        Tasks.Priority priority = action.getBulkPriority();
+        byte[] oldPriorities = action.getOldPriorities();
+        Tasks.Priority[] priorities = Tasks.Priority.values();
+        Tasks[] versions = new Tasks[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Tasks task = tasks.get(ids[i]);
+            if (priority == null) {
+                versions[i] = task.withCompleted(!undo);
+            } else {
+                versions[i] = task.withPriority(undo ? priorities[oldPriorities[i]] : priority);
+            }
+        }
+        return versions;
+    }
+
+    // Put an archive run back into the main list, in original positions,
+    // and take those tasks off the end of the archive.
+    // The run is always the newest part of the archive, because undo goes newest-first.
+    private void restoreArchived(Action action) {
+        int[] ids = action.getBatchIds();
+        int[] anchors = action.getBatchAnchorIds();
+        int start = archivedTask.size() - ids.length;
+        for (int i = 0; i < ids.length; i++) {
+            Tasks task = archivedTask.get(start + i);
+            if (task.getId() != ids[i]) throw new IllegalStateException("Archive order does not match undo history");
+            aggregates.restored(task);
+            tasks.insertAfter(anchors[i], task);
+            changes.publish(ChangeFeed.Type.ADD, task);
+        }
+        archivedTask.truncate(start);
+        logArchive(true, action);
+    }
+
+    // Do an archive run again (used by redo)
+    private void reapplyArchive(Action action) {
+        int[] ids = action.getBatchIds();
+        archivedTask.ensureCapacity(archivedTask.size() + ids.length);
+        for (int id : ids) {
+            Tasks task = tasks.removeById(id);
+            archivedTask.append(task);
+            aggregates.archived(task);
+            changes.publish(ChangeFeed.Type.ARCHIVE, task);
+        }
+        logArchive(false, action);
+    }
+
+    // ---- Every change to the task list goes through these, so it also gets written to the log ----
+
+    private void insertTask(int anchorId, Tasks task) {
+        tasks.insertAfter(anchorId, task);
+        changes.publish(ChangeFeed.Type.ADD, task);
+        if (journal != null) {
+            try {
+                journal.appendAdd(anchorId, task);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to task log", e);
+            }
+        }
+    }
 
-            if (taskIndex != -1) {
-                // Remove from main task list
-                tasks.remove(taskIndex); // .
+    // Add a batch to the end of the list, growing the store once up front
+    // and writing the whole batch to the log in one go
+    private void appendBatch(Tasks[] batch) {
+        tasks.ensureCapacity(tasks.size() + batch.length);
+        int anchorId = tasks.lastId();
+        for (Tasks task : batch) {
+            tasks.append(task);
+            changes.publish(ChangeFeed.Type.ADD, task);
+        }
+        if (journal != null) {
+            try {
+                journal.appendAdds(anchorId, batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to task log", e);
+            }
+        }
+    }
 
-                // Add to archived tasks
-                archivedTask.add(task);
+    private Tasks removeTask(int id) {
+        Tasks removed = tasks.removeById(id);
+        if (removed != null) changes.publish(ChangeFeed.Type.DELETE, removed);
+        if (removed != null && journal != null) {
+            try {
+                journal.appendDelete(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to task log", e);
+            }
+        }
+        return removed;
+    }
 
-                // Create archive action for undo/redo functionality
-                // Using DELETE action type since we're removing from main list
-                Action archiveAction = new Action(Action.ActionType.DELETE, task, taskIndex);
-                performAction(archiveAction);
+    private Tasks replaceTask(Tasks task) {
+        Tasks old = tasks.replace(task);
+        if (old != null) changes.publish(ChangeFeed.Type.UPDATE, task);
+        if (old != null && journal != null) {
+            try {
+                journal.appendUpdate(task);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to task log", e);
+            }
+        }
+        return old;
+    }
 
-                System.out.println("Archived task ID " + task.getId() + ": " + task.getTitle());
+    // Swap in new versions of many tasks, writing them to the log in one go
+    private void replaceBatch(Tasks[] batch) {
+        for (Tasks task : batch) {
+            tasks.replace(task);
+            changes.publish(ChangeFeed.Type.UPDATE, task);
+        }
+        if (journal != null) {
+            try {
+                journal.appendUpdates(batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to task log", e);
             }
         }
+    }
 
-        if (tasksToArchive.isEmpty()) {
-            System.out.println("No completed tasks to archive");
-        } else {
-            System.out.println("Archived " + tasksToArchive.size() + " completed task(s)");
+    // One log record for a whole archive run (restore = true when it's being undone)
+    private void logArchive(boolean restore, Action action) {
+        if (journal == null) return;
+        try {
+            journal.appendArchive(restore, action.getBatchIds(), action.getBatchAnchorIds());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to task log", e);
+        }
+    }
+
+    // Keeps activeBytes up to date with every change to the list
+    private class FootprintCounter implements TaskStore.Listener {
+        @Override
+        public void taskInserted(Tasks task) {
+            activeBytes += task.estimatedBytes();
+        }
+
+        @Override
+        public void taskRemoved(Tasks task) {
+            activeBytes -= task.estimatedBytes();
+        }
+
+        @Override
+        public void taskReplaced(Tasks before, Tasks after) {
+            activeBytes += after.estimatedBytes() - before.estimatedBytes();
+        }
+    }
+
+    // Loads a snapshot on startup - straight into the lists, like LogReplayer below
+    private class SnapshotLoader implements TaskSnapshot.Loader {
+        @Override
+        public void begin(int snapshotNextId, int activeCount, int archivedCount) {
+            nextId = snapshotNextId;
+            tasks.ensureCapacity(activeCount);
+            archivedTask.ensureCapacity(archivedCount);
+        }
+
+        @Override
+        public void active(Tasks task) {
+            tasks.append(task);
+        }
+
+        @Override
+        public void archived(Tasks task) {
+            archivedTask.append(task);
+            aggregates.archived(task);
+        }
+
+        @Override
+        public void archivedInFile(int count, long stringsEnd, int[] archivedCounts) throws IOException {
+            aggregates.addArchived(archivedCounts);
+            if (mappedArchive != null) {
+                mappedArchive.restore(count, stringsEnd);
+                return;
+            }
+            // switched to HEAP since the snapshot was saved: copy the archive in from its files
+            try (MappedTaskStore saved = new MappedTaskStore(archiveFile)) {
+                saved.restore(count, stringsEnd);
+                archivedTask.ensureCapacity(count);
+                for (Tasks task : saved) {
+                    archivedTask.append(task);
+                }
+            }
+        }
+    }
+
+    // Rebuilds our state from the log on startup - changes go straight into the lists,
+    // without making undo actions, printing, or writing them to the log again
+    private class LogReplayer implements TaskLog.Replayer {
+        @Override
+        public void add(int anchorId, Tasks task) {
+            tasks.insertAfter(anchorId, task);
+            nextId = Math.max(nextId, task.getId() + 1);   // never hand out an ID twice
+        }
+
+        @Override
+        public void delete(int id) {
+            tasks.removeById(id);
+        }
+
+        @Override
+        public void update(Tasks task) {
+            tasks.replace(task);
+        }
+
+        @Override
+        public void archive(boolean restore, int[] ids, int[] anchorIds) {
+            if (!restore) {
+                archivedTask.ensureCapacity(archivedTask.size() + ids.length);
+                for (int id : ids) {
+                    Tasks task = tasks.removeById(id);
+                    if (task == null) throw new IllegalStateException("Archived task " + id + " is not in the list");
+                    archivedTask.append(task);
+                    aggregates.archived(task);
+                }
+                return;
+            }
+            int start = archivedTask.size() - ids.length;
+            if (start < 0) throw new IllegalStateException("Archive is smaller than the restored run");
+            for (int i = 0; i < ids.length; i++) {
+                if (archivedTask.getId(start + i) != ids[i]) throw new IllegalStateException("Archive order does not match log");
+                Tasks task = archivedTask.get(start + i);
+                aggregates.restored(task);
+                tasks.insertAfter(anchorIds[i], task);
+            }
+            archivedTask.truncate(start);
         }
     }
 
     // SORTING METHODS - these arrange tasks in different orders
 
+    // These three give back the live sorted indexes for our own task list:
+    // nothing gets copied or sorted, they're already in order.
+    // (Read-only, and don't change tasks while walking through one)
+    // (the first call builds the indexes, so that's the one that shows up in the SORT latency)
+    public Collection<Tasks> sortByPriority() {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        Collection<Tasks> view = indexes().byPriority();
+        metrics.stop(TaskMetrics.Operation.SORT, start);
+        return view;
+    }
+
+    public Collection<Tasks> sortByDueDate() {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        Collection<Tasks> view = indexes().byDueDate();
+        metrics.stop(TaskMetrics.Operation.SORT, start);
+        return view;
+    }
+
+    public Collection<Tasks> sortByCreationTime() {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        Collection<Tasks> view = indexes().byCreationTime();
+        metrics.stop(TaskMetrics.Operation.SORT, start);
+        return view;
+    }
+
+    private TaskIndexes indexes() {
+        if (indexes == null) {
+            indexes = new TaskIndexes(tasks);
+            tasks.addListener(indexes); // Keep the sorted indexes in step with the list from now on
+        }
+        return indexes;
+    }
+
+    // SEARCH - IDs of the active tasks whose title/description have every word of the query,
+    // best match first. "mil*" matches any word starting with "mil". (see TextIndex)
+    public int[] search(String query, int limit) {
+        long start = metrics.start(TaskMetrics.Operation.SEARCH);
+        try {
+            return getTextIndex().search(query, limit);
+        } finally {
+            metrics.stop(TaskMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    // QUERY - a filter/sort/limit over the active tasks (see TaskQuery for what it can say),
+    // answered from the indexes and handed back as a cursor that finds results as you read them
+    public TaskCursor query(TaskQuery query) {
+        long start = metrics.start(TaskMetrics.Operation.QUERY);
+        try {
+            return query.open(tasks, indexes(), query.needsTextIndex() ? getTextIndex() : null);
+        } finally {
+            metrics.stop(TaskMetrics.Operation.QUERY, start);
+        }
+    }
+
+    // Same, from the text form, e.g. "priority=High AND !completed ORDER BY dueDate LIMIT 50"
+    public TaskCursor query(String query) {
+        return query(TaskQuery.parse(query));
+    }
+
+    // DEADLINES - starts a background thread that tells `listener` when an unfinished task is due
+    // within `lead` and again when it's overdue. Adding, editing, completing and deleting tasks
+    // keep it up to date. Calling it again just adds another listener.
+    // Reminders that are due right away are sent on this thread, before it returns; tasks that are
+    // already overdue get no event (see DeadlineScheduler).
+    public DeadlineScheduler startDeadlines(Duration lead, DeadlineListener listener) {
+        return startDeadlines(Clock.systemDefaultZone(), lead, listener);
+    }
+
+    // Same, with your own clock (e.g. a fixed one for testing)
+    public DeadlineScheduler startDeadlines(Clock clock, Duration lead, DeadlineListener listener) {
+        if (deadlines == null) {
+            deadlines = new DeadlineScheduler(tasks, clock, lead, firstId);
+            tasks.addListener(deadlines);
+            deadlines.addListener(listener);
+            deadlines.fireDue();
+            deadlines.start();
+            return deadlines;
+        }
+        deadlines.addListener(listener);
+        return deadlines;
+    }
+
+    public TextIndex getTextIndex() {
+        if (textIndex == null) {
+            textIndex = new TextIndex(tasks, firstId);
+            tasks.addListener(textIndex);
+        }
+        return textIndex;
+    }
+
+    public ColumnStats getColumnStats() {
+        if (columnStats == null) {
+            columnStats = new ColumnStats(tasks);
+            tasks.addListener(columnStats);
+        }
+        return columnStats;
+    }
+
+    // Dashboard counts, kept up to date on every change (see TaskAggregates)
+    public TaskAggregates getAggregates() {return aggregates;}
+
+    // The ones below sort any list you give them (makes a sorted copy)
+
     // Sort by priority (HIGH, MEDIUM, LOW)
-    public ArrayList<Tasks> sortByPriority(ArrayList<Tasks> taskList) {
-        ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
-        sortedTaskList.sort((t1, t2) -> t1.getPriority().compareTo(t2.getPriority()));
-        return sortedTaskList;
+    public ArrayList<Tasks> sortByPriority(Collection<Tasks> taskList) {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        try {
+            ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
+            sortedTaskList.sort((t1, t2) -> t1.getPriority().compareTo(t2.getPriority()));
+            return sortedTaskList;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.SORT, start);
+        }
     }
 
     // Sort by due date (earliest first)
-    public ArrayList<Tasks> sortByDueDate(ArrayList<Tasks> taskList) {
-        ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
-        sortedTaskList.sort((t1, t2) -> t1.getDueDate().compareTo(t2.getDueDate()));
-        return sortedTaskList;
+    public ArrayList<Tasks> sortByDueDate(Collection<Tasks> taskList) {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        try {
+            ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
+            sortedTaskList.sort((t1, t2) -> t1.getDueDate().compareTo(t2.getDueDate()));
+            return sortedTaskList;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.SORT, start);
+        }
     }
 
     // Sort by creation time (oldest first)
-    public ArrayList<Tasks> sortByCreationTime(ArrayList<Tasks> taskList) {
-        ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
-        sortedTaskList.sort((t1, t2) -> t1.getCreationTime().compareTo(t2.getCreationTime()));
-        return sortedTaskList;
+    public ArrayList<Tasks> sortByCreationTime(Collection<Tasks> taskList) {
+        long start = metrics.start(TaskMetrics.Operation.SORT);
+        try {
+            ArrayList<Tasks> sortedTaskList = new ArrayList<>(taskList);
+            sortedTaskList.sort((t1, t2) -> t1.getCreationTime().compareTo(t2.getCreationTime()));
+            return sortedTaskList;
+        } finally {
+            metrics.stop(TaskMetrics.Operation.SORT, start);
+        }
+    }
+
+    // Forget all undo/redo history (the tasks themselves stay as they are)
+    public void clearHistory() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    public TaskMetrics getMetrics() {return metrics;}
+    public int getTaskCount() {return tasks.size();}
+    // The ID the next new task will get
+    public int getNextId() {return nextId;}
+    public int getArchivedCount() {return archivedTask.size();}
+
+    // Rough heap used by everything we hold: the tasks (active and archived),
+    // the lookup table around the active ones, and the undo/redo history
+    public long getEstimatedHeapBytes() {
+        return activeBytes + tasks.estimatedTableBytes()
+                + archivedTask.estimatedBytes()
+                + getHistoryBytes();
+    }
+
+    // How many actions can be undone / redone right now
+    public int getUndoCount() {return undoStack.size();}
+    public int getRedoCount() {return redoStack.size();}
+
+    // Rough memory held by the undo + redo history
+    public long getHistoryBytes() {
+        return undoStack.getEstimatedBytes() + redoStack.getEstimatedBytes();
     }
 
     // GETTER METHOD - returns our task list so other classes can see it
-    public ArrayList<Tasks> getTasks() {return tasks;}
-    public ArrayList<Tasks> getArchivedTasks() {
-        return archivedTask;
+    // (read-only: changes have to go through TaskManager so they can be undone and
+    // show up in the change feed; it's a live view, not a copy)
+    public Collection<Tasks> getTasks() {return Collections.unmodifiableCollection(tasks);}
+    public Tasks getTask(int id) {return tasks.get(id);}
+    public List<Tasks> getArchivedTasks() {return archiveView;}
+
+    // Read-only view of the archive for getArchivedTasks() - whichever kind of TaskList it's in
+    private class ArchiveView extends AbstractList<Tasks> implements RandomAccess {
+        @Override
+        public Tasks get(int index) {return archivedTask.get(index);}
+
+        @Override
+        public int size() {return archivedTask.size();}
+    }
+
+    // ---- Change feed ----
+
+    // Goes up by one for every task added, updated, deleted or archived (undo and redo included).
+    // Starts at 0 when the TaskManager is created or opened.
+    public long getVersion() {return changes.getVersion();}
+
+    // The changes after this version. Throws ChangeFeed.VersionEvictedException if it's too old
+    // to catch up from (reload getTasks() instead).
+    public List<ChangeFeed.Change> changesSince(long version) {return changes.changesSince(version);}
+
+    // Follow the changes after this version from another thread (see ChangeFeed.Subscription).
+    // Pass getVersion() to get only what happens from now on.
+    public ChangeFeed.Subscription subscribe(long version) {
+        return changes.subscribe(version, ChangeFeed.DEFAULT_SUBSCRIBER_CAPACITY);
+    }
+
+    public ChangeFeed.Subscription subscribe(long version, int capacity) {
+        return changes.subscribe(version, capacity);
     }
+
+    // Only the completed tasks
+    // (a copy - query(new TaskQuery().completed(true)) gives the same without copying)
     public ArrayList<Tasks> getCompletedTasks() {
         ArrayList<Tasks> completedTasks = new ArrayList<>();
         for (Tasks task : tasks) {
@@ -320,37 +1034,44 @@ public class TaskManager {
         // Apply the changes to the task with matching ID
         // Returns true if successful, false if task not found
         public boolean apply() {
-            // Look through tasks to find the one with this ID
-            for (Tasks task : tasks) {
-                if (task.getId() == taskId) {
-                    Tasks oldTask = new Tasks(task);
-
-                    // Update fields only if new values were provided
-                    if (newTitle != null) {
-                        task.setTitle(newTitle);
-                    }
-
-                    if (newDescription != null) {
-                        task.setDescription(newDescription);
-                    }
+            long start = metrics.start(TaskMetrics.Operation.UPDATE);
+            try {
+                // Look up the task with this ID
+                Tasks task = tasks.get(taskId);
+                if (task == null) {
+                    return false;
+                }
 
-                    if (newDueDate != null) {
-                        task.setDueDate(newDueDate);
-                    }
+                // Build the new version, changing fields only if new values were provided
+                Tasks updated = task;
+                if (newTitle != null) {
+                    updated = updated.withTitle(newTitle);
+                }
 
-                    if (newPriority != null) {
-                        task.setPriority(newPriority);
-                    }
+                if (newDescription != null) {
+                    updated = updated.withDescription(newDescription);
+                }
 
-                    // Record this update so it can be undone/redone
-                    Action updateAction = new Action(Action.ActionType.UPDATE, oldTask, task);
-                    performAction(updateAction);
+                if (newDueDate != null) {
+                    updated = updated.withDueDate(newDueDate);
+                }
 
-                    System.out.println("Updated task ID " + taskId);
-                    return true;
+                if (newPriority != null) {
+                    updated = updated.withPriority(newPriority);
                 }
+
+                // Swap the new version into the list
+                replaceTask(updated);
+
+                // Record this update (old and new versions) so it can be undone/redone
+                Action updateAction = new Action(Action.ActionType.UPDATE, task, updated);
+                performAction(updateAction);
+
+                listener.taskUpdated(updated);
+                return true;
+            } finally {
+                metrics.stop(TaskMetrics.Operation.UPDATE, start);
             }
-            return false;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Publishes a TaskManager's gauges and metrics as a JMX MBean.
+//     TaskManagerJmx.register(tm, "main");   // shows up as TaskManager:type=Metrics,name=main
+public class TaskManagerJmx implements TaskManagerMXBean {
+    private final TaskManager tm;
+
+    public TaskManagerJmx(TaskManager tm) {
+        this.tm = tm;
+    }
+
+    public static ObjectName register(TaskManager tm, String name) throws JMException {
+        ObjectName objectName = new ObjectName("TaskManager:type=Metrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new TaskManagerJmx(tm), objectName);
+        return objectName;
+    }
+
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    @Override public int getTaskCount() {return tm.getTaskCount();}
+    @Override public int getArchivedCount() {return tm.getArchivedCount();}
+    @Override public int getUndoDepth() {return tm.getUndoCount();}
+    @Override public int getRedoDepth() {return tm.getRedoCount();}
+    @Override public long getEstimatedHeapBytes() {return tm.getEstimatedHeapBytes();}
+    @Override public int getCompletedCount() {return tm.getAggregates().getCompletedCount();}
+    @Override public double getCompletionRate() {return tm.getAggregates().getCompletionRate();}
+
+    @Override public boolean isMetricsEnabled() {return tm.getMetrics().isEnabled();}
+    @Override public void setMetricsEnabled(boolean enabled) {tm.getMetrics().setEnabled(enabled);}
+    @Override public int getSampleInterval() {return tm.getMetrics().getSampleInterval();}
+    @Override public void setSampleInterval(int interval) {tm.getMetrics().setSampleInterval(interval);}
+
+    @Override public Map<String, Long> getOperationCounts() {return perOperation(operation -> tm.getMetrics().getCount(operation));}
+    @Override public Map<String, Double> getMeanLatencyNanos() {return perOperationDouble(operation -> latency(operation).getMeanNanos());}
+    @Override public Map<String, Long> getMedianLatencyNanos() {return perOperation(operation -> latency(operation).getPercentileNanos(50));}
+    @Override public Map<String, Long> getP99LatencyNanos() {return perOperation(operation -> latency(operation).getPercentileNanos(99));}
+    @Override public Map<String, Long> getMaxLatencyNanos() {return perOperation(operation -> latency(operation).getMaxNanos());}
+
+    @Override public void resetMetrics() {tm.getMetrics().reset();}
+
+    private LatencyHistogram latency(TaskMetrics.Operation operation) {
+        return tm.getMetrics().getLatency(operation);
+    }
+
+    private Map<String, Long> perOperation(ToLongFunction<TaskMetrics.Operation> value) {
+        TreeMap<String, Long> map = new TreeMap<>();
+        for (TaskMetrics.Operation operation : TaskMetrics.Operation.values()) {
+            map.put(operation.name(), value.applyAsLong(operation));
+        }
+        return map;
+    }
+
+    private Map<String, Double> perOperationDouble(ToDoubleFunction<TaskMetrics.Operation> value) {
+        TreeMap<String, Double> map = new TreeMap<>();
+        for (TaskMetrics.Operation operation : TaskMetrics.Operation.values()) {
+            map.put(operation.name(), value.applyAsDouble(operation));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,31 @@
+// Hears about what TaskManager does (a task was added, an undo happened, ...).
+//
+// TaskManager used to print all of this straight to System.out. Now it just calls a listener,
+// and the default one (NONE) does nothing - so a program that doesn't want the messages
+// doesn't pay for building them. The console app installs ConsoleTaskListener to get them back,
+// and AsyncTaskListener can wrap any listener to move the work onto a background thread.
+//
+// Every method has an empty default, so a listener only needs to override what it cares about.
+// Listeners are called on the thread that made the change, right after it's done.
+public interface TaskManagerListener {
+    TaskManagerListener NONE = new TaskManagerListener() {};
+
+    default void taskAdded(Tasks task) {}
+    default void tasksImported(int count) {}
+    default void taskDeleted(Tasks task) {}
+    default void taskToggled(Tasks task) {}
+    default void taskUpdated(Tasks task) {}
+    default void taskArchived(Tasks task) {}
+    default void archiveFinished(int count) {}
+    // after completeWhere / reprioritizeWhere (each changed task was also sent to taskUpdated)
+    default void bulkUpdated(int count) {}
+
+    // action is the one that was just undone/redone
+    default void undone(Action action) {}
+    default void redone(Action action) {}
+    default void nothingToUndo() {}
+    default void nothingToRedo() {}
+
+    // Push out anything the listener is holding on to (e.g. buffered output)
+    default void flush() {}
+}
@@ -0,0 +1,27 @@
+import java.util.Map;
+
+// What TaskManagerJmx shows in JMX tools (jconsole, VisualVM, ...).
+// Maps are keyed by operation name (ADD, DELETE, ...); latencies are in nanoseconds
+// and come from the timed sample of calls (see TaskMetrics).
+public interface TaskManagerMXBean {
+    int getTaskCount();
+    int getArchivedCount();
+    int getUndoDepth();
+    int getRedoDepth();
+    long getEstimatedHeapBytes();
+    int getCompletedCount();
+    double getCompletionRate();
+
+    boolean isMetricsEnabled();
+    void setMetricsEnabled(boolean enabled);
+    int getSampleInterval();
+    void setSampleInterval(int interval);
+
+    Map<String, Long> getOperationCounts();
+    Map<String, Double> getMeanLatencyNanos();
+    Map<String, Long> getMedianLatencyNanos();
+    Map<String, Long> getP99LatencyNanos();
+    Map<String, Long> getMaxLatencyNanos();
+
+    void resetMetrics();
+}
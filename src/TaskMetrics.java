@@ -0,0 +1,72 @@
+import java.util.Arrays;
+
+// How many times each TaskManager operation ran and how long it took (see LatencyHistogram).
+//
+// Usage inside TaskManager:
+//     long start = metrics.start(TaskMetrics.Operation.ADD);
+//     ... do the work ...
+//     metrics.stop(TaskMetrics.Operation.ADD, start);
+//
+// Every call is counted, but only one in every `sampleInterval` calls (per operation) is timed.
+// Reading the clock twice costs about as much as a whole toggle, so timing every call would
+// roughly double the cost of the cheap operations. A 1-in-8 sample still gives good percentiles
+// once there are a few hundred calls. setSampleInterval(1) times everything.
+// Turned off, start() and stop() do nothing at all.
+public class TaskMetrics {
+    public enum Operation { ADD, DELETE, UPDATE, TOGGLE, UNDO, REDO, ARCHIVE, SORT, IMPORT, SEARCH, QUERY, BULK_UPDATE }
+
+    public static final int DEFAULT_SAMPLE_INTERVAL = 8;
+
+    private static final long SKIP = Long.MIN_VALUE;   // start() result for calls we don't time
+
+    private final long[] counts = new long[Operation.values().length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private volatile boolean enabled = true;
+    private int sampleMask = DEFAULT_SAMPLE_INTERVAL - 1;
+
+    public TaskMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {return enabled;}
+    public void setEnabled(boolean enabled) {this.enabled = enabled;}
+
+    public int getSampleInterval() {return sampleMask + 1;}
+
+    // Time one call in every `interval` (rounded up to a power of two)
+    public void setSampleInterval(int interval) {
+        if (interval < 1) throw new IllegalArgumentException("Sample interval must be at least 1");
+        sampleMask = interval == 1 ? 0 : Integer.highestOneBit(interval - 1) * 2 - 1;
+    }
+
+    public long start(Operation operation) {
+        if (!enabled) return SKIP;
+        long count = counts[operation.ordinal()]++;
+        return (count & sampleMask) == 0 ? System.nanoTime() : SKIP;
+    }
+
+    public void stop(Operation operation, long start) {
+        if (start != SKIP) {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    // How many times the operation ran (while metrics were on)
+    public long getCount(Operation operation) {
+        return counts[operation.ordinal()];
+    }
+
+    // The timed sample of those calls
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+    }
+}
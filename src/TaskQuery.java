@@ -0,0 +1,557 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+// A filter + sort order + limit over the active tasks, answered by TaskManager.query(...).
+//
+// Build one in code:
+//     new TaskQuery().priority(Tasks.Priority.HIGH).completed(false)
+//             .dueBefore(LocalDate.of(2025, 7, 1)).orderBy(TaskQuery.Order.DUE_DATE).limit(50)
+// or parse the same thing from text:
+//     TaskQuery.parse("priority=HIGH AND !completed AND dueDate < 01/07/2025 ORDER BY dueDate LIMIT 50")
+//
+// Conditions (all joined with AND):
+//     completed, !completed, completed=true|false
+//     priority=High, priority!=Low
+//     dueDate (or due) =, <, <=, >, >= dd/MM/yyyy
+//     id=7
+//     text~"buy milk*"       (the words, searched with TextIndex)
+// then optionally ORDER BY id|dueDate|created|priority [ASC|DESC] and LIMIT n.
+//
+// Planning: each index that can produce the candidates is an "access path" -
+// the whole list (ID order), one priority bucket (ID order), a due date range (due date order),
+// the creation time index, the text index, or a single ID. A path that already comes out
+// in the requested order is used as is, so reading can stop at the limit. One that doesn't
+// has to be collected and sorted first, so it counts as 4x its rows. The cheapest wins,
+// and every condition is still checked on each task the path hands out.
+public class TaskQuery {
+    public enum Order {
+        ID("id"), DUE_DATE("dueDate"), CREATED("created"), PRIORITY("priority");
+
+        public final String field;   // how it's written in a query
+
+        Order(String field) {
+            this.field = field;
+        }
+    }
+
+    // Without statistics on due dates, guess what share of tasks a date condition keeps
+    // (the usual textbook guesses: a third for one bound, a ninth for two, 1/30 for one day)
+    private static final double ONE_BOUND = 1 / 3.0;
+    private static final double TWO_BOUNDS = 1 / 9.0;
+    private static final double ONE_DAY = 1 / 30.0;
+    private static final int SORT_PENALTY = 4;
+
+    private static final Comparator<Tasks> BY_PRIORITY = (a, b) -> {
+        int c = a.getPriority().compareTo(b.getPriority());
+        return c != 0 ? c : Integer.compare(a.getId(), b.getId());
+    };
+
+    private int id;                              // 0 = any
+    private EnumSet<Tasks.Priority> priorities;  // null = any
+    private Boolean completed;                   // null = either
+    private LocalDate dueFrom, dueTo;            // null = no limit
+    private boolean dueFromInclusive, dueToInclusive;
+    private String text;                         // null = no text condition
+    private boolean impossible;                  // two conditions that can't both hold
+    private Order order = Order.ID;
+    private boolean descending;
+    private int limit = Integer.MAX_VALUE;
+
+    // ---- Building ----
+
+    public TaskQuery id(int id) {
+        if (this.id != 0 && this.id != id) impossible = true;
+        this.id = id;
+        return this;
+    }
+
+    // Only these priorities (calling it again narrows it further)
+    public TaskQuery priority(Tasks.Priority... allowed) {
+        EnumSet<Tasks.Priority> set = EnumSet.noneOf(Tasks.Priority.class);
+        set.addAll(Arrays.asList(allowed));
+        if (priorities != null) set.retainAll(priorities);
+        priorities = set;
+        return this;
+    }
+
+    public TaskQuery priorityNot(Tasks.Priority excluded) {
+        EnumSet<Tasks.Priority> set = EnumSet.complementOf(EnumSet.of(excluded));
+        return priority(set.toArray(new Tasks.Priority[0]));
+    }
+
+    public TaskQuery completed(boolean completed) {
+        if (this.completed != null && this.completed != completed) impossible = true;
+        this.completed = completed;
+        return this;
+    }
+
+    public TaskQuery dueBefore(LocalDate date) {return dueTo(date, false);}
+    public TaskQuery dueOnOrBefore(LocalDate date) {return dueTo(date, true);}
+    public TaskQuery dueAfter(LocalDate date) {return dueFrom(date, false);}
+    public TaskQuery dueOnOrAfter(LocalDate date) {return dueFrom(date, true);}
+
+    public TaskQuery dueOn(LocalDate date) {
+        return dueFrom(date, true).dueTo(date, true);
+    }
+
+    // Keeps the tighter of the old and new lower bound
+    private TaskQuery dueFrom(LocalDate date, boolean inclusive) {
+        if (dueFrom == null || date.isAfter(dueFrom) || (date.equals(dueFrom) && !inclusive)) {
+            dueFrom = date;
+            dueFromInclusive = inclusive;
+        }
+        return this;
+    }
+
+    private TaskQuery dueTo(LocalDate date, boolean inclusive) {
+        if (dueTo == null || date.isBefore(dueTo) || (date.equals(dueTo) && !inclusive)) {
+            dueTo = date;
+            dueToInclusive = inclusive;
+        }
+        return this;
+    }
+
+    // Every word has to be in the title or description ("mil*" for words starting with "mil")
+    public TaskQuery text(String words) {
+        text = text == null ? words : text + " " + words;
+        return this;
+    }
+
+    public TaskQuery orderBy(Order order) {
+        return orderBy(order, false);
+    }
+
+    public TaskQuery orderBy(Order order, boolean descending) {
+        this.order = order;
+        this.descending = descending;
+        return this;
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit can't be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    boolean needsTextIndex() {return text != null;}
+
+    int getLimit() {return limit;}
+
+    // The order results come out in (so results from several lists can be merged)
+    Comparator<Tasks> comparator() {
+        Comparator<Tasks> comparator = switch (order) {
+            case ID -> TaskIndexes.BY_ID;
+            case DUE_DATE -> TaskIndexes.BY_DUE_DATE;
+            case CREATED -> TaskIndexes.BY_CREATION_TIME;
+            case PRIORITY -> BY_PRIORITY;
+        };
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    // ---- Checking one task ----
+
+    private boolean matches(Tasks task, int[] textIds) {
+        if (impossible) return false;
+        if (id != 0 && task.getId() != id) return false;
+        if (priorities != null && !priorities.contains(task.getPriority())) return false;
+        if (completed != null && task.isCompleted() != completed) return false;
+        if (dueFrom != null) {
+            int c = task.getDueDate().compareTo(dueFrom);
+            if (c < 0 || (c == 0 && !dueFromInclusive)) return false;
+        }
+        if (dueTo != null) {
+            int c = task.getDueDate().compareTo(dueTo);
+            if (c > 0 || (c == 0 && !dueToInclusive)) return false;
+        }
+        return textIds == null || Arrays.binarySearch(textIds, task.getId()) >= 0;
+    }
+
+    // ---- Planning ----
+
+    // One way of getting the candidate tasks out of the indexes
+    private abstract static class Path {
+        final String name;
+        final double rows;        // how many tasks it will hand out (estimated)
+        final boolean ordered;    // already in the order the query wants?
+
+        Path(String name, double rows, boolean ordered) {
+            this.name = name;
+            this.rows = rows;
+            this.ordered = ordered;
+        }
+
+        double cost() {return ordered ? rows : rows * SORT_PENALTY;}
+
+        abstract Iterator<Tasks> open();
+    }
+
+    // Picks the cheapest access path and returns a cursor over the results.
+    // `textIndex` is only needed (and only used) when the query has a text condition.
+    // (The cursor keeps reading this query's conditions, so don't change the query while using it.)
+    TaskCursor open(TaskStore store, TaskIndexes indexes, TextIndex textIndex) {
+        if (impossible || (priorities != null && priorities.isEmpty())) {
+            return new TaskCursor(Collections.emptyIterator(), task -> false, 0, "nothing can match");
+        }
+        int[] textIds = text == null ? null : textIndex.matching(text);
+        ArrayList<Path> paths = new ArrayList<>();
+        int n = store.size();
+
+        if (id != 0) {
+            Tasks task = store.get(id);
+            paths.add(new Path("id lookup", 1, true) {
+                @Override
+                Iterator<Tasks> open() {
+                    return task == null ? Collections.emptyIterator() : Collections.singletonList(task).iterator();
+                }
+            });
+        }
+        if (textIds != null) {
+            paths.add(new Path("text index", textIds.length, order == Order.ID) {
+                @Override
+                Iterator<Tasks> open() {return byIds(store, textIds, descending);}
+            });
+        }
+        if (priorities != null && priorities.size() == 1) {
+            Tasks.Priority only = priorities.iterator().next();
+            paths.add(new Path("priority bucket", indexes.countWithPriority(only),
+                    order == Order.ID || order == Order.PRIORITY) {
+                @Override
+                Iterator<Tasks> open() {return indexes.withPriority(only, descending).iterator();}
+            });
+        }
+        if (order == Order.PRIORITY) {
+            paths.add(new Path("priority buckets", countPriorities(indexes), true) {
+                @Override
+                Iterator<Tasks> open() {return priorityBuckets(indexes);}
+            });
+        }
+        if (dueFrom != null || dueTo != null || order == Order.DUE_DATE) {
+            double share = dueFrom == null && dueTo == null ? 1
+                    : dueFrom != null && dueFrom.equals(dueTo) ? ONE_DAY
+                    : dueFrom != null && dueTo != null ? TWO_BOUNDS : ONE_BOUND;
+            paths.add(new Path("due date range", n * share, order == Order.DUE_DATE) {
+                @Override
+                Iterator<Tasks> open() {
+                    return indexes.dueBetween(dueFrom, dueFromInclusive, dueTo, dueToInclusive, descending).iterator();
+                }
+            });
+        }
+        if (order == Order.CREATED) {
+            paths.add(new Path("creation time index", n, true) {
+                @Override
+                Iterator<Tasks> open() {return indexes.byCreationTime(descending).iterator();}
+            });
+        }
+        paths.add(new Path("full scan", n, order == Order.ID) {
+            @Override
+            Iterator<Tasks> open() {return descending ? backwards(store) : store.iterator();}
+        });
+
+        Path best = paths.get(0);
+        for (Path path : paths) {
+            if (path.cost() < best.cost()) best = path;
+        }
+
+        String plan = best.name + (best.ordered ? "" : ", then sort by " + order.field) + describe();
+        if (best.ordered) {
+            return new TaskCursor(best.open(), task -> matches(task, textIds), limit, plan);
+        }
+
+        // The path isn't in the right order: collect the matches, sort them, then hand out `limit`
+        ArrayList<Tasks> found = new ArrayList<>();
+        for (Iterator<Tasks> it = best.open(); it.hasNext(); ) {
+            Tasks task = it.next();
+            if (matches(task, textIds)) found.add(task);
+        }
+        found.sort(comparator());
+        return new TaskCursor(found.iterator(), task -> true, limit, plan);
+    }
+
+    private int countPriorities(TaskIndexes indexes) {
+        int count = 0;
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            if (priorities == null || priorities.contains(priority)) count += indexes.countWithPriority(priority);
+        }
+        return count;
+    }
+
+    // The allowed priority buckets one after another (HIGH first, or LOW first when descending)
+    private Iterator<Tasks> priorityBuckets(TaskIndexes indexes) {
+        ArrayList<Collection<Tasks>> buckets = new ArrayList<>();
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            if (priorities == null || priorities.contains(priority)) {
+                buckets.add(indexes.withPriority(priority, descending));
+            }
+        }
+        if (descending) Collections.reverse(buckets);
+        return buckets.stream().flatMap(Collection::stream).iterator();
+    }
+
+    private static Iterator<Tasks> byIds(TaskStore store, int[] ids, boolean descending) {
+        return new Iterator<>() {
+            private int at = 0;
+
+            @Override
+            public boolean hasNext() {return at < ids.length;}
+
+            @Override
+            public Tasks next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int i = at++;
+                return store.get(ids[descending ? ids.length - 1 - i : i]);
+            }
+        };
+    }
+
+    // The list from the last task to the first (the store links both ways)
+    private static Iterator<Tasks> backwards(TaskStore store) {
+        return new Iterator<>() {
+            private int nextId = store.lastId();
+
+            @Override
+            public boolean hasNext() {return nextId != 0;}
+
+            @Override
+            public Tasks next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Tasks task = store.get(nextId);
+                nextId = store.previousId(nextId);
+                return task;
+            }
+        };
+    }
+
+    // ---- Text form ----
+
+    // The conditions, order and limit, as they'd be written in a query (starting with ", ")
+    private String describe() {
+        StringBuilder out = new StringBuilder();
+        String conditions = conditions();
+        if (!conditions.isEmpty()) out.append(", filter ").append(conditions);
+        if (limit != Integer.MAX_VALUE) out.append(", limit ").append(limit);
+        return out.toString();
+    }
+
+    private String conditions() {
+        // Two conditions clashed (id=3 AND id=5); only one of them is kept, so write any clash instead
+        if (impossible) return "completed AND !completed";
+        ArrayList<String> parts = new ArrayList<>();
+        if (id != 0) parts.add("id=" + id);
+        if (priorities != null && priorities.size() == 1) {
+            parts.add("priority=" + priorities.iterator().next().status);
+        } else if (priorities != null && priorities.size() == 2) {
+            parts.add("priority!=" + EnumSet.complementOf(priorities).iterator().next().status);
+        } else if (priorities != null && priorities.isEmpty()) {
+            parts.add("priority=High AND priority!=High");
+        }
+        if (completed != null) parts.add(completed ? "completed" : "!completed");
+        if (dueFrom != null && dueFrom.equals(dueTo) && dueFromInclusive && dueToInclusive) {
+            parts.add("dueDate = " + DateFormats.format(dueFrom));
+        } else {
+            if (dueFrom != null) parts.add("dueDate " + (dueFromInclusive ? ">= " : "> ") + DateFormats.format(dueFrom));
+            if (dueTo != null) parts.add("dueDate " + (dueToInclusive ? "<= " : "< ") + DateFormats.format(dueTo));
+        }
+        if (text != null) parts.add("text~\"" + text + "\"");
+        return String.join(" AND ", parts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(conditions());
+        if (order != Order.ID || descending) {
+            if (out.length() > 0) out.append(' ');
+            out.append("ORDER BY ").append(order.field).append(descending ? " DESC" : "");
+        }
+        if (limit != Integer.MAX_VALUE) {
+            if (out.length() > 0) out.append(' ');
+            out.append("LIMIT ").append(limit);
+        }
+        return out.toString();
+    }
+
+    // Reads the text form (see the top of this file). Keywords and field names ignore case.
+    // Throws IllegalArgumentException saying what it didn't understand.
+    public static TaskQuery parse(String text) {
+        return new Parser(text).query();
+    }
+
+    private static final class Parser {
+        private final ArrayList<String> tokens = new ArrayList<>();
+        private int at;
+
+        Parser(String text) {
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '"') {
+                    int end = text.indexOf('"', i + 1);
+                    if (end < 0) throw new IllegalArgumentException("Bad query: missing closing \"");
+                    tokens.add(text.substring(i, end + 1));
+                    i = end + 1;
+                } else if ("<>!=~".indexOf(c) >= 0) {
+                    boolean twoChars = i + 1 < text.length() && text.charAt(i + 1) == '=' && c != '=' && c != '~';
+                    tokens.add(text.substring(i, twoChars ? i + 2 : i + 1));
+                    i += twoChars ? 2 : 1;
+                } else {
+                    int start = i;
+                    while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                            && "<>!=~\"".indexOf(text.charAt(i)) < 0) {
+                        i++;
+                    }
+                    tokens.add(text.substring(start, i));
+                }
+            }
+        }
+
+        TaskQuery query() {
+            TaskQuery query = new TaskQuery();
+            if (!peekIs("ORDER") && !peekIs("LIMIT") && at < tokens.size()) {
+                condition(query);
+                while (peekIs("AND")) {
+                    at++;
+                    condition(query);
+                }
+            }
+            if (peekIs("ORDER")) {
+                at++;
+                expect("BY");
+                String field = word("a field to order by");
+                Order order = switch (field.toLowerCase(Locale.ROOT)) {
+                    case "id" -> Order.ID;
+                    case "duedate", "due" -> Order.DUE_DATE;
+                    case "created", "creationtime" -> Order.CREATED;
+                    case "priority" -> Order.PRIORITY;
+                    default -> throw bad("can't order by " + field);
+                };
+                boolean descending = false;
+                if (peekIs("DESC")) {
+                    descending = true;
+                    at++;
+                } else if (peekIs("ASC")) {
+                    at++;
+                }
+                query.orderBy(order, descending);
+            }
+            if (peekIs("LIMIT")) {
+                at++;
+                String number = word("a number after LIMIT");
+                try {
+                    query.limit(Integer.parseInt(number));
+                } catch (NumberFormatException e) {
+                    throw bad("LIMIT needs a number, not " + number);
+                }
+            }
+            if (at < tokens.size()) throw bad("didn't expect " + tokens.get(at));
+            return query;
+        }
+
+        private void condition(TaskQuery query) {
+            if (peekIs("!")) {
+                at++;
+                String field = word("a field after !");
+                if (!field.equalsIgnoreCase("completed")) throw bad("only completed can be negated with !");
+                query.completed(false);
+                return;
+            }
+            String field = word("a condition").toLowerCase(Locale.ROOT);
+            switch (field) {
+                case "completed" -> {
+                    if (peekIs("=")) {
+                        at++;
+                        String value = word("true or false");
+                        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                            throw bad("completed is true or false, not " + value);
+                        }
+                        query.completed(Boolean.parseBoolean(value.toLowerCase(Locale.ROOT)));
+                    } else {
+                        query.completed(true);
+                    }
+                }
+                case "priority" -> {
+                    String op = operator();
+                    Tasks.Priority priority = priorityOf(word("a priority"));
+                    switch (op) {
+                        case "=" -> query.priority(priority);
+                        case "!=" -> query.priorityNot(priority);
+                        default -> throw bad("priority only works with = or !=");
+                    }
+                }
+                case "duedate", "due" -> {
+                    String op = operator();
+                    String value = word("a date");
+                    LocalDate date = DateFormats.parse(value);
+                    if (date == null) throw bad("dates look like 15/06/2025, not " + value);
+                    switch (op) {
+                        case "=" -> query.dueOn(date);
+                        case "<" -> query.dueBefore(date);
+                        case "<=" -> query.dueOnOrBefore(date);
+                        case ">" -> query.dueAfter(date);
+                        case ">=" -> query.dueOnOrAfter(date);
+                        default -> throw bad("dueDate doesn't work with " + op);
+                    }
+                }
+                case "id" -> {
+                    if (!operator().equals("=")) throw bad("id only works with =");
+                    String value = word("an ID");
+                    try {
+                        query.id(Integer.parseInt(value));
+                    } catch (NumberFormatException e) {
+                        throw bad("id needs a number, not " + value);
+                    }
+                }
+                case "text" -> {
+                    String op = operator();
+                    if (!op.equals("~") && !op.equals("=")) throw bad("text works with ~");
+                    String value = word("some words");
+                    if (value.startsWith("\"")) value = value.substring(1, value.length() - 1);
+                    query.text(value);
+                }
+                default -> throw bad("unknown field " + field);
+            }
+        }
+
+        private Tasks.Priority priorityOf(String name) {
+            for (Tasks.Priority priority : Tasks.Priority.values()) {
+                if (priority.status.equalsIgnoreCase(name) || priority.name().equalsIgnoreCase(name)) return priority;
+            }
+            throw bad("priority is High, Medium or Low, not " + name);
+        }
+
+        private String operator() {
+            String op = word("an operator");
+            if (!op.equals("=") && !op.equals("!=") && !op.equals("<") && !op.equals("<=")
+                    && !op.equals(">") && !op.equals(">=") && !op.equals("~")) {
+                throw bad("expected an operator, not " + op);
+            }
+            return op;
+        }
+
+        private boolean peekIs(String keyword) {
+            return at < tokens.size() && tokens.get(at).equalsIgnoreCase(keyword);
+        }
+
+        private void expect(String keyword) {
+            if (!peekIs(keyword)) throw bad("expected " + keyword);
+            at++;
+        }
+
+        private String word(String what) {
+            if (at >= tokens.size()) throw bad("expected " + what + " at the end");
+            return tokens.get(at++);
+        }
+
+        private IllegalArgumentException bad(String problem) {
+            return new IllegalArgumentException("Bad query: " + problem);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lets many clients use one ConcurrentTaskManager over TCP, with a simple line protocol
+// (try it with: java Main serve 7070, then nc localhost 7070).
+//
+// Each request is one line: a command and its arguments separated by tabs.
+// (Inside an argument, write a tab as \t, a new line as \n and a backslash as \\.)
+//
+//   ADD <title> <description> <dd/MM/yyyy> <Low|Medium|High>   -> OK <new id>
+//   GET <id>                                                   -> OK <task as JSON>
+//   UPDATE <id> [title=..] [description=..] [dueDate=..] [priority=..]   -> OK
+//   TOGGLE <id>   DELETE <id>                                  -> OK
+//   UNDO   REDO                                                -> OK (or ERR if nothing to do / conflict)
+//   ARCHIVE                                                    -> OK <how many were archived>
+//   LIST <tasks|completed|archived|priority|dueDate|created> [limit]   -> OK <n>, then n lines of JSON
+//   PING -> OK     QUIT -> OK, and the connection is closed
+//
+// Anything that goes wrong is answered with "ERR <reason>", and the connection stays open.
+//
+// Every connection gets its own virtual thread (so 10k idle clients cost little more than
+// their buffers) and its own session, so UNDO only undoes that client's changes.
+// Clients may pipeline: send many requests without waiting. Replies are buffered and only
+// flushed once no more requests are waiting to be read, so a burst gets its replies in a burst.
+//
+// Backpressure: a connection reads its next request only after its last reply is written,
+// so a client that stops reading fills its own socket buffers and then stalls on its own -
+// nothing piles up in the server. Past maxConnections, new clients wait in the accept backlog.
+// Over-long lines are refused, and LIST never sends more than MAX_LIST_LIMIT tasks.
+public class TaskServer implements Closeable {
+    public static final int DEFAULT_PORT = 7070;
+    public static final int DEFAULT_MAX_CONNECTIONS = 16_384;
+    public static final int MAX_LIST_LIMIT = 10_000;
+    private static final int DEFAULT_LIST_LIMIT = 100;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int BUFFER_BYTES = 2048;
+    private static final int BACKLOG = 4096;
+
+    private final ConcurrentTaskManager manager;
+    private final ServerSocket server;
+    private final Semaphore connectionPermits;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong connectionCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private Thread acceptor;
+
+    // Listens on this port on every interface (0 = any free port, see getPort())
+    public TaskServer(ConcurrentTaskManager manager, int port) throws IOException {
+        this(manager, new InetSocketAddress(port), DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public TaskServer(ConcurrentTaskManager manager, InetSocketAddress address, int maxConnections) throws IOException {
+        this.manager = manager;
+        this.connectionPermits = new Semaphore(maxConnections);
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(address, BACKLOG);
+    }
+
+    // Just on the loopback interface (for tests and benchmarks)
+    public static TaskServer loopback(ConcurrentTaskManager manager, int port) throws IOException {
+        return new TaskServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public int getPort() {return server.getLocalPort();}
+    public int getOpenConnections() {return open.size();}
+    public long getConnectionCount() {return connectionCount.get();}
+    public long getRequestCount() {return requestCount.get();}
+
+    // Starts accepting clients (on a thread of its own, so this returns straight away)
+    public synchronized void start() {
+        if (acceptor != null) return;
+        acceptor = Thread.ofPlatform().name("task-server-accept").daemon(true).start(this::acceptLoop);
+    }
+
+    // Waits until the server is closed
+    public void join() throws InterruptedException {
+        Thread running;
+        synchronized (this) {
+            running = acceptor;
+        }
+        if (running != null) running.join();
+    }
+
+    // Stops accepting, hangs up on every client and waits for their threads to finish
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : open) {
+            socket.close();
+        }
+        connections.shutdown();
+        try {
+            connections.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                connectionPermits.acquire();
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException e) {
+                    connectionPermits.release();
+                    if (server.isClosed()) return;
+                    continue;   // e.g. the client gave up before we got to it
+                }
+                open.add(socket);
+                long id = connectionCount.incrementAndGet();
+                try {
+                    connections.execute(() -> serve(socket, id));
+                } catch (RejectedExecutionException e) {
+                    // closed while this one was being accepted
+                    open.remove(socket);
+                    closeQuietly(socket);
+                    connectionPermits.release();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing more we can do with it
+        }
+    }
+
+    // ---- One connection ----
+
+    private void serve(Socket socket, long id) {
+        String sessionName = "connection-" + id;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            LineReader lines = new LineReader(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_BYTES);
+            ConcurrentTaskManager.Session session = manager.session(sessionName);
+            StringBuilder reply = new StringBuilder(256);
+            while (true) {
+                String line;
+                try {
+                    line = lines.readLine();
+                } catch (LineTooLongException e) {
+                    // the rest of that line can't be read sensibly, so refuse it and hang up
+                    out.write(("ERR Line longer than " + MAX_LINE_BYTES + " bytes\n").getBytes(StandardCharsets.UTF_8));
+                    break;
+                }
+                if (line == null) break;
+                reply.setLength(0);
+                boolean more = handle(line, session, reply);
+                out.write(reply.toString().getBytes(StandardCharsets.UTF_8));
+                requestCount.incrementAndGet();
+                if (!more) break;
+                if (!lines.ready()) out.flush();   // nothing else pipelined: send what we have
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the client hung up (or we're closing) - nobody left to tell
+        } finally {
+            manager.closeSession(sessionName);
+            open.remove(socket);
+            connectionPermits.release();
+        }
+    }
+
+    // Answers one request into `reply`. Returns false if the client asked to hang up.
+    boolean handle(String line, ConcurrentTaskManager.Session session, StringBuilder reply) {
+        String[] args = line.split("\t", -1);
+        for (int i = 1; i < args.length; i++) {
+            args[i] = unescape(args[i]);
+        }
+        try {
+            switch (args[0].toUpperCase(Locale.ROOT)) {
+                case "ADD" -> {
+                    need(args, 5, "ADD <title> <description> <dd/MM/yyyy> <priority>");
+                    if (args[1].isBlank()) throw new IllegalArgumentException("Title must not be empty");
+                    Tasks task = session.addTask(args[1], args[2], date(args[3]), priority(args[4]));
+                    reply.append("OK ").append(task.getId()).append('\n');
+                }
+                case "GET" -> {
+                    need(args, 2, "GET <id>");
+                    Tasks task = manager.getTask(id(args[1]));
+                    if (task == null) throw new IllegalArgumentException("No task with ID " + args[1]);
+                    reply.append("OK ");
+                    TaskTransfer.jsonLine(reply, task);
+                    reply.append('\n');
+                }
+                case "UPDATE" -> {
+                    need(args, 2, "UPDATE <id> [title=..] [description=..] [dueDate=..] [priority=..]");
+                    ConcurrentTaskManager.TaskUpdater updater = session.updateTask(id(args[1]));
+                    for (int i = 2; i < args.length; i++) {
+                        int equals = args[i].indexOf('=');
+                        String name = equals < 0 ? args[i] : args[i].substring(0, equals);
+                        String value = equals < 0 ? "" : args[i].substring(equals + 1);
+                        switch (name) {
+                            case "title" -> updater.title(value);
+                            case "description" -> updater.description(value);
+                            case "dueDate" -> updater.dueDate(date(value));
+                            case "priority" -> updater.priority(priority(value));
+                            default -> throw new IllegalArgumentException("Unknown field: " + name);
+                        }
+                    }
+                    ok(updater.apply(), args[1], reply);
+                }
+                case "TOGGLE" -> {
+                    need(args, 2, "TOGGLE <id>");
+                    ok(session.toggleTaskStatus(id(args[1])), args[1], reply);
+                }
+                case "DELETE" -> {
+                    need(args, 2, "DELETE <id>");
+                    ok(session.deleteTask(id(args[1])), args[1], reply);
+                }
+                case "UNDO" -> undoReply(session.undo(), "undo", reply);
+                case "REDO" -> undoReply(session.redo(), "redo", reply);
+                case "ARCHIVE" -> reply.append("OK ").append(session.archiveCompletedTasks()).append('\n');
+                case "LIST" -> {
+                    need(args, 2, "LIST <tasks|completed|archived|priority|dueDate|created> [limit]");
+                    int limit = args.length > 2 ? Math.min(number(args[2], "limit"), MAX_LIST_LIMIT) : DEFAULT_LIST_LIMIT;
+                    List<Tasks> view = view(args[1], limit);
+                    reply.append("OK ").append(view.size()).append('\n');
+                    for (Tasks task : view) {
+                        TaskTransfer.jsonLine(reply, task);
+                        reply.append('\n');
+                    }
+                }
+                case "PING" -> reply.append("OK\n");
+                case "QUIT" -> {
+                    reply.append("OK\n");
+                    return false;
+                }
+                default -> throw new IllegalArgumentException("Unknown command: " + args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            reply.setLength(0);
+            reply.append("ERR ").append(e.getMessage()).append('\n');
+        }
+        return true;
+    }
+
+    // Just the first `limit` tasks of the view (the rest is never copied)
+    private List<Tasks> view(String name, int limit) {
+        return switch (name) {
+            case "tasks" -> manager.getTasks(limit);
+            case "completed" -> manager.getCompletedTasks(limit);
+            case "archived" -> manager.getArchivedTasks(limit);
+            case "priority" -> manager.sortByPriority(limit);
+            case "dueDate" -> manager.sortByDueDate(limit);
+            case "created" -> manager.sortByCreationTime(limit);
+            default -> throw new IllegalArgumentException("Unknown view: " + name);
+        };
+    }
+
+    private static void ok(boolean done, String id, StringBuilder reply) {
+        if (!done) throw new IllegalArgumentException("No task with ID " + id);
+        reply.append("OK\n");
+    }
+
+    private static void undoReply(ConcurrentTaskManager.UndoResult result, String what, StringBuilder reply) {
+        switch (result) {
+            case DONE -> reply.append("OK\n");
+            case NOTHING_TO_DO -> reply.append("ERR Nothing to ").append(what).append('\n');
+            case CONFLICT -> reply.append("ERR Someone else changed those tasks, can't ").append(what).append('\n');
+        }
+    }
+
+    private static void need(String[] args, int count, String usage) {
+        if (args.length < count) throw new IllegalArgumentException("Usage: " + usage);
+    }
+
+    private static int id(String text) {
+        return number(text, "task ID");
+    }
+
+    private static int number(String text, String what) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid " + what + ": " + text);
+        }
+    }
+
+    private static LocalDate date(String text) {
+        LocalDate date = DateFormats.parse(text.trim());
+        if (date == null) throw new IllegalArgumentException("Not a valid date (dd/MM/yyyy): " + text);
+        return date;
+    }
+
+    private static Tasks.Priority priority(String text) {
+        Tasks.Priority priority = TaskTransfer.priorityOf(text.trim());
+        if (priority == null) throw new IllegalArgumentException("Priority must be Low, Medium or High: " + text);
+        return priority;
+    }
+
+    // \t, \n and \\ back into a tab, a new line and a backslash
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) return text;
+        StringBuilder plain = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                plain.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                plain.append(c);
+            }
+        }
+        return plain.toString();
+    }
+
+    // The other way round, for clients building a request
+    public static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> { }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // Reads UTF-8 lines (ending in \n or \r\n) straight off the socket through its own buffer,
+    // with a cap on their length, so one client can't make us hold an endless line in memory
+    private static final class LineReader {
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_BYTES];
+        private int start;
+        private int end;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        // null at the end of the stream
+        String readLine() throws IOException {
+            int scanned = start;
+            while (true) {
+                for (int i = scanned; i < end; i++) {
+                    if (buffer[i] == '\n') {
+                        int length = i > start && buffer[i - 1] == '\r' ? i - 1 - start : i - start;
+                        String line = new String(buffer, start, length, StandardCharsets.UTF_8);
+                        start = i + 1;
+                        return line;
+                    }
+                }
+                scanned = end;
+                if (end - start >= MAX_LINE_BYTES) throw new LineTooLongException();
+                if (end == buffer.length) {
+                    if (start > 0) {
+                        System.arraycopy(buffer, start, buffer, 0, end - start);   // make room at the end
+                        end -= start;
+                        scanned -= start;
+                        start = 0;
+                    } else {
+                        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_LINE_BYTES + 1));
+                    }
+                }
+                int read = in.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    if (start == end) return null;
+                    String last = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+                    start = end;
+                    return last;
+                }
+                end += read;
+            }
+        }
+
+        // True if more requests are already waiting (in our buffer or the socket's)
+        boolean ready() throws IOException {
+            return start < end || in.available() > 0;
+        }
+    }
+
+    private static final class LineTooLongException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
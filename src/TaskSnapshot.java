@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+// A full picture of TaskManager's tasks at one moment, saved in one compact binary file.
+// With a snapshot on disk, startup loads the snapshot and only replays the (short) part of
+// the log written after it, instead of every change ever made.
+//
+// File layout:
+//   int   magic ("TSNP")
+//   int   version
+//   long  log generation that continues after this snapshot
+//   int   next task ID
+//   int   number of active tasks
+//   int   number of archived tasks
+//   byte  where the archived tasks are: 0 = in this file, 1 = in the archive's own files
+//   long  (archive in its own files) how far its strings file goes, see MappedTaskStore
+//   int   (archive in its own files) n, then n ints: how many archived tasks there are
+//         per priority x completed, see TaskAggregates.getArchivedCounts()
+//   ...   active tasks in listing order, then (if they're in this file) archived tasks in
+//         archive order - each one in TaskCodec's format: fixed-width fields, then
+//         length-prefixed strings
+//   int   CRC32 of everything before it
+//
+// A memory-mapped archive (MappedTaskStore) already sits in files of its own that outlive the
+// run, so the snapshot only notes how much of them it covers instead of copying every archived
+// task - both writing the snapshot and loading it take time for the active tasks only.
+// Version 1 files (no archive byte, archived tasks always in the file) can still be read.
+public final class TaskSnapshot {
+    private static final int MAGIC = 0x54534E50;   // "TSNP"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4;
+    private static final byte ARCHIVE_INLINE = 0;
+    private static final byte ARCHIVE_IN_FILE = 1;
+    private static final int BUFFER_BYTES = 4 << 20;
+    // The file is read through a memory-mapped window of this size that moves along it,
+    // so it can be bigger than one mapping (2 GB) and never has to be mapped all at once
+    private static final long WINDOW_BYTES = 64 << 20;
+
+    // Gets the snapshot's contents while it's being read
+    public interface Loader {
+        void begin(int nextId, int activeCount, int archivedCount);
+        void active(Tasks task);
+        void archived(Tasks task);
+
+        // The archived tasks weren't copied in: they're the first `count` in the archive's own
+        // files (see MappedTaskStore.restore), with these counts per priority x completed
+        void archivedInFile(int count, long stringsEnd, int[] archivedCounts) throws IOException;
+    }
+
+    private TaskSnapshot() {}
+
+    // Where the snapshot for a given log file lives (next to it)
+    public static Path pathFor(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".snapshot");
+    }
+
+    // Write a snapshot to a temporary file first, then swap it in with one atomic rename,
+    // so a crash half-way through never leaves a broken snapshot behind.
+    // When this returns the snapshot is on disk, rename included, so the log can be emptied.
+    // A MappedTaskStore archive is forced to disk and referred to (archivedCounts are saved with
+    // it); any other archive is copied in and archivedCounts isn't used.
+    public static void write(Path file, long generation, int nextId, Collection<Tasks> active,
+                             TaskList archived, int[] archivedCounts) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            out.putInt(MAGIC).putInt(VERSION).putLong(generation)
+                    .putInt(nextId).putInt(active.size()).putInt(archived.size());
+            if (archived instanceof MappedTaskStore mapped) {
+                mapped.force();
+                out.put(ARCHIVE_IN_FILE).putLong(mapped.getStringsEnd()).putInt(archivedCounts.length);
+                for (int count : archivedCounts) {
+                    out.putInt(count);
+                }
+                out = writeTasks(channel, out, crc, active);
+            } else {
+                out.put(ARCHIVE_INLINE);
+                out = writeTasks(channel, out, crc, active);
+                out = writeTasks(channel, out, crc, archived);
+            }
+
+            drain(channel, out, crc);
+            out.putInt((int) crc.getValue());
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The rename lives in the directory, which has its own fsync. Without it a crash could
+        // bring back the old snapshot next to an already emptied log.
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    // Fsync a directory, so files created or renamed in it stay that way after a crash.
+    // Windows can't open a directory like this (and makes renames durable by itself), so skip it there.
+    static void forceDirectory(Path dir) throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows")) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    // Load a snapshot through the loader and return its log generation (-1 if there is no snapshot).
+    // The file is memory-mapped, so the OS pages it in as we read instead of us copying it.
+    public static long read(Path file, Loader loader) throws IOException {
+        return read(file, loader, WINDOW_BYTES);
+    }
+
+    // Same, with a different window size (small ones make tasks cross window edges often)
+    static long read(Path file, Loader loader, long windowBytes) throws IOException {
+        if (!Files.exists(file)) return -1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 4) {
+                throw new IOException("Snapshot is truncated");
+            }
+            long end = size - 4;
+            ByteBuffer stored = ByteBuffer.allocate(4);
+            TaskLog.readFully(channel, stored, end);
+            if ((int) checksum(channel, end, windowBytes) != stored.flip().getInt()) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+
+            Window in = new Window(channel, end, windowBytes);
+            ByteBuffer header = in.map(0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException("Not a task snapshot file");
+            int version = header.getInt();
+            if (version != 1 && version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            long generation = header.getLong();
+            int nextId = header.getInt();
+            int activeCount = header.getInt();
+            int archivedCount = header.getInt();
+
+            long position = HEADER_BYTES;
+            byte archiveKind = ARCHIVE_INLINE;
+            long stringsEnd = 0;
+            int[] archivedCounts = null;
+            if (version >= 2) {
+                ByteBuffer archive = in.map(position, 1 + 8 + 4);
+                archiveKind = archive.get();
+                if (archiveKind == ARCHIVE_IN_FILE) {
+                    stringsEnd = archive.getLong();
+                    int n = archive.getInt();
+                    if (n < 0 || n > 64) throw new IOException("Bad archive counts in snapshot");
+                    ByteBuffer counts = in.map(position + 1 + 8 + 4, 4L * n);
+                    archivedCounts = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        archivedCounts[i] = counts.getInt();
+                    }
+                    position += 1 + 8 + 4 + 4L * n;
+                } else if (archiveKind == ARCHIVE_INLINE) {
+                    position += 1;
+                } else {
+                    throw new IOException("Unknown archive kind " + archiveKind + " in snapshot");
+                }
+            }
+            in.map(position, windowBytes);
+
+            loader.begin(nextId, activeCount, archiveKind == ARCHIVE_INLINE ? archivedCount : 0);
+            TaskCodec.Decoder decoder = new TaskCodec.Decoder();
+            for (int i = 0; i < activeCount; i++) {
+                loader.active(decoder.read(in.nextTask()));
+            }
+            if (archiveKind == ARCHIVE_IN_FILE) {
+                loader.archivedInFile(archivedCount, stringsEnd, archivedCounts);
+            } else {
+                for (int i = 0; i < archivedCount; i++) {
+                    loader.archived(decoder.read(in.nextTask()));
+                }
+            }
+            return generation;
+        }
+    }
+
+    // CRC32 of the first `end` bytes, one window at a time
+    private static long checksum(FileChannel channel, long end, long windowBytes) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long position = 0; position < end; position += windowBytes) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, end - position)));
+        }
+        return crc.getValue();
+    }
+
+    // The part of the file being read right now, moved along (remapped) as the tasks are read
+    private static final class Window {
+        private final FileChannel channel;
+        private final long end;
+        private final long windowBytes;
+        private MappedByteBuffer buffer;
+        private long start;   // file position of buffer[0]
+
+        Window(FileChannel channel, long end, long windowBytes) {
+            this.channel = channel;
+            this.end = end;
+            this.windowBytes = windowBytes;
+        }
+
+        // Map `bytes` bytes (or up to the end) from `position`
+        MappedByteBuffer map(long position, long bytes) throws IOException {
+            long length = Math.min(Math.min(bytes, end - position), Integer.MAX_VALUE);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            start = position;
+            return buffer;
+        }
+
+        // The window, positioned at the next task and holding all of it
+        ByteBuffer nextTask() throws IOException {
+            while (true) {
+                long length;
+                try {
+                    length = TaskCodec.encodedLength(buffer);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Bad task in snapshot at byte " + (start + buffer.position()), e);
+                }
+                if (length >= 0 && length <= buffer.remaining()) return buffer;
+                long position = start + buffer.position();
+                if (start + buffer.limit() >= end) throw new IOException("Snapshot is truncated");
+                // a task bigger than a whole window gets a bigger window
+                map(position, buffer.position() == 0 ? 2L * buffer.limit() : windowBytes);
+            }
+        }
+    }
+
+    private static ByteBuffer writeTasks(FileChannel channel, ByteBuffer out, CRC32 crc,
+                                         Iterable<Tasks> tasks) throws IOException {
+        for (Tasks task : tasks) {
+            int needed = TaskCodec.maxEncodedBytes(task);
+            if (out.remaining() < needed) {
+                drain(channel, out, crc);
+                if (out.capacity() < needed) {
+                    out = ByteBuffer.allocateDirect(needed + 4);
+                }
+            }
+            TaskCodec.write(out, task);
+        }
+        return out;
+    }
+
+    // Write out what's in the buffer, counting it in the checksum, and empty it
+    private static void drain(FileChannel channel, ByteBuffer out, CRC32 crc) throws IOException {
+        out.flip();
+        crc.update(out.duplicate());
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
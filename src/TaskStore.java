@@ -0,0 +1,334 @@
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// This is where TaskManager keeps its active tasks.
+// It lets us find any task by ID straight away (no looping through the whole list),
+// and it still remembers the order tasks were added in, so "Default" view looks the same.
+//
+// How it works: an open-addressing hash table keyed by plain ints (no Integer boxing),
+// where every slot also stores the IDs of the task before and after it.
+// So the table doubles as a linked list in listing order.
+public class TaskStore extends AbstractCollection<Tasks> {
+    // Something that wants to hear about every change to the store
+    // (for example the sorted indexes, which have to stay in step with it)
+    public interface Listener {
+        void taskInserted(Tasks task);
+        void taskRemoved(Tasks task);
+        void taskReplaced(Tasks before, Tasks after);
+    }
+
+    private static final int FREE = 0;   // IDs start at 1, so 0 means "empty slot" / "no neighbour"
+    private static final int MIN_CAPACITY = 16;
+    private static final int PARALLEL_MIN_TASKS = 16_384;   // below this, splitting the work costs more than it saves
+
+    private int[] keys;
+    private Tasks[] values;
+    private int[] prevIds;
+    private int[] nextIds;
+    private int mask;
+
+    private int size;
+    private int headId = FREE;
+    private int tailId = FREE;
+    private int modCount;
+
+    private final ArrayList<Listener> listeners = new ArrayList<>();
+
+    public TaskStore() {
+        this(MIN_CAPACITY);
+    }
+
+    public TaskStore(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    // From now on, tell this listener about every change
+    // (it's up to the listener to look at the tasks that are already here)
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // ---- Lookups ----
+
+    public Tasks get(int id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : values[slot];
+    }
+
+    public boolean containsId(int id) {
+        return slotOf(id) >= 0;
+    }
+
+    // ID of the task listed just before this one (0 if it's first or not here)
+    public int previousId(int id) {
+        int slot = slotOf(id);
+        return slot < 0 ? FREE : prevIds[slot];
+    }
+
+    // ID of the task listed just after this one (0 if it's last or not here)
+    public int followingId(int id) {
+        int slot = slotOf(id);
+        return slot < 0 ? FREE : nextIds[slot];
+    }
+
+    public int firstId() {return headId;}
+    public int lastId() {return tailId;}
+
+    @Override
+    public int size() {return size;}
+
+    // IDs of every task `filter` accepts, in no particular order (the order they sit in the table).
+    // On a big store the filter runs in parallel over slices of the table (fork/join, through a
+    // parallel stream), so it must be safe to call from several threads at once and must not
+    // change anything.
+    public int[] findIds(Predicate<? super Tasks> filter) {
+        int[] slots = matchingSlots(filter);
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = keys[slots[i]];
+        }
+        return slots;
+    }
+
+    // Same, but in listing order - which takes one more walk down the whole list
+    // (a hash lookup per task), so it's skipped when nothing matched
+    public int[] findIdsInListingOrder(Predicate<? super Tasks> filter) {
+        int[] slots = matchingSlots(filter);
+        if (slots.length == 0) return slots;
+        boolean[] matched = new boolean[keys.length];
+        for (int slot : slots) {
+            matched[slot] = true;
+        }
+        int[] ids = new int[slots.length];
+        int count = 0;
+        for (int id = headId; count < ids.length; ) {
+            int slot = slotOf(id);
+            if (matched[slot]) ids[count++] = id;
+            id = nextIds[slot];
+        }
+        return ids;
+    }
+
+    private int[] matchingSlots(Predicate<? super Tasks> filter) {
+        IntStream slots = IntStream.range(0, keys.length);
+        if (size >= PARALLEL_MIN_TASKS) slots = slots.parallel();
+        return slots.filter(slot -> keys[slot] != FREE && filter.test(values[slot])).toArray();
+    }
+
+    // Rough heap taken by the table itself (not the tasks in it): four arrays of `capacity` slots
+    public long estimatedTableBytes() {
+        return 4 * 16 + (long) keys.length * (4 + 4 + 4 + 8);
+    }
+
+    // ---- Changes ----
+
+    // Put a task at the end of the listing
+    public void append(Tasks task) {
+        insertAfter(tailId, task);
+    }
+
+    // Put a task right after the task with anchorId (0 = at the very front).
+    // If the anchor isn't here any more, the task just goes to the end.
+    public void insertAfter(int anchorId, Tasks task) {
+        int id = task.getId();
+        if (id == FREE) throw new IllegalArgumentException("Task ID must not be 0");
+
+        ensureCapacity(size + 1);
+        int slot = hash(id) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == id) throw new IllegalStateException("Task ID " + id + " is already stored");
+            slot = (slot + 1) & mask;
+        }
+
+        int anchorSlot = slotOf(anchorId);
+        if (anchorSlot < 0) {
+            anchorId = anchorId == FREE ? FREE : tailId;
+            anchorSlot = slotOf(anchorId);
+        }
+        int afterId = anchorSlot < 0 ? headId : nextIds[anchorSlot];
+
+        keys[slot] = id;
+        values[slot] = task;
+        prevIds[slot] = anchorId;
+        nextIds[slot] = afterId;
+
+        if (anchorSlot < 0) headId = id; else nextIds[anchorSlot] = id;
+        if (afterId == FREE) tailId = id; else prevIds[slotOf(afterId)] = id;
+
+        size++;
+        modCount++;
+        for (Listener listener : listeners) {
+            listener.taskInserted(task);
+        }
+    }
+
+    // Swap in a new version of a task that's already here (same ID, same position).
+    // Returns the version it replaced, or null if there's no task with that ID.
+    public Tasks replace(Tasks task) {
+        int slot = slotOf(task.getId());
+        if (slot < 0) return null;
+        Tasks old = values[slot];
+        values[slot] = task;
+        if (old != task) {
+            for (Listener listener : listeners) {
+                listener.taskReplaced(old, task);
+            }
+        }
+        return old;
+    }
+
+    // Take a task out. Returns the removed task, or null if there's no task with that ID.
+    public Tasks removeById(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) return null;
+
+        Tasks removed = values[slot];
+        int before = prevIds[slot];
+        int after = nextIds[slot];
+        if (before == FREE) headId = after; else nextIds[slotOf(before)] = after;
+        if (after == FREE) tailId = before; else prevIds[slotOf(after)] = before;
+
+        deleteSlot(slot);
+        size--;
+        modCount++;
+        for (Listener listener : listeners) {
+            listener.taskRemoved(removed);
+        }
+        return removed;
+    }
+
+    // Grow the table up front when we know a lot of tasks are coming
+    public void ensureCapacity(int expectedSize) {
+        // keep the table at most 3/4 full so probe chains stay short
+        if (expectedSize * 4L > keys.length * 3L) {
+            rehash(tableSizeFor(expectedSize));
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Listener listener : listeners) {
+            for (Tasks task : this) {
+                listener.taskRemoved(task);
+            }
+        }
+        allocate(MIN_CAPACITY);
+        size = 0;
+        headId = FREE;
+        tailId = FREE;
+        modCount++;
+    }
+
+    // Walks the tasks in listing order
+    @Override
+    public Iterator<Tasks> iterator() {
+        return new Iterator<>() {
+            private int nextId = headId;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return nextId != FREE;
+            }
+
+            @Override
+            public Tasks next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (nextId == FREE) throw new NoSuchElementException();
+                int slot = slotOf(nextId);
+                nextId = nextIds[slot];
+                return values[slot];
+            }
+        };
+    }
+
+    // ---- Hash table internals ----
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;   // spread sequential IDs across the table
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (expectedSize * 4L + 2) / 3);
+        if (needed > (1 << 30)) throw new IllegalStateException("Too many tasks: " + expectedSize);
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Tasks[capacity];
+        prevIds = new int[capacity];
+        nextIds = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(int id) {
+        if (id == FREE) return -1;
+        int slot = hash(id) & mask;
+        while (true) {
+            int key = keys[slot];
+            if (key == id) return slot;
+            if (key == FREE) return -1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int freeSlotFor(int id) {
+        int slot = hash(id) & mask;
+        while (keys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Linear probing delete: shift later entries of the same probe chain back into the hole,
+    // so lookups never need "deleted" markers
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == FREE) break;
+            int home = hash(key) & mask;
+            // move the entry only if its home slot is not between the hole and where it sits now
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                keys[hole] = key;
+                values[hole] = values[slot];
+                prevIds[hole] = prevIds[slot];
+                nextIds[hole] = nextIds[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = FREE;
+        values[hole] = null;
+        prevIds[hole] = FREE;
+        nextIds[hole] = FREE;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Tasks[] oldValues = values;
+        int[] oldPrev = prevIds;
+        int[] oldNext = nextIds;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = freeSlotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                prevIds[slot] = oldPrev[i];
+                nextIds[slot] = oldNext[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+// Reading and writing tasks as text, for moving them between systems in bulk.
+//
+// Two formats:
+//   CSV   - a header line, then one task per line. Fields with commas, quotes or line breaks
+//           are "quoted" (with "" for a quote inside), like spreadsheets do.
+//   JSONL - one flat JSON object per line.
+// Both use the same field names:
+//   id, title, description, dueDate (dd/MM/yyyy), priority (High/Medium/Low),
+//   completed (true/false), archived (true/false), creationTime (2025-06-15T10:15:30)
+// When reading, only title, dueDate and priority are required, and id/archived are ignored:
+// imported tasks always get fresh IDs and go into the active list.
+//
+// Everything streams: tasks are written one by one as we walk the collection, and read
+// one by one as the text comes in, so nothing builds a big intermediate list.
+public final class TaskTransfer {
+    public enum Format { CSV, JSONL }
+
+    private static final String[] COLUMNS =
+            {"id", "title", "description", "dueDate", "priority", "completed", "archived", "creationTime"};
+
+    private TaskTransfer() {}
+
+    // ---- Writing ----
+
+    public static void write(Writer out, Format format, Iterable<Tasks> tasks) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        if (format == Format.CSV) {
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+        }
+        for (Tasks task : tasks) {
+            line.setLength(0);
+            if (format == Format.CSV) csvLine(line, task); else jsonLine(line, task);
+            line.append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    private static void csvLine(StringBuilder line, Tasks task) {
+        line.append(task.getId()).append(',');
+        csvField(line, task.getTitle());
+        line.append(',');
+        csvField(line, task.getDescription());
+        line.append(',').append(DateFormats.format(task.getDueDate()))
+                .append(',').append(task.getPriority().status)
+                .append(',').append(task.isCompleted())
+                .append(',').append(task.isArchived())
+                .append(',').append(task.getCreationTime());
+    }
+
+    private static void csvField(StringBuilder line, String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // One task as a JSON object on one line (also what TaskServer sends back)
+    static void jsonLine(StringBuilder line, Tasks task) {
+        line.append("{\"id\":").append(task.getId());
+        line.append(",\"title\":");
+        jsonString(line, task.getTitle());
+        line.append(",\"description\":");
+        jsonString(line, task.getDescription());
+        line.append(",\"dueDate\":\"").append(DateFormats.format(task.getDueDate()))
+                .append("\",\"priority\":\"").append(task.getPriority().status)
+                .append("\",\"completed\":").append(task.isCompleted())
+                .append(",\"archived\":").append(task.isArchived())
+                .append(",\"creationTime\":\"").append(task.getCreationTime())
+                .append("\"}");
+    }
+
+    private static void jsonString(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) line.append(String.format("\\u%04x", (int) c));
+                    else line.append(c);
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    // ---- Reading ----
+
+    // Reads every task in the text and hands it to `sink`, numbering them firstId, firstId + 1, ...
+    // Returns how many were read. Bad input throws an IOException that names the line.
+    public static int read(Reader in, Format format, int firstId, Consumer<Tasks> sink) throws IOException {
+        Parser parser = format == Format.CSV ? new CsvParser(in) : new JsonLinesParser(in);
+        HashMap<String, String> fields = new HashMap<>();
+        LocalDateTime importedAt = LocalDateTime.now();   // creation time for records that don't have one
+        int count = 0;
+        while (parser.next(fields)) {
+            sink.accept(toTask(firstId + count, fields, parser.line(), importedAt));
+            count++;
+            fields.clear();
+        }
+        return count;
+    }
+
+    private static Tasks toTask(int id, HashMap<String, String> fields, int line, LocalDateTime importedAt) throws IOException {
+        String title = required(fields, "title", line);
+        String description = fields.getOrDefault("description", "");
+        LocalDate dueDate = DateFormats.parse(required(fields, "dueDate", line));
+        if (dueDate == null) throw bad(line, "dueDate must look like 15/06/2025");
+        Tasks.Priority priority = priorityOf(required(fields, "priority", line));
+        if (priority == null) throw bad(line, "priority must be High, Medium or Low");
+        boolean completed = "true".equalsIgnoreCase(fields.get("completed"));
+
+        LocalDateTime creationTime = importedAt;
+        String created = fields.get("creationTime");
+        if (created != null && !created.isEmpty()) {
+            try {
+                creationTime = LocalDateTime.parse(created);
+            } catch (DateTimeParseException e) {
+                throw bad(line, "creationTime must look like 2025-06-15T10:15:30");
+            }
+        }
+        return Tasks.restore(id, title, description, dueDate, priority, creationTime, completed, false);
+    }
+
+    private static String required(HashMap<String, String> fields, String name, int line) throws IOException {
+        String value = fields.get(name);
+        if (value == null || value.isEmpty()) throw bad(line, "missing " + name);
+        return value;
+    }
+
+    static Tasks.Priority priorityOf(String text) {
+        for (Tasks.Priority priority : Tasks.Priority.values()) {
+            if (priority.status.equalsIgnoreCase(text)) return priority;
+        }
+        return null;
+    }
+
+    private static IOException bad(int line, String problem) {
+        return new IOException("Line " + line + ": " + problem);
+    }
+
+    // Reads one record at a time into a name -> value map.
+    // Does its own buffering, so each character is just an array read.
+    private abstract static class Parser {
+        private final Reader in;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+        protected int line = 1;      // line we're currently reading
+        protected int recordLine;    // line the current record started on
+
+        Parser(Reader in) {
+            this.in = in;
+        }
+
+        abstract boolean next(HashMap<String, String> fields) throws IOException;
+
+        int line() {return recordLine;}
+
+        protected int read() throws IOException {
+            int c = peek();
+            if (c >= 0) position++;
+            if (c == '\n') line++;
+            return c;
+        }
+
+        protected int peek() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+    }
+
+    private static final class CsvParser extends Parser {
+        private final ArrayList<String> values = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private String[] header;
+
+        CsvParser(Reader in) {
+            super(in);
+        }
+
+        @Override
+        boolean next(HashMap<String, String> fields) throws IOException {
+            if (header == null) {
+                if (!record()) return false;
+                header = values.toArray(new String[0]);
+            }
+            while (record()) {
+                if (values.size() == 1 && values.get(0).isEmpty()) continue;   // blank line
+                if (values.size() > header.length) throw bad(recordLine, "more fields than the header has");
+                for (int i = 0; i < values.size(); i++) {
+                    fields.put(header[i], values.get(i));
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // Reads one CSV record into `values` (false at the end of the input)
+        private boolean record() throws IOException {
+            values.clear();
+            recordLine = line;
+            if (peek() < 0) return false;
+            while (true) {
+                field.setLength(0);
+                int c = peek();
+                if (c == '"') {
+                    read();
+                    while (true) {
+                        c = read();
+                        if (c < 0) throw bad(recordLine, "quoted field is never closed");
+                        if (c == '"') {
+                            if (peek() != '"') break;
+                            read();
+                        }
+                        field.append((char) c);
+                    }
+                    c = read();
+                    if (c == '\r' && peek() == '\n') c = read();
+                } else {
+                    while ((c = read()) >= 0 && c != ',' && c != '\n') {
+                        field.append((char) c);
+                    }
+                }
+                if (c == '\n' || c < 0) {
+                    // drop the \r of a \r\n line ending
+                    int end = field.length();
+                    if (end > 0 && field.charAt(end - 1) == '\r') field.setLength(end - 1);
+                    values.add(field.toString());
+                    return true;
+                }
+                if (c != ',') throw bad(recordLine, "unexpected text after a quoted field");
+                values.add(field.toString());
+            }
+        }
+    }
+
+    // A small reader for flat JSON objects: string, number, true/false/null values only
+    private static final class JsonLinesParser extends Parser {
+        private final StringBuilder text = new StringBuilder();
+
+        JsonLinesParser(Reader in) {
+            super(in);
+        }
+
+        @Override
+        boolean next(HashMap<String, String> fields) throws IOException {
+            skipSpace();
+            recordLine = line;
+            int c = read();
+            if (c < 0) return false;
+            if (c != '{') throw bad(recordLine, "expected a JSON object");
+            skipSpace();
+            if (peek() == '}') {
+                read();
+                return true;
+            }
+            while (true) {
+                skipSpace();
+                if (read() != '"') throw bad(recordLine, "expected a field name");
+                String name = string();
+                skipSpace();
+                if (read() != ':') throw bad(recordLine, "expected ':' after \"" + name + "\"");
+                skipSpace();
+                String value = value();
+                if (value != null) fields.put(name, value);
+                skipSpace();
+                c = read();
+                if (c == '}') return true;
+                if (c != ',') throw bad(recordLine, "expected ',' or '}'");
+            }
+        }
+
+        private String value() throws IOException {
+            int c = read();
+            if (c == '"') return string();
+            text.setLength(0);
+            while (c >= 0 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                text.append((char) c);
+                if (peek() == ',' || peek() == '}') break;
+                c = read();
+            }
+            String word = text.toString();
+            if (word.equals("null")) return null;
+            if (word.equals("true") || word.equals("false") || word.matches("-?[0-9][0-9.eE+-]*")) return word;
+            throw bad(recordLine, "unsupported value " + (word.isEmpty() ? "(nested object or list)" : word));
+        }
+
+        // The rest of a string whose opening quote was already read
+        private String string() throws IOException {
+            text.setLength(0);
+            while (true) {
+                int c = read();
+                if (c < 0 || c == '\n') throw bad(recordLine, "string is never closed");
+                if (c == '"') return text.toString();
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                c = read();
+                switch (c) {
+                    case '"', '\\', '/' -> text.append((char) c);
+                    case 'n' -> text.append('\n');
+                    case 'r' -> text.append('\r');
+                    case 't' -> text.append('\t');
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) throw bad(recordLine, "bad \\u escape");
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                    }
+                    default -> throw bad(recordLine, "bad escape in string");
+                }
+            }
+        }
+
+        private void skipSpace() throws IOException {
+            while (peek() >= 0 && Character.isWhitespace(peek())) {
+                read();
+            }
+        }
+    }
+}
@@ -1,14 +1,17 @@
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
-public class Tasks {
-    private int id;
-    private String title, description;
-    private LocalDate dueDate;
-    private LocalDateTime creationTime;
-    private boolean completed, archived;
-    private Priority priority;
+// A task never changes once it's made.
+// To "edit" one, call a with...() method: it gives back a new Tasks that shares
+// every field you didn't change with the old one, so it's cheap,
+// and anyone still holding the old version (like the undo history) keeps seeing it as it was.
+public final class Tasks {
+    private final int id;
+    private final String title, description;
+    private final LocalDate dueDate;
+    private final LocalDateTime creationTime;
+    private final boolean completed, archived;
+    private final Priority priority;
 
     public enum Priority {
         HIGH("High", "#FF0000"),
@@ -39,43 +42,87 @@ public class Tasks {
         this.archived = false;
     }
 
-    public Tasks(Tasks other) {
-        this.id = other.id;
-        this.title = other.title;
-        this.description = other.description;
-        this.dueDate = other.dueDate;
-        this.priority = other.priority;
-        this.creationTime = other.creationTime;
-        this.completed = other.completed;
-        this.archived = other.archived;
+    private Tasks(int id, String title, String description, LocalDate dueDate, Priority priority,
+                  LocalDateTime creationTime, boolean completed, boolean archived) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.creationTime = creationTime;
+        this.completed = completed;
+        this.archived = archived;
     }
 
-    public int getId() {return id;}
-    public void setId(int id) {this.id = id;}
+    // Rebuild a task exactly as it was saved (used when loading tasks back from disk)
+    public static Tasks restore(int id, String title, String description, LocalDate dueDate, Priority priority,
+                                LocalDateTime creationTime, boolean completed, boolean archived) {
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
 
+    public int getId() {return id;}
     public String getTitle() {return title;}
-    public void setTitle(String title) {this.title = title;}
-
     public String getDescription() {return description;}
-    public void setDescription(String description) {this.description = description;}
-
     public LocalDate getDueDate() {return dueDate;}
-    public void setDueDate(LocalDate dueDate) {this.dueDate = dueDate;}
-
     public Priority getPriority() {return priority;}
-    public void setPriority(Priority priority) {this.priority = priority;}
-
     public LocalDateTime getCreationTime() {return creationTime;}
-
     public boolean isCompleted() {return completed;}
-    public void setCompleted(boolean completed) {this.completed = completed;}
-
     public boolean isArchived() {return archived;}
-    public void setArchived(boolean archived) {this.archived = archived;}
+
+    // ---- Copy-on-write "edits" (return this when nothing actually changes) ----
+
+    public Tasks withTitle(String title) {
+        if (title.equals(this.title)) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    public Tasks withDescription(String description) {
+        if (description.equals(this.description)) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    public Tasks withDueDate(LocalDate dueDate) {
+        if (dueDate.equals(this.dueDate)) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    public Tasks withPriority(Priority priority) {
+        if (priority == this.priority) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    public Tasks withCompleted(boolean completed) {
+        if (completed == this.completed) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    public Tasks withArchived(boolean archived) {
+        if (archived == this.archived) return this;
+        return new Tasks(id, title, description, dueDate, priority, creationTime, completed, archived);
+    }
+
+    // Rough number of bytes this task takes up in memory (object, dates and strings),
+    // used to keep the undo history under its memory limit
+    public long estimatedBytes() {
+        return 48 + 24 + 48 + estimatedBytes(title) + estimatedBytes(description);
+    }
+
+    // Rough bytes this version costs ON TOP of another version of the same task:
+    // its own object, plus any field it doesn't share with the other one
+    public long estimatedBytesBeyond(Tasks other) {
+        long bytes = 48;
+        if (title != other.title) bytes += estimatedBytes(title);
+        if (description != other.description) bytes += estimatedBytes(description);
+        if (dueDate != other.dueDate) bytes += 24;
+        return bytes;
+    }
+
+    static long estimatedBytes(String s) {
+        return s == null ? 0 : 24 + 16 + s.length();
+    }
 
     public String getFormattedDate() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        return dueDate.format(formatter);
+        return DateFormats.format(dueDate);
     }
 
     @Override
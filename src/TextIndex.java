@@ -0,0 +1,669 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+// Full-text search over the titles and descriptions of the active tasks.
+//
+// It's an inverted index: for every word (a "term") we keep the IDs of the tasks that contain it,
+// so a search only looks at the tasks that match instead of reading every task.
+//   - Words are runs of letters/digits, lower-cased ("Buy MILK!" -> "buy", "milk").
+//   - Terms are also kept sorted, so "mil*" finds every term starting with "mil".
+//   - All the words of a query must match (AND). Results are ranked: rarer words count for more,
+//     and a word in the title counts three times as much as one in the description.
+//
+// Each term's posting list is a sorted array of (task ID, weight) packed into longs.
+// New tasks have the highest ID, so they're just appended. The odd older ID that shows up later
+// (an edited title, an undone delete) goes into a small second array that's merged in once it grows,
+// and deleting only zeroes the weight - so no change ever shifts a big array.
+//
+// A search walks the shortest list and looks each ID up in the others (binary search),
+// keeping the best `limit` results in a small heap - nothing proportional to the bigger lists is built.
+public class TextIndex implements TaskStore.Listener {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_WEIGHT = 0xFFFF;
+    private static final int MAX_TERM_LENGTH = 64;      // longer words are cut down to this
+    private static final double SATURATION = 1.2;       // how quickly repeats of a word stop adding score
+    private static final float[] SATURATED = new float[256];
+
+    static {
+        for (int weight = 0; weight < SATURATED.length; weight++) {
+            SATURATED[weight] = (float) (weight * (SATURATION + 1) / (weight + SATURATION));
+        }
+    }
+
+    private final HashMap<String, Postings> terms = new HashMap<>();
+    private final TreeMap<String, Postings> sortedTerms = new TreeMap<>();   // same terms, for prefixes
+    private int taskCount;
+    private long postingCount;
+    private int maxId;
+    // The lowest ID the store hands out. Score tables are indexed by id - firstId, so a shard whose
+    // IDs start in the hundreds of millions (see ShardedTaskManager) doesn't get tables that big.
+    private final int firstId;
+
+    // Reused while indexing one task: its distinct terms and their weights
+    private final Words words = new Words();
+    private final Words oldWords = new Words();
+
+    // Reused score tables for prefix words (see Union)
+    private final ArrayList<float[]> spareTables = new ArrayList<>();
+
+    // Builds the index from whatever is in the store already.
+    // The store is in ID order, so every posting list is built by appending.
+    // (Register it with store.addListener afterwards to keep it up to date.)
+    public TextIndex(TaskStore store) {
+        this(store, 1);
+    }
+
+    // Same, for a store whose IDs start at firstId (every ID in it must be firstId or more)
+    public TextIndex(TaskStore store, int firstId) {
+        this.firstId = firstId;
+        this.maxId = firstId - 1;
+        for (Tasks task : store) {
+            add(task);
+        }
+    }
+
+    // ---- Searching ----
+
+    // IDs of the tasks matching every word of the query, best match first (ties by ID).
+    // A word ending in * matches any word starting with it. At most `limit` IDs are returned.
+    public int[] search(String query, int limit) {
+        return run(query, limit, true);
+    }
+
+    // IDs of every task matching the query, in ID order (for filtering, see TaskQuery)
+    public int[] matching(String query) {
+        int[] ids = run(query, Integer.MAX_VALUE, false);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private int[] run(String query, int limit, boolean ranked) {
+        ArrayList<Match> matches = new ArrayList<>();
+        try {
+            int i = 0;
+            while (i < query.length()) {
+                int start = i;
+                while (i < query.length() && Character.isLetterOrDigit(query.charAt(i))) i++;
+                if (i > start) {
+                    boolean prefix = i < query.length() && query.charAt(i) == '*';
+                    Match match = match(fold(query, start, i), prefix);
+                    if (match == null) return new int[0];
+                    matches.add(match);
+                }
+                i++;
+            }
+            if (matches.isEmpty() || limit <= 0) return new int[0];
+
+            matches.sort((a, b) -> Long.compare(a.size(), b.size()));
+            TopScores top = new TopScores(limit, ranked);
+            matches.get(0).forEach(top, matches);
+            return top.ids();
+        } finally {
+            for (Match match : matches) {
+                match.release();
+            }
+        }
+    }
+
+    // What one query word matches, or null if nothing does
+    private Match match(String word, boolean prefix) {
+        if (!prefix) {
+            Postings postings = terms.get(word);
+            return postings == null ? null : new Single(postings, idf(postings));
+        }
+        Collection<Postings> lists = sortedTerms.subMap(word, true, word + Character.MAX_VALUE, false).values();
+        if (lists.isEmpty()) return null;
+        if (lists.size() == 1) {
+            Postings postings = lists.iterator().next();
+            return new Single(postings, idf(postings));
+        }
+        return new Union(lists);
+    }
+
+    private float idf(Postings postings) {
+        return (float) Math.log(1 + (taskCount + 1.0) / (postings.live() + 0.5));
+    }
+
+    private static float saturate(int weight) {
+        return weight < SATURATED.length ? SATURATED[weight]
+                : (float) (weight * (SATURATION + 1) / (weight + SATURATION));
+    }
+
+    // ---- Size ----
+
+    public int getTermCount() {return terms.size();}
+    public long getPostingCount() {return postingCount;}
+
+    // Rough heap used by the index: per term the two map entries, the String and its posting arrays
+    public long estimatedBytes() {
+        long bytes = 2 * 48;
+        for (Postings postings : terms.values()) {
+            bytes += 32 + 8 + 40                              // HashMap node + table slot, TreeMap entry
+                    + 24 + 16 + postings.term.length()         // String + its byte[] (Latin-1)
+                    + postings.estimatedBytes();
+        }
+        for (float[] table : spareTables) {
+            bytes += 16 + 4L * table.length;
+        }
+        return bytes;
+    }
+
+    // ---- Keeping in step with the store ----
+
+    @Override
+    public void taskInserted(Tasks task) {
+        add(task);
+    }
+
+    private void add(Tasks task) {
+        words.read(task);
+        for (int i = 0; i < words.size; i++) {
+            postings(words.terms[i]).put(task.getId(), words.weights[i]);
+        }
+        postingCount += words.size;
+        taskCount++;
+        maxId = Math.max(maxId, task.getId());
+    }
+
+    @Override
+    public void taskRemoved(Tasks task) {
+        words.read(task);
+        for (int i = 0; i < words.size; i++) {
+            remove(words.terms[i], task.getId());
+        }
+        postingCount -= words.size;
+        taskCount--;
+    }
+
+    @Override
+    public void taskReplaced(Tasks before, Tasks after) {
+        // Tasks share their strings when a field isn't edited, so this skips toggles and date/priority edits
+        if (before.getTitle() == after.getTitle() && before.getDescription() == after.getDescription()) return;
+
+        oldWords.read(before);
+        words.read(after);
+        // both lists are sorted, so walk them side by side
+        int i = 0;
+        int j = 0;
+        while (i < oldWords.size || j < words.size) {
+            int c = i == oldWords.size ? 1 : j == words.size ? -1 : oldWords.terms[i].compareTo(words.terms[j]);
+            if (c < 0) {
+                remove(oldWords.terms[i++], before.getId());
+                postingCount--;
+            } else if (c > 0) {
+                postings(words.terms[j]).put(after.getId(), words.weights[j]);
+                postingCount++;
+                j++;
+            } else {
+                if (oldWords.weights[i] != words.weights[j]) {
+                    terms.get(words.terms[j]).put(after.getId(), words.weights[j]);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private Postings postings(String term) {
+        Postings postings = terms.get(term);
+        if (postings == null) {
+            postings = new Postings(term);
+            terms.put(term, postings);
+            sortedTerms.put(term, postings);
+        }
+        return postings;
+    }
+
+    private void remove(String term, int id) {
+        Postings postings = terms.get(term);
+        postings.remove(id);
+        if (postings.live() == 0) {
+            terms.remove(term);
+            sortedTerms.remove(term);
+        }
+    }
+
+    // ---- Words ----
+
+    // text[from, to) lower-cased, at most MAX_TERM_LENGTH characters
+    private static String fold(String text, int from, int to) {
+        int end = Math.min(to, from + MAX_TERM_LENGTH);
+        char[] chars = new char[end - from];
+        for (int i = from; i < end; i++) {
+            chars[i - from] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    // The distinct terms of one task, sorted, with their weights
+    // (title words count TITLE_WEIGHT each, description words DESCRIPTION_WEIGHT)
+    private static final class Words {
+        String[] terms = new String[32];
+        int[] weights = new int[32];
+        int size;
+
+        void read(Tasks task) {
+            size = 0;
+            add(task.getTitle(), TITLE_WEIGHT);
+            add(task.getDescription(), DESCRIPTION_WEIGHT);
+            if (size < 2) return;
+
+            // sort by term (insertion sort - tasks only have a handful of words), then merge repeats
+            if (size < 32) {
+                for (int i = 1; i < size; i++) {
+                    String term = terms[i];
+                    int weight = weights[i];
+                    int j = i - 1;
+                    while (j >= 0 && terms[j].compareTo(term) > 0) {
+                        terms[j + 1] = terms[j];
+                        weights[j + 1] = weights[j];
+                        j--;
+                    }
+                    terms[j + 1] = term;
+                    weights[j + 1] = weight;
+                }
+            } else {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) order[i] = i;
+                Arrays.sort(order, (a, b) -> terms[a].compareTo(terms[b]));
+                String[] sortedTerms = new String[terms.length];
+                int[] sortedWeights = new int[weights.length];
+                for (int i = 0; i < size; i++) {
+                    sortedTerms[i] = terms[order[i]];
+                    sortedWeights[i] = weights[order[i]];
+                }
+                terms = sortedTerms;
+                weights = sortedWeights;
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (kept > 0 && terms[kept - 1].equals(terms[i])) {
+                    weights[kept - 1] = Math.min(MAX_WEIGHT, weights[kept - 1] + weights[i]);
+                } else {
+                    terms[kept] = terms[i];
+                    weights[kept++] = weights[i];
+                }
+            }
+            Arrays.fill(terms, kept, size, null);
+            size = kept;
+        }
+
+        private void add(String text, int weight) {
+            int i = 0;
+            while (i < text.length()) {
+                while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) i++;
+                int start = i;
+                while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) i++;
+                if (i > start) {
+                    if (size == terms.length) {
+                        terms = Arrays.copyOf(terms, size * 2);
+                        weights = Arrays.copyOf(weights, size * 2);
+                    }
+                    terms[size] = fold(text, start, i);
+                    weights[size++] = weight;
+                }
+            }
+        }
+    }
+
+    private static int idOf(long entry) {return (int) (entry >>> 16);}
+    private static int weightOf(long entry) {return (int) entry & MAX_WEIGHT;}
+    private static long pack(int id, int weight) {return (long) id << 16 | weight;}
+
+    // ---- Posting lists ----
+
+    // (ID, weight) pairs sorted by ID, in a main array plus a small array of late arrivals.
+    // An ID is in one or the other, never both. A weight of 0 marks a deleted entry.
+    private static final class Postings {
+        final String term;
+        long[] main = new long[2];
+        int mainSize;
+        long[] late;
+        int lateSize;
+        int dead;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        int live() {return mainSize + lateSize - dead;}
+
+        long estimatedBytes() {
+            return 40 + 16 + 8L * main.length + (late == null ? 0 : 16 + 8L * late.length);
+        }
+
+        // Adds the ID, or changes its weight if it's already here (or brings back a deleted entry)
+        void put(int id, int weight) {
+            if (mainSize == 0 || idOf(main[mainSize - 1]) < id) {
+                if (lateSize == 0 || find(late, lateSize, id) < 0) {
+                    if (mainSize == main.length) main = Arrays.copyOf(main, mainSize * 2);
+                    main[mainSize++] = pack(id, weight);
+                    return;
+                }
+            }
+            int at = find(main, mainSize, id);
+            if (at >= 0) {
+                if (weightOf(main[at]) == 0) dead--;
+                main[at] = pack(id, weight);
+                return;
+            }
+            at = find(late, lateSize, id);
+            if (at >= 0) {
+                if (weightOf(late[at]) == 0) dead--;
+                late[at] = pack(id, weight);
+                return;
+            }
+            // an older ID coming back - into the small array, which is merged in once it grows
+            at = -at - 1;
+            if (late == null) late = new long[8];
+            if (lateSize == late.length) late = Arrays.copyOf(late, lateSize * 2);
+            System.arraycopy(late, at, late, at + 1, lateSize - at);
+            late[at] = pack(id, weight);
+            lateSize++;
+            // merging costs the whole list, so let the small array grow to about sqrt(size) first
+            if (lateSize > 32 && (long) lateSize * lateSize > mainSize) compact();
+        }
+
+        void remove(int id) {
+            int at = find(main, mainSize, id);
+            if (at >= 0) {
+                if (weightOf(main[at]) == 0) return;
+                main[at] = pack(id, 0);
+            } else {
+                at = find(late, lateSize, id);
+                if (at < 0 || weightOf(late[at]) == 0) return;
+                late[at] = pack(id, 0);
+            }
+            dead++;
+            if (dead > 8 && dead * 2 > mainSize + lateSize) compact();
+        }
+
+        // Weight of this ID among the late arrivals, 0 if it isn't there
+        int lateWeightFor(int id) {
+            int at = find(late, lateSize, id);
+            return at >= 0 ? weightOf(late[at]) : 0;
+        }
+
+        // Merges the late arrivals into the main array and drops deleted entries
+        private void compact() {
+            int live = live();
+            long[] merged = new long[Math.max(2, live + live / 4)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < mainSize || j < lateSize) {
+                long entry = j == lateSize || (i < mainSize && main[i] < late[j]) ? main[i++] : late[j++];
+                if (weightOf(entry) != 0) merged[n++] = entry;
+            }
+            main = merged;
+            mainSize = n;
+            late = null;
+            lateSize = 0;
+            dead = 0;
+        }
+
+        // Index of the ID, or -(insertion point) - 1 like Arrays.binarySearch
+        private static int find(long[] entries, int size, int id) {
+            return find(entries, 0, size - 1, id);
+        }
+
+        private static int find(long[] entries, int low, int high, int id) {
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = idOf(entries[mid]);
+                if (midId < id) low = mid + 1;
+                else if (midId > id) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+    }
+
+    // ---- Query evaluation ----
+
+    // What one query word matches
+    private abstract static class Match {
+        abstract long size();
+
+        // Score of this word for the task (0 if the task doesn't have it)
+        abstract float score(int id);
+
+        // Walks every task matching this word, scores it against all the words and offers it to `top`
+        abstract void forEach(TopScores top, ArrayList<Match> all);
+
+        void release() {}
+
+        // The total score for `id` over all words, or -1 if some word doesn't match it
+        static float total(int id, float own, Match self, ArrayList<Match> all) {
+            float total = own;
+            for (Match other : all) {
+                if (other == self) continue;
+                float score = other.score(id);
+                if (score == 0) return -1;
+                total += score;
+            }
+            return total;
+        }
+    }
+
+    // A word matching exactly one term
+    private static final class Single extends Match {
+        private final Postings postings;
+        private final float idf;
+
+        Single(Postings postings, float idf) {
+            this.postings = postings;
+            this.idf = idf;
+        }
+
+        @Override
+        long size() {return postings.live();}
+
+        // The driving list hands us IDs in increasing order, so instead of a fresh binary search
+        // each time we "gallop" forward from where the last lookup ended (steps of 1, 2, 4, ...).
+        // Two lists of similar length then cost about as much as merging them.
+        private int cursor;
+        private int lastId;
+
+        @Override
+        float score(int id) {
+            long[] main = postings.main;
+            int size = postings.mainSize;
+            if (id < lastId) cursor = 0;
+            lastId = id;
+            int step = 1;
+            while (cursor + step < size && idOf(main[cursor + step]) < id) {
+                step *= 2;
+            }
+            int at = Postings.find(main, cursor + step / 2, Math.min(cursor + step, size - 1), id);
+            cursor = at >= 0 ? at : -at - 1;
+            int weight = at >= 0 ? weightOf(main[at]) : postings.lateWeightFor(id);
+            return weight == 0 ? 0 : saturate(weight) * idf;
+        }
+
+        @Override
+        void forEach(TopScores top, ArrayList<Match> all) {
+            walk(postings.main, postings.mainSize, top, all);
+            walk(postings.late, postings.lateSize, top, all);
+        }
+
+        private void walk(long[] entries, int size, TopScores top, ArrayList<Match> all) {
+            boolean alone = all.size() == 1;
+            for (int i = 0; i < size; i++) {
+                long entry = entries[i];
+                int weight = weightOf(entry);
+                if (weight == 0) continue;
+                int id = idOf(entry);
+                float score = saturate(weight) * idf;
+                if (alone) {
+                    top.offer(id, score);
+                } else {
+                    float total = total(id, score, this, all);
+                    if (total >= 0) top.offer(id, total);
+                }
+            }
+        }
+    }
+
+    // A prefix word matching several terms. A task's score is its best score among them.
+    // The scores go into a table indexed by task ID - firstId (borrowed from spareTables, cleared afterwards),
+    // so looking a task up is one array read.
+    private final class Union extends Match {
+        private final float[] table;
+        private int[] ids = new int[64];
+        private int size;
+
+        Union(Collection<Postings> lists) {
+            table = borrowTable();
+            for (Postings postings : lists) {
+                float idf = idf(postings);
+                add(postings.main, postings.mainSize, idf);
+                add(postings.late, postings.lateSize, idf);
+            }
+        }
+
+        private void add(long[] entries, int count, float idf) {
+            for (int i = 0; i < count; i++) {
+                int weight = weightOf(entries[i]);
+                if (weight == 0) continue;
+                int id = idOf(entries[i]);
+                int slot = id - firstId;
+                float score = saturate(weight) * idf;
+                if (table[slot] == 0) {
+                    if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+                    ids[size++] = id;
+                    table[slot] = score;
+                } else if (score > table[slot]) {
+                    table[slot] = score;
+                }
+            }
+        }
+
+        @Override
+        long size() {return size;}
+
+        @Override
+        float score(int id) {
+            int slot = id - firstId;
+            return slot >= 0 && slot < table.length ? table[slot] : 0;
+        }
+
+        @Override
+        void forEach(TopScores top, ArrayList<Match> all) {
+            for (int i = 0; i < size; i++) {
+                int id = ids[i];
+                float total = total(id, table[id - firstId], this, all);
+                if (total >= 0) top.offer(id, total);
+            }
+        }
+
+        @Override
+        void release() {
+            for (int i = 0; i < size; i++) {
+                table[ids[i] - firstId] = 0;
+            }
+            spareTables.add(table);
+        }
+    }
+
+    private float[] borrowTable() {
+        float[] table = spareTables.isEmpty() ? null : spareTables.remove(spareTables.size() - 1);
+        int slots = maxId - firstId + 1;
+        if (table == null || table.length < slots) {
+            table = new float[slots + slots / 4];
+        }
+        return table;
+    }
+
+    // The `limit` best (id, score) pairs seen so far (ties go to the lower ID).
+    // A min-heap with the worst of them on top, so a new pair only has to beat that one.
+    // Unranked, it just collects every ID it's offered.
+    private static final class TopScores {
+        private final int limit;
+        private final boolean ranked;
+        private int[] ids = new int[16];
+        private float[] scores = new float[16];
+        private int size;
+
+        TopScores(int limit, boolean ranked) {
+            this.limit = limit;
+            this.ranked = ranked;
+        }
+
+        void offer(int id, float score) {
+            if (!ranked) {
+                if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+                ids[size++] = id;
+            } else if (size < limit) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    scores = Arrays.copyOf(scores, size * 2);
+                }
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(id, score, ids[0], scores[0])) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        // Best first
+        int[] ids() {
+            if (!ranked) return Arrays.copyOf(ids, size);
+            int[] result = new int[size];
+            for (int n = size - 1; n >= 0; n--) {
+                result[n] = ids[0];
+                ids[0] = ids[n];
+                scores[0] = scores[n];
+                siftDown(0, n);
+            }
+            size = 0;
+            return result;
+        }
+
+        private static boolean better(int id, float score, int otherId, float otherScore) {
+            return score > otherScore || (score == otherScore && id < otherId);
+        }
+
+        private boolean better(int a, int b) {
+            return better(ids[a], scores[a], ids[b], scores[b]);
+        }
+
+        private void siftUp(int at) {
+            while (at > 0) {
+                int parent = (at - 1) / 2;
+                if (!better(parent, at)) break;
+                swap(parent, at);
+                at = parent;
+            }
+        }
+
+        private void siftDown(int at, int count) {
+            while (true) {
+                int worst = at;
+                int left = 2 * at + 1;
+                int right = left + 1;
+                if (left < count && better(worst, left)) worst = left;
+                if (right < count && better(worst, right)) worst = right;
+                if (worst == at) return;
+                swap(worst, at);
+                at = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+// AsyncTaskListener hands TaskManager's events to the real listener in order, on its own thread,
+// drops them rather than making TaskManager wait, and passes whatever the listener throws
+// to an error handler
+class AsyncTaskListenerTest {
+    @Test
+    void deliversInOrder() {
+        List<String> heard = new ArrayList<>();
+        TaskManagerListener recorder = new TaskManagerListener() {
+            @Override
+            public void taskAdded(Tasks task) {heard.add("added " + task.getId());}
+
+            @Override
+            public void taskToggled(Tasks task) {heard.add("toggled " + task.getId() + " " + task.isCompleted());}
+
+            @Override
+            public void undone(Action action) {heard.add("undone " + action.getType());}
+
+            @Override
+            public void nothingToRedo() {heard.add("nothing to redo");}
+        };
+        try (AsyncTaskListener async = new AsyncTaskListener(recorder)) {
+            TaskManager tm = new TaskManager();
+            tm.setListener(async);
+            tm.addTask("a", "d", "15/06/2025", Tasks.Priority.LOW);
+            tm.addTask("b", "d", "15/06/2025", Tasks.Priority.LOW);
+            tm.toggleTaskStatus(2);
+            tm.undo();
+            tm.redo();
+            tm.redo();
+            async.flush();
+            assertEquals(List.of("added 1", "added 2", "toggled 2 true", "undone UPDATE", "nothing to redo"), heard);
+        }
+    }
+
+    // A listener that throws doesn't stop the delivery thread; its failures go to the error handler
+    @Test
+    void failuresGoToTheErrorHandler() {
+        AtomicInteger handled = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        TaskManagerListener failing = new TaskManagerListener() {
+            @Override
+            public void nothingToUndo() {
+                throw new IllegalStateException("undo failed");
+            }
+
+            @Override
+            public void nothingToRedo() {
+                delivered.incrementAndGet();
+            }
+        };
+        try (AsyncTaskListener async = new AsyncTaskListener(failing, 16, e -> handled.incrementAndGet())) {
+            async.nothingToUndo();
+            async.nothingToRedo();
+            async.nothingToUndo();
+            async.nothingToRedo();
+            async.flush();
+            assertEquals(2, delivered.get());
+            assertEquals(2, async.getFailedCount());
+            assertEquals(2, handled.get());
+        }
+    }
+
+    // A flush() that throws neither kills the delivery thread nor leaves flush()'s caller waiting
+    @Test
+    void failingFlushDoesNotHang() {
+        AtomicInteger delivered = new AtomicInteger();
+        TaskManagerListener failing = new TaskManagerListener() {
+            @Override
+            public void nothingToRedo() {
+                delivered.incrementAndGet();
+            }
+
+            @Override
+            public void flush() {
+                throw new IllegalStateException("flush failed");
+            }
+        };
+        try (AsyncTaskListener async = new AsyncTaskListener(failing, 16, e -> {})) {
+            async.nothingToRedo();
+            async.flush();
+            async.nothingToRedo();
+            async.flush();
+            assertEquals(2, delivered.get());
+            assertTrue(async.getFailedCount() >= 2);
+        }
+    }
+
+    // While the listener is stuck, only `capacity` events wait; the rest are counted as dropped
+    @Test
+    void dropsWhenTheQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        TaskManagerListener slow = new TaskManagerListener() {
+            @Override
+            public void nothingToUndo() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void nothingToRedo() {
+                delivered.incrementAndGet();
+            }
+        };
+        try (AsyncTaskListener async = new AsyncTaskListener(slow, 2)) {
+            async.nothingToUndo();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 5; i++) {
+                async.nothingToRedo();
+            }
+            assertEquals(3, async.getDroppedCount());
+            release.countDown();
+            async.flush();
+            assertEquals(2, delivered.get());
+        }
+    }
+}
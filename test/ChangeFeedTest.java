@@ -0,0 +1,195 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// The change feed as a subscriber sees it: coalesced changes per task, in version order,
+// a resync when it falls too far behind, and no resuming from changes that are gone
+class ChangeFeedTest {
+    private static final LocalDate DUE = LocalDate.of(2025, 6, 15);
+
+    // A task added and deleted before the subscriber looked never shows up;
+    // added and then edited shows up as one ADD of the newest version
+    @Test
+    void addThenDeleteLeavesNothing() {
+        TaskManager tm = TaskManagerTest.filledManager(3);
+        ChangeFeed.Subscription feed = tm.subscribe(tm.getVersion());
+        tm.addTask("Gone soon", "", DUE, Tasks.Priority.LOW);
+        tm.updateTask(4).title("Renamed").apply();
+        tm.deleteTask(4);
+        assertEquals(List.of(), feed.poll());
+        assertEquals(2, feed.getCoalescedCount());
+
+        tm.addTask("Stays", "", DUE, Tasks.Priority.LOW);
+        tm.updateTask(5).title("Stays, renamed").apply();
+        tm.toggleTaskStatus(5);
+        assertEquals(List.of(tm.getVersion() + " ADD 5"), describe(feed.poll()));
+        tm.undo();
+        tm.undo();
+        tm.undo();   // the add: gone again, and the subscriber has to be told
+        List<ChangeFeed.Change> changes = feed.poll();
+        assertEquals(List.of(tm.getVersion() + " DELETE 5"), describe(changes));
+        assertEquals("Stays", changes.get(0).getTask().getTitle());
+    }
+
+    // A task deleted and put back (undo) is still there for the subscriber: one UPDATE with
+    // the task as it is now. Edited then deleted is just the DELETE.
+    @Test
+    void deleteThenAddBecomesUpdate() {
+        TaskManager tm = TaskManagerTest.filledManager(3);
+        Tasks second = tm.getTask(2);
+        ChangeFeed.Subscription feed = tm.subscribe(tm.getVersion());
+        tm.deleteTask(2);
+        tm.undo();
+        List<ChangeFeed.Change> changes = feed.poll();
+        assertEquals(List.of(tm.getVersion() + " UPDATE 2"), describe(changes));
+        assertSame(second, changes.get(0).getTask());
+        assertTrue(changes.get(0).isPresent());
+
+        tm.toggleTaskStatus(3);
+        tm.deleteTask(3);
+        assertEquals(List.of(tm.getVersion() + " DELETE 3"), describe(feed.poll()));
+
+        // Archived and brought back by undo: the same
+        tm.toggleTaskStatus(1);
+        feed.poll();
+        tm.archiveCompletedTasks();
+        tm.undo();
+        assertEquals(List.of(tm.getVersion() + " UPDATE 1"), describe(feed.poll()));
+    }
+
+    // More tasks changed than the buffer holds: what was waiting is dropped, the subscriber is
+    // told to resync (once), and it carries on with the changes after that
+    @Test
+    void overflowDropsThePendingChangesAndAsksForAResync() {
+        TaskManager tm = TaskManagerTest.filledManager(10);
+        ChangeFeed.Subscription feed = tm.subscribe(tm.getVersion(), 3);
+        for (int round = 0; round < 5; round++) {
+            for (int id = 1; id <= 3; id++) {
+                tm.toggleTaskStatus(id);   // the same three tasks over and over fit in the buffer
+            }
+        }
+        assertFalse(feed.takeResync());
+        assertEquals(12, feed.getCoalescedCount());
+        tm.toggleTaskStatus(4);   // a fourth task doesn't
+        assertEquals(List.of(), feed.poll());
+        assertTrue(feed.takeResync());
+        assertFalse(feed.takeResync());
+        assertEquals(15, feed.getCoalescedCount());
+
+        // Reload at this version, then carry on from the feed
+        long reloaded = tm.getVersion();
+        tm.toggleTaskStatus(5);
+        tm.deleteTask(6);
+        List<ChangeFeed.Change> changes = feed.poll();
+        assertEquals(List.of((reloaded + 1) + " UPDATE 5", (reloaded + 2) + " DELETE 6"), describe(changes));
+        assertFalse(feed.takeResync());
+    }
+
+    // changesSince and subscribe only go back as far as the history window: older than that
+    // throws VersionEvictedException (reload instead), and versions that never were are refused too
+    @Test
+    void resumingFromAnEvictedVersionThrows() {
+        TaskManager tm = TaskManagerTest.filledManager(ChangeFeed.DEFAULT_HISTORY + 10);
+        long newest = tm.getVersion();
+        assertEquals(ChangeFeed.DEFAULT_HISTORY + 10, newest);
+
+        assertThrows(ChangeFeed.VersionEvictedException.class, () -> tm.changesSince(0));
+        assertThrows(ChangeFeed.VersionEvictedException.class, () -> tm.changesSince(9));
+        assertThrows(ChangeFeed.VersionEvictedException.class, () -> tm.subscribe(9));
+        assertThrows(IllegalArgumentException.class, () -> tm.changesSince(-1));
+        assertThrows(IllegalArgumentException.class, () -> tm.subscribe(newest + 1));
+
+        // The oldest version still in the window works, for both
+        List<ChangeFeed.Change> changes = tm.changesSince(10);
+        assertEquals(ChangeFeed.DEFAULT_HISTORY, changes.size());
+        assertEquals("11 ADD 11", changes.get(0).toString());
+        assertEquals(newest + " ADD " + newest, changes.get(changes.size() - 1).toString());
+        ChangeFeed.Subscription feed = tm.subscribe(10, ChangeFeed.DEFAULT_HISTORY);
+        assertEquals(describe(changes), describe(feed.poll()));
+        assertFalse(feed.takeResync());
+        assertEquals(List.of(), tm.changesSince(newest));
+    }
+
+    // poll() hands the changes back by version (each task's newest change), not in the order
+    // the tasks first changed, and changesSince() gives every change uncoalesced
+    @Test
+    void pollOrdersByVersion() throws InterruptedException {
+        TaskManager tm = TaskManagerTest.filledManager(6);
+        long start = tm.getVersion();
+        ChangeFeed.Subscription feed = tm.subscribe(start);
+        tm.toggleTaskStatus(5);
+        tm.toggleTaskStatus(3);
+        tm.toggleTaskStatus(5);
+        tm.addTask("New", "", DUE, Tasks.Priority.HIGH);
+        tm.toggleTaskStatus(1);
+        tm.updateTask(3).priority(Tasks.Priority.HIGH).apply();
+        assertEquals(List.of((start + 3) + " UPDATE 5", (start + 4) + " ADD 7", (start + 5) + " UPDATE 1",
+                (start + 6) + " UPDATE 3"), describe(feed.poll(1, TimeUnit.SECONDS)));
+        assertEquals(List.of((start + 1) + " UPDATE 5", (start + 2) + " UPDATE 3", (start + 3) + " UPDATE 5",
+                (start + 4) + " ADD 7", (start + 5) + " UPDATE 1", (start + 6) + " UPDATE 3"), describe(tm.changesSince(start)));
+        assertEquals(List.of(), feed.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    // A copy kept up to date from the feed alone (polled now and then) ends up the same as the list,
+    // through edits, deletes, archiving, undo and redo
+    @Test
+    void aMirrorFollowsEveryKindOfChange() {
+        TaskManager tm = TaskManagerTest.filledManager(20);
+        LinkedHashMap<Integer, Tasks> mirror = new LinkedHashMap<>();
+        for (Tasks task : tm.getTasks()) {
+            mirror.put(task.getId(), task);
+        }
+        ChangeFeed.Subscription feed = tm.subscribe(tm.getVersion());
+        Random random = new Random(22);
+        for (int step = 0; step < 2_000; step++) {
+            int id = 1 + random.nextInt(tm.getNextId() - 1);
+            switch (random.nextInt(8)) {
+                case 0 -> tm.addTask("Added " + step, "", DUE, Tasks.Priority.MEDIUM);
+                case 1 -> tm.updateTask(id).title("Edited " + step).apply();
+                case 2 -> tm.deleteTask(id);
+                case 3 -> tm.toggleTaskStatus(id);
+                case 4 -> tm.archiveCompletedTasks();
+                case 5, 6 -> tm.undo();
+                default -> tm.redo();
+            }
+            if (random.nextInt(10) == 0) apply(feed.poll(), mirror);
+        }
+        apply(feed.poll(), mirror);
+        assertFalse(feed.takeResync());
+        List<Tasks> expected = new ArrayList<>(tm.getTasks());
+        expected.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        List<Tasks> mirrored = new ArrayList<>(mirror.values());
+        mirrored.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        assertEquals(expected, mirrored);
+    }
+
+    private static void apply(List<ChangeFeed.Change> changes, LinkedHashMap<Integer, Tasks> mirror) {
+        long last = 0;
+        for (ChangeFeed.Change change : changes) {
+            assertTrue(change.getVersion() > last);
+            last = change.getVersion();
+            switch (change.getType()) {
+                case ADD -> assertNull(mirror.put(change.getId(), change.getTask()), change.toString());
+                case UPDATE -> assertNotNull(mirror.put(change.getId(), change.getTask()), change.toString());
+                default -> assertNotNull(mirror.remove(change.getId()), change.toString());
+            }
+        }
+    }
+
+    private static List<String> describe(List<ChangeFeed.Change> changes) {
+        return changes.stream().map(ChangeFeed.Change::toString).toList();
+    }
+}
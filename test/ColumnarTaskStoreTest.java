@@ -0,0 +1,190 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// ColumnarTaskStore and its StringDictionary on their own, and TaskManager's archive
+// (which lives in a ColumnarTaskStore) through archive, undo and redo
+class ColumnarTaskStoreTest {
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    // Random appends, inserts, sets, removes and truncates give back exactly what an ArrayList does:
+    // every field of every task, and each column read on its own
+    @Test
+    void behavesLikeAnArrayList() {
+        Random random = new Random(19);
+        String[] pool = {"a", "b", "", "ünï€", "x y", "long ".repeat(100)};
+        ArrayList<Tasks> expected = new ArrayList<>();
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        for (int step = 0; step < 50_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                Tasks task = randomTask(random, pool);
+                store.append(task);
+                expected.add(task);
+            } else if (op == 5) {
+                int i = random.nextInt(expected.size() + 1);
+                Tasks task = randomTask(random, pool);
+                store.add(i, task);
+                expected.add(i, task);
+            } else if (op == 6) {
+                int i = random.nextInt(expected.size());
+                Tasks task = randomTask(random, pool);
+                assertEquals(key(expected.set(i, task)), key(store.set(i, task)));
+            } else if (op == 7) {
+                int i = random.nextInt(expected.size());
+                assertEquals(key(expected.remove(i)), key(store.remove(i)));
+            } else if (op == 8) {
+                int size = Math.max(0, expected.size() - random.nextInt(6));
+                store.truncate(size);
+                expected.subList(size, expected.size()).clear();
+            } else {
+                int i = random.nextInt(expected.size());
+                Tasks task = expected.get(i);
+                assertEquals(key(task), key(store.get(i)));
+                assertEquals(task.getId(), store.getId(i));
+                assertEquals(task.getDueDate().toEpochDay(), store.getDueEpochDay(i));
+                assertEquals(task.getPriority(), store.getPriority(i));
+                assertEquals(task.isCompleted(), store.isCompleted(i));
+                assertEquals(task.getTitle(), store.getTitle(i));
+            }
+            assertEquals(expected.size(), store.size());
+        }
+        assertEquals(expected.stream().map(ColumnarTaskStoreTest::key).toList(),
+                store.stream().map(ColumnarTaskStoreTest::key).toList());
+
+        // Every string the rows still use is in the dictionary once, and nothing else is
+        List<String> used = new ArrayList<>();
+        for (Tasks task : expected) {
+            used.add(task.getTitle());
+            used.add(task.getDescription());
+        }
+        assertEquals(used.stream().distinct().count(), store.getDistinctStrings());
+    }
+
+    // A string stays while anything uses it; after its last use its code is handed out again
+    @Test
+    void dictionaryReusesFreedCodes() {
+        StringDictionary dictionary = new StringDictionary();
+        int a = dictionary.add("a");
+        int b = dictionary.add("b");
+        assertEquals(a, dictionary.add("a"));
+        assertEquals(2, dictionary.size());
+
+        dictionary.release(a);
+        assertEquals("a", dictionary.get(a));
+        dictionary.release(a);
+        assertNull(dictionary.get(a));
+        assertEquals(1, dictionary.size());
+        assertEquals(a, dictionary.add("c"));
+        assertEquals("b", dictionary.get(b));
+
+        // Lots of strings in and out (pushing the table through a few rehashes and backward-shift
+        // deletes): the new ones get the freed codes, so no code goes past the ones already handed out
+        for (int i = 0; i < 10_000; i++) {
+            dictionary.add("s" + i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            int code = dictionary.add("s" + i);
+            dictionary.release(code);
+            dictionary.release(code);
+        }
+        assertEquals(5_002, dictionary.size());
+        for (int i = 0; i < 10_000; i += 2) {
+            assertEquals("s" + (i + 1), dictionary.get(dictionary.add("s" + (i + 1))));
+            int code = dictionary.add("t" + i);
+            assertTrue(code < 10_002, "t" + i + " got a new code " + code);
+            assertEquals("t" + i, dictionary.get(code));
+        }
+        assertEquals(10_002, dictionary.size());
+    }
+
+    // Truncating the store gives back every string only the dropped rows used,
+    // and filling it up again reuses that space
+    @Test
+    void truncateReleasesStrings() {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        for (int i = 0; i < 1_000; i++) {
+            store.append(Tasks.restore(i + 1, "Shared title", "Description " + i, LocalDate.of(2025, 1, 1),
+                    Tasks.Priority.LOW, LocalDateTime.of(2025, 1, 1, 0, 0), false, true));
+        }
+        assertEquals(1_001, store.getDistinctStrings());
+        long full = store.estimatedBytes();
+
+        store.truncate(10);
+        assertEquals(11, store.getDistinctStrings());
+        store.truncate(0);
+        assertEquals(0, store.getDistinctStrings());
+
+        for (int i = 0; i < 1_000; i++) {
+            store.append(Tasks.restore(i + 1, "Other title", "Text " + i, LocalDate.of(2025, 1, 1),
+                    Tasks.Priority.HIGH, LocalDateTime.of(2025, 1, 1, 0, 0), true, true));
+        }
+        assertEquals(1_001, store.getDistinctStrings());
+        assertEquals("Text 999", store.get(999).getDescription());
+        assertTrue(store.estimatedBytes() <= full, "the columns and the dictionary did not grow again");
+    }
+
+    // Two archive runs into the columnar archive: undo takes the newest one back out to where the
+    // tasks were, exactly as they were (creation times to the nanosecond), then the older one; redo repeats them
+    @Test
+    void archiveUndoRestoresThroughTheColumnarStore() {
+        TaskManager tm = new TaskManager();
+        for (int i = 0; i < 30; i++) {
+            tm.addTask(i % 3 == 0 ? "Same" : "Task, " + i + " ✓", i % 2 == 0 ? "" : "Line\nbreak " + i,
+                    LocalDate.of(2025, 1, 1).plusDays(i * 50), PRIORITIES[i % 3]);
+        }
+        String start = TaskManagerTest.dump(tm);
+        for (int id = 1; id <= 30; id += 4) {
+            tm.toggleTaskStatus(id);
+        }
+        String firstRun = TaskManagerTest.dump(tm);
+        tm.archiveCompletedTasks();
+        assertEquals(8, tm.getArchivedTasks().size());
+        for (int id = 2; id <= 30; id += 6) {
+            tm.toggleTaskStatus(id);
+        }
+        String secondRun = TaskManagerTest.dump(tm);
+        tm.archiveCompletedTasks();
+        assertEquals(13, tm.getArchivedTasks().size());
+        assertEquals(17, tm.getTasks().size());
+        String archived = TaskManagerTest.dump(tm);
+
+        tm.undo();
+        assertEquals(secondRun, TaskManagerTest.dump(tm));
+        for (int i = 0; i < 6; i++) {
+            tm.undo();   // the five toggles, then the first run
+        }
+        assertEquals(firstRun, TaskManagerTest.dump(tm));
+        assertEquals(0, tm.getArchivedTasks().size());
+
+        for (int i = 0; i < 7; i++) {
+            tm.redo();
+        }
+        assertEquals(archived, TaskManagerTest.dump(tm));
+        for (int i = 0; i < 7 + 8; i++) {
+            tm.undo();
+        }
+        assertEquals(start, TaskManagerTest.dump(tm));
+    }
+
+    private static Tasks randomTask(Random random, String[] pool) {
+        return Tasks.restore(1 + random.nextInt(1_000), pool[random.nextInt(pool.length)] + random.nextInt(20),
+                pool[random.nextInt(pool.length)], LocalDate.ofEpochDay(random.nextInt(40_000) - 10_000),
+                PRIORITIES[random.nextInt(3)],
+                LocalDateTime.ofEpochSecond(random.nextLong(-3_000_000_000L, 3_000_000_000L), random.nextInt(1_000_000_000), ZoneOffset.UTC),
+                random.nextBoolean(), random.nextBoolean());
+    }
+
+    private static String key(Tasks task) {
+        return task + "|" + task.getDueDate() + "|" + task.isArchived();
+    }
+}
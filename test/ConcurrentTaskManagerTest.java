@@ -0,0 +1,145 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+// ConcurrentTaskManager with many threads at once: nothing gets lost or mixed up,
+// each session undoes only its own changes, and every list it hands out shows the tasks
+// as they were at one moment
+class ConcurrentTaskManagerTest {
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    // Many sessions adding, editing, toggling, deleting, undoing and reading at once.
+    // Afterwards every sorted view has to hold exactly the tasks in the main list.
+    @Test
+    void stressLeavesEveryIndexInStep() throws InterruptedException {
+        ConcurrentTaskManager tm = new ConcurrentTaskManager();
+        Thread[] workers = new Thread[Math.max(4, Runtime.getRuntime().availableProcessors() * 2)];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < workers.length; t++) {
+            ConcurrentTaskManager.Session session = tm.session("worker-" + t);
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 10_000; i++) {
+                    int id = 1 + random.nextInt(Math.max(1, tm.size() * 2));
+                    switch (random.nextInt(8)) {
+                        case 0, 1 -> session.addTask("Task " + i, "Stress", LocalDate.of(2025, 1 + i % 12, 1 + i % 28), PRIORITIES[i % 3]);
+                        case 2 -> session.deleteTask(id);
+                        case 3 -> session.toggleTaskStatus(id);
+                        case 4 -> session.updateTask(id).priority(PRIORITIES[random.nextInt(3)]).dueDate(LocalDate.of(2026, 1 + i % 12, 1)).apply();
+                        case 5 -> session.undo();
+                        case 6 -> {
+                            if (i % 500 == 0) session.archiveCompletedTasks(); else session.redo();
+                        }
+                        default -> tm.sortByDueDate().size();
+                    }
+                }
+            });
+            workers[t].setUncaughtExceptionHandler((thread, e) -> failure.compareAndSet(null, e));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+
+        List<Tasks> all = tm.getTasks();
+        HashSet<Integer> ids = new HashSet<>();
+        for (Tasks task : all) {
+            ids.add(task.getId());
+        }
+        for (Tasks task : tm.getArchivedTasks()) {
+            assertTrue(ids.add(task.getId()), "task " + task.getId() + " is both active and archived");
+        }
+        assertEquals(new HashSet<>(all), new HashSet<>(tm.sortByPriority()));
+        assertEquals(new HashSet<>(all), new HashSet<>(tm.sortByDueDate()));
+        assertEquals(new HashSet<>(all), new HashSet<>(tm.sortByCreationTime()));
+        assertEquals(all.size(), tm.sortByPriority().size());
+    }
+
+    // Undo goes back through the session's own changes, and is refused once someone else
+    // has changed the same task since
+    @Test
+    void sessionsUndoTheirOwnChanges() {
+        ConcurrentTaskManager tm = new ConcurrentTaskManager();
+        ConcurrentTaskManager.Session alice = tm.session("alice");
+        ConcurrentTaskManager.Session bob = tm.session("bob");
+        LocalDate due = LocalDate.of(2025, 6, 15);
+        int a = alice.addTask("alice's", "d", due, Tasks.Priority.LOW).getId();
+        int b = bob.addTask("bob's", "d", due, Tasks.Priority.LOW).getId();
+        alice.updateTask(a).title("alice's, edited").apply();
+        bob.toggleTaskStatus(b);
+
+        assertEquals(ConcurrentTaskManager.UndoResult.DONE, alice.undo());
+        assertEquals("alice's", tm.getTask(a).getTitle());
+        assertTrue(tm.getTask(b).isCompleted(), "bob's change stays");
+        assertEquals(ConcurrentTaskManager.UndoResult.DONE, alice.redo());
+        assertEquals("alice's, edited", tm.getTask(a).getTitle());
+
+        bob.updateTask(a).priority(Tasks.Priority.HIGH).apply();
+        assertEquals(ConcurrentTaskManager.UndoResult.CONFLICT, alice.undo());
+        assertEquals("alice's, edited", tm.getTask(a).getTitle());
+        assertEquals(ConcurrentTaskManager.UndoResult.DONE, bob.undo());
+        assertEquals(ConcurrentTaskManager.UndoResult.DONE, bob.undo());
+        assertFalse(tm.getTask(b).isCompleted());
+        assertEquals(ConcurrentTaskManager.UndoResult.DONE, bob.undo());
+        assertNull(tm.getTask(b));
+        assertEquals(ConcurrentTaskManager.UndoResult.NOTHING_TO_DO, bob.undo());
+    }
+
+    // Writers keep moving tasks around the priority and due date indexes (never adding or
+    // removing any), so every list a reader gets must hold every task exactly once
+    @Test
+    void readersNeverSeeHalfAChange() throws InterruptedException {
+        ConcurrentTaskManager tm = new ConcurrentTaskManager();
+        int count = 2_000;
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < count; i++) {
+            tm.addTask("t" + i, "d", start.plusDays(i % 50), PRIORITIES[i % 3]);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            Random random = new Random(w);
+            writers[w] = new Thread(() -> {
+                while (!stop.get()) {
+                    int id = 1 + random.nextInt(count);
+                    if (random.nextBoolean()) {
+                        tm.updateTask(id).priority(PRIORITIES[random.nextInt(3)]).apply();
+                    } else {
+                        tm.updateTask(id).dueDate(start.plusDays(random.nextInt(50))).apply();
+                    }
+                }
+            });
+            writers[w].start();
+        }
+        try {
+            long end = System.currentTimeMillis() + 1_000;
+            while (System.currentTimeMillis() < end) {
+                for (List<Tasks> tasks : List.of(tm.sortByPriority(), tm.sortByDueDate(), tm.getTasks(), tm.sortByCreationTime())) {
+                    HashSet<Integer> ids = new HashSet<>();
+                    for (Tasks task : tasks) {
+                        ids.add(task.getId());
+                    }
+                    assertEquals(count, tasks.size());
+                    assertEquals(count, ids.size());
+                }
+            }
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+// DateFormats gives the same answers as the DateTimeFormatter it replaced,
+// except that bad input comes back as null instead of an exception
+class DateFormatsTest {
+
+    // Every day 00-32 of every month 00-13, in leap and non-leap years (Feb 29 included)
+    // and at both ends of the four-digit years
+    @Test
+    void parseAgreesWithTheFormatterOnEveryDayAndMonth() {
+        for (int year : new int[]{1, 1900, 2000, 2023, 2024, 2025, 9999}) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    check(String.format("%02d/%02d/%04d", day, month, year));
+                }
+            }
+        }
+        assertEquals(LocalDate.of(2024, 2, 29), DateFormats.parse("29/02/2024"));
+        assertEquals(LocalDate.of(2023, 2, 28), DateFormats.parse("29/02/2023"));
+    }
+
+    // Non-digits, missing or extra characters, other separators, signs
+    @Test
+    void parseAgreesWithTheFormatterOnBadInput() {
+        String[] texts = {
+                "", "1", "01/01/202", "1/01/2025", "01/1/2025", "01/01/25", "01/01/20250", "01/01/123456789",
+                " 01/01/2025", "01/01/2025 ", "01-01-2025", "01.01.2025", "0101/2025/", "2025/01/01",
+                "0a/01/2025", "01/b1/2025", "01/01/20x5", "01/01/ 025", "-1/01/2025", "+1/01/2025", "01/-1/2025",
+                "01/01/0000", "01/01/-2025", "01/01/+2025", "01/01/+20250", "31/12/+99999", "01/01/+2025x",
+                "١٢/01/2025", "01/01/２０２５",
+        };
+        for (String text : texts) {
+            check(text);
+        }
+        assertNull(DateFormats.parse(null));
+    }
+
+    // format() matches the formatter (cached or not, two dates sharing a cache slot, years past 9999)
+    // and parse() reads back whatever format() wrote
+    @Test
+    void formatMatchesTheFormatterAndParsesBack() {
+        LocalDate[] dates = {
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 1).plusDays(4096), LocalDate.of(1, 1, 1),
+                LocalDate.of(9999, 12, 31), LocalDate.of(10_000, 1, 1), LocalDate.of(123_456, 7, 8),
+        };
+        for (int round = 0; round < 2; round++) {
+            for (LocalDate date : dates) {
+                assertEquals(date.format(DateFormats.DMY), DateFormats.format(date));
+                assertEquals(date, DateFormats.parse(DateFormats.format(date)));
+            }
+        }
+        for (LocalDate date = LocalDate.of(2020, 1, 1); date.getYear() < 2030; date = date.plusDays(1)) {
+            assertEquals(date.format(DateFormats.DMY), DateFormats.format(date));
+            assertEquals(date, DateFormats.parse(DateFormats.format(date)));
+        }
+    }
+
+    private static void check(String text) {
+        LocalDate expected;
+        try {
+            expected = LocalDate.parse(text, DateFormats.DMY);
+        } catch (DateTimeParseException e) {
+            expected = null;
+        }
+        assertEquals(expected, DateFormats.parse(text), text);
+        assertEquals(expected != null, DateFormats.isValid(text), text);
+    }
+}
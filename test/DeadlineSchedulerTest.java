@@ -0,0 +1,168 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// DeadlineScheduler following a TaskStore, with a clock moved by hand and fireDue() instead of
+// the scheduler thread, so every event comes out on the test's thread in a known order
+class DeadlineSchedulerTest {
+    private static final LocalDate JUNE_15 = LocalDate.of(2025, 6, 15);
+
+    // A day's lead: "due soon" at the start of the day before, "overdue" at the end of the due date
+    @Test
+    void dueSoonThenOverdue() {
+        TaskStore store = new TaskStore();
+        store.append(task(1, JUNE_15));
+        store.append(task(2, JUNE_15.plusDays(1)));
+        store.append(task(3, JUNE_15.plusDays(5)));
+        ManualClock clock = new ManualClock(JUNE_15.minusDays(5));
+        List<String> events = new ArrayList<>();
+        DeadlineScheduler scheduler = scheduler(store, clock, events);
+        assertEquals(3, scheduler.getPendingCount());
+        assertEquals(0, scheduler.fireDue());
+
+        clock.moveTo(JUNE_15.minusDays(1));
+        assertEquals(1, scheduler.fireDue());
+        assertEquals(List.of("soon 1"), events);
+        assertEquals(0, scheduler.fireDue());   // sent once only
+
+        clock.moveTo(JUNE_15.plusDays(1));
+        assertEquals(2, scheduler.fireDue());
+        assertEquals(List.of("soon 1", "soon 2", "overdue 1"), events);
+        assertEquals(2, scheduler.getPendingCount());
+
+        // Past both deadlines of task 3 in one jump: just "overdue"
+        clock.moveTo(JUNE_15.plusDays(30));
+        assertEquals(2, scheduler.fireDue());
+        assertEquals(List.of("soon 1", "soon 2", "overdue 1", "overdue 2", "overdue 3"), events);
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(5, scheduler.getFiredCount());
+    }
+
+    // Tasks that are overdue when they're scheduled (at the start, added late, or edited into
+    // the past) aren't watched and get no event
+    @Test
+    void alreadyOverdueTasksGetNoEvent() {
+        TaskStore store = new TaskStore();
+        store.append(task(1, JUNE_15.minusDays(10)));
+        store.append(task(2, JUNE_15.minusDays(1)));
+        store.append(task(3, JUNE_15.plusDays(3)));
+        ManualClock clock = new ManualClock(JUNE_15);
+        List<String> events = new ArrayList<>();
+        DeadlineScheduler scheduler = scheduler(store, clock, events);
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(0, scheduler.fireDue());
+
+        store.append(task(4, JUNE_15.minusDays(2)));
+        store.replace(store.get(3).withDueDate(JUNE_15.minusDays(3)));
+        assertEquals(0, scheduler.getPendingCount());
+
+        // Due today is not overdue yet: it's due soon straight away
+        store.append(task(5, JUNE_15));
+        assertEquals(1, scheduler.fireDue());
+        assertEquals(List.of("soon 5"), events);
+    }
+
+    // Moving a due date moves both of its events; keeping the date (a title edit) keeps them
+    @Test
+    void editingTheDueDateReschedules() {
+        TaskStore store = new TaskStore();
+        store.append(task(1, JUNE_15));
+        store.append(task(2, JUNE_15));
+        ManualClock clock = new ManualClock(JUNE_15.minusDays(10));
+        List<String> events = new ArrayList<>();
+        DeadlineScheduler scheduler = scheduler(store, clock, events);
+
+        store.replace(store.get(1).withDueDate(JUNE_15.plusDays(10)));
+        store.replace(store.get(2).withDueDate(JUNE_15.minusDays(5)));
+        store.replace(store.get(2).withTitle("Renamed"));
+        assertEquals(2, scheduler.getPendingCount());
+
+        clock.moveTo(JUNE_15.minusDays(6));
+        assertEquals(1, scheduler.fireDue());
+        clock.moveTo(JUNE_15.plusDays(1));
+        assertEquals(1, scheduler.fireDue());
+        assertEquals(List.of("soon 2", "overdue 2"), events);
+
+        // Task 1 moved later, so nothing happens on the old date and both events come from the new one
+        clock.moveTo(JUNE_15.plusDays(9));
+        assertEquals(1, scheduler.fireDue());
+        clock.moveTo(JUNE_15.plusDays(11));
+        assertEquals(1, scheduler.fireDue());
+        assertEquals(List.of("soon 2", "overdue 2", "soon 1", "overdue 1"), events);
+        assertEquals("Renamed", store.get(2).getTitle());
+    }
+
+    // Completing or deleting a task takes it off the heap; un-completing it puts it back
+    @Test
+    void completingOrDeletingStopsTheEvents() {
+        TaskStore store = new TaskStore();
+        for (int id = 1; id <= 4; id++) {
+            store.append(task(id, JUNE_15));
+        }
+        ManualClock clock = new ManualClock(JUNE_15.minusDays(10));
+        List<String> events = new ArrayList<>();
+        DeadlineScheduler scheduler = scheduler(store, clock, events);
+
+        store.replace(store.get(1).withCompleted(true));
+        store.removeById(2);
+        store.replace(store.get(3).withCompleted(true));
+        store.replace(store.get(3).withCompleted(false));
+        assertEquals(2, scheduler.getPendingCount());
+
+        clock.moveTo(JUNE_15.minusDays(1));
+        assertEquals(2, scheduler.fireDue());
+        store.removeById(4);
+        clock.moveTo(JUNE_15.plusDays(1));
+        assertEquals(1, scheduler.fireDue());
+        assertEquals(List.of("soon 3", "soon 4", "overdue 3"), events);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    private static DeadlineScheduler scheduler(TaskStore store, Clock clock, List<String> events) {
+        DeadlineScheduler scheduler = new DeadlineScheduler(store, clock, Duration.ofDays(1));
+        store.addListener(scheduler);
+        scheduler.addListener(new DeadlineListener() {
+            @Override
+            public void dueSoon(Tasks task) {events.add("soon " + task.getId());}
+
+            @Override
+            public void overdue(Tasks task) {events.add("overdue " + task.getId());}
+        });
+        return scheduler;
+    }
+
+    private static Tasks task(int id, LocalDate dueDate) {
+        return new Tasks(id, "Task " + id, "", dueDate, Tasks.Priority.LOW);
+    }
+
+    // A clock in UTC that only moves when told to (to midnight at the start of a day)
+    private static class ManualClock extends Clock {
+        private Instant now;
+
+        ManualClock(LocalDate day) {
+            moveTo(day);
+        }
+
+        void moveTo(LocalDate day) {
+            now = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {return ZoneOffset.UTC;}
+
+        @Override
+        public Clock withZone(ZoneId zone) {throw new UnsupportedOperationException();}
+
+        @Override
+        public Instant instant() {return now;}
+    }
+}
@@ -0,0 +1,164 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// MappedTaskStore on its own, and TaskManager's archive kept in it across restarts
+class MappedTaskStoreTest {
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    @TempDir
+    Path dir;
+
+    // Random appends and truncates give back exactly what an ArrayList does, strings and all
+    @Test
+    void behavesLikeAnArrayList() throws IOException {
+        Random random = new Random(3);
+        String[] pool = {"a", "b", "", "ünï€", "x y", "long ".repeat(100)};
+        ArrayList<Tasks> expected = new ArrayList<>();
+        try (MappedTaskStore store = new MappedTaskStore(dir.resolve("x.archive"))) {
+            for (int step = 0; step < 100_000; step++) {
+                int op = random.nextInt(10);
+                if (op < 6 || expected.isEmpty()) {
+                    Tasks task = randomTask(random, pool);
+                    store.append(task);
+                    expected.add(task);
+                } else if (op == 6) {
+                    int size = Math.max(0, expected.size() - random.nextInt(6));
+                    store.truncate(size);
+                    expected.subList(size, expected.size()).clear();
+                } else {
+                    int i = random.nextInt(expected.size());
+                    assertEquals(key(expected.get(i)), key(store.get(i)));
+                    assertEquals(expected.get(i).getId(), store.getId(i));
+                }
+                assertEquals(expected.size(), store.size());
+            }
+            List<String> all = new ArrayList<>();
+            for (Tasks task : store) {
+                all.add(key(task));
+            }
+            assertEquals(expected.stream().map(MappedTaskStoreTest::key).toList(), all);
+        }
+    }
+
+    // Past the first mapped chunk of records, then picked up again from the files
+    @Test
+    void restoresWhatWasWritten() throws IOException {
+        Path file = dir.resolve("x.archive");
+        int count = 1_100_000;
+        long stringsEnd;
+        try (MappedTaskStore store = new MappedTaskStore(file)) {
+            for (int i = 0; i < count; i++) {
+                store.append(Tasks.restore(i + 1, "title " + i, "desc " + i, LocalDate.ofEpochDay(i % 5_000),
+                        Tasks.Priority.LOW, LocalDateTime.of(2024, 1, 1, 0, 0), true, true));
+            }
+            store.force();
+            stringsEnd = store.getStringsEnd();
+        }
+        try (MappedTaskStore store = new MappedTaskStore(file)) {
+            assertEquals(0, store.size());
+            store.restore(count, stringsEnd);
+            for (int i = 0; i < count; i += 997) {
+                assertEquals("title " + i, store.get(i).getTitle());
+                assertEquals("desc " + i, store.get(i).getDescription());
+            }
+            // restored records are pinned: undoing into them means saving a snapshot first
+            store.truncate(count - 5);
+            assertThrows(IllegalStateException.class, () -> store.append(store.get(0)));
+            store.pin(count - 5);
+            store.append(store.get(0));
+            assertEquals(count - 4, store.size());
+            assertThrows(IOException.class, () -> store.restore(4_000_000, 0));
+        }
+    }
+
+    // The snapshot refers to the archive's files instead of copying them. Every mix of storage
+    // before and after a restart gets the same tasks and counts back - after a crash (no close),
+    // and after undo took the archive below what the snapshot refers to.
+    @Test
+    void archiveSurvivesRestartsInEitherStorage() throws IOException {
+        for (TaskManager.ArchiveStorage first : TaskManager.ArchiveStorage.values()) {
+            for (TaskManager.ArchiveStorage second : TaskManager.ArchiveStorage.values()) {
+                Path log = Files.createDirectory(dir.resolve(first + "-" + second)).resolve("tasks.log");
+                TaskManager tm = TaskManager.open(log, TaskLog.FsyncPolicy.always(), first);
+                for (int i = 0; i < 50; i++) {
+                    tm.addTask("T" + i, "D" + i + "é", "15/06/2025", PRIORITIES[i % 3]);
+                    if (i % 2 == 0) tm.toggleTaskStatus(i + 1);
+                }
+                tm.archiveCompletedTasks();
+                tm.checkpoint();
+                tm.toggleTaskStatus(2);
+                tm.toggleTaskStatus(4);
+                tm.archiveCompletedTasks();
+                TaskManager crashed = TaskManager.open(log, TaskLog.FsyncPolicy.always(), second);
+                assertEquals(dump(tm), dump(crashed));
+                crashed.close();
+                tm.close();
+
+                tm = TaskManager.open(log, TaskLog.FsyncPolicy.always(), first);
+                tm.toggleTaskStatus(6);
+                tm.archiveCompletedTasks();
+                tm.checkpoint();
+                tm.undo();
+                tm.toggleTaskStatus(8);
+                tm.archiveCompletedTasks();
+                tm.undo();
+                tm.redo();
+                String saved = dump(tm);
+                tm.close();
+
+                tm = TaskManager.open(log, TaskLog.FsyncPolicy.always(), second);
+                assertEquals(saved, dump(tm));
+                tm.toggleTaskStatus(10);
+                tm.archiveCompletedTasks();
+                tm.checkpoint();
+                tm.undo();
+                TaskManager afterUndo = TaskManager.open(log, TaskLog.FsyncPolicy.always(), second);
+                assertEquals(dump(tm), dump(afterUndo));
+                afterUndo.toggleTaskStatus(12);
+                afterUndo.archiveCompletedTasks();
+                saved = dump(afterUndo);
+                afterUndo.close();
+                tm.close();
+
+                tm = TaskManager.open(log, TaskLog.FsyncPolicy.always(), first);
+                assertEquals(saved, dump(tm));
+                tm.close();
+            }
+        }
+    }
+
+    private static Tasks randomTask(Random random, String[] pool) {
+        return Tasks.restore(1 + random.nextInt(1_000), pool[random.nextInt(pool.length)] + random.nextInt(20),
+                pool[random.nextInt(pool.length)], LocalDate.ofEpochDay(random.nextInt(40_000) - 10_000),
+                PRIORITIES[random.nextInt(3)],
+                LocalDateTime.ofEpochSecond(random.nextLong(-3_000_000_000L, 3_000_000_000L), random.nextInt(1_000_000_000), ZoneOffset.UTC),
+                random.nextBoolean(), random.nextBoolean());
+    }
+
+    private static String key(Tasks task) {
+        return task + "|" + task.getDueDate() + "|" + task.isArchived();
+    }
+
+    // The tasks, the archive and the archived counts
+    private static String dump(TaskManager tm) {
+        StringBuilder out = new StringBuilder(TaskManagerTest.dump(tm));
+        TaskAggregates aggregates = tm.getAggregates();
+        for (Tasks.Priority priority : PRIORITIES) {
+            out.append(aggregates.getCount(priority, true, true)).append(' ').append(aggregates.getCount(priority, false, true)).append(' ');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// ShardedTaskManager: each shard's IDs start far above 1 (shard 3 of 4 at about 1.6 billion),
+// and the per-ID tables behind text search and deadlines must not grow to match
+class ShardedTaskManagerTest {
+    @Test
+    void textQueryOverEveryShard() {
+        ShardedTaskManager sharded = new ShardedTaskManager(4);
+        for (int t = 0; t < 16; t++) {
+            ShardedTaskManager.Tenant tenant = sharded.tenant("team" + t);
+            for (int i = 0; i < 5; i++) {
+                tenant.addTask((i % 2 == 0 ? "Milestone " : "Other ") + i, "buy milk", LocalDate.of(2025, 6, 15), Tasks.Priority.HIGH);
+            }
+        }
+        assertEquals(80, sharded.query(new TaskQuery().text("mil*")).size());
+        assertEquals(48, sharded.query(new TaskQuery().text("milestone*")).size());
+        assertEquals(48, sharded.count(new TaskQuery().text("milestone")));
+    }
+
+    @Test
+    void deadlinesOnAShardsIds() throws IOException, InterruptedException {
+        int firstId = 1_600_000_000;
+        TaskManager tm = new TaskManager(0, 0, firstId);
+        for (int i = 0; i < 5; i++) {
+            tm.addTask("T" + i, "d", "15/06/2025", Tasks.Priority.LOW);
+        }
+        tm.toggleTaskStatus(firstId + 2);
+        tm.deleteTask(firstId + 3);
+
+        // Half an hour before the due date starts, with an hour's lead: the three unfinished tasks are due soon
+        Clock clock = Clock.fixed(Instant.parse("2025-06-14T23:30:00Z"), ZoneOffset.UTC);
+        List<Integer> soon = new ArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+        DeadlineScheduler deadlines = tm.startDeadlines(clock, Duration.ofHours(1), new DeadlineListener() {
+            @Override
+            public void dueSoon(Tasks task) {
+                synchronized (soon) {
+                    soon.add(task.getId());
+                }
+                fired.countDown();
+            }
+        });
+        assertTrue(fired.await(10, TimeUnit.SECONDS));
+        synchronized (soon) {
+            assertEquals(List.of(firstId, firstId + 1, firstId + 4), soon.stream().sorted().toList());
+        }
+        assertTrue(deadlines.estimatedBytes() < 10_000, "the scheduler's tables follow the task count, not the IDs");
+        tm.close();
+    }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+// The task table: TableRenderer prints exactly what the old printf version did,
+// and ColumnStats keeps the column widths right as tasks come and go
+class TableRendererTest {
+    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ENGLISH);
+
+    // Short and long titles/descriptions (wider than the minimum columns), done and not done
+    @Test
+    void tableMatchesThePrintfVersion() {
+        TaskManager tm = new TaskManager();
+        tm.addTask("Short", "Tiny", LocalDate.of(2025, 3, 9), Tasks.Priority.LOW);
+        tm.addTask("A title that is longer than twenty", "Desc", LocalDate.of(2025, 12, 31), Tasks.Priority.HIGH);
+        tm.addTask("", "A description that goes on well past thirty-five characters", LocalDate.of(2026, 1, 1), Tasks.Priority.MEDIUM);
+        for (int i = 0; i < 120; i++) {
+            tm.addTask("Task " + i, "Description " + i, LocalDate.of(2025, 1, 1).plusDays(i), Tasks.Priority.values()[i % 3]);
+        }
+        tm.toggleTaskStatus(2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        TableRenderer table = new TableRenderer(stream);
+        ColumnStats stats = tm.getColumnStats();
+        table.setColumnWidths(stats.longestTitle(), stats.longestDescription());
+        table.rule();
+        table.header();
+        table.rule();
+        // Two pages, the way Main shows a long list
+        var rows = tm.getTasks().iterator();
+        assertEquals(100, table.rows(rows, 100));
+        assertEquals(23, table.rows(rows, 100));
+        table.rule();
+        table.flush();
+
+        assertEquals(printfTable(tm), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    // Deleting the task with the longest title (or editing it shorter) narrows the column again,
+    // and undo widens it back
+    @Test
+    void columnWidthsShrinkAfterTheLongestTitleIsDeleted() {
+        TaskManager tm = new TaskManager();
+        ColumnStats stats = tm.getColumnStats();
+        tm.addTask("Twelve chars", "Desc", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        tm.addTask("This one has 25 letters.", "A longer description", LocalDate.of(2025, 1, 2), Tasks.Priority.LOW);
+        tm.addTask("Also 25 letters, exactly", "Desc", LocalDate.of(2025, 1, 3), Tasks.Priority.LOW);
+        tm.addTask("The longest title of them all", "Desc", LocalDate.of(2025, 1, 4), Tasks.Priority.LOW);
+        assertEquals(29, stats.longestTitle());
+        assertEquals(20, stats.longestDescription());
+
+        tm.deleteTask(4);
+        assertEquals(24, stats.longestTitle());
+        tm.undo();
+        assertEquals(29, stats.longestTitle());
+        tm.deleteTask(4);
+
+        // Two titles share the longest length: one going leaves the width alone
+        tm.deleteTask(2);
+        assertEquals(24, stats.longestTitle());
+        assertEquals(4, stats.longestDescription());
+        tm.updateTask(3).title("Short").apply();
+        assertEquals(12, stats.longestTitle());
+
+        tm.deleteTask(1);
+        tm.deleteTask(3);
+        assertEquals(0, stats.longestTitle());
+        assertEquals(0, stats.longestDescription());
+    }
+
+    // The table as Main.viewTasks used to print it, one printf per row
+    private static String printfTable(TaskManager tm) {
+        int titleWidth = Math.max(20, tm.getTasks().stream().mapToInt(t -> t.getTitle().length()).max().orElse(0));
+        int descriptionWidth = Math.max(35, tm.getTasks().stream().mapToInt(t -> t.getDescription().length()).max().orElse(0));
+        String header = String.format("%%-5s %%-%ds %%-%ds %%-12s %%-10s %%-10s%%n", titleWidth, descriptionWidth);
+        String row = String.format("%%-5d %%-%ds %%-%ds %%-12s %%-10s %%-10s%%n", titleWidth, descriptionWidth);
+        String rule = "-".repeat(45 + titleWidth + descriptionWidth) + System.lineSeparator();
+
+        StringBuilder out = new StringBuilder(rule);
+        out.append(String.format(header, "ID", "Title", "Description", "Due Date", "Priority", "Completed"));
+        out.append(rule);
+        for (Tasks t : tm.getTasks()) {
+            out.append(String.format(row, t.getId(), t.getTitle(), t.getDescription(), t.getDueDate().format(DMY),
+                    t.getPriority().status, t.isCompleted() ? "Yes" : "No"));
+        }
+        return out.append(rule).toString();
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+// The array-backed SortedSet the indexes are built from answers every question like a TreeSet would
+class TaskIndexesTest {
+    @Test
+    void sortedArraySetMatchesTreeSet() {
+        Random random = new Random(1);
+        Tasks[] tasks = new Tasks[200];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = Tasks.restore(i + 1, "t", "d", LocalDate.of(2025, 1, 1).plusDays(random.nextInt(30)),
+                    Tasks.Priority.LOW, LocalDateTime.of(2025, 1, 1, 0, 0), false, false);
+        }
+        Arrays.sort(tasks, TaskIndexes.BY_DUE_DATE);
+        SortedSet<Tasks> set = new TaskIndexes.SortedArraySet(tasks, TaskIndexes.BY_DUE_DATE);
+        TreeSet<Tasks> tree = new TreeSet<>(set);
+        assertEquals(tree, set);
+        assertEquals(new ArrayList<>(tree), new ArrayList<>(set));
+
+        for (int i = 0; i < 2_000; i++) {
+            Tasks from = tasks[random.nextInt(tasks.length)];
+            Tasks to = tasks[random.nextInt(tasks.length)];
+            if (TaskIndexes.BY_DUE_DATE.compare(from, to) > 0) {
+                Tasks swap = from;
+                from = to;
+                to = swap;
+            }
+            assertEquals(new ArrayList<>(tree.subSet(from, to)), new ArrayList<>(set.subSet(from, to)));
+            assertEquals(new ArrayList<>(tree.headSet(to)), new ArrayList<>(set.headSet(to)));
+            assertEquals(new ArrayList<>(tree.tailSet(from)), new ArrayList<>(set.tailSet(from)));
+
+            SortedSet<Tasks> range = set.subSet(from, to);
+            SortedSet<Tasks> treeRange = tree.subSet(from, to);
+            assertEquals(treeRange.size(), range.size());
+            if (treeRange.isEmpty()) {
+                assertThrows(NoSuchElementException.class, range::first);
+            } else {
+                assertSame(treeRange.first(), range.first());
+                assertSame(treeRange.last(), range.last());
+                Tasks first = treeRange.first();
+                assertEquals(new ArrayList<>(treeRange.tailSet(first)), new ArrayList<>(range.tailSet(first)));
+            }
+            if (TaskIndexes.BY_DUE_DATE.compare(to, tasks[199]) < 0) {
+                assertThrows(IllegalArgumentException.class, () -> range.headSet(tasks[199]));
+            }
+            assertTrue(set.contains(from));
+            assertEquals(treeRange.contains(from), range.contains(from));
+        }
+    }
+}
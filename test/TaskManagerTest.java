@@ -0,0 +1,299 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// TaskManager on its own: undo history limits, what an undo gives back, the sorted views,
+// bulk changes with undo/redo, the dashboard counts, and getting everything back from the log
+class TaskManagerTest {
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final Tasks.Priority[] PRIORITIES = Tasks.Priority.values();
+
+    @TempDir
+    Path dir;
+
+    // One million edits on 1,000 tasks: the history stays inside both of its limits,
+    // and the versions it has let go of really are garbage (nothing else holds on to them)
+    @Test
+    void undoHistoryStaysBoundedAfterOneMillionEdits() {
+        TaskManager tm = filledManager(1_000);
+        tm.updateTask(1).title("First edit").apply();
+        WeakReference<Tasks> firstEdit = new WeakReference<>(find(tm, 1));
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            int id = 1 + random.nextInt(1_000);
+            if ((i & 1) == 0) {
+                tm.updateTask(id).title("Edited title " + i).apply();
+            } else {
+                tm.toggleTaskStatus(id);
+            }
+        }
+        assertTrue(tm.getUndoCount() <= TaskManager.DEFAULT_MAX_HISTORY_ENTRIES);
+        assertTrue(tm.getHistoryBytes() <= TaskManager.DEFAULT_MAX_HISTORY_BYTES);
+        assertEquals(1_000, tm.getTasks().size());
+        for (int i = 0; i < 5 && firstEdit.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(firstEdit.get(), "an edit that fell out of the history is still reachable");
+    }
+
+    // An edit makes a new version of the task: whoever still holds the old one sees it unchanged,
+    // and undo puts that same old version back
+    @Test
+    void undoGivesBackTheVersionBeforeTheEdit() {
+        TaskManager tm = filledManager(10);
+        Tasks before = find(tm, 3);
+        tm.updateTask(3).title("Changed").priority(Tasks.Priority.HIGH).apply();
+        tm.toggleTaskStatus(3);
+        assertEquals("Task 2", before.getTitle());
+        assertEquals("Changed", find(tm, 3).getTitle());
+        assertTrue(find(tm, 3).isCompleted());
+        tm.undo();
+        tm.undo();
+        assertSame(before, find(tm, 3));
+        tm.redo();
+        assertEquals(Tasks.Priority.HIGH, find(tm, 3).getPriority());
+        assertEquals("Task 2", before.getTitle());
+    }
+
+    // The live sorted views hold exactly the active tasks, in order (ties by ID), after a random mix of changes
+    @Test
+    void sortedViewsFollowEveryChange() {
+        TaskManager tm = filledManager(5_000);
+        int added = 5_000;
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            int id = 1 + random.nextInt(added + 1);
+            switch (random.nextInt(7)) {
+                case 0 -> {
+                    tm.addTask("New " + i, "d", date(BASE.plusDays(random.nextInt(365))), PRIORITIES[random.nextInt(3)]);
+                    added++;
+                }
+                case 1 -> tm.deleteTask(id);
+                case 2 -> tm.toggleTaskStatus(id);
+                case 3 -> tm.updateTask(id).priority(PRIORITIES[random.nextInt(3)]).apply();
+                case 4 -> tm.updateTask(id).dueDate(BASE.plusDays(random.nextInt(365))).apply();
+                case 5 -> tm.undo();
+                default -> {
+                    if (i % 1_000 == 0) tm.archiveCompletedTasks(); else tm.redo();
+                }
+            }
+        }
+        Comparator<Tasks> byId = Comparator.comparingInt(Tasks::getId);
+        assertEquals(sorted(tm, Comparator.comparing(Tasks::getPriority).thenComparing(byId)), new ArrayList<>(tm.sortByPriority()));
+        assertEquals(sorted(tm, Comparator.comparing(Tasks::getDueDate).thenComparing(byId)), new ArrayList<>(tm.sortByDueDate()));
+        assertEquals(sorted(tm, Comparator.comparing(Tasks::getCreationTime).thenComparing(byId)), new ArrayList<>(tm.sortByCreationTime()));
+    }
+
+    // completeWhere / reprioritizeWhere / archiveWhere are one undo step each, and come back from the log
+    @Test
+    void bulkChangesUndoRedoAndReplay() throws IOException {
+        Path log = dir.resolve("tasks.log");
+        TaskManager tm = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            tm.addTask("T" + i, "d", date(BASE.plusDays(random.nextInt(365))), PRIORITIES[random.nextInt(3)]);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            tm.deleteTask(1 + random.nextInt(20_000));
+            tm.toggleTaskStatus(1 + random.nextInt(20_000));
+        }
+        String before = dump(tm);
+        LocalDate cutoff = LocalDate.of(2025, 4, 1);
+        long due = tm.getTasks().stream().filter(t -> !t.isCompleted() && t.getDueDate().isBefore(cutoff)).count();
+        long version = tm.getVersion();
+        assertEquals(due, tm.completeWhere(t -> t.getDueDate().isBefore(cutoff)));
+        assertEquals(due, tm.getVersion() - version, "one change feed UPDATE per task");
+        String completed = dump(tm);
+        tm.reprioritizeWhere(t -> t.getDueDate().isAfter(LocalDate.of(2025, 10, 1)), Tasks.Priority.HIGH);
+        String reprioritized = dump(tm);
+        tm.archiveWhere(t -> t.getTitle().endsWith("7"));
+        String archived = dump(tm);
+
+        tm.undo();
+        assertEquals(reprioritized, dump(tm));
+        tm.undo();
+        assertEquals(completed, dump(tm));
+        tm.undo();
+        assertEquals(before, dump(tm));
+        tm.redo();
+        tm.redo();
+        tm.redo();
+        assertEquals(archived, dump(tm));
+        tm.close();
+
+        TaskManager reopened = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        assertEquals(archived, dump(reopened));
+        reopened.close();
+    }
+
+    // TaskAggregates agrees with counting the lists by hand, through archive, undo, redo and a reopen
+    @Test
+    void aggregatesMatchTheLists() throws IOException {
+        Path log = dir.resolve("tasks.log");
+        TaskManager tm = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        Random random = new Random(7);
+        tm.getAggregates().advanceTo(BASE.plusDays(50));
+        for (int i = 0; i < 5_000; i++) {
+            tm.addTask("T" + i, "d", date(BASE.plusDays(random.nextInt(365))), PRIORITIES[random.nextInt(3)]);
+        }
+        tm.addTask("far", "d", date(BASE.plusDays(5_000)), Tasks.Priority.LOW);
+        tm.addTask("past", "d", date(BASE.minusDays(3_000)), Tasks.Priority.LOW);
+        for (int i = 0; i < 2_000; i++) {
+            int id = 1 + random.nextInt(5_002);
+            switch (random.nextInt(4)) {
+                case 0 -> tm.deleteTask(id);
+                case 1 -> tm.toggleTaskStatus(id);
+                case 2 -> tm.updateTask(id).dueDate(BASE.plusDays(random.nextInt(400) - 20)).apply();
+                default -> tm.updateTask(id).priority(PRIORITIES[random.nextInt(3)]).apply();
+            }
+        }
+        checkAggregates(tm);
+        tm.archiveCompletedTasks();
+        checkAggregates(tm);
+        for (int i = 0; i < 300; i++) tm.undo();
+        checkAggregates(tm);
+        for (int i = 0; i < 100; i++) tm.redo();
+        checkAggregates(tm);
+        tm.archiveWhere(t -> t.getTitle().endsWith("3"));
+        tm.checkpoint();
+        tm.archiveCompletedTasks();
+        tm.undo();
+        tm.toggleTaskStatus(5);
+        checkAggregates(tm);
+        tm.close();
+
+        TaskManager reopened = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        checkAggregates(reopened);
+        reopened.close();
+    }
+
+    // A record cut off half-way (a crash mid-write) is dropped, and the log carries on after it
+    @Test
+    void tornLogTailIsDropped() throws IOException {
+        Path log = dir.resolve("tasks.log");
+        TaskManager tm = TaskManager.open(log, TaskLog.FsyncPolicy.batched(100, 50));
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            int id = 1 + random.nextInt(i + 1);
+            switch (random.nextInt(7)) {
+                case 0 -> tm.addTask("t" + i, "dé" + i, date(BASE.plusDays(random.nextInt(365))), PRIORITIES[random.nextInt(3)]);
+                case 1 -> tm.deleteTask(id);
+                case 2 -> tm.updateTask(id).title("x" + i).priority(PRIORITIES[random.nextInt(3)]).apply();
+                case 3 -> tm.undo();
+                case 4 -> tm.redo();
+                case 5 -> tm.toggleTaskStatus(id);
+                default -> tm.archiveCompletedTasks();
+            }
+        }
+        String saved = dump(tm);
+        tm.close();
+        TaskManager reopened = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        assertEquals(saved, dump(reopened));
+        reopened.addTask("lost", "d", date(BASE), Tasks.Priority.LOW);
+        reopened.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            file.setLength(Files.size(log) - 3);
+        }
+        TaskManager torn = TaskManager.open(log, TaskLog.FsyncPolicy.always());
+        assertEquals(saved, dump(torn));
+        torn.addTask("kept", "d", date(BASE), Tasks.Priority.LOW);
+        torn.close();
+        TaskManager again = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        String kept = dump(again);
+        assertEquals(dump(torn), kept);
+        again.close();
+
+        // A garbage length in the last record's header (too big for what's left of the file,
+        // or for any record at all) is a torn tail too, not a reason to fail or to allocate it
+        for (int length : new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE - 7, 1 << 30, 100}) {
+            try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+                file.seek(file.length());
+                file.writeInt(length);
+                file.writeInt(0);
+                file.write(new byte[]{1, 2, 3, 4, 5});
+            }
+            TaskManager garbage = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+            assertEquals(kept, dump(garbage));
+            garbage.close();
+        }
+    }
+
+    static TaskManager filledManager(int size) {
+        TaskManager tm = new TaskManager();
+        for (int i = 0; i < size; i++) {
+            tm.addTask("Task " + i, "Description for task " + i, date(BASE.plusDays(i % 365)), PRIORITIES[i % PRIORITIES.length]);
+        }
+        return tm;
+    }
+
+    // Everything about the active and archived tasks, in order, as one string
+    static String dump(TaskManager tm) {
+        StringBuilder out = new StringBuilder();
+        for (Tasks task : tm.getTasks()) {
+            out.append(task).append('\n');
+        }
+        out.append("--\n");
+        for (Tasks task : tm.getArchivedTasks()) {
+            out.append(task).append('\n');
+        }
+        return out.toString();
+    }
+
+    static Tasks find(TaskManager tm, int id) {
+        for (Tasks task : tm.getTasks()) {
+            if (task.getId() == id) return task;
+        }
+        return null;
+    }
+
+    // addTask takes its due date the way the menu does, as dd/MM/yyyy
+    static String date(LocalDate day) {
+        return day.format(DMY);
+    }
+
+    private static List<Tasks> sorted(TaskManager tm, Comparator<Tasks> order) {
+        List<Tasks> tasks = new ArrayList<>(tm.getTasks());
+        tasks.sort(order);
+        return tasks;
+    }
+
+    private static void checkAggregates(TaskManager tm) {
+        TaskAggregates aggregates = tm.getAggregates();
+        for (Tasks.Priority priority : PRIORITIES) {
+            for (boolean completed : new boolean[]{false, true}) {
+                assertEquals(tm.getTasks().stream().filter(t -> t.getPriority() == priority && t.isCompleted() == completed).count(),
+                        aggregates.getCount(priority, completed, false));
+                assertEquals(tm.getArchivedTasks().stream().filter(t -> t.getPriority() == priority && t.isCompleted() == completed).count(),
+                        aggregates.getCount(priority, completed, true));
+            }
+        }
+        // Reading the overdue count for any day (in any order) doesn't move the kept day; advanceTo does
+        int[] days = {-400, -1, 0, 37, 200, 365, 900, 37, -1};
+        for (int i = 0; i < days.length; i++) {
+            LocalDate day = BASE.plusDays(days[i]);
+            assertEquals(tm.getTasks().stream().filter(t -> !t.isCompleted() && t.getDueDate().equals(day)).count(),
+                    aggregates.getDueOn(day));
+            assertEquals(tm.getTasks().stream().filter(t -> !t.isCompleted() && t.getDueDate().isBefore(day)).count(),
+                    aggregates.getOverdueCount(day));
+            if (i == 4) aggregates.advanceTo(day);
+        }
+    }
+}
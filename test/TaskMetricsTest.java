@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// LatencyHistogram's buckets and percentiles, and TaskMetrics counting what a TaskManager did
+class TaskMetricsTest {
+
+    // One value on its own comes back exactly; next to a bigger one it comes back as the top of
+    // its bucket, which is never below it and at most 1/32 above it (exact under 64 ns)
+    @Test
+    void percentilesStayInsideTheirBucket() {
+        long[] values = {0, 1, 31, 63, 64, 65, 95, 96, 127, 128, 129, 1_000, 1_023, 1_024, 1_025,
+                123_456_789, 1L << 40, (1L << 40) - 1, (1L << 40) + 1, Long.MAX_VALUE / 4, (1L << 62) - 1, 1L << 62};
+        for (long value : values) {
+            LatencyHistogram alone = new LatencyHistogram();
+            alone.record(value);
+            assertEquals(value, alone.getPercentileNanos(50));
+            assertEquals(value, alone.getPercentileNanos(100));
+
+            LatencyHistogram pair = new LatencyHistogram();
+            pair.record(value);
+            pair.record(Long.MAX_VALUE);
+            long reported = pair.getPercentileNanos(50);
+            assertTrue(reported >= value && reported - value <= value / 32, value + " reported as " + reported);
+            if (value < 64) assertEquals(value, reported);
+            assertEquals(Long.MAX_VALUE, pair.getPercentileNanos(100));
+        }
+    }
+
+    // 100,000 values spread from nanoseconds to seconds, against the exact percentiles of the sorted values
+    @Test
+    void percentilesMatchTheSortedValues() {
+        Random random = new Random(15);
+        long[] values = new long[100_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram[] halves = {new LatencyHistogram(), new LatencyHistogram()};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.pow(10, random.nextDouble() * 10);
+            histogram.record(values[i]);
+            halves[i & 1].record(values[i]);
+        }
+        halves[0].add(halves[1]);
+        Arrays.sort(values);
+        for (double percentile : new double[]{0, 0.1, 1, 10, 50, 90, 99, 99.9, 99.99, 100}) {
+            long exact = values[Math.max(0, (int) Math.ceil(values.length * percentile / 100) - 1)];
+            long reported = histogram.getPercentileNanos(percentile);
+            assertTrue(reported >= exact && reported - exact <= exact / 32, percentile + ": " + exact + " reported as " + reported);
+            assertEquals(reported, halves[0].getPercentileNanos(percentile));
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+        assertEquals(Arrays.stream(values).sum(), histogram.getTotalNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        histogram.record(-5);   // a clock going backwards counts as 0
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    // Every call is counted (undo/redo with nothing to do included), only the sampled ones timed,
+    // and nothing at all while metrics are off
+    @Test
+    void countsFollowAScriptedSession() {
+        TaskManager tm = new TaskManager();
+        TaskMetrics metrics = tm.getMetrics();
+        metrics.setSampleInterval(1);
+        for (int i = 0; i < 5; i++) {
+            tm.addTask("Task " + i, "", LocalDate.of(2025, 1, 1 + i), Tasks.Priority.LOW);
+        }
+        tm.updateTask(1).title("Edited").apply();
+        tm.updateTask(2).priority(Tasks.Priority.HIGH).apply();
+        tm.toggleTaskStatus(3);
+        tm.deleteTask(4);
+        tm.deleteTask(99);
+        tm.undo();
+        tm.undo();
+        tm.redo();
+        tm.archiveCompletedTasks();
+        for (int i = 0; i < 10; i++) {
+            tm.undo();   // the last few have nothing left to undo
+        }
+        tm.redo();
+
+        assertCounts(metrics, 5, 2, 1, 2, 12, 2, 1);
+        for (TaskMetrics.Operation operation : TaskMetrics.Operation.values()) {
+            assertEquals(metrics.getCount(operation), metrics.getLatency(operation).getCount(), operation.name());
+        }
+
+        // Default sampling: all 100 toggles counted, 1 in 8 of them timed
+        metrics.reset();
+        metrics.setSampleInterval(TaskMetrics.DEFAULT_SAMPLE_INTERVAL);
+        for (int i = 0; i < 100; i++) {
+            tm.toggleTaskStatus(1);
+        }
+        assertEquals(100, metrics.getCount(TaskMetrics.Operation.TOGGLE));
+        assertEquals(13, metrics.getLatency(TaskMetrics.Operation.TOGGLE).getCount());
+        assertCounts(metrics, 0, 0, 100, 0, 0, 0, 0);
+
+        metrics.setEnabled(false);
+        tm.toggleTaskStatus(1);
+        tm.addTask("Not counted", "", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        tm.undo();
+        assertCounts(metrics, 0, 0, 100, 0, 0, 0, 0);
+    }
+
+    private static void assertCounts(TaskMetrics metrics, long add, long update, long toggle, long delete,
+                                     long undo, long redo, long archive) {
+        assertEquals(add, metrics.getCount(TaskMetrics.Operation.ADD), "add");
+        assertEquals(update, metrics.getCount(TaskMetrics.Operation.UPDATE), "update");
+        assertEquals(toggle, metrics.getCount(TaskMetrics.Operation.TOGGLE), "toggle");
+        assertEquals(delete, metrics.getCount(TaskMetrics.Operation.DELETE), "delete");
+        assertEquals(undo, metrics.getCount(TaskMetrics.Operation.UNDO), "undo");
+        assertEquals(redo, metrics.getCount(TaskMetrics.Operation.REDO), "redo");
+        assertEquals(archive, metrics.getCount(TaskMetrics.Operation.ARCHIVE), "archive");
+    }
+}
@@ -0,0 +1,160 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+// Queries in their text form, each answered by the planner and by filtering and sorting
+// getTasks() by hand. Due dates and creation times repeat a lot, so ties (broken by ID) are common.
+class TaskQueryTest {
+    private static final LocalDate JAN_1 = LocalDate.of(2025, 1, 1);
+
+    // What a query should return: the tasks passing `filter`, sorted by `order` (then ID),
+    // the other way round if descending, cut to `limit`
+    private record Case(String text, Predicate<Tasks> filter, Comparator<Tasks> order, boolean descending, int limit) {
+        Case(String text, Predicate<Tasks> filter) {
+            this(text, filter, null, false, Integer.MAX_VALUE);
+        }
+    }
+
+    @Test
+    void resultsMatchFilteringAndSortingByHand() {
+        TaskManager tm = manager();
+        Comparator<Tasks> byDue = Comparator.comparing(Tasks::getDueDate);
+        Comparator<Tasks> byPriority = Comparator.comparing(Tasks::getPriority);
+        Comparator<Tasks> byCreated = Comparator.comparing(Tasks::getCreationTime);
+        LocalDate feb1 = LocalDate.of(2025, 2, 1);
+        LocalDate mar1 = LocalDate.of(2025, 3, 1);
+        LocalDate jul1 = LocalDate.of(2025, 7, 1);
+        Case[] cases = {
+                new Case("", t -> true),
+                new Case("priority=High", t -> t.getPriority() == Tasks.Priority.HIGH),
+                new Case("PRIORITY != low AND !completed", t -> t.getPriority() != Tasks.Priority.LOW && !t.isCompleted()),
+                new Case("completed", Tasks::isCompleted),
+                new Case("completed=false AND priority=medium", t -> !t.isCompleted() && t.getPriority() == Tasks.Priority.MEDIUM),
+                new Case("dueDate < 01/03/2025", t -> t.getDueDate().isBefore(mar1)),
+                new Case("due <= 01/03/2025 AND due >= 01/02/2025", t -> !t.getDueDate().isBefore(feb1) && !t.getDueDate().isAfter(mar1)),
+                new Case("due > 01/02/2025 AND due < 01/03/2025 AND due > 10/02/2025",
+                        t -> t.getDueDate().isAfter(LocalDate.of(2025, 2, 10)) && t.getDueDate().isBefore(mar1)),
+                new Case("dueDate = 01/03/2025", t -> t.getDueDate().equals(mar1)),
+                new Case("dueDate > 20/12/2025", t -> t.getDueDate().isAfter(LocalDate.of(2025, 12, 20))),
+                new Case("id=17", t -> t.getId() == 17),
+                new Case("id=17 AND completed", t -> t.getId() == 17 && t.isCompleted()),
+                new Case("id=4", t -> false),   // deleted
+                new Case("text~\"mil*\"", t -> hasWordStarting(t, "mil")),
+                new Case("priority=High AND priority=Low", t -> false),
+                new Case("completed AND !completed", t -> false),
+                new Case("id=3 AND id=5 AND priority=High", t -> false),
+                new Case("dueDate > 01/06/2025 AND dueDate < 01/03/2025", t -> false),
+                new Case("priority=High AND !completed AND dueDate < 01/07/2025 ORDER BY dueDate LIMIT 50",
+                        t -> t.getPriority() == Tasks.Priority.HIGH && !t.isCompleted() && t.getDueDate().isBefore(jul1), byDue, false, 50),
+                new Case("ORDER BY dueDate", t -> true, byDue, false, Integer.MAX_VALUE),
+                new Case("ORDER BY due DESC LIMIT 75", t -> true, byDue, true, 75),
+                new Case("dueDate >= 01/02/2025 ORDER BY dueDate ASC", t -> !t.getDueDate().isBefore(feb1), byDue, false, Integer.MAX_VALUE),
+                new Case("!completed ORDER BY priority", t -> !t.isCompleted(), byPriority, false, Integer.MAX_VALUE),
+                new Case("ORDER BY priority DESC LIMIT 100", t -> true, byPriority, true, 100),
+                new Case("priority != High ORDER BY priority DESC", t -> t.getPriority() != Tasks.Priority.HIGH, byPriority, true, Integer.MAX_VALUE),
+                new Case("priority=Low ORDER BY dueDate DESC LIMIT 30", t -> t.getPriority() == Tasks.Priority.LOW, byDue, true, 30),
+                new Case("ORDER BY created LIMIT 40", t -> true, byCreated, false, 40),
+                new Case("completed ORDER BY creationTime DESC", Tasks::isCompleted, byCreated, true, Integer.MAX_VALUE),
+                new Case("ORDER BY id DESC", t -> true, Comparator.comparingInt(Tasks::getId), true, Integer.MAX_VALUE),
+                new Case("priority=Medium ORDER BY id DESC LIMIT 5", t -> t.getPriority() == Tasks.Priority.MEDIUM,
+                        Comparator.comparingInt(Tasks::getId), true, 5),
+                new Case("text~\"mil*\" ORDER BY dueDate DESC LIMIT 7", t -> hasWordStarting(t, "mil"), byDue, true, 7),
+                new Case("LIMIT 0", t -> true, null, false, 0),
+                new Case("LIMIT 12", t -> true, null, false, 12),
+        };
+
+        for (Case c : cases) {
+            List<Tasks> expected = byHand(tm, c);
+            TaskQuery query = TaskQuery.parse(c.text());
+            assertEquals(ids(expected), ids(tm.query(query)), c.text());
+            // The text form the query prints reads back as the same query
+            assertEquals(ids(expected), ids(tm.query(TaskQuery.parse(query.toString()))), c.text() + " -> " + query);
+        }
+    }
+
+    @Test
+    void badSyntaxIsRejected() {
+        String[] bad = {
+                "priority=Urgent", "priority < High", "dueDate < 31/13/2025", "dueDate < 2025-01-01", "dueDate ~ 01/01/2025",
+                "ORDER dueDate", "ORDER BY size", "LIMIT", "LIMIT x", "LIMIT -1", "text~\"unclosed", "!priority",
+                "id > 3", "id=seven", "completed=maybe", "foo=1", "priority=High AND", "AND priority=High",
+                "priority=High LIMIT 5 extra", "priority=High OR priority=Low", "priority", "completed completed",
+        };
+        TaskManager tm = manager();
+        for (String text : bad) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> tm.query(text), text);
+            assertTrue(e.getMessage() != null && !e.getMessage().isEmpty(), text);
+        }
+    }
+
+    // 3,000 tasks over 60 due dates, a few hundred deleted, edited or completed. Creation times
+    // are set on restore so plenty of them are equal too.
+    private static TaskManager manager() {
+        TaskManager tm = new TaskManager();
+        Random random = new Random(17);
+        String[] words = {"milk", "mile", "milestone", "bread", "report", "Similar", "MILLER"};
+        StringBuilder csv = new StringBuilder("title,description,dueDate,priority,completed,creationTime\n");
+        for (int i = 0; i < 3_000; i++) {
+            csv.append(words[random.nextInt(words.length)]).append(' ').append(i).append(',')
+                    .append(words[random.nextInt(words.length)]).append(',')
+                    .append(DateFormats.format(JAN_1.plusDays(random.nextInt(60) * 6))).append(',')
+                    .append(Tasks.Priority.values()[random.nextInt(3)].status).append(',')
+                    .append(random.nextInt(4) == 0).append(',')
+                    .append(JAN_1.atStartOfDay().minusHours(random.nextInt(100))).append('\n');
+        }
+        try {
+            tm.importTasks(new StringReader(csv.toString()), TaskTransfer.Format.CSV);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        tm.deleteTask(4);
+        for (int i = 0; i < 300; i++) {
+            int id = 5 + random.nextInt(2_995);
+            switch (i % 3) {
+                case 0 -> tm.deleteTask(id);
+                case 1 -> tm.toggleTaskStatus(id);
+                default -> tm.updateTask(id).dueDate(JAN_1.plusDays(random.nextInt(60) * 6))
+                        .priority(Tasks.Priority.values()[random.nextInt(3)]).apply();
+            }
+        }
+        tm.updateTask(17).title("Pinned").apply();
+        return tm;
+    }
+
+    private static List<Tasks> byHand(TaskManager tm, Case c) {
+        ArrayList<Tasks> found = new ArrayList<>();
+        for (Tasks task : tm.getTasks()) {
+            if (c.filter().test(task)) found.add(task);
+        }
+        Comparator<Tasks> order = c.order() == null ? Comparator.comparingInt(Tasks::getId)
+                : c.order().thenComparingInt(Tasks::getId);
+        found.sort(c.descending() ? order.reversed() : order);
+        return found.subList(0, Math.min(c.limit(), found.size()));
+    }
+
+    private static boolean hasWordStarting(Tasks task, String prefix) {
+        for (String word : (task.getTitle() + " " + task.getDescription()).toLowerCase().split("[^a-z0-9]+")) {
+            if (word.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static List<Integer> ids(Iterable<Tasks> tasks) {
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (Tasks task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,296 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// TaskServer on the loopback interface, talked to over real sockets the way nc would
+class TaskServerTest {
+    private ConcurrentTaskManager manager;
+    private TaskServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        manager = new ConcurrentTaskManager();
+        server = TaskServer.loopback(manager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.close();
+    }
+
+    // Each command's reply, good and bad, and QUIT hanging up
+    @Test
+    void commandsGetTheDocumentedReplies() throws IOException {
+        try (Client client = new Client()) {
+            assertEquals("OK 1", client.ask("ADD\tMilk\tSemi-skimmed\t15/06/2025\tLow"));
+            assertEquals("OK 2", client.ask("add\tBread\t\t16/06/2025\thigh"));
+            assertEquals("OK {\"id\":1,\"title\":\"Milk\",\"description\":\"Semi-skimmed\",\"dueDate\":\"15/06/2025\","
+                    + "\"priority\":\"Low\",\"completed\":false,\"archived\":false,\"creationTime\":\""
+                    + manager.getTask(1).getCreationTime() + "\"}", client.ask("GET\t1"));
+
+            assertEquals("OK", client.ask("UPDATE\t1\ttitle=Oat milk\tdueDate=20/06/2025\tpriority=High"));
+            Tasks milk = manager.getTask(1);
+            assertEquals("Oat milk", milk.getTitle());
+            assertEquals(LocalDate.of(2025, 6, 20), milk.getDueDate());
+            assertEquals(Tasks.Priority.HIGH, milk.getPriority());
+            assertEquals("Semi-skimmed", milk.getDescription());
+
+            assertEquals("OK", client.ask("TOGGLE\t1"));
+            assertTrue(manager.getTask(1).isCompleted());
+            assertEquals("OK", client.ask("DELETE\t2"));
+            assertNull(manager.getTask(2));
+            assertEquals("OK 1", client.ask("ARCHIVE"));
+            assertEquals("OK", client.ask("PING"));
+
+            assertEquals("ERR No task with ID 2", client.ask("GET\t2"));
+            assertEquals("ERR No task with ID 2", client.ask("TOGGLE\t2"));
+            assertEquals("ERR No task with ID 7", client.ask("DELETE\t7"));
+            assertEquals("ERR No task with ID 9", client.ask("UPDATE\t9\ttitle=x"));
+            assertEquals("ERR Not a valid task ID: one", client.ask("GET\tone"));
+            assertEquals("ERR Not a valid date (dd/MM/yyyy): 32/01/2025", client.ask("ADD\tX\t\t32/01/2025\tLow"));
+            assertEquals("ERR Priority must be Low, Medium or High: Urgent", client.ask("ADD\tX\t\t01/02/2025\tUrgent"));
+            assertEquals("ERR Title must not be empty", client.ask("ADD\t \t\t01/02/2025\tLow"));
+            assertEquals("ERR Usage: GET <id>", client.ask("GET"));
+            assertEquals("ERR Unknown field: colour", client.ask("UPDATE\t1\tcolour=red"));
+            assertEquals("ERR Unknown command: FETCH", client.ask("FETCH\t1"));
+            assertEquals("ERR Unknown view: everything", client.ask("LIST\teverything"));
+            assertEquals(0, manager.size());   // none of those added anything
+            assertEquals(1, manager.getArchivedTasks().size());
+
+            assertEquals("OK", client.ask("QUIT"));
+            assertNull(client.in.readLine());
+        }
+    }
+
+    // Every connection has its own history: UNDO only takes back that client's changes,
+    // and is refused if someone else has changed the task since
+    @Test
+    void undoIsPerConnection() throws IOException {
+        try (Client alice = new Client(); Client bob = new Client()) {
+            assertEquals("OK 1", alice.ask("ADD\tAlice's\t\t01/07/2025\tLow"));
+            assertEquals("OK 2", bob.ask("ADD\tBob's\t\t01/07/2025\tLow"));
+            assertEquals("OK", bob.ask("UNDO"));
+            assertNull(manager.getTask(2));
+            assertEquals("Alice's", manager.getTask(1).getTitle());
+            assertEquals("ERR Nothing to undo", bob.ask("UNDO"));
+            assertEquals("OK", bob.ask("REDO"));
+            assertEquals("ERR Nothing to redo", bob.ask("REDO"));
+            assertEquals("Bob's", manager.getTask(2).getTitle());
+
+            // Bob edits the task Alice added: Alice's undo of adding it is refused (and dropped,
+            // since it could never apply cleanly again), while Bob can still undo his edit
+            assertEquals("OK", bob.ask("UPDATE\t1\ttitle=Bob was here"));
+            assertEquals("ERR Someone else changed those tasks, can't undo", alice.ask("UNDO"));
+            assertEquals("Bob was here", manager.getTask(1).getTitle());
+            assertEquals("ERR Nothing to undo", alice.ask("UNDO"));
+            assertEquals("OK", bob.ask("UNDO"));
+            assertEquals("Alice's", manager.getTask(1).getTitle());
+            assertEquals("Bob's", manager.getTask(2).getTitle());
+        }
+        // A new connection starts with nothing to undo (and the old sessions are gone)
+        try (Client carol = new Client()) {
+            assertEquals("ERR Nothing to undo", carol.ask("UNDO"));
+        }
+    }
+
+    // LIST sends at most `limit` tasks (100 if not given), in the view's order
+    @Test
+    void listStopsAtTheLimit() throws IOException {
+        try (Client client = new Client()) {
+            for (int i = 0; i < 250; i++) {
+                client.send("ADD\tTask " + i + "\t\t" + DateFormats.format(LocalDate.of(2025, 1, 1).plusDays(249 - i)) + "\t"
+                        + Tasks.Priority.values()[i % 3].status);
+            }
+            for (int i = 0; i < 250; i++) {
+                client.in.readLine();
+            }
+            for (int id = 1; id <= 250; id += 5) {
+                client.ask("TOGGLE\t" + id);
+            }
+
+            assertEquals(ids(manager.getTasks(), 100), client.list("LIST\ttasks"));
+            assertEquals(ids(manager.getTasks(), 5), client.list("LIST\ttasks\t5"));
+            assertEquals(ids(manager.getTasks(), 250), client.list("LIST\ttasks\t100000"));
+            assertEquals(List.of(), client.list("LIST\ttasks\t0"));
+            assertEquals(List.of(), client.list("LIST\ttasks\t-3"));
+            assertEquals(List.of(1, 6, 11), client.list("LIST\tcompleted\t3"));
+            assertEquals(List.of(250, 249), client.list("LIST\tdueDate\t2"));
+            assertEquals(ids(manager.sortByPriority(), 7), client.list("LIST\tpriority\t7"));
+            assertEquals(ids(manager.sortByCreationTime(), 9), client.list("LIST\tcreated\t9"));
+            assertEquals("ERR Not a valid limit: ten", client.ask("LIST\ttasks\tten"));
+            client.ask("ARCHIVE");
+            assertEquals(List.of(1, 6), client.list("LIST\tarchived\t2"));
+        }
+    }
+
+    // The manager's limited reads are the front of the full ones, whether or not a snapshot is current
+    @Test
+    void limitedReadsMatchTheFullLists() {
+        for (int i = 0; i < 300; i++) {
+            manager.addTask("T" + i, "", LocalDate.of(2025, 1, 1).plusDays(i % 17), Tasks.Priority.values()[i % 3]);
+            if (i % 4 == 0) manager.toggleTaskStatus(i + 1);
+        }
+        manager.archiveCompletedTasks();
+        for (int id = 2; id <= 300; id += 9) {
+            manager.toggleTaskStatus(id);
+        }
+        List<Supplier<List<Tasks>>> full = List.of(manager::getTasks, manager::getCompletedTasks, manager::getArchivedTasks,
+                manager::sortByPriority, manager::sortByDueDate, manager::sortByCreationTime);
+        List<IntFunction<List<Tasks>>> limited = List.of(manager::getTasks, manager::getCompletedTasks, manager::getArchivedTasks,
+                manager::sortByPriority, manager::sortByDueDate, manager::sortByCreationTime);
+        int[] limits = {0, 1, 33, 150, 1_000};
+        for (boolean current : new boolean[]{false, true}) {
+            manager.addTask("Later", "", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);   // every snapshot is stale again
+            List<List<Tasks>> first = new ArrayList<>();
+            for (int view = 0; view < full.size(); view++) {
+                if (current) full.get(view).get();
+                for (int limit : limits) {
+                    first.add(limited.get(view).apply(limit));
+                }
+            }
+            int next = 0;
+            for (int view = 0; view < full.size(); view++) {
+                List<Tasks> all = full.get(view).get();
+                for (int limit : limits) {
+                    assertEquals(all.subList(0, Math.min(limit, all.size())), first.get(next++),
+                            "view " + view + ", limit " + limit + (current ? ", from the snapshot" : ", copied"));
+                }
+            }
+        }
+    }
+
+    // What escape() writes, unescape() (and so the server) reads back as it was
+    @Test
+    void escapeRoundTrips() throws IOException {
+        String[] texts = {"plain", "tab\there", "two\nlines", "back\\slash", "\\n is not a new line", "\\", "ends with \\",
+                "\t\n\\", "", "ünï€ ✓"};
+        for (String text : texts) {
+            assertEquals(text, TaskServer.unescape(TaskServer.escape(text)));
+            String escaped = TaskServer.escape(text);
+            assertTrue(escaped.indexOf('\t') < 0 && escaped.indexOf('\n') < 0, escaped);
+        }
+        assertEquals("a line", TaskServer.escape("a line\r"));
+
+        try (Client client = new Client()) {
+            for (int i = 0; i < texts.length; i++) {
+                String title = "Title " + texts[i];
+                assertEquals("OK " + (i + 1), client.ask("ADD\t" + TaskServer.escape(title) + "\t" + TaskServer.escape(texts[i])
+                        + "\t01/01/2025\tLow"));
+                assertEquals(title, manager.getTask(i + 1).getTitle());
+                assertEquals(texts[i], manager.getTask(i + 1).getDescription());
+            }
+            assertEquals("OK", client.ask("UPDATE\t1\t" + TaskServer.escape("description=a=b\tc")));
+            assertEquals("a=b\tc", manager.getTask(1).getDescription());
+        }
+    }
+
+    // A line past the limit gets one ERR and the connection is closed; other clients carry on
+    @Test
+    void overLongLineIsRefused() throws IOException {
+        try (Client client = new Client(); Client other = new Client()) {
+            assertEquals("OK", client.ask("PING"));
+            // exactly the limit, with no end of line: the server has read all of it when it gives up
+            client.out.write("x".repeat(64 * 1024).getBytes(StandardCharsets.UTF_8));
+            client.out.flush();
+            assertEquals("ERR Line longer than 65536 bytes", client.in.readLine());
+            assertNull(client.in.readLine());
+
+            // Just under the limit is fine
+            assertEquals("OK 1", other.ask("ADD\t" + "y".repeat(60_000) + "\t\t01/01/2025\tLow"));
+            assertEquals(60_000, manager.getTask(1).getTitle().length());
+        }
+    }
+
+    // Many requests sent in one go, without waiting: the replies come back in the same order
+    @Test
+    void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+        try (Client client = new Client()) {
+            StringBuilder burst = new StringBuilder();
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= 2_000; i++) {
+                burst.append("ADD\tTask ").append(i).append("\t\t01/01/2025\tLow\n");
+                expected.add("OK " + i);
+                if (i % 10 == 0) {
+                    burst.append("TOGGLE\t").append(i).append('\n');
+                    expected.add("OK");
+                    burst.append("GET\t").append(i + 1).append('\n');
+                    expected.add("ERR No task with ID " + (i + 1));
+                }
+            }
+            burst.append("QUIT\n");
+            expected.add("OK");
+            client.out.write(burst.toString().getBytes(StandardCharsets.UTF_8));
+            client.out.flush();
+
+            List<String> replies = new ArrayList<>();
+            for (String line = client.in.readLine(); line != null; line = client.in.readLine()) {
+                replies.add(line);
+            }
+            assertEquals(expected, replies);
+            assertEquals(200, manager.getCompletedTasks().size());
+        }
+    }
+
+    private static List<Integer> ids(List<Tasks> tasks, int limit) {
+        return tasks.subList(0, Math.min(limit, tasks.size())).stream().map(Tasks::getId).toList();
+    }
+
+    // One connection, reading and writing UTF-8 lines
+    private class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final OutputStream out;
+
+        Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            socket.setSoTimeout(10_000);   // a missing reply fails the test instead of hanging it
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = socket.getOutputStream();
+        }
+
+        void send(String request) throws IOException {
+            out.write((request + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        String ask(String request) throws IOException {
+            send(request);
+            return in.readLine();
+        }
+
+        // The IDs in a LIST reply, checking the count it starts with
+        List<Integer> list(String request) throws IOException {
+            String first = ask(request);
+            assertTrue(first.startsWith("OK "), first);
+            int count = Integer.parseInt(first.substring(3));
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String json = in.readLine();
+                ids.add(Integer.parseInt(json.substring("{\"id\":".length(), json.indexOf(','))));
+            }
+            return ids;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
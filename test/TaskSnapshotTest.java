@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Snapshots: what gets written is what gets read back, and a reopen puts the snapshot
+// and the log written after it back together.
+// Reading goes through windows much smaller than the file, so tasks keep landing across
+// window edges (and some are bigger than a whole window).
+class TaskSnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTheSameThroughAnyWindow() throws IOException {
+        Path log = dir.resolve("tasks.log");
+        TaskManager tm = filled(log);
+        tm.checkpoint();
+        List<String> expected = new ArrayList<>();
+        for (Tasks task : tm.getTasks()) {
+            expected.add("active " + task);
+        }
+        for (Tasks task : tm.getArchivedTasks()) {
+            expected.add("archived " + task);
+        }
+        tm.close();
+
+        for (long window : new long[]{1_000, 1_500, 4_096, 1 << 20}) {
+            List<String> read = new ArrayList<>();
+            TaskSnapshot.read(TaskSnapshot.pathFor(log), new TaskSnapshot.Loader() {
+                @Override
+                public void begin(int nextId, int activeCount, int archivedCount) {}
+
+                @Override
+                public void active(Tasks task) {read.add("active " + task);}
+
+                @Override
+                public void archived(Tasks task) {read.add("archived " + task);}
+
+                @Override
+                public void archivedInFile(int count, long stringsEnd, int[] archivedCounts) {
+                    throw new AssertionError("a heap archive is copied into the snapshot");
+                }
+            }, window);
+            assertEquals(expected, read, "window of " + window + " bytes");
+        }
+    }
+
+    // Changes after the last checkpoint come from the log; a checkpoint also empties the log
+    @Test
+    void reopensFromSnapshotAndLogTail() throws IOException {
+        Path log = dir.resolve("tasks.log");
+        TaskManager tm = filled(log);
+        tm.checkpoint();
+        long compacted = Files.size(log);
+        tm.updateTask(2).title("after the snapshot").apply();
+        tm.deleteTask(4);
+        tm.undo();
+        tm.toggleTaskStatus(6);
+        tm.archiveCompletedTasks();
+        String saved = TaskManagerTest.dump(tm);
+        tm.close();
+        assertTrue(compacted < 1_000, "the log starts again after a checkpoint");
+
+        TaskManager reopened = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        assertEquals(saved, TaskManagerTest.dump(reopened));
+        reopened.close();
+    }
+
+    // 3,000 tasks of very mixed sizes, every other one archived
+    private static TaskManager filled(Path log) throws IOException {
+        TaskManager tm = TaskManager.open(log, TaskLog.FsyncPolicy.never());
+        Random random = new Random(2);
+        for (int i = 0; i < 3_000; i++) {
+            tm.addTask("T" + i + "x".repeat(random.nextInt(300)), "d".repeat(random.nextInt(2_000)),
+                    TaskManagerTest.date(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(300))), Tasks.Priority.values()[random.nextInt(3)]);
+        }
+        for (int id = 1; id < 3_000; id += 2) {
+            tm.toggleTaskStatus(id);
+        }
+        tm.archiveCompletedTasks();
+        return tm;
+    }
+}
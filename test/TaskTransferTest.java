@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// Export and import: every task comes back as it went out (awkward characters and all),
+// a bad record stops the import before anything is added, and an import undoes in one step
+class TaskTransferTest {
+    private static final String[] AWKWARD = {
+            "Plain", "Comma, in the middle", "\"Quoted\" words", "Quote \" alone", "Tab\there", "Two\nlines",
+            "Windows\r\nline", "Ends with a quote\"", ",leading comma", "", "Back\\slash \\n not a newline",
+            "Unicode: café ✓ 日本", "Control \u0001 char", " spaces around ", "\"", "\"\"",
+    };
+
+    @Test
+    void csvRoundTripKeepsEveryField() throws IOException {
+        roundTrip(TaskTransfer.Format.CSV);
+    }
+
+    @Test
+    void jsonLinesRoundTripKeepsEveryField() throws IOException {
+        roundTrip(TaskTransfer.Format.JSONL);
+    }
+
+    // A bad record anywhere (here after some good ones) throws with its line number,
+    // and none of the records before it were added
+    @Test
+    void malformedRecordDoesNotHalfImport() throws IOException {
+        String header = "title,description,dueDate,priority\n";
+        String[][] bad = {
+                {header + "One,a,01/01/2025,High\nTwo,b,02/01/2025,Low\nThree,c,31/13/2025,Low\nFour,d,04/01/2025,Low\n", "Line 4"},
+                {header + "One,a,01/01/2025,High\nTwo,b,02/01/2025,Urgent\n", "Line 3"},
+                {header + "One,a,01/01/2025,High\n,no title,02/01/2025,Low\n", "Line 3"},
+                {header + "One,a,01/01/2025,High\n\"Two,b,02/01/2025,Low\n", "Line 3"},
+                {header + "One,\"a\"x,01/01/2025,High\n", "Line 2"},
+                {header + "One,a,01/01/2025,High,extra\n", "Line 2"},
+        };
+        for (String[] input : bad) {
+            check(TaskTransfer.Format.CSV, input[0], input[1]);
+        }
+        String good = "{\"title\":\"One\",\"dueDate\":\"01/01/2025\",\"priority\":\"High\"}\n";
+        String[][] badJson = {
+                {good + good + "{\"title\":\"Three\",\"dueDate\":\"1/1/2025\",\"priority\":\"High\"}\n", "Line 3"},
+                {good + "{\"title\":\"Two\",\"dueDate\":\"01/01/2025\",\"priority\":\"High\"\n", "Line 2"},
+                {good + "{\"title\":\"Two\",\"tags\":[\"x\"],\"dueDate\":\"01/01/2025\",\"priority\":\"High\"}\n", "Line 2"},
+                {good + "[1, 2]\n", "Line 2"},
+                {good + "{\"title\":\"Two\",\"dueDate\":\"01/01/2025\",\"priority\":\"High\",\"creationTime\":\"yesterday\"}\n", "Line 2"},
+        };
+        for (String[] input : badJson) {
+            check(TaskTransfer.Format.JSONL, input[0], input[1]);
+        }
+    }
+
+    // However many tasks came in, one undo takes them all away and one redo brings the same ones back
+    @Test
+    void importUndoesAsOneStep() throws IOException {
+        TaskManager tm = TaskManagerTest.filledManager(3);
+        StringBuilder csv = new StringBuilder("title,description,dueDate,priority,completed\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("Imported ").append(i).append(",\"Row, ").append(i).append("\",15/06/2025,Medium,").append(i % 2 == 0).append('\n');
+        }
+        assertEquals(500, tm.importTasks(new StringReader(csv.toString()), TaskTransfer.Format.CSV));
+        assertEquals(503, tm.getTasks().size());
+        assertEquals(4, tm.getUndoCount());
+        assertEquals("Imported 499", tm.getTask(503).getTitle());
+        List<String> imported = describe(tm.getTasks());
+
+        tm.undo();
+        assertEquals(3, tm.getTasks().size());
+        assertEquals(3, tm.getUndoCount());
+        tm.redo();
+        assertEquals(imported, describe(tm.getTasks()));
+        assertEquals(250, tm.getCompletedTasks().size());
+
+        // New tasks carry on after the imported IDs
+        tm.addTask("After", "", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        assertEquals("After", tm.getTask(504).getTitle());
+    }
+
+    private static void roundTrip(TaskTransfer.Format format) throws IOException {
+        TaskManager source = new TaskManager();
+        LocalDateTime created = LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_456_789);
+        for (int i = 0; i < AWKWARD.length; i++) {
+            String title = AWKWARD[i].isEmpty() ? "Untitled" : AWKWARD[i];   // import insists on a title
+            String description = AWKWARD[AWKWARD.length - 1 - i];
+            source.addTask(title, description, LocalDate.of(2025, 1, 1).plusDays(i * 40), Tasks.Priority.values()[i % 3]);
+        }
+        source.toggleTaskStatus(2);
+        source.toggleTaskStatus(5);
+        StringWriter out = new StringWriter();
+        source.exportTasks(out, format, false);
+
+        // Fixed creation times too (the ones addTask gave are "now"), with and without seconds/nanos
+        TaskManager target = new TaskManager();
+        StringWriter withTimes = new StringWriter();
+        ArrayList<Tasks> timed = new ArrayList<>();
+        for (Tasks task : source.getTasks()) {
+            timed.add(Tasks.restore(task.getId(), task.getTitle(), task.getDescription(), task.getDueDate(),
+                    task.getPriority(), task.getId() % 2 == 0 ? created : created.withSecond(0).withNano(0),
+                    task.isCompleted(), false));
+        }
+        TaskTransfer.write(withTimes, format, timed);
+        assertEquals(AWKWARD.length, target.importTasks(new StringReader(withTimes.toString()), format));
+        assertEquals(describe(timed), describe(target.getTasks()));
+
+        // And the export itself reads back the same
+        TaskManager again = new TaskManager();
+        again.importTasks(new StringReader(out.toString()), format);
+        assertEquals(describe(source.getTasks()), describe(again.getTasks()));
+    }
+
+    private static void check(TaskTransfer.Format format, String input, String line) {
+        TaskManager tm = TaskManagerTest.filledManager(2);
+        List<String> before = describe(tm.getTasks());
+        IOException e = assertThrows(IOException.class, () -> tm.importTasks(new StringReader(input), format), input);
+        assertTrue(e.getMessage().startsWith(line + ":"), e.getMessage());
+        assertEquals(before, describe(tm.getTasks()));
+        assertEquals(2, tm.getUndoCount());
+        assertEquals(3, tm.getNextId());
+    }
+
+    private static List<String> describe(Iterable<Tasks> tasks) {
+        ArrayList<String> out = new ArrayList<>();
+        for (Tasks task : tasks) {
+            out.add(task.toString());
+        }
+        return out;
+    }
+}
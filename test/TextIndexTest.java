@@ -0,0 +1,162 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+// The search index kept up to date through adds, edits, deletes, undo/redo and archiving,
+// checked after every few changes against a plain scan of every task's words
+class TextIndexTest {
+    // Words that share prefixes, differ only in case, and carry punctuation around them
+    private static final String[] WORDS = {
+            "milk", "Milk", "MILKSHAKE", "mill", "miller", "bread", "breakfast", "buy", "Buy!", "report",
+            "reports", "q3", "Q4", "2025", "café", "CAFÉ", "tea", "team", "teammate", "x", "deadline,", "(urgent)",
+    };
+
+    @Test
+    void staysInStepWithEveryKindOfChange() {
+        Random random = new Random(16);
+        TaskManager tm = new TaskManager();
+        TextIndex index = tm.getTextIndex();   // built up front, so every change below goes through the listener
+        for (int i = 0; i < 40; i++) {
+            tm.addTask(text(random, 3), text(random, 6), LocalDate.of(2025, 1, 1).plusDays(i), Tasks.Priority.LOW);
+        }
+        check(tm, index);
+
+        for (int step = 0; step < 600; step++) {
+            int id = 1 + random.nextInt(tm.getNextId() - 1);
+            switch (random.nextInt(9)) {
+                case 0 -> tm.addTask(text(random, 1 + random.nextInt(4)), text(random, random.nextInt(8)),
+                        LocalDate.of(2025, 6, 1), Tasks.Priority.MEDIUM);
+                case 1 -> tm.updateTask(id).title(text(random, 1 + random.nextInt(4))).apply();
+                case 2 -> tm.updateTask(id).description(text(random, random.nextInt(8))).apply();
+                case 3 -> tm.updateTask(id).title(text(random, 2)).description(text(random, 2)).apply();
+                case 4 -> tm.updateTask(id).priority(Tasks.Priority.HIGH).apply();   // words unchanged
+                case 5 -> tm.deleteTask(id);
+                case 6 -> tm.toggleTaskStatus(id);
+                case 7 -> {
+                    if (random.nextInt(4) == 0) tm.archiveCompletedTasks();
+                    else tm.undo();
+                }
+                default -> tm.redo();
+            }
+            if (step % 10 == 0) check(tm, index);
+        }
+        check(tm, index);
+        while (tm.getUndoCount() > 0) {
+            tm.undo();
+        }
+        check(tm, index);
+    }
+
+    // The ranking: a title word beats the same word in a description, and a word in
+    // fewer tasks counts for more than a common one
+    @Test
+    void titleWordsAndRareWordsRankFirst() {
+        TaskManager tm = new TaskManager();
+        tm.addTask("Weekly notes", "report for the team", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        tm.addTask("Report", "weekly", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        tm.addTask("Common", "common report", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        tm.addTask("Common", "common rare", LocalDate.of(2025, 1, 1), Tasks.Priority.LOW);
+        assertArrayEquals(new int[]{2, 1, 3}, tm.search("report", 10));
+        assertArrayEquals(new int[]{2}, tm.search("report", 1));
+        assertArrayEquals(new int[]{1, 2}, tm.search("REPORT weekly", 10));   // same score, so by ID
+        assertArrayEquals(new int[]{4, 3}, tm.search("common r*", 10));      // "rare" is in one task, "report" in three
+        assertArrayEquals(new int[0], tm.search("report nowhere", 10));
+        assertArrayEquals(new int[0], tm.search("   ", 10));
+    }
+
+    // Every query in the list against every task: the IDs matching() returns, and the
+    // ranked search() with and without a limit
+    private static void check(TaskManager tm, TextIndex index) {
+        List<String> queries = new ArrayList<>();
+        for (String word : WORDS) {
+            queries.add(word);
+            queries.add(word.toUpperCase());
+            String bare = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            for (int length = 1; length <= Math.min(3, bare.length()); length++) {
+                queries.add(bare.substring(0, length) + "*");
+            }
+        }
+        queries.add("milk bread");
+        queries.add("mil* buy");
+        queries.add("te* tea*");
+        queries.add("report q3 2025");
+        queries.add("nothing");
+        queries.add("milk nothing");
+
+        long postings = 0;
+        TreeSet<String> allTerms = new TreeSet<>();
+        for (Tasks task : tm.getTasks()) {
+            HashSet<String> terms = terms(task);
+            postings += terms.size();
+            allTerms.addAll(terms);
+        }
+        assertEquals(allTerms.size(), index.getTermCount());
+        assertEquals(postings, index.getPostingCount());
+
+        for (String query : queries) {
+            int[] expected = scan(tm, query);
+            assertArrayEquals(expected, index.matching(query), query);
+            int[] ranked = index.search(query, Integer.MAX_VALUE);
+            int[] sorted = ranked.clone();
+            Arrays.sort(sorted);
+            assertArrayEquals(expected, sorted, query);
+            assertArrayEquals(Arrays.copyOf(ranked, Math.min(3, ranked.length)), index.search(query, 3), query);
+        }
+    }
+
+    // IDs (in order) of the tasks that have every word of the query; word* is any word starting with it
+    private static int[] scan(TaskManager tm, String query) {
+        String[] wanted = query.trim().split("\\s+");
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (Tasks task : tm.getTasks()) {
+            HashSet<String> terms = terms(task);
+            boolean all = true;
+            for (String word : wanted) {
+                boolean prefix = word.endsWith("*");
+                String term = words(prefix ? word.substring(0, word.length() - 1) : word).get(0);
+                all &= prefix ? terms.stream().anyMatch(t -> t.startsWith(term)) : terms.contains(term);
+            }
+            if (all) ids.add(task.getId());
+        }
+        return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private static HashSet<String> terms(Tasks task) {
+        HashSet<String> terms = new HashSet<>(words(task.getTitle()));
+        terms.addAll(words(task.getDescription()));
+        return terms;
+    }
+
+    // Runs of letters and digits, lower-cased a character at a time (what the index calls a word)
+    private static List<String> words(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                word.append(Character.toLowerCase(text.charAt(i)));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static String text(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}